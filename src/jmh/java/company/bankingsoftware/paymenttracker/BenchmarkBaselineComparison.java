@@ -0,0 +1,101 @@
+package company.bankingsoftware.paymenttracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares JMH results in CSV format with the stored baseline results. Every result row (including gc profiler rows
+ * like <code>gc.alloc.rate.norm</code>) is matched by benchmark, mode and params and its score change is printed.
+ *
+ * Arguments: baseline results file, current results file.
+ */
+public class BenchmarkBaselineComparison {
+
+    private static final int BENCHMARK = 0;
+    private static final int MODE = 1;
+    private static final int SCORE = 4;
+    private static final int SCORE_ERROR = 5;
+    private static final int UNIT = 6;
+    private static final int FIRST_PARAM = 7;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkBaselineComparison <baseline.csv> <results.csv>");
+            System.exit(1);
+        }
+
+        final Path baselinePath = Paths.get(args[0]);
+        if (!Files.exists(baselinePath)) {
+            System.err.println(String.format("No baseline %s, store one with: ./gradlew jmhBaseline", baselinePath));
+            System.exit(1);
+        }
+
+        final Map<String, List<String>> baselineRows = readResults(baselinePath);
+        final Map<String, List<String>> currentRows = readResults(Paths.get(args[1]));
+
+        System.out.println(String.format("%-100s %16s %16s %9s  %s", "Benchmark", "Baseline", "Current", "Change", "Unit"));
+        currentRows.forEach((key, currentRow) -> {
+            final List<String> baselineRow = baselineRows.get(key);
+            final double currentScore = toDouble(currentRow.get(SCORE));
+            if (baselineRow == null) {
+                System.out.println(String.format("%-100s %16s %16.3f %9s  %s", key, "-", currentScore, "new", currentRow.get(UNIT)));
+            } else {
+                final double baselineScore = toDouble(baselineRow.get(SCORE));
+                final String change = baselineScore == 0
+                        ? "-"
+                        : String.format("%+.1f%%", (currentScore - baselineScore) / baselineScore * 100);
+                System.out.println(String.format("%-100s %16.3f %16.3f %9s  %s (error %s)",
+                        key, baselineScore, currentScore, change, currentRow.get(UNIT), currentRow.get(SCORE_ERROR)));
+            }
+        });
+    }
+
+    private static Map<String, List<String>> readResults(Path path) throws IOException {
+        final Map<String, List<String>> rows = new LinkedHashMap<>();
+        final List<String> lines = Files.readAllLines(path);
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            final List<String> row = splitCsvLine(line);
+            final StringBuilder key = new StringBuilder(row.get(BENCHMARK)).append(' ').append(row.get(MODE));
+            for (int i = FIRST_PARAM; i < row.size(); i++) {
+                key.append(' ').append(row.get(i));
+            }
+            rows.put(key.toString(), row);
+        }
+
+        return rows;
+    }
+
+    private static List<String> splitCsvLine(String line) {
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+
+        return fields;
+    }
+
+    private static double toDouble(String value) {
+        // scores are written with decimal comma in some locales
+        return value.isEmpty() || "NaN".equals(value) ? Double.NaN : Double.parseDouble(value.replace(',', '.'));
+    }
+}
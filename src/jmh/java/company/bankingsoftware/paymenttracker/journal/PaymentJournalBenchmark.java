@@ -0,0 +1,82 @@
+package company.bankingsoftware.paymenttracker.journal;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput cost of journaling payments with different fsync policies, payments are committed in batches
+ * as the transaction ledger service commits one drained batch of payment events.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentJournalBenchmark {
+
+    private static final int BATCH_SIZE = 256;
+    private static final String[] CURRENCIES = {"USD", "HKD", "RMB", "CZK", "GBP", "EUR"};
+
+    @Param({"BATCH", "INTERVAL", "NONE"})
+    private PaymentJournal.FsyncPolicy fsyncPolicy;
+
+    private final Payment[] payments = new Payment[BATCH_SIZE];
+    private Path path;
+    private PaymentJournal paymentJournal;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            payments[i] = Payment.builder()
+                    .withCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)])
+                    .withAmount(Money.valueOf(random.nextInt(2_000_000) - 1_000_000, 2))
+                    .build();
+        }
+    }
+
+    // new journal every iteration, so the file does not grow over the whole run
+    @Setup(Level.Iteration)
+    public void openPaymentJournal() throws IOException {
+        path = Files.createTempFile("payment-tracker-benchmark", ".journal");
+        Files.delete(path);
+        paymentJournal = new PaymentJournal(path, fsyncPolicy, 1000, java.util.logging.Level.OFF);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closePaymentJournal() throws IOException {
+        paymentJournal.close();
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long appendBatchAndCommit() throws IOException {
+        for (Payment payment : payments) {
+            paymentJournal.append(payment);
+        }
+        paymentJournal.commit();
+        return paymentJournal.position();
+    }
+}
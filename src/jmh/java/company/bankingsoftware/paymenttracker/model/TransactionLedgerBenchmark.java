@@ -0,0 +1,81 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares hash map and dense transaction ledgers for few currencies and for all possible currency codes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TransactionLedgerBenchmark {
+
+    private static final int PAYMENT_COUNT = 1024;
+
+    @Param({"8", "17576"})
+    private int currencyCount;
+
+    private Payment[] payments;
+    private int[] currencyCodes;
+    private long[] minorUnits;
+    private int index;
+
+    private TransactionLedger hashMapTransactionLedger;
+    private DenseTransactionLedger denseTransactionLedger;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        payments = new Payment[PAYMENT_COUNT];
+        currencyCodes = new int[PAYMENT_COUNT];
+        minorUnits = new long[PAYMENT_COUNT];
+        for (int i = 0; i < PAYMENT_COUNT; i++) {
+            currencyCodes[i] = random.nextInt(currencyCount);
+            minorUnits[i] = random.nextInt(2_000_000) - 1_000_000;
+            payments[i] = Payment.builder()
+                    .withCurrency(CurrencyCode.toCurrency(currencyCodes[i]))
+                    .withAmount(Money.valueOf(minorUnits[i], 2))
+                    .build();
+        }
+
+        hashMapTransactionLedger = new HashMapTransactionLedger();
+        denseTransactionLedger = new DenseTransactionLedger();
+    }
+
+    @Benchmark
+    public TransactionLedger hashMapAddPayment() {
+        return hashMapTransactionLedger.addPayment(payments[nextIndex()]);
+    }
+
+    @Benchmark
+    public TransactionLedger denseAddPayment() {
+        return denseTransactionLedger.addPayment(payments[nextIndex()]);
+    }
+
+    @Benchmark
+    public TransactionLedger denseAddMinorUnits() {
+        final int payment = nextIndex();
+        return denseTransactionLedger.addMinorUnits(currencyCodes[payment], minorUnits[payment], 2);
+    }
+
+    private int nextIndex() {
+        index = index + 1 == PAYMENT_COUNT ? 0 : index + 1;
+        return index;
+    }
+}
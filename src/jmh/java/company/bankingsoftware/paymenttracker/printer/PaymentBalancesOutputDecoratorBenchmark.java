@@ -0,0 +1,113 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.exchange.ExchangeRateProvider;
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+import company.bankingsoftware.paymenttracker.model.VersionedTransactionLedger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorating of payment balances for the console output, for currencies with exchange rate only
+ * and for all possible currency codes. The map is decorated into a new string, the snapshot into a reused buffer
+ * as the console output does, delta report of the snapshot contains {@link #CHANGED_CURRENCY_COUNT} changed balances.
+ * The snapshot is also decorated with exchange into {@link #BASE_CURRENCIES} instead of USD only
+ * and limited to {@link #TOP_COUNT} balances with the highest USD value.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentBalancesOutputDecoratorBenchmark {
+
+    private static final String[] EXCHANGE_RATE_CURRENCIES = {"USD", "CZK", "GBP", "EUR", "RMB", "HKD"};
+    private static final int CHANGED_CURRENCY_COUNT = 3;
+    private static final List<String> BASE_CURRENCIES = List.of("USD", "EUR", "GBP");
+    private static final int TOP_COUNT = 3;
+
+    @Param({"6", "17576"})
+    private int currencyCount;
+
+    private final PaymentBalancesOutputDecorator paymentBalancesOutputDecorator = new PaymentBalancesConsoleOutputDecorator();
+    private final PaymentBalancesOutputDecorator baseCurrenciesOutputDecorator = new PaymentBalancesConsoleOutputDecorator(
+            ExchangeRateProvider.of(PaymentBalancesConsoleOutputDecorator.DEFAULT_EXCHANGE_RATES), BASE_CURRENCIES);
+    private final PaymentBalancesOutputDecorator topOutputDecorator = new PaymentBalancesConsoleOutputDecorator(
+            ExchangeRateProvider.of(PaymentBalancesConsoleOutputDecorator.DEFAULT_EXCHANGE_RATES),
+            PaymentBalancesConsoleOutputDecorator.DEFAULT_BASE_CURRENCIES, TOP_COUNT, Money.ZERO);
+    private final Map<String, Money> paymentBalances = new LinkedHashMap<>();
+    private final StringBuilder output = new StringBuilder();
+    private TransactionLedgerSnapshot previousSnapshot;
+    private TransactionLedgerSnapshot transactionLedgerSnapshot;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        for (int i = 0; i < currencyCount; i++) {
+            final String currency = currencyCount == EXCHANGE_RATE_CURRENCIES.length
+                    ? EXCHANGE_RATE_CURRENCIES[i]
+                    : CurrencyCode.toCurrency(i);
+            paymentBalances.put(currency, Money.valueOf(random.nextInt(2_000_000) - 1_000_000, 2));
+        }
+
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+        paymentBalances.forEach((currency, amount) ->
+                transactionLedger.addPayment(Payment.builder().withCurrency(currency).withAmount(amount).build()));
+        previousSnapshot = transactionLedger.snapshot(1);
+        for (int i = 0; i < CHANGED_CURRENCY_COUNT; i++) {
+            final String currency = EXCHANGE_RATE_CURRENCIES[i];
+            if (paymentBalances.containsKey(currency)) {
+                transactionLedger.addPayment(Payment.builder().withCurrency(currency).withAmount(Money.ONE).build());
+            }
+        }
+        transactionLedgerSnapshot = transactionLedger.snapshot(2);
+    }
+
+    @Benchmark
+    public String decorate() {
+        return paymentBalancesOutputDecorator.decorate(paymentBalances);
+    }
+
+    @Benchmark
+    public int decorateSnapshot() {
+        output.setLength(0);
+        return paymentBalancesOutputDecorator.decorate(transactionLedgerSnapshot, output).length();
+    }
+
+    @Benchmark
+    public int decorateSnapshotIntoBaseCurrencies() {
+        output.setLength(0);
+        return baseCurrenciesOutputDecorator.decorate(transactionLedgerSnapshot, output).length();
+    }
+
+    @Benchmark
+    public int decorateSnapshotTop() {
+        output.setLength(0);
+        return topOutputDecorator.decorate(transactionLedgerSnapshot, output).length();
+    }
+
+    @Benchmark
+    public int decorateChanges() {
+        output.setLength(0);
+        return paymentBalancesOutputDecorator.decorateChanges(transactionLedgerSnapshot, previousSnapshot, output).length();
+    }
+}
@@ -0,0 +1,66 @@
+package company.bankingsoftware.paymenttracker.queue;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hand over of payment events from 2 producers to the single consumer through array blocking queue
+ * and through ring buffer with different wait strategies. Consumer throughput is the handoff throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class PaymentEventQueueBenchmark {
+
+    private static final int QUEUE_SIZE = 64;
+
+    @Param({"ARRAY_BLOCKING", "RING_BUFFER_BLOCKING", "RING_BUFFER_YIELDING", "RING_BUFFER_BUSY_SPIN"})
+    private String queue;
+
+    private PaymentEventQueue paymentEventQueue;
+    private final PaymentEvent paymentEvent = PaymentEvent.builder()
+            .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
+            .withPayment(Payment.builder().withCurrency("USD").withAmount(Money.TEN).build())
+            .build();
+
+    @Setup
+    public void setUp() {
+        paymentEventQueue = "ARRAY_BLOCKING".equals(queue)
+                ? new BlockingPaymentEventQueue(new ArrayBlockingQueue<>(QUEUE_SIZE))
+                : new RingBufferPaymentEventQueue(QUEUE_SIZE, RingBufferPaymentEventQueue.WaitStrategy.valueOf(queue.substring("RING_BUFFER_".length())));
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(2)
+    public void put() throws InterruptedException {
+        paymentEventQueue.put(paymentEvent);
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public PaymentEvent take() throws InterruptedException {
+        return paymentEventQueue.take();
+    }
+}
@@ -0,0 +1,73 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading of payment lines piped into the command line input, payments are queued one by one
+ * or in batches of the given size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandLinePaymentReaderBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "HKD", "RMB", "CZK", "GBP", "EUR"};
+
+    @Param({"1000000"})
+    private int lines;
+
+    @Param({"1", "256"})
+    private int batchSize;
+
+    private byte[] input;
+    private long payments;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder paymentLines = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            paymentLines.append(CURRENCIES[random.nextInt(CURRENCIES.length)])
+                    .append(' ')
+                    .append(random.nextInt(2_000_000) - 1_000_000)
+                    .append('\n');
+        }
+        paymentLines.append("quit\n");
+        input = paymentLines.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public long commandLinePaymentReader() {
+        payments = 0;
+        PaymentEventBatcher paymentEventBatcher = batchSize > 1
+                ? new PaymentEventBatcher(this::count, batchSize, 50, java.util.logging.Level.OFF)
+                : null;
+        new CommandLinePaymentReader(
+                new ByteArrayInputStream(input), this::count, new SinglePassPaymentParser(), paymentEventBatcher, java.util.logging.Level.OFF)
+                .readCommandLineInput();
+        return payments;
+    }
+
+    private void count(PaymentEvent paymentEvent) {
+        payments += paymentEvent.getPaymentEventType() == PaymentEvent.PaymentEventType.ADD ? 1 : paymentEvent.getPayments().size();
+    }
+}
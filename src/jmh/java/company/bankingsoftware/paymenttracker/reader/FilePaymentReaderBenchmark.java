@@ -0,0 +1,135 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * Compares loading of a big input file by sequential file payment reader and by memory mapped file payment reader
+ * with different parallelism, loading of its binary conversion by binary file payment reader and loading of the same payments split into many small files by directory payment reader
+ * with the same number of workers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilePaymentReaderBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "HKD", "RMB", "CZK", "GBP", "EUR"};
+
+    @Param({"1000000"})
+    private int lines;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    @Param({"1000"})
+    private int files;
+
+    private Path path;
+    private Path binaryPath;
+    private Path directory;
+    private ForkJoinPool forkJoinPool;
+    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        path = Files.createTempFile("payment-tracker-benchmark", ".txt");
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            for (int i = 0; i < lines; i++) {
+                writer.write(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+                writer.write(' ');
+                writer.write(Integer.toString(random.nextInt(2_000_000) - 1_000_000));
+                writer.write('\n');
+            }
+        }
+        forkJoinPool = new ForkJoinPool(parallelism);
+        binaryPath = Files.createTempFile("payment-tracker-benchmark", ".bin");
+        new BinaryPaymentFileConverter(new SinglePassPaymentParser()).convert(path, binaryPath, false);
+
+        directory = Files.createTempDirectory("payment-tracker-benchmark");
+        List<String> paymentLines = Files.readAllLines(path);
+        int linesPerFile = (lines + files - 1) / files;
+        for (int file = 0; file * linesPerFile < lines; file++) {
+            List<String> filePaymentLines = paymentLines.subList(file * linesPerFile, Math.min(lines, (file + 1) * linesPerFile));
+            Files.write(directory.resolve(String.format("payments-%05d", file)), filePaymentLines);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        forkJoinPool.shutdown();
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(binaryPath);
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path filePath : (Iterable<Path>) paths::iterator) {
+                Files.delete(filePath);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearQueue() {
+        inputPaymentEventsQueue.clear();
+    }
+
+    @Benchmark
+    public int sequentialFilePaymentReader() {
+        new FilePaymentReader(path, inputPaymentEventsQueue::put, new SinglePassPaymentParser(), java.util.logging.Level.OFF)
+                .readFileInput();
+        return inputPaymentEventsQueue.size();
+    }
+
+    @Benchmark
+    public int mappedFilePaymentReader() {
+        new MappedFilePaymentReader(
+                path, inputPaymentEventsQueue::put, new SinglePassPaymentParser(), HashMapTransactionLedger::new,
+                forkJoinPool, 0, java.util.logging.Level.OFF)
+                .readFileInput();
+        return inputPaymentEventsQueue.size();
+    }
+
+    @Benchmark
+    public int binaryFilePaymentReader() {
+        new BinaryFilePaymentReader(binaryPath, inputPaymentEventsQueue::put, forkJoinPool, java.util.logging.Level.OFF)
+                .readFileInput();
+        return inputPaymentEventsQueue.size();
+    }
+
+    @Benchmark
+    public int directoryPaymentReader() throws IOException, InterruptedException {
+        // without journal no done file is kept, every invocation reads all the files again
+        new DirectoryWatchPaymentReader(
+                directory, inputPaymentEventsQueue::put, new SinglePassPaymentParser(), HashMapTransactionLedger::new,
+                false, parallelism, java.util.logging.Level.OFF)
+                .readDirectoryInput();
+        return inputPaymentEventsQueue.size();
+    }
+}
@@ -0,0 +1,77 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.Payment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares regex and single pass payment parsers on the same payment lines.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentParserBenchmark {
+
+    private static final String[] PAYMENT_LINES = {
+            "USD 1000", "HKD 100", "USD -100", "RMB 2000", "HKD 200.5", "CZK -12345.67", "GBP 0.01", "EUR 987654321"
+    };
+
+    private final RegexPaymentParser regexPaymentParser = new RegexPaymentParser();
+    private final SinglePassPaymentParser singlePassPaymentParser = new SinglePassPaymentParser();
+    private final AsciiCharSequence paymentLineView = new AsciiCharSequence();
+
+    private ByteBuffer paymentLineBytes;
+    private int[] paymentLineOffsets;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        paymentLineBytes = ByteBuffer.wrap(String.join("\n", PAYMENT_LINES).getBytes(StandardCharsets.US_ASCII));
+        paymentLineOffsets = new int[PAYMENT_LINES.length + 1];
+        for (int i = 0; i < PAYMENT_LINES.length; i++) {
+            paymentLineOffsets[i + 1] = paymentLineOffsets[i] + PAYMENT_LINES[i].length() + 1;
+        }
+    }
+
+    @Benchmark
+    public Payment regexToPayment() throws ParseException {
+        return regexPaymentParser.toPayment(nextPaymentLine());
+    }
+
+    @Benchmark
+    public Payment singlePassToPayment() throws ParseException {
+        return singlePassPaymentParser.toPayment(nextPaymentLine());
+    }
+
+    @Benchmark
+    public Payment singlePassToPaymentFromBytes() throws ParseException {
+        final int line = nextIndex();
+        return singlePassPaymentParser.toPayment(
+                paymentLineView.wrap(paymentLineBytes, paymentLineOffsets[line], paymentLineOffsets[line + 1] - 1));
+    }
+
+    private String nextPaymentLine() {
+        return PAYMENT_LINES[nextIndex()];
+    }
+
+    private int nextIndex() {
+        index = index + 1 == PAYMENT_LINES.length ? 0 : index + 1;
+        return index;
+    }
+}
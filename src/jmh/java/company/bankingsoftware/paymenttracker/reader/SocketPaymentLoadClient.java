@@ -0,0 +1,80 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load client of the socket payment reader, opens concurrent connections and sends payment lines through every
+ * connection as fast as the payment tracker accepts them, then prints the throughput. Payments are pairs of +100 and -100
+ * of the same currency, so the balances of the payment tracker do not change by the load (with even number of payments).
+ *
+ * Arguments: host, port, number of connections, number of payments per connection.
+ */
+public class SocketPaymentLoadClient {
+
+    private static final String[] CURRENCIES = {"USD", "HKD", "RMB", "CZK", "GBP", "EUR"};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        if (args.length != 4) {
+            System.err.println("Usage: SocketPaymentLoadClient <host> <port> <connections> <payments per connection>");
+            System.exit(1);
+        }
+
+        final InetSocketAddress address = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+        final int connections = Integer.parseInt(args[2]);
+        final long paymentsPerConnection = Long.parseLong(args[3]);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(connections);
+        final long start = System.nanoTime();
+        final List<Future<?>> senders = new ArrayList<>(connections);
+        for (int connection = 0; connection < connections; connection++) {
+            senders.add(executorService.submit(() -> send(address, paymentsPerConnection)));
+        }
+        for (Future<?> sender : senders) {
+            sender.get();
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        executorService.shutdown();
+
+        final long payments = connections * paymentsPerConnection;
+        System.out.println(String.format("Sent %d payments through %d connections in %.3f s - %.0f payments/s.",
+                payments, connections, seconds, payments / seconds));
+    }
+
+    private static void send(InetSocketAddress address, long payments) {
+        try (SocketChannel socketChannel = SocketChannel.open(address)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            for (long payment = 0; payment < payments; payment++) {
+                // +100 and -100 alternate in every currency
+                final String paymentLine = String.format("%s %s\n",
+                        CURRENCIES[(int) (payment / 2 % CURRENCIES.length)], payment % 2 == 0 ? "100" : "-100");
+                if (buffer.remaining() < paymentLine.length()) {
+                    write(socketChannel, buffer);
+                }
+                buffer.put(paymentLine.getBytes(StandardCharsets.US_ASCII));
+            }
+            write(socketChannel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(SocketChannel socketChannel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            socketChannel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,89 @@
+package company.bankingsoftware.paymenttracker.service;
+
+import company.bankingsoftware.paymenttracker.model.DenseTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.BlockingPaymentEventQueue;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventControlLane;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventQueue;
+import company.bankingsoftware.paymenttracker.queue.RingBufferPaymentEventQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Hand over of payment events from a reader thread to the running transaction ledger service.
+ * Input queue is bounded, so in steady state the reader puts payment events as fast as the service applies them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionLedgerServiceBenchmark {
+
+    private static final int QUEUE_SIZE = 1024;
+    private static final String[] CURRENCIES = {"USD", "HKD", "RMB", "CZK", "GBP", "EUR"};
+
+    @Param({"ARRAY_BLOCKING", "RING_BUFFER"})
+    private String queue;
+
+    private PaymentEvent[] paymentEvents;
+    private int index;
+
+    private PaymentEventControlLane paymentEventControlLane;
+    private PaymentEventQueue inputPaymentEventsQueue;
+    private Thread transactionLedgerServiceThread;
+
+    @Setup
+    public void setUp() {
+        paymentEvents = new PaymentEvent[CURRENCIES.length];
+        for (int i = 0; i < CURRENCIES.length; i++) {
+            paymentEvents[i] = PaymentEvent.builder()
+                    .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
+                    .withPayment(Payment.builder().withCurrency(CURRENCIES[i]).withAmount(Money.valueOf(i + 1)).build())
+                    .build();
+        }
+
+        inputPaymentEventsQueue = "ARRAY_BLOCKING".equals(queue)
+                ? new BlockingPaymentEventQueue(new ArrayBlockingQueue<>(QUEUE_SIZE))
+                : new RingBufferPaymentEventQueue(QUEUE_SIZE, RingBufferPaymentEventQueue.WaitStrategy.BLOCKING);
+        paymentEventControlLane = new PaymentEventControlLane();
+        paymentEventControlLane.register(inputPaymentEventsQueue);
+        transactionLedgerServiceThread = new Thread(new InputOutputTransactionLedgerService(
+                inputPaymentEventsQueue, new LinkedBlockingQueue<>(), new DenseTransactionLedger(), paymentEventControlLane, Level.OFF));
+        transactionLedgerServiceThread.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        paymentEventControlLane.requestShutdown();
+        transactionLedgerServiceThread.join();
+    }
+
+    @Benchmark
+    public void handoff() throws InterruptedException {
+        inputPaymentEventsQueue.put(paymentEvents[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        index = index + 1 == paymentEvents.length ? 0 : index + 1;
+        return index;
+    }
+}
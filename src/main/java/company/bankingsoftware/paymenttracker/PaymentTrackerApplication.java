@@ -1,14 +1,21 @@
 package company.bankingsoftware.paymenttracker;
 
+import company.bankingsoftware.paymenttracker.executor.ExecutorConfiguration;
 import company.bankingsoftware.paymenttracker.executor.ExecutorHandler;
 
 import java.util.logging.Level;
 
 public class PaymentTrackerApplication {
 
+    private static final String LOG_LEVEL_PROPERTY = "paymenttracker.logLevel";
+
     public static void main(String[] args) {
-        // change 2nd parameter to Level.INFO to see INFO messages about processing
-        ExecutorHandler executorHandler = new ExecutorHandler(args.length > 0 ? args[0] : null, Level.SEVERE);
+        // -Dpaymenttracker.logLevel=INFO shows INFO messages about processing
+        // optional settings are taken from -Dpaymenttracker.* system properties
+        ExecutorHandler executorHandler = new ExecutorHandler(
+                args.length > 0 ? args[0] : null,
+                Level.parse(System.getProperty(LOG_LEVEL_PROPERTY, Level.SEVERE.getName()).trim().toUpperCase()),
+                ExecutorConfiguration.fromProperties(System.getProperties()));
         executorHandler.handleFutures();
     }
 }
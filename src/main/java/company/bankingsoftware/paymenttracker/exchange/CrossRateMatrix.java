@@ -0,0 +1,114 @@
+package company.bankingsoftware.paymenttracker.exchange;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable exchange rates of every currency with rate (and USD) to every base currency, computed once per
+ * exchange rate table. Rows are currencies, columns are base currencies, so converting a balance into one more
+ * base currency is one more multiply in its row.
+ *
+ * Cross rate is USD rate of the currency divided by USD rate of the base currency with 16 significant digits,
+ * rates to USD are kept exact. A base currency without rate (or with zero rate) has no column rates, a currency
+ * has no rate to itself.
+ */
+public final class CrossRateMatrix {
+
+    public static final int NO_ROW = -1;
+
+    private static final MathContext CROSS_RATE_CONTEXT = MathContext.DECIMAL64;
+
+    private final ExchangeRateTable exchangeRateTable;
+    private final String[] baseCurrencies;
+    // row of every packed currency code
+    private final int[] rows = new int[CurrencyCode.CURRENCY_CODE_COUNT];
+    // row * number of base currencies + column
+    private final BigDecimal[] rates;
+    private final long[] unscaledRates;
+    private final byte[] rateScales;
+
+    private CrossRateMatrix(ExchangeRateTable exchangeRateTable, List<String> baseCurrencies) {
+        this.exchangeRateTable = exchangeRateTable;
+        this.baseCurrencies = baseCurrencies.toArray(new String[0]);
+        final int usdCode = CurrencyCode.pack(ExchangeRateTable.USD);
+
+        Arrays.fill(rows, NO_ROW);
+        int rowCount = 0;
+        for (int currencyCode = 0; currencyCode < CurrencyCode.CURRENCY_CODE_COUNT; currencyCode++) {
+            if (currencyCode == usdCode || exchangeRateTable.hasRate(currencyCode)) {
+                rows[currencyCode] = rowCount++;
+            }
+        }
+
+        final int columnCount = this.baseCurrencies.length;
+        rates = new BigDecimal[rowCount * columnCount];
+        unscaledRates = new long[rowCount * columnCount];
+        rateScales = new byte[rowCount * columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            final int baseCode = CurrencyCode.pack(this.baseCurrencies[column]);
+            final BigDecimal baseRate = baseCode == usdCode ? BigDecimal.ONE : exchangeRateTable.getRate(baseCode);
+            if (baseRate == null || baseRate.signum() == 0) {
+                continue;
+            }
+
+            for (int currencyCode = 0; currencyCode < CurrencyCode.CURRENCY_CODE_COUNT; currencyCode++) {
+                if (rows[currencyCode] == NO_ROW || currencyCode == baseCode) {
+                    continue;
+                }
+                final BigDecimal rate = currencyCode == usdCode ? BigDecimal.ONE : exchangeRateTable.getRate(currencyCode);
+                ExchangeRateTable.setRate(rates, unscaledRates, rateScales, rows[currencyCode] * columnCount + column,
+                        baseCode == usdCode ? rate : rate.divide(baseRate, CROSS_RATE_CONTEXT));
+            }
+        }
+    }
+
+    /**
+     * @param baseCurrencies currencies the balances are converted into, in the output order
+     */
+    public static CrossRateMatrix of(ExchangeRateTable exchangeRateTable, List<String> baseCurrencies) {
+        return new CrossRateMatrix(exchangeRateTable, baseCurrencies);
+    }
+
+    /**
+     * @return the table the cross rates were computed from
+     */
+    public ExchangeRateTable getExchangeRateTable() {
+        return exchangeRateTable;
+    }
+
+    public int getBaseCurrencyCount() {
+        return baseCurrencies.length;
+    }
+
+    public String getBaseCurrency(int column) {
+        return baseCurrencies[column];
+    }
+
+    /**
+     * @param currencyCode packed currency code
+     * @return row of the currency or {@link #NO_ROW} when the currency has no rate
+     */
+    public int rowOf(int currencyCode) {
+        return currencyCode != CurrencyCode.INVALID ? rows[currencyCode] : NO_ROW;
+    }
+
+    /**
+     * @return cross rate of the row currency to the column base currency or null when there is none
+     */
+    public BigDecimal getRate(int row, int column) {
+        return rates[row * baseCurrencies.length + column];
+    }
+
+    /**
+     * @return the amount of the row currency in the column base currency rounded half up to 2 digits
+     * to the right of decimal point
+     */
+    public Money convert(int row, int column, Money amount) {
+        return ExchangeRateTable.convert(rates, unscaledRates, rateScales, row * baseCurrencies.length + column, amount);
+    }
+}
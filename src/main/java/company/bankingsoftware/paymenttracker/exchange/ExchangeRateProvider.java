@@ -0,0 +1,25 @@
+package company.bankingsoftware.paymenttracker.exchange;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Source of exchange rates to USD.
+ */
+@FunctionalInterface
+public interface ExchangeRateProvider {
+
+    /**
+     * @return the current immutable rate table, it does not change while it is used
+     */
+    ExchangeRateTable getExchangeRateTable();
+
+    /**
+     * @param exchangeRates USD price of one unit by currency
+     * @return provider of the fixed rates
+     */
+    static ExchangeRateProvider of(Map<String, BigDecimal> exchangeRates) {
+        final ExchangeRateTable exchangeRateTable = ExchangeRateTable.of(exchangeRates);
+        return () -> exchangeRateTable;
+    }
+}
@@ -0,0 +1,105 @@
+package company.bankingsoftware.paymenttracker.exchange;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Immutable exchange rates to USD in arrays indexed by packed currency code.
+ * Conversion factors (unscaled long rate and its scale) are computed once when the table is created,
+ * so converting a balance does not hash the currency and does not allocate BigDecimal.
+ */
+public final class ExchangeRateTable {
+
+    public static final String USD = "USD";
+
+    private static final ExchangeRateTable EMPTY = new ExchangeRateTable(Map.of());
+    // rate which can not be kept as unscaled long, it is converted through BigDecimal
+    private static final byte BIG_DECIMAL_RATE = -1;
+    private static final int MAX_RATE_SCALE = 18;
+
+    private final BigDecimal[] rates = new BigDecimal[CurrencyCode.CURRENCY_CODE_COUNT];
+    private final long[] unscaledRates = new long[CurrencyCode.CURRENCY_CODE_COUNT];
+    private final byte[] rateScales = new byte[CurrencyCode.CURRENCY_CODE_COUNT];
+    private final int size;
+
+    private ExchangeRateTable(Map<String, BigDecimal> exchangeRates) {
+        int size = 0;
+        for (Map.Entry<String, BigDecimal> exchangeRate : exchangeRates.entrySet()) {
+            final int currencyCode = CurrencyCode.pack(exchangeRate.getKey());
+            if (currencyCode == CurrencyCode.INVALID || USD.equals(exchangeRate.getKey())) {
+                continue;
+            }
+
+            final BigDecimal rate = exchangeRate.getValue();
+            setRate(rates, unscaledRates, rateScales, currencyCode, rate);
+            size++;
+        }
+        this.size = size;
+    }
+
+    /**
+     * @param exchangeRates USD price of one unit by currency, rate of USD and of invalid currencies is ignored
+     */
+    public static ExchangeRateTable of(Map<String, BigDecimal> exchangeRates) {
+        return new ExchangeRateTable(exchangeRates);
+    }
+
+    public static ExchangeRateTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return number of currencies with rate
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param currencyCode packed currency code
+     */
+    public boolean hasRate(int currencyCode) {
+        return currencyCode != CurrencyCode.INVALID && rates[currencyCode] != null;
+    }
+
+    /**
+     * @param currencyCode packed currency code
+     * @return USD price of one unit of the currency or null when the currency has no rate
+     */
+    public BigDecimal getRate(int currencyCode) {
+        return currencyCode != CurrencyCode.INVALID ? rates[currencyCode] : null;
+    }
+
+    /**
+     * @param currencyCode packed currency code with rate
+     * @return the amount in USD rounded half up to 2 digits to the right of decimal point
+     */
+    public Money toUsd(int currencyCode, Money amount) {
+        return convert(rates, unscaledRates, rateScales, currencyCode, amount);
+    }
+
+    /**
+     * Keeps the rate together with its conversion factors (unscaled long rate and scale) at the index.
+     */
+    static void setRate(BigDecimal[] rates, long[] unscaledRates, byte[] rateScales, int index, BigDecimal rate) {
+        rates[index] = rate;
+        if (rate.scale() >= 0 && rate.scale() <= MAX_RATE_SCALE && rate.precision() <= MAX_RATE_SCALE) {
+            unscaledRates[index] = rate.unscaledValue().longValue();
+            rateScales[index] = (byte) rate.scale();
+        } else {
+            rateScales[index] = BIG_DECIMAL_RATE;
+        }
+    }
+
+    /**
+     * @return the amount converted by the rate at the index, rounded half up to 2 digits to the right of decimal point
+     */
+    static Money convert(BigDecimal[] rates, long[] unscaledRates, byte[] rateScales, int index, Money amount) {
+        return rateScales[index] == BIG_DECIMAL_RATE
+                ? amount.convert(rates[index])
+                : amount.convert(unscaledRates[index], rateScales[index]);
+    }
+}
@@ -0,0 +1,133 @@
+package company.bankingsoftware.paymenttracker.exchange;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exchange rate provider reading rates from a local file (standing in for a rate service), line per currency
+ * with USD price of one unit, for ex. <i>CZK 0.04</i>, empty lines and lines starting with <i>#</i> are skipped.
+ *
+ * Every run (scheduled with fixed delay) checks the modification time and size of the file and loads it again
+ * when they changed. Loaded table is published by one atomic reference set, so readers never block and never see
+ * half updated rates. A file with an invalid line is not loaded at all, the previous rates stay until the file
+ * changes again. The file should be replaced by a move, so a half written file is not read.
+ */
+public class FileExchangeRateProvider implements ExchangeRateProvider, Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(FileExchangeRateProvider.class.getName());
+
+    private static final String COMMENT_PREFIX = "#";
+    private static final String DELIMITERS = " \t";
+
+    private final Path path;
+    private final AtomicReference<ExchangeRateTable> exchangeRateTable = new AtomicReference<>(ExchangeRateTable.empty());
+    // changed only by the refreshing thread
+    private FileTime lastModifiedTime;
+    private long lastSize = -1;
+
+    /**
+     * Loads the file, rates are empty until the file can be loaded.
+     */
+    public FileExchangeRateProvider(Path path, Level logLevel) {
+        this.path = path;
+        LOGGER.setLevel(logLevel);
+        refresh();
+    }
+
+    @Override
+    public ExchangeRateTable getExchangeRateTable() {
+        return exchangeRateTable.get();
+    }
+
+    @Override
+    public void run() {
+        refresh();
+    }
+
+    /**
+     * @return true when changed file was loaded
+     */
+    public boolean refresh() {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            if (lastSize != -1 || lastModifiedTime == null) {
+                LOGGER.log(Level.WARNING, "Exchange rate file does not exist, keeping the previous rates.");
+                lastModifiedTime = FileTime.fromMillis(0);
+                lastSize = -1;
+            }
+            return false;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to read exchange rate file attributes.");
+            return false;
+        }
+        if (attributes.lastModifiedTime().equals(lastModifiedTime) && attributes.size() == lastSize) {
+            return false;
+        }
+
+        lastModifiedTime = attributes.lastModifiedTime();
+        lastSize = attributes.size();
+        try {
+            final ExchangeRateTable loadedTable = ExchangeRateTable.of(readExchangeRates(path));
+            exchangeRateTable.set(loadedTable);
+            LOGGER.log(Level.INFO, "Loaded {0} exchange rates.", loadedTable.size());
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to read exchange rate file, keeping the previous rates.");
+        } catch (ParseException e) {
+            LOGGER.log(Level.SEVERE, "Invalid exchange rate file, keeping the previous rates: {0}", e.getMessage());
+        }
+        return false;
+    }
+
+    static Map<String, BigDecimal> readExchangeRates(Path path) throws IOException, ParseException {
+        final Map<String, BigDecimal> exchangeRates = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            int lineNumber = 0;
+            for (String line; (line = reader.readLine()) != null; ) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                    continue;
+                }
+
+                final StringTokenizer stringTokenizer = new StringTokenizer(line, DELIMITERS);
+                final String currency = stringTokenizer.nextToken();
+                final BigDecimal rate;
+                try {
+                    rate = stringTokenizer.hasMoreTokens() ? new BigDecimal(stringTokenizer.nextToken()) : null;
+                } catch (NumberFormatException e) {
+                    throw invalidLine(line, lineNumber);
+                }
+                if (CurrencyCode.pack(currency) == CurrencyCode.INVALID || rate == null || rate.signum() < 0
+                        || stringTokenizer.hasMoreTokens()) {
+                    throw invalidLine(line, lineNumber);
+                }
+                exchangeRates.put(currency, rate);
+            }
+        }
+
+        return exchangeRates;
+    }
+
+    private static ParseException invalidLine(String line, int lineNumber) {
+        return new ParseException(String.format("Invalid exchange rate line %d: %s", lineNumber, line), lineNumber);
+    }
+}
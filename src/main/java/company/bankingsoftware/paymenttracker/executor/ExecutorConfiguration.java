@@ -0,0 +1,632 @@
+package company.bankingsoftware.paymenttracker.executor;
+
+import company.bankingsoftware.paymenttracker.journal.PaymentJournal;
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.printer.ConsoleTransactionLedgerOutput;
+import company.bankingsoftware.paymenttracker.printer.OverflowSnapshotQueue;
+import company.bankingsoftware.paymenttracker.printer.PaymentBalancesConsoleOutputDecorator;
+import company.bankingsoftware.paymenttracker.queue.RingBufferPaymentEventQueue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Configuration of the payment tracker execution, defaults keep the original behavior.
+ * Can be read from properties (system properties) prefixed by <i>paymenttracker.</i>,
+ * for ex. <i>-Dpaymenttracker.parser=SINGLE_PASS</i>.
+ */
+public class ExecutorConfiguration {
+
+    public enum PaymentParserType { REGEX, SINGLE_PASS }
+    public enum FileReaderType { SEQUENTIAL, MAPPED_PARALLEL, FOLLOWING, BINARY }
+    public enum TransactionLedgerType { HASH_MAP, DENSE }
+    public enum PaymentEventQueueType { ARRAY_BLOCKING, RING_BUFFER }
+    public enum ThreadType { PLATFORM, VIRTUAL }
+    public enum OutputSinkType { CONSOLE, FILE, CSV, JSON }
+
+    static final String PROPERTY_PREFIX = "paymenttracker.";
+    static final String PARSER_PROPERTY = PROPERTY_PREFIX + "parser";
+    static final String FILE_READER_PROPERTY = PROPERTY_PREFIX + "fileReader";
+    static final String FOLLOW_POLL_INTERVAL_PROPERTY = PROPERTY_PREFIX + "followPollInterval";
+    static final String DIRECTORY_WORKERS_PROPERTY = PROPERTY_PREFIX + "directoryWorkers";
+    static final String SOCKET_PROPERTY = PROPERTY_PREFIX + "socket";
+    static final String LEDGER_PROPERTY = PROPERTY_PREFIX + "ledger";
+    static final String QUEUE_PROPERTY = PROPERTY_PREFIX + "queue";
+    static final String WAIT_STRATEGY_PROPERTY = PROPERTY_PREFIX + "waitStrategy";
+    static final String THREADS_PROPERTY = PROPERTY_PREFIX + "threads";
+    static final String SHARDS_PROPERTY = PROPERTY_PREFIX + "shards";
+    static final String BATCH_SIZE_PROPERTY = PROPERTY_PREFIX + "batchSize";
+    static final String BATCH_FLUSH_TIMEOUT_PROPERTY = PROPERTY_PREFIX + "batchFlushTimeout";
+    static final String JOURNAL_PROPERTY = PROPERTY_PREFIX + "journal";
+    static final String JOURNAL_FSYNC_PROPERTY = PROPERTY_PREFIX + "journalFsync";
+    static final String JOURNAL_FSYNC_INTERVAL_PROPERTY = PROPERTY_PREFIX + "journalFsyncInterval";
+    static final String CHECKPOINT_INTERVAL_PROPERTY = PROPERTY_PREFIX + "checkpointInterval";
+    static final String OUTPUT_PROPERTY = PROPERTY_PREFIX + "output";
+    static final String OUTPUT_RESYNC_PROPERTY = PROPERTY_PREFIX + "outputResync";
+    static final String EXCHANGE_RATES_PROPERTY = PROPERTY_PREFIX + "exchangeRates";
+    static final String EXCHANGE_RATES_REFRESH_PROPERTY = PROPERTY_PREFIX + "exchangeRatesRefresh";
+    static final String BASE_CURRENCIES_PROPERTY = PROPERTY_PREFIX + "baseCurrencies";
+    static final String OUTPUT_TOP_PROPERTY = PROPERTY_PREFIX + "outputTop";
+    static final String OUTPUT_THRESHOLD_PROPERTY = PROPERTY_PREFIX + "outputThreshold";
+    static final String OUTPUT_SINKS_PROPERTY = PROPERTY_PREFIX + "outputSinks";
+    static final String OUTPUT_DIRECTORY_PROPERTY = PROPERTY_PREFIX + "outputDirectory";
+    static final String OUTPUT_FILE_SIZE_PROPERTY = PROPERTY_PREFIX + "outputFileSize";
+    static final String OUTPUT_FILE_COUNT_PROPERTY = PROPERTY_PREFIX + "outputFileCount";
+    static final String OUTPUT_BUFFER_PROPERTY = PROPERTY_PREFIX + "outputBuffer";
+    static final String OUTPUT_OVERFLOW_PROPERTY = PROPERTY_PREFIX + "outputOverflow";
+    static final String METRICS_PROPERTY = PROPERTY_PREFIX + "metrics";
+
+    private final PaymentParserType paymentParserType;
+    private final FileReaderType fileReaderType;
+    private final long followPollIntervalMillis;
+    private final int directoryWorkerCount;
+    private final InetSocketAddress socketAddress;
+    private final TransactionLedgerType transactionLedgerType;
+    private final PaymentEventQueueType paymentEventQueueType;
+    private final RingBufferPaymentEventQueue.WaitStrategy waitStrategy;
+    private final ThreadType threadType;
+    private final int shardCount;
+    private final int batchSize;
+    private final long batchFlushTimeoutMillis;
+    private final Path journalDirectory;
+    private final PaymentJournal.FsyncPolicy journalFsyncPolicy;
+    private final long journalFsyncIntervalMillis;
+    private final long checkpointIntervalSeconds;
+    private final ConsoleTransactionLedgerOutput.ReportType reportType;
+    private final int resyncReportCount;
+    private final Path exchangeRatesFile;
+    private final long exchangeRatesRefreshMillis;
+    private final List<String> baseCurrencies;
+    private final int outputTopCount;
+    private final Money outputThreshold;
+    private final List<OutputSinkType> outputSinkTypes;
+    private final Path outputDirectory;
+    private final long outputFileSize;
+    private final int outputFileCount;
+    private final int outputBufferSize;
+    private final OverflowSnapshotQueue.OverflowPolicy outputOverflowPolicy;
+    private final boolean metricsEnabled;
+
+    private ExecutorConfiguration(Builder b) {
+        this.paymentParserType = b.paymentParserType;
+        this.fileReaderType = b.fileReaderType;
+        this.followPollIntervalMillis = b.followPollIntervalMillis;
+        this.directoryWorkerCount = b.directoryWorkerCount;
+        this.socketAddress = b.socketAddress;
+        this.transactionLedgerType = b.transactionLedgerType;
+        this.paymentEventQueueType = b.paymentEventQueueType;
+        this.waitStrategy = b.waitStrategy;
+        this.threadType = b.threadType;
+        this.shardCount = b.shardCount;
+        this.batchSize = b.batchSize;
+        this.batchFlushTimeoutMillis = b.batchFlushTimeoutMillis;
+        this.journalDirectory = b.journalDirectory;
+        this.journalFsyncPolicy = b.journalFsyncPolicy;
+        this.journalFsyncIntervalMillis = b.journalFsyncIntervalMillis;
+        this.checkpointIntervalSeconds = b.checkpointIntervalSeconds;
+        this.reportType = b.reportType;
+        this.resyncReportCount = b.resyncReportCount;
+        this.exchangeRatesFile = b.exchangeRatesFile;
+        this.exchangeRatesRefreshMillis = b.exchangeRatesRefreshMillis;
+        this.baseCurrencies = b.baseCurrencies;
+        this.outputTopCount = b.outputTopCount;
+        this.outputThreshold = b.outputThreshold;
+        this.outputSinkTypes = b.outputSinkTypes;
+        this.outputDirectory = b.outputDirectory;
+        this.outputFileSize = b.outputFileSize;
+        this.outputFileCount = b.outputFileCount;
+        this.outputBufferSize = b.outputBufferSize;
+        this.outputOverflowPolicy = b.outputOverflowPolicy;
+        this.metricsEnabled = b.metricsEnabled;
+    }
+
+    public PaymentParserType getPaymentParserType() {
+        return paymentParserType;
+    }
+
+    public FileReaderType getFileReaderType() {
+        return fileReaderType;
+    }
+
+    /**
+     * @return time the FOLLOWING file reader waits for data appended to the input file
+     */
+    public long getFollowPollIntervalMillis() {
+        return followPollIntervalMillis;
+    }
+
+    /**
+     * @return max number of files parsed at the same time when the input path is a directory
+     */
+    public int getDirectoryWorkerCount() {
+        return directoryWorkerCount;
+    }
+
+    /**
+     * @return address to accept payment feeds on, null means payment feeds are not accepted
+     */
+    public InetSocketAddress getSocketAddress() {
+        return socketAddress;
+    }
+
+    public TransactionLedgerType getTransactionLedgerType() {
+        return transactionLedgerType;
+    }
+
+    public PaymentEventQueueType getPaymentEventQueueType() {
+        return paymentEventQueueType;
+    }
+
+    /**
+     * @return what waiting producers and consumer of ring buffer payment events queue do
+     */
+    public RingBufferPaymentEventQueue.WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * @return threads running readers, transaction ledger services and output, VIRTUAL needs JDK with virtual threads
+     */
+    public ThreadType getThreadType() {
+        return threadType;
+    }
+
+    /**
+     * @return number of transaction ledger services aggregating disjoint sets of currencies, 1 means not sharded
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return max number of payments in one ADD_BATCH payment event, 1 means payments are not batched
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getBatchFlushTimeoutMillis() {
+        return batchFlushTimeoutMillis;
+    }
+
+    /**
+     * @return directory of payment journals replayed on start, null means payments are not journaled
+     */
+    public Path getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    /**
+     * @return when journaled payments are forced to the disk
+     */
+    public PaymentJournal.FsyncPolicy getJournalFsyncPolicy() {
+        return journalFsyncPolicy;
+    }
+
+    /**
+     * @return max time between forces of journaled payments with INTERVAL fsync policy
+     */
+    public long getJournalFsyncIntervalMillis() {
+        return journalFsyncIntervalMillis;
+    }
+
+    /**
+     * @return time between checkpoints of journaled transaction ledgers, 0 means no checkpoints
+     */
+    public long getCheckpointIntervalSeconds() {
+        return checkpointIntervalSeconds;
+    }
+
+    /**
+     * @return whether reports contain all balances or only the changed ones
+     */
+    public ConsoleTransactionLedgerOutput.ReportType getReportType() {
+        return reportType;
+    }
+
+    /**
+     * @return number of DELTA reports between full reports, 0 means only the first report is full
+     */
+    public int getResyncReportCount() {
+        return resyncReportCount;
+    }
+
+    /**
+     * @return file of exchange rates to USD reloaded on change, null means the built-in rates are used
+     */
+    public Path getExchangeRatesFile() {
+        return exchangeRatesFile;
+    }
+
+    /**
+     * @return time between checks of the exchange rate file for changes
+     */
+    public long getExchangeRatesRefreshMillis() {
+        return exchangeRatesRefreshMillis;
+    }
+
+    /**
+     * @return currencies every balance is converted into, in the output order
+     */
+    public List<String> getBaseCurrencies() {
+        return baseCurrencies;
+    }
+
+    /**
+     * @return max number of balances in full reports, the highest absolute USD values first, 0 means all in currency order
+     */
+    public int getOutputTopCount() {
+        return outputTopCount;
+    }
+
+    /**
+     * @return min absolute USD value of balances in full reports, 0 means all
+     */
+    public Money getOutputThreshold() {
+        return outputThreshold;
+    }
+
+    /**
+     * @return outputs every snapshot is delivered to, each with its own queue
+     */
+    public List<OutputSinkType> getOutputSinkTypes() {
+        return outputSinkTypes;
+    }
+
+    /**
+     * @return directory of FILE, CSV and JSON outputs
+     */
+    public Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * @return max size of an output file in bytes before it is rolled over, 0 means no rolling
+     */
+    public long getOutputFileSize() {
+        return outputFileSize;
+    }
+
+    /**
+     * @return number of rolled over files kept for every output file
+     */
+    public int getOutputFileCount() {
+        return outputFileCount;
+    }
+
+    /**
+     * @return number of snapshots waiting for one output before its overflow policy applies
+     */
+    public int getOutputBufferSize() {
+        return outputBufferSize;
+    }
+
+    /**
+     * @return what happens with snapshots waiting for a slow output when its queue is full
+     */
+    public OverflowSnapshotQueue.OverflowPolicy getOutputOverflowPolicy() {
+        return outputOverflowPolicy;
+    }
+
+    /**
+     * @return true when readers, queues, services and outputs are metered and the metrics are registered as JMX MBean
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public static ExecutorConfiguration fromProperties(Properties properties) {
+        Builder builder = builder();
+        builder.withPaymentParserType(enumProperty(properties, PARSER_PROPERTY, builder.paymentParserType));
+        builder.withFileReaderType(enumProperty(properties, FILE_READER_PROPERTY, builder.fileReaderType));
+        builder.withFollowPollIntervalMillis(longProperty(properties, FOLLOW_POLL_INTERVAL_PROPERTY, builder.followPollIntervalMillis));
+        builder.withDirectoryWorkerCount((int) longProperty(properties, DIRECTORY_WORKERS_PROPERTY, builder.directoryWorkerCount));
+        builder.withSocketAddress(socketAddressProperty(properties, SOCKET_PROPERTY, builder.socketAddress));
+        builder.withTransactionLedgerType(enumProperty(properties, LEDGER_PROPERTY, builder.transactionLedgerType));
+        builder.withPaymentEventQueueType(enumProperty(properties, QUEUE_PROPERTY, builder.paymentEventQueueType));
+        builder.withWaitStrategy(enumProperty(properties, WAIT_STRATEGY_PROPERTY, builder.waitStrategy));
+        builder.withThreadType(enumProperty(properties, THREADS_PROPERTY, builder.threadType));
+        builder.withShardCount((int) longProperty(properties, SHARDS_PROPERTY, builder.shardCount));
+        builder.withBatchSize((int) longProperty(properties, BATCH_SIZE_PROPERTY, builder.batchSize));
+        builder.withBatchFlushTimeoutMillis(longProperty(properties, BATCH_FLUSH_TIMEOUT_PROPERTY, builder.batchFlushTimeoutMillis));
+        String journalDirectory = properties.getProperty(JOURNAL_PROPERTY);
+        builder.withJournalDirectory(journalDirectory != null && !journalDirectory.isBlank()
+                ? Paths.get(journalDirectory.trim())
+                : builder.journalDirectory);
+        builder.withJournalFsyncPolicy(enumProperty(properties, JOURNAL_FSYNC_PROPERTY, builder.journalFsyncPolicy));
+        builder.withJournalFsyncIntervalMillis(longProperty(properties, JOURNAL_FSYNC_INTERVAL_PROPERTY, builder.journalFsyncIntervalMillis));
+        builder.withCheckpointIntervalSeconds(longProperty(properties, CHECKPOINT_INTERVAL_PROPERTY, builder.checkpointIntervalSeconds));
+        builder.withReportType(enumProperty(properties, OUTPUT_PROPERTY, builder.reportType));
+        builder.withResyncReportCount((int) longProperty(properties, OUTPUT_RESYNC_PROPERTY, builder.resyncReportCount));
+        String exchangeRatesFile = properties.getProperty(EXCHANGE_RATES_PROPERTY);
+        builder.withExchangeRatesFile(exchangeRatesFile != null && !exchangeRatesFile.isBlank()
+                ? Paths.get(exchangeRatesFile.trim())
+                : builder.exchangeRatesFile);
+        builder.withExchangeRatesRefreshMillis(longProperty(properties, EXCHANGE_RATES_REFRESH_PROPERTY, builder.exchangeRatesRefreshMillis));
+        builder.withBaseCurrencies(currenciesProperty(properties, BASE_CURRENCIES_PROPERTY, builder.baseCurrencies));
+        builder.withOutputTopCount((int) longProperty(properties, OUTPUT_TOP_PROPERTY, builder.outputTopCount));
+        String outputThreshold = properties.getProperty(OUTPUT_THRESHOLD_PROPERTY);
+        builder.withOutputThreshold(outputThreshold != null && !outputThreshold.isBlank()
+                ? Money.parse(outputThreshold.trim())
+                : builder.outputThreshold);
+        builder.withOutputSinkTypes(enumListProperty(properties, OUTPUT_SINKS_PROPERTY, builder.outputSinkTypes));
+        String outputDirectory = properties.getProperty(OUTPUT_DIRECTORY_PROPERTY);
+        builder.withOutputDirectory(outputDirectory != null && !outputDirectory.isBlank()
+                ? Paths.get(outputDirectory.trim())
+                : builder.outputDirectory);
+        builder.withOutputFileSize(longProperty(properties, OUTPUT_FILE_SIZE_PROPERTY, builder.outputFileSize));
+        builder.withOutputFileCount((int) longProperty(properties, OUTPUT_FILE_COUNT_PROPERTY, builder.outputFileCount));
+        builder.withOutputBufferSize((int) longProperty(properties, OUTPUT_BUFFER_PROPERTY, builder.outputBufferSize));
+        builder.withOutputOverflowPolicy(enumProperty(properties, OUTPUT_OVERFLOW_PROPERTY, builder.outputOverflowPolicy));
+        builder.withMetricsEnabled(booleanProperty(properties, METRICS_PROPERTY, builder.metricsEnabled));
+
+        return builder.build();
+    }
+
+    private static <E extends Enum<E>> E enumProperty(Properties properties, String name, E defaultValue) {
+        String value = properties.getProperty(name);
+        return value != null ? Enum.valueOf(defaultValue.getDeclaringClass(), value.trim().toUpperCase()) : defaultValue;
+    }
+
+    /**
+     * Reads comma separated enum values.
+     */
+    private static <E extends Enum<E>> List<E> enumListProperty(Properties properties, String name, List<E> defaultValue) {
+        String value = properties.getProperty(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        List<E> values = new ArrayList<>();
+        for (String element : value.split(",")) {
+            values.add(Enum.valueOf(defaultValue.get(0).getDeclaringClass(), element.trim().toUpperCase()));
+        }
+        return List.copyOf(values);
+    }
+
+    private static boolean booleanProperty(Properties properties, String name, boolean defaultValue) {
+        String value = properties.getProperty(name);
+        return value != null ? Boolean.parseBoolean(value.trim()) : defaultValue;
+    }
+
+    private static long longProperty(Properties properties, String name, long defaultValue) {
+        String value = properties.getProperty(name);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    }
+
+    /**
+     * Reads comma separated currency codes.
+     */
+    private static List<String> currenciesProperty(Properties properties, String name, List<String> defaultValue) {
+        String value = properties.getProperty(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        List<String> currencies = new ArrayList<>();
+        for (String currency : value.split(",")) {
+            String trimmedCurrency = currency.trim();
+            if (CurrencyCode.pack(trimmedCurrency) == CurrencyCode.INVALID) {
+                throw new IllegalArgumentException(String.format("Invalid currency %s in %s.", trimmedCurrency, name));
+            }
+            currencies.add(trimmedCurrency);
+        }
+        return List.copyOf(currencies);
+    }
+
+    /**
+     * Reads <i>[host:]port</i>, loopback address is used when the host is not given.
+     */
+    private static InetSocketAddress socketAddressProperty(Properties properties, String name, InetSocketAddress defaultValue) {
+        String value = properties.getProperty(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        value = value.trim();
+        int portSeparator = value.lastIndexOf(':');
+        int port = Integer.parseInt(value.substring(portSeparator + 1));
+        return portSeparator >= 0
+                ? new InetSocketAddress(value.substring(0, portSeparator), port)
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private PaymentParserType paymentParserType = PaymentParserType.REGEX;
+        private FileReaderType fileReaderType = FileReaderType.SEQUENTIAL;
+        private long followPollIntervalMillis = 200;
+        private int directoryWorkerCount = Runtime.getRuntime().availableProcessors();
+        private InetSocketAddress socketAddress;
+        private TransactionLedgerType transactionLedgerType = TransactionLedgerType.HASH_MAP;
+        private PaymentEventQueueType paymentEventQueueType = PaymentEventQueueType.ARRAY_BLOCKING;
+        private RingBufferPaymentEventQueue.WaitStrategy waitStrategy = RingBufferPaymentEventQueue.WaitStrategy.BLOCKING;
+        private ThreadType threadType = ThreadType.PLATFORM;
+        private int shardCount = 1;
+        private int batchSize = 1;
+        private long batchFlushTimeoutMillis = 50;
+        private Path journalDirectory;
+        private PaymentJournal.FsyncPolicy journalFsyncPolicy = PaymentJournal.FsyncPolicy.BATCH;
+        private long journalFsyncIntervalMillis = 1000;
+        private long checkpointIntervalSeconds;
+        private ConsoleTransactionLedgerOutput.ReportType reportType = ConsoleTransactionLedgerOutput.ReportType.FULL;
+        private int resyncReportCount = 10;
+        private Path exchangeRatesFile;
+        private long exchangeRatesRefreshMillis = 1000;
+        private List<String> baseCurrencies = PaymentBalancesConsoleOutputDecorator.DEFAULT_BASE_CURRENCIES;
+        private int outputTopCount;
+        private Money outputThreshold = Money.ZERO;
+        private List<OutputSinkType> outputSinkTypes = List.of(OutputSinkType.CONSOLE);
+        private Path outputDirectory = Paths.get(".");
+        private long outputFileSize = 10 * 1024 * 1024;
+        private int outputFileCount = 5;
+        private int outputBufferSize = 20;
+        private OverflowSnapshotQueue.OverflowPolicy outputOverflowPolicy = OverflowSnapshotQueue.OverflowPolicy.DROP_OLDEST;
+        private boolean metricsEnabled = true;
+
+        private Builder() {}
+
+        public Builder withPaymentParserType(PaymentParserType paymentParserType) {
+            this.paymentParserType = paymentParserType;
+            return this;
+        }
+
+        public Builder withFileReaderType(FileReaderType fileReaderType) {
+            this.fileReaderType = fileReaderType;
+            return this;
+        }
+
+        public Builder withFollowPollIntervalMillis(long followPollIntervalMillis) {
+            this.followPollIntervalMillis = followPollIntervalMillis;
+            return this;
+        }
+
+        public Builder withDirectoryWorkerCount(int directoryWorkerCount) {
+            this.directoryWorkerCount = directoryWorkerCount;
+            return this;
+        }
+
+        public Builder withSocketAddress(InetSocketAddress socketAddress) {
+            this.socketAddress = socketAddress;
+            return this;
+        }
+
+        public Builder withTransactionLedgerType(TransactionLedgerType transactionLedgerType) {
+            this.transactionLedgerType = transactionLedgerType;
+            return this;
+        }
+
+        public Builder withPaymentEventQueueType(PaymentEventQueueType paymentEventQueueType) {
+            this.paymentEventQueueType = paymentEventQueueType;
+            return this;
+        }
+
+        public Builder withWaitStrategy(RingBufferPaymentEventQueue.WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        public Builder withThreadType(ThreadType threadType) {
+            this.threadType = threadType;
+            return this;
+        }
+
+        public Builder withShardCount(int shardCount) {
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        public Builder withBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder withBatchFlushTimeoutMillis(long batchFlushTimeoutMillis) {
+            this.batchFlushTimeoutMillis = batchFlushTimeoutMillis;
+            return this;
+        }
+
+        public Builder withJournalDirectory(Path journalDirectory) {
+            this.journalDirectory = journalDirectory;
+            return this;
+        }
+
+        public Builder withJournalFsyncPolicy(PaymentJournal.FsyncPolicy journalFsyncPolicy) {
+            this.journalFsyncPolicy = journalFsyncPolicy;
+            return this;
+        }
+
+        public Builder withJournalFsyncIntervalMillis(long journalFsyncIntervalMillis) {
+            this.journalFsyncIntervalMillis = journalFsyncIntervalMillis;
+            return this;
+        }
+
+        public Builder withCheckpointIntervalSeconds(long checkpointIntervalSeconds) {
+            this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+            return this;
+        }
+
+        public Builder withReportType(ConsoleTransactionLedgerOutput.ReportType reportType) {
+            this.reportType = reportType;
+            return this;
+        }
+
+        public Builder withResyncReportCount(int resyncReportCount) {
+            this.resyncReportCount = resyncReportCount;
+            return this;
+        }
+
+        public Builder withExchangeRatesFile(Path exchangeRatesFile) {
+            this.exchangeRatesFile = exchangeRatesFile;
+            return this;
+        }
+
+        public Builder withExchangeRatesRefreshMillis(long exchangeRatesRefreshMillis) {
+            this.exchangeRatesRefreshMillis = exchangeRatesRefreshMillis;
+            return this;
+        }
+
+        public Builder withBaseCurrencies(List<String> baseCurrencies) {
+            this.baseCurrencies = baseCurrencies;
+            return this;
+        }
+
+        public Builder withOutputTopCount(int outputTopCount) {
+            this.outputTopCount = outputTopCount;
+            return this;
+        }
+
+        public Builder withOutputThreshold(Money outputThreshold) {
+            this.outputThreshold = outputThreshold;
+            return this;
+        }
+
+        public Builder withOutputSinkTypes(List<OutputSinkType> outputSinkTypes) {
+            this.outputSinkTypes = outputSinkTypes;
+            return this;
+        }
+
+        public Builder withOutputDirectory(Path outputDirectory) {
+            this.outputDirectory = outputDirectory;
+            return this;
+        }
+
+        public Builder withOutputFileSize(long outputFileSize) {
+            this.outputFileSize = outputFileSize;
+            return this;
+        }
+
+        public Builder withOutputFileCount(int outputFileCount) {
+            this.outputFileCount = outputFileCount;
+            return this;
+        }
+
+        public Builder withOutputBufferSize(int outputBufferSize) {
+            this.outputBufferSize = outputBufferSize;
+            return this;
+        }
+
+        public Builder withOutputOverflowPolicy(OverflowSnapshotQueue.OverflowPolicy outputOverflowPolicy) {
+            this.outputOverflowPolicy = outputOverflowPolicy;
+            return this;
+        }
+
+        public Builder withMetricsEnabled(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+            return this;
+        }
+
+        public ExecutorConfiguration build() {
+            return new ExecutorConfiguration(this);
+        }
+    }
+}
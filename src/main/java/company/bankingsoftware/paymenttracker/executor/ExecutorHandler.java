@@ -1,16 +1,61 @@
 package company.bankingsoftware.paymenttracker.executor;
 
-import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.exchange.ExchangeRateProvider;
+import company.bankingsoftware.paymenttracker.exchange.FileExchangeRateProvider;
+import company.bankingsoftware.paymenttracker.journal.LedgerCheckpoint;
+import company.bankingsoftware.paymenttracker.journal.LedgerCheckpointWriter;
+import company.bankingsoftware.paymenttracker.journal.PaymentJournal;
+import company.bankingsoftware.paymenttracker.metrics.MeteredArrayBlockingQueue;
+import company.bankingsoftware.paymenttracker.metrics.MeteredPaymentEventQueue;
+import company.bankingsoftware.paymenttracker.metrics.MeteredPaymentParser;
+import company.bankingsoftware.paymenttracker.metrics.PaymentTrackerMetrics;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.DenseTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
 import company.bankingsoftware.paymenttracker.model.TransactionLedger;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+import company.bankingsoftware.paymenttracker.printer.ConsoleTransactionLedgerOutput;
+import company.bankingsoftware.paymenttracker.printer.CsvTransactionLedgerOutput;
+import company.bankingsoftware.paymenttracker.printer.JsonTransactionLedgerOutput;
+import company.bankingsoftware.paymenttracker.printer.OverflowSnapshotQueue;
+import company.bankingsoftware.paymenttracker.printer.PaymentBalancesConsoleOutputDecorator;
+import company.bankingsoftware.paymenttracker.printer.RollingFileOutputStream;
+import company.bankingsoftware.paymenttracker.printer.StreamTransactionLedgerOutput;
+import company.bankingsoftware.paymenttracker.printer.TransactionLedgerOutput;
+import company.bankingsoftware.paymenttracker.printer.TransactionLedgerOutputFanOut;
+import company.bankingsoftware.paymenttracker.queue.BlockingPaymentEventQueue;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventControlLane;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventQueue;
+import company.bankingsoftware.paymenttracker.queue.RingBufferPaymentEventQueue;
+import company.bankingsoftware.paymenttracker.queue.ShardedPaymentEventPublisher;
+import company.bankingsoftware.paymenttracker.reader.BinaryFilePaymentReader;
 import company.bankingsoftware.paymenttracker.reader.CommandLinePaymentReader;
+import company.bankingsoftware.paymenttracker.reader.DirectoryWatchPaymentReader;
 import company.bankingsoftware.paymenttracker.reader.FilePaymentReader;
+import company.bankingsoftware.paymenttracker.reader.FollowingFilePaymentReader;
+import company.bankingsoftware.paymenttracker.reader.MappedFilePaymentReader;
+import company.bankingsoftware.paymenttracker.reader.PaymentEventBatcher;
+import company.bankingsoftware.paymenttracker.reader.PaymentParser;
+import company.bankingsoftware.paymenttracker.reader.PaymentReader;
 import company.bankingsoftware.paymenttracker.reader.RegexPaymentParser;
-import company.bankingsoftware.paymenttracker.printer.ConsoleTransactionLedgerOutput;
+import company.bankingsoftware.paymenttracker.reader.SinglePassPaymentParser;
+import company.bankingsoftware.paymenttracker.reader.SocketPaymentReader;
+import company.bankingsoftware.paymenttracker.service.CheckpointSchedulerTask;
 import company.bankingsoftware.paymenttracker.service.InputOutputTransactionLedgerService;
+import company.bankingsoftware.paymenttracker.service.JournalFsyncSchedulerTask;
 import company.bankingsoftware.paymenttracker.service.QueueSchedulerTask;
+import company.bankingsoftware.paymenttracker.service.ShardSnapshotMerger;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
@@ -26,20 +71,48 @@ import java.util.logging.Logger;
 /**
  * This class:
  * - Initiates payment reader executor service and scheduled executor service.
- * - Initiates 2 blocking queues - input queue for payment events and output queue with transaction ledger.
+ * - Initiates 2 queues - input queue for payment events (array blocking queue or lock free ring buffer)
+ *   and blocking output queue with transaction ledger snapshots.
  * - Cleans the futures (by cancel) and executor services (by shutdown command) when the <i>quit</i> (or exit the program) command is triggered
  *
- * Producers of <i>ADD payment event type</i> events into input queue are file input reader and command line input reader.
- * Producer of <i>OUTPUT payment type event</i> is queue scheduler task and it generates events in 60 second intervals.
- * Producer of <i>SHUTDOWN payment type event</i> is this class (also forces transaction ledger service if graceful ending failed).
+ * Producers of <i>ADD payment event type</i> events into input queue are file input reader and command line input reader
+ * (memory mapped file input reader produces single <i>MERGE payment event type</i> with already aggregated ledger instead).
+ * Following file input reader keeps reading lines appended to the file next to command line input reader
+ * until the <i>quit</i> command, other file input readers read the file before command line input is accepted.
+ * Readers can collect their payments into <i>ADD_BATCH payment event type</i> events (batch size and flush timeout are
+ * configurable), batches of idle readers are flushed by the batch flush scheduled executor service. It has its own
+ * thread, flush waits in put while input queue is full and the OUTPUT and CHECKPOINT ticks must not wait behind it.
+ * OUTPUT and SHUTDOWN do not go through input queue, they are requested through control lane checked by transaction
+ * ledger service before every payment event, so they never wait behind payment backlog.
+ * OUTPUT is requested by queue scheduler task in 60 second intervals.
+ * SHUTDOWN is requested by this class (also forces transaction ledger service if graceful ending failed).
  * Consumer of input queue is transaction ledger service.
+ * In sharded mode (shard count is configurable) there is one input queue and one transaction ledger service per shard,
+ * payments are routed to the shard by their currency and all shards share the control lane.
+ * Shard snapshots of the same OUTPUT are merged by shard snapshot merger before they get into output queue.
+ * With journal directory configured, every transaction ledger service journals applied payments into its own
+ * payment journal, the journals are replayed into the ledgers here, before any input is accepted.
+ * Following file input reader then stores its file offset and directory input reader records its done files once
+ * the journals committed them (<i>COMMIT payment event type</i> event behind their payment events), without journal
+ * they do not keep the offset or done files.
+ * With checkpoint interval configured as well, CHECKPOINT is requested by checkpoint scheduler task through control
+ * lane and checkpoints are written by checkpoint writer, on start the newest valid checkpoint is loaded and only
+ * the journal tail after it is replayed.
+ * With INTERVAL journal fsync policy, JOURNAL_FSYNC is requested by journal fsync scheduler task through control lane
+ * in fsync intervals, so the journal tail is forced also when the input goes idle.
  *
- * Producer into output queue is transaction ledger service (by consuming input queue).
+ * Producer into output queue is transaction ledger service (by consuming input queue), it queues immutable
+ * snapshot of the ledger, so the output never reads the ledger the service is changing.
  * Consumer of output queue is transaction ledger output.
 
  * File input reader, command line input reader, transaction ledger service and transaction ledger output
- * shares the payment reader executor service thread pool.
- * Queue scheduler task is the only one task in scheduled executor service single thread pool.
+ * shares the payment reader executor service thread pool (or run on virtual thread each in virtual threads mode,
+ * so the pool size does not limit the number of blocking tasks).
+ * Queue scheduler task, checkpoint scheduler task, journal fsync scheduler task, exchange rates refresh and metrics sampling
+ * share scheduled executor service single thread pool, batch flushes run in batch flush scheduled executor service single thread pool.
+ *
+ * With metrics enabled, payment parsers, queues, transaction ledger services and outputs are metered
+ * and the metrics are registered as JMX MBean while the futures are handled, applied payments are sampled every second.
  */
 public class ExecutorHandler {
 
@@ -50,47 +123,384 @@ public class ExecutorHandler {
     private static final int OUTPUT_TRANSACTION_LEDGER_QUEUE_SIZE = 20;
     private static final int TRANSACTION_LEDGER_TIMEOUT = 10;
     private static final int SCHEDULER_DELAY = 60;
+    private static final String REPORT_FILE_NAME = "payment-tracker-report.log";
+    private static final String CSV_FILE_NAME = "payment-tracker-balances.csv";
+    private static final String JSON_FILE_NAME = "payment-tracker-balances.jsonl";
 
     private final Path path;
     private final ExecutorService paymentReaderExecutorService;
-    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue;
-    private final BlockingQueue<TransactionLedger> outputTransactionLedgerQueue;
+    private final PaymentEventPublisher inputPaymentEventsPublisher;
+    private final PaymentEventControlLane paymentEventControlLane = new PaymentEventControlLane();
+    private final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue;
     private final ScheduledExecutorService schedulerExecutorService;
+    private final ScheduledExecutorService batchFlushExecutorService;
 
-    private final InputOutputTransactionLedgerService inputOutputTransactionLedgerService;
+    private final List<InputOutputTransactionLedgerService> inputOutputTransactionLedgerServices = new ArrayList<>();
+    private final ShardSnapshotMerger shardSnapshotMerger;
     private final CommandLinePaymentReader commandLinePaymentReader;
-    private final ConsoleTransactionLedgerOutput consoleTransactionLedgerOutput;
+    private final TransactionLedgerOutputFanOut transactionLedgerOutputFanOut;
+    private final List<TransactionLedgerOutput> transactionLedgerOutputs = new ArrayList<>();
 
     private final QueueSchedulerTask queueSchedulerTask;
+    private final List<PaymentEventBatcher> paymentEventBatchers = new ArrayList<>();
+    private final long batchFlushTimeoutMillis;
+    private final LedgerCheckpointWriter ledgerCheckpointWriter;
+    private final CheckpointSchedulerTask checkpointSchedulerTask;
+    private final long checkpointIntervalSeconds;
+    private final JournalFsyncSchedulerTask journalFsyncSchedulerTask;
+    private final long journalFsyncIntervalMillis;
+    private final FileExchangeRateProvider fileExchangeRateProvider;
+    private final long exchangeRatesRefreshMillis;
+    private final PaymentTrackerMetrics paymentTrackerMetrics;
 
-    private FilePaymentReader filePaymentReader;
+    private PaymentReader filePaymentReader;
+    private SocketPaymentReader socketPaymentReader;
 
     public ExecutorHandler(String filePath, Level logLevel) {
+        this(filePath, logLevel, ExecutorConfiguration.builder().build());
+    }
+
+    public ExecutorHandler(String filePath, Level logLevel, ExecutorConfiguration configuration) {
         this.path = filePath != null && !filePath.isEmpty() ? Paths.get(filePath) : null;
         LOGGER.setLevel(logLevel);
 
-        paymentReaderExecutorService = Executors.newFixedThreadPool(PAYMENT_READER_POOL_SIZE);
-        inputPaymentEventsQueue = new ArrayBlockingQueue<>(INPUT_PAYMENT_EVENTS_QUEUE_SIZE);
-        outputTransactionLedgerQueue = new ArrayBlockingQueue<>(OUTPUT_TRANSACTION_LEDGER_QUEUE_SIZE);
+        final PaymentTrackerMetrics.Builder metrics = configuration.isMetricsEnabled()
+                ? PaymentTrackerMetrics.builder().withLogLevel(logLevel)
+                : null;
+        final int shardCount = Math.max(1, configuration.getShardCount());
+        final boolean followingFile = path != null
+                && (Files.isDirectory(path) || configuration.getFileReaderType() == ExecutorConfiguration.FileReaderType.FOLLOWING);
+        checkpointIntervalSeconds = configuration.getJournalDirectory() != null ? configuration.getCheckpointIntervalSeconds() : 0;
+        journalFsyncIntervalMillis = configuration.getJournalDirectory() != null
+                && configuration.getJournalFsyncPolicy() == PaymentJournal.FsyncPolicy.INTERVAL
+                ? configuration.getJournalFsyncIntervalMillis()
+                : 0;
+        ledgerCheckpointWriter = checkpointIntervalSeconds > 0 ? new LedgerCheckpointWriter(shardCount, logLevel) : null;
+        // every additional shard needs its own service thread and the shards need the merger thread,
+        // following file reader, directory reader and socket reader run next to command line reader,
+        // every output runs next to the output fan out
+        paymentReaderExecutorService = createPaymentReaderExecutorService(
+                configuration,
+                PAYMENT_READER_POOL_SIZE + (shardCount > 1 ? shardCount : 0) + (ledgerCheckpointWriter != null ? 1 : 0) + (followingFile ? 1 : 0)
+                        + (configuration.getSocketAddress() != null ? 1 : 0) + configuration.getOutputSinkTypes().size());
+        outputTransactionLedgerQueue = createSnapshotQueue(OUTPUT_TRANSACTION_LEDGER_QUEUE_SIZE, metrics);
         schedulerExecutorService = Executors.newSingleThreadScheduledExecutor();
+        batchFlushExecutorService = Executors.newSingleThreadScheduledExecutor();
+        batchFlushTimeoutMillis = configuration.getBatchFlushTimeoutMillis();
+
+        List<PaymentEventQueue> shardPaymentEventQueues = new ArrayList<>(shardCount);
+        BlockingQueue<TransactionLedgerSnapshot> shardSnapshotQueue = shardCount > 1
+                ? createSnapshotQueue(OUTPUT_TRANSACTION_LEDGER_QUEUE_SIZE * shardCount, metrics)
+                : outputTransactionLedgerQueue;
+        if (metrics != null) {
+            // the queue transaction ledger services wait on
+            metrics.withOutputQueue((MeteredArrayBlockingQueue<?>) shardSnapshotQueue);
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            PaymentEventQueue shardPaymentEventQueue = createPaymentEventQueue(configuration, metrics);
+            shardPaymentEventQueues.add(shardPaymentEventQueue);
+            paymentEventControlLane.register(shardPaymentEventQueue);
+            TransactionLedger transactionLedger = createTransactionLedger(configuration);
+            PaymentJournal paymentJournal = replayPaymentJournal(configuration, shard, shardCount, transactionLedger, logLevel);
+            InputOutputTransactionLedgerService inputOutputTransactionLedgerService = InputOutputTransactionLedgerService.builder()
+                    .withInputPaymentEventsQueue(shardPaymentEventQueue)
+                    .withOutputTransactionLedgerQueue(shardSnapshotQueue)
+                    .withTransactionLedger(transactionLedger)
+                    .withPaymentEventControlLane(paymentEventControlLane)
+                    .withPaymentJournal(paymentJournal)
+                    .withLedgerCheckpointWriter(ledgerCheckpointWriter)
+                    .withLogLevel(logLevel)
+                    .build();
+            inputOutputTransactionLedgerServices.add(inputOutputTransactionLedgerService);
+            if (metrics != null) {
+                metrics.withTransactionLedgerService(inputOutputTransactionLedgerService);
+            }
+        }
+        inputPaymentEventsPublisher = shardCount > 1
+                ? new ShardedPaymentEventPublisher(shardPaymentEventQueues)
+                : shardPaymentEventQueues.get(0);
+        shardSnapshotMerger = shardCount > 1
+                ? new ShardSnapshotMerger(shardSnapshotQueue, outputTransactionLedgerQueue, shardCount, logLevel)
+                : null;
 
         if (path != null) {
-            this.filePaymentReader = new FilePaymentReader(path, inputPaymentEventsQueue, new RegexPaymentParser(), logLevel);
+            this.filePaymentReader = createFilePaymentReader(configuration, createPaymentParser(configuration, "file", metrics), logLevel);
+        }
+        if (configuration.getSocketAddress() != null) {
+            try {
+                this.socketPaymentReader = new SocketPaymentReader(
+                        configuration.getSocketAddress(), inputPaymentEventsPublisher, createPaymentParser(configuration, "socket", metrics), logLevel);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Failed to listen on %s.", configuration.getSocketAddress()), e);
+            }
         }
 
-        this.inputOutputTransactionLedgerService = new InputOutputTransactionLedgerService(inputPaymentEventsQueue, outputTransactionLedgerQueue, logLevel);
-        this.commandLinePaymentReader = new CommandLinePaymentReader(System.in, inputPaymentEventsQueue, new RegexPaymentParser(), logLevel);
-        this.consoleTransactionLedgerOutput = new ConsoleTransactionLedgerOutput(System.out, outputTransactionLedgerQueue, logLevel);
-        this.queueSchedulerTask = new QueueSchedulerTask(inputPaymentEventsQueue, logLevel);
+        this.commandLinePaymentReader = new CommandLinePaymentReader(
+                System.in, inputPaymentEventsPublisher, createPaymentParser(configuration, "commandLine", metrics), createPaymentEventBatcher(configuration, logLevel), logLevel);
+        this.fileExchangeRateProvider = configuration.getExchangeRatesFile() != null
+                ? new FileExchangeRateProvider(configuration.getExchangeRatesFile(), logLevel)
+                : null;
+        this.exchangeRatesRefreshMillis = configuration.getExchangeRatesRefreshMillis();
+        List<OverflowSnapshotQueue> outputQueues = new ArrayList<>();
+        for (ExecutorConfiguration.OutputSinkType outputSinkType : configuration.getOutputSinkTypes()) {
+            OverflowSnapshotQueue outputQueue = new OverflowSnapshotQueue(
+                    configuration.getOutputBufferSize(), configuration.getOutputOverflowPolicy());
+            outputQueues.add(outputQueue);
+            TransactionLedgerOutput transactionLedgerOutput = createTransactionLedgerOutput(outputSinkType, outputQueue, configuration, logLevel);
+            this.transactionLedgerOutputs.add(transactionLedgerOutput);
+            if (metrics != null) {
+                metrics.withOutputSinkQueue(outputQueue);
+                if (transactionLedgerOutput instanceof StreamTransactionLedgerOutput) {
+                    metrics.withTransactionLedgerOutput((StreamTransactionLedgerOutput) transactionLedgerOutput);
+                }
+            }
+        }
+        this.transactionLedgerOutputFanOut = new TransactionLedgerOutputFanOut(outputTransactionLedgerQueue, outputQueues, logLevel);
+        this.queueSchedulerTask = new QueueSchedulerTask(paymentEventControlLane, logLevel);
+        this.checkpointSchedulerTask = ledgerCheckpointWriter != null ? new CheckpointSchedulerTask(paymentEventControlLane, logLevel) : null;
+        this.journalFsyncSchedulerTask = journalFsyncIntervalMillis > 0 ? new JournalFsyncSchedulerTask(paymentEventControlLane, logLevel) : null;
+        this.paymentTrackerMetrics = metrics != null ? metrics.build() : null;
+    }
+
+    private TransactionLedgerOutput createTransactionLedgerOutput(
+            ExecutorConfiguration.OutputSinkType outputSinkType,
+            BlockingQueue<TransactionLedgerSnapshot> outputQueue,
+            ExecutorConfiguration configuration,
+            Level logLevel) {
+        ExchangeRateProvider exchangeRateProvider = fileExchangeRateProvider != null
+                ? fileExchangeRateProvider
+                : ExchangeRateProvider.of(PaymentBalancesConsoleOutputDecorator.DEFAULT_EXCHANGE_RATES);
+        // every output has its own decorator, it reuses buffers of the reports
+        PaymentBalancesConsoleOutputDecorator paymentBalancesOutputDecorator = new PaymentBalancesConsoleOutputDecorator(
+                exchangeRateProvider, configuration.getBaseCurrencies(), configuration.getOutputTopCount(), configuration.getOutputThreshold());
+        switch (outputSinkType) {
+            case FILE:
+                return new ConsoleTransactionLedgerOutput(createOutputFile(configuration, REPORT_FILE_NAME, ""), outputQueue,
+                        ConsoleTransactionLedgerOutput.ReportType.FULL, 0, paymentBalancesOutputDecorator, logLevel);
+            case CSV:
+                return new CsvTransactionLedgerOutput(
+                        createOutputFile(configuration, CSV_FILE_NAME, CsvTransactionLedgerOutput.HEADER), outputQueue, logLevel);
+            case JSON:
+                return new JsonTransactionLedgerOutput(createOutputFile(configuration, JSON_FILE_NAME, ""), outputQueue, logLevel);
+            case CONSOLE:
+            default:
+                return new ConsoleTransactionLedgerOutput(System.out, outputQueue,
+                        configuration.getReportType(), configuration.getResyncReportCount(), paymentBalancesOutputDecorator, logLevel);
+        }
+    }
+
+    private static RollingFileOutputStream createOutputFile(ExecutorConfiguration configuration, String fileName, String header) {
+        Path outputPath = configuration.getOutputDirectory().resolve(fileName);
+        try {
+            return new RollingFileOutputStream(outputPath, configuration.getOutputFileSize(), configuration.getOutputFileCount(),
+                    header.getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to open output file %s.", outputPath), e);
+        }
+    }
+
+    /**
+     * Virtual thread per task executor is looked up reflectively, so the code still compiles for older JDK,
+     * fixed thread pool is used when the running JDK does not have virtual threads.
+     */
+    private static ExecutorService createPaymentReaderExecutorService(ExecutorConfiguration configuration, int poolSize) {
+        if (configuration.getThreadType() == ExecutorConfiguration.ThreadType.VIRTUAL) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.log(Level.WARNING, "Virtual threads are not supported by the JDK, using platform threads.");
+            }
+        }
+
+        return Executors.newFixedThreadPool(poolSize);
+    }
+
+    private static PaymentParser createPaymentParser(ExecutorConfiguration configuration) {
+        switch (configuration.getPaymentParserType()) {
+            case SINGLE_PASS:
+                return new SinglePassPaymentParser();
+            case REGEX:
+            default:
+                return new RegexPaymentParser();
+        }
+    }
+
+    /**
+     * @param source name of the input source in metrics
+     */
+    private static PaymentParser createPaymentParser(ExecutorConfiguration configuration, String source, PaymentTrackerMetrics.Builder metrics) {
+        PaymentParser paymentParser = createPaymentParser(configuration);
+        if (metrics == null) {
+            return paymentParser;
+        }
+
+        MeteredPaymentParser meteredPaymentParser = new MeteredPaymentParser(paymentParser);
+        metrics.withPaymentParser(source, meteredPaymentParser);
+        return meteredPaymentParser;
+    }
+
+    private PaymentReader createFilePaymentReader(ExecutorConfiguration configuration, PaymentParser paymentParser, Level logLevel) {
+        if (Files.isDirectory(path)) {
+            return new DirectoryWatchPaymentReader(
+                    path, inputPaymentEventsPublisher, paymentParser, () -> createTransactionLedger(configuration),
+                    configuration.getJournalDirectory() != null, configuration.getDirectoryWorkerCount(), logLevel);
+        }
+
+        switch (configuration.getFileReaderType()) {
+            case MAPPED_PARALLEL:
+                return new MappedFilePaymentReader(
+                        path, inputPaymentEventsPublisher, paymentParser, () -> createTransactionLedger(configuration), logLevel);
+            case BINARY:
+                return new BinaryFilePaymentReader(path, inputPaymentEventsPublisher, logLevel);
+            case FOLLOWING:
+                return new FollowingFilePaymentReader(
+                        path, inputPaymentEventsPublisher, paymentParser, createPaymentEventBatcher(configuration, logLevel),
+                        configuration.getJournalDirectory() != null, configuration.getFollowPollIntervalMillis(), logLevel);
+            case SEQUENTIAL:
+            default:
+                return new FilePaymentReader(
+                        path, inputPaymentEventsPublisher, paymentParser, createPaymentEventBatcher(configuration, logLevel), logLevel);
+        }
+    }
+
+    private static PaymentEventQueue createPaymentEventQueue(ExecutorConfiguration configuration, PaymentTrackerMetrics.Builder metrics) {
+        PaymentEventQueue paymentEventQueue = createPaymentEventQueue(configuration);
+        if (metrics == null) {
+            return paymentEventQueue;
+        }
+
+        MeteredPaymentEventQueue meteredPaymentEventQueue = new MeteredPaymentEventQueue(paymentEventQueue);
+        metrics.withInputQueue(meteredPaymentEventQueue);
+        return meteredPaymentEventQueue;
+    }
+
+    private static BlockingQueue<TransactionLedgerSnapshot> createSnapshotQueue(int capacity, PaymentTrackerMetrics.Builder metrics) {
+        return metrics != null ? new MeteredArrayBlockingQueue<>(capacity) : new ArrayBlockingQueue<>(capacity);
+    }
+
+    private static PaymentEventQueue createPaymentEventQueue(ExecutorConfiguration configuration) {
+        switch (configuration.getPaymentEventQueueType()) {
+            case RING_BUFFER:
+                return new RingBufferPaymentEventQueue(INPUT_PAYMENT_EVENTS_QUEUE_SIZE, configuration.getWaitStrategy());
+            case ARRAY_BLOCKING:
+            default:
+                return new BlockingPaymentEventQueue(new ArrayBlockingQueue<>(INPUT_PAYMENT_EVENTS_QUEUE_SIZE));
+        }
+    }
+
+    private static TransactionLedger createTransactionLedger(ExecutorConfiguration configuration) {
+        switch (configuration.getTransactionLedgerType()) {
+            case DENSE:
+                return new DenseTransactionLedger();
+            case HASH_MAP:
+            default:
+                return new HashMapTransactionLedger();
+        }
+    }
+
+    /**
+     * Opens payment journal of the shard, loads the newest checkpoint of the journal into the shard transaction
+     * ledger and replays the journal after the checkpoint (whole journal when there is no checkpoint).
+     * Shard owns currencies by the shard count, so journals written with another shard count can not be replayed.
+     * @return journal to append next payments into, null when journal directory is not configured
+     */
+    private static PaymentJournal replayPaymentJournal(
+            ExecutorConfiguration configuration, int shard, int shardCount, TransactionLedger transactionLedger, Level logLevel) {
+        Path journalDirectory = configuration.getJournalDirectory();
+        if (journalDirectory == null) {
+            return null;
+        }
+
+        Path journalPath = journalDirectory.resolve(String.format("payments-%d-of-%d.journal", shard, shardCount));
+        try {
+            Files.createDirectories(journalDirectory);
+            try (DirectoryStream<Path> journalPaths = Files.newDirectoryStream(journalDirectory, "payments-*.journal")) {
+                for (Path path : journalPaths) {
+                    if (!path.getFileName().toString().endsWith(String.format("-of-%d.journal", shardCount))) {
+                        throw new IllegalStateException(String.format(
+                                "Payment journal %s was written with another shard count than %d.", path, shardCount));
+                    }
+                }
+            }
+
+            PaymentJournal paymentJournal = new PaymentJournal(
+                    journalPath, configuration.getJournalFsyncPolicy(), configuration.getJournalFsyncIntervalMillis(), logLevel);
+            LedgerCheckpoint ledgerCheckpoint = LedgerCheckpoint.readNewest(journalPath, paymentJournal.position());
+            long journalPosition = 0;
+            if (ledgerCheckpoint != null) {
+                LOGGER.log(Level.INFO, "Loading checkpoint {0}.", ledgerCheckpoint.getPath());
+                ledgerCheckpoint.getPaymentBalances().forEach((currency, amount) ->
+                        transactionLedger.addPayment(Payment.builder().withCurrency(currency).withAmount(amount).build()));
+                journalPosition = ledgerCheckpoint.getJournalPosition();
+            }
+            paymentJournal.replay(journalPosition, transactionLedger::addPayment);
+            return paymentJournal;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to replay payment journal %s.", journalPath), e);
+        }
+    }
+
+    // every reader gets its own batcher to keep the order of its payments
+    private PaymentEventBatcher createPaymentEventBatcher(ExecutorConfiguration configuration, Level logLevel) {
+        if (configuration.getBatchSize() <= 1) {
+            return null;
+        }
+
+        PaymentEventBatcher paymentEventBatcher = new PaymentEventBatcher(
+                inputPaymentEventsPublisher, configuration.getBatchSize(), configuration.getBatchFlushTimeoutMillis(), logLevel);
+        paymentEventBatchers.add(paymentEventBatcher);
+        return paymentEventBatcher;
     }
 
     public void handleFutures() {
-        Future<?> inputOutputTransactionLedgerService = paymentReaderExecutorService.submit(this.inputOutputTransactionLedgerService);
+        if (paymentTrackerMetrics != null) {
+            paymentTrackerMetrics.register();
+        }
+        List<Future<?>> inputOutputTransactionLedgerServices = new ArrayList<>();
+        for (InputOutputTransactionLedgerService inputOutputTransactionLedgerService : this.inputOutputTransactionLedgerServices) {
+            inputOutputTransactionLedgerServices.add(paymentReaderExecutorService.submit(inputOutputTransactionLedgerService));
+        }
+        Future<?> shardSnapshotMerger = this.shardSnapshotMerger != null
+                ? paymentReaderExecutorService.submit(this.shardSnapshotMerger)
+                : null;
+        Future<?> ledgerCheckpointWriter = this.ledgerCheckpointWriter != null
+                ? paymentReaderExecutorService.submit(this.ledgerCheckpointWriter)
+                : null;
+        Future<?> checkpointSchedulerTask = this.checkpointSchedulerTask != null
+                ? schedulerExecutorService.scheduleWithFixedDelay(
+                        this.checkpointSchedulerTask, checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS)
+                : null;
+        Future<?> journalFsyncSchedulerTask = this.journalFsyncSchedulerTask != null
+                ? schedulerExecutorService.scheduleWithFixedDelay(
+                        this.journalFsyncSchedulerTask, journalFsyncIntervalMillis, journalFsyncIntervalMillis, TimeUnit.MILLISECONDS)
+                : null;
+        Future<?> exchangeRateRefresh = this.fileExchangeRateProvider != null
+                ? schedulerExecutorService.scheduleWithFixedDelay(
+                        this.fileExchangeRateProvider, exchangeRatesRefreshMillis, exchangeRatesRefreshMillis, TimeUnit.MILLISECONDS)
+                : null;
+        Future<?> paymentTrackerMetricsSampling = this.paymentTrackerMetrics != null
+                ? schedulerExecutorService.scheduleWithFixedDelay(
+                        this.paymentTrackerMetrics, 0, PaymentTrackerMetrics.SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                : null;
+
+        List<Future<?>> paymentEventBatcherFlushes = new ArrayList<>();
+        for (PaymentEventBatcher paymentEventBatcher : paymentEventBatchers) {
+            paymentEventBatcherFlushes.add(batchFlushExecutorService.scheduleWithFixedDelay(
+                    paymentEventBatcher,
+                    batchFlushTimeoutMillis,
+                    batchFlushTimeoutMillis,
+                    TimeUnit.MILLISECONDS
+            ));
+        }
 
-        // to get inputOutputTransactionLedgerService
-        // to shutdown paymentReaderExecutorService
+        // to get inputOutputTransactionLedgerServices
+        // to cancel shardSnapshotMerger, ledgerCheckpointWriter, checkpointSchedulerTask, journalFsyncSchedulerTask, exchangeRateRefresh, paymentTrackerMetricsSampling, paymentEventBatcherFlushes
+        // to shutdown paymentReaderExecutorService, schedulerExecutorService, batchFlushExecutorService
 
-        if (this.filePaymentReader != null) {
+        Future<?> followingFilePaymentReader = null;
+        if (this.filePaymentReader instanceof FollowingFilePaymentReader || this.filePaymentReader instanceof DirectoryWatchPaymentReader) {
+            followingFilePaymentReader = paymentReaderExecutorService.submit(this.filePaymentReader);
+        } else if (this.filePaymentReader != null) {
             Future<?> filePaymentReader = paymentReaderExecutorService.submit(this.filePaymentReader);
             try {
                 filePaymentReader.get();
@@ -100,16 +510,24 @@ public class ExecutorHandler {
             }
         }
 
+        Future<?> socketPaymentReader = this.socketPaymentReader != null
+                ? paymentReaderExecutorService.submit(this.socketPaymentReader)
+                : null;
         Future<?> commandLinePaymentReader = paymentReaderExecutorService.submit(this.commandLinePaymentReader);
 
-        // to get inputOutputTransactionLedgerService, commandLinePaymentReader
-        // to shutdown paymentReaderExecutorService
+        // to get inputOutputTransactionLedgerServices, commandLinePaymentReader
+        // to cancel shardSnapshotMerger, ledgerCheckpointWriter, checkpointSchedulerTask, journalFsyncSchedulerTask, exchangeRateRefresh, paymentTrackerMetricsSampling, paymentEventBatcherFlushes
+        // to shutdown paymentReaderExecutorService, schedulerExecutorService, batchFlushExecutorService
 
-        Future<?> consoleTransactionLedgerOutput = paymentReaderExecutorService.submit(this.consoleTransactionLedgerOutput);
+        List<Future<?>> transactionLedgerOutputs = new ArrayList<>();
+        for (TransactionLedgerOutput transactionLedgerOutput : this.transactionLedgerOutputs) {
+            transactionLedgerOutputs.add(paymentReaderExecutorService.submit(transactionLedgerOutput));
+        }
+        Future<?> transactionLedgerOutputFanOut = paymentReaderExecutorService.submit(this.transactionLedgerOutputFanOut);
 
-        // to get inputOutputTransactionLedgerService, commandLinePaymentReader
-        // to cancel consoleTransactionLedgerOutput
-        // to shutdown paymentReaderExecutorService
+        // to get inputOutputTransactionLedgerServices, commandLinePaymentReader
+        // to cancel transactionLedgerOutputFanOut, transactionLedgerOutputs, shardSnapshotMerger, ledgerCheckpointWriter, checkpointSchedulerTask, journalFsyncSchedulerTask, exchangeRateRefresh, paymentTrackerMetricsSampling, paymentEventBatcherFlushes
+        // to shutdown paymentReaderExecutorService, schedulerExecutorService, batchFlushExecutorService
 
         Future<?> queueSchedulerTask = schedulerExecutorService.scheduleWithFixedDelay(
                 this.queueSchedulerTask,
@@ -118,9 +536,9 @@ public class ExecutorHandler {
                 TimeUnit.SECONDS
         );
 
-        // to get inputOutputTransactionLedgerService, commandLinePaymentReader
-        // to cancel consoleTransactionLedgerOutput, queueSchedulerTask
-        // to shutdown paymentReaderExecutorService, schedulerExecutorService
+        // to get inputOutputTransactionLedgerServices, commandLinePaymentReader
+        // to cancel transactionLedgerOutputFanOut, transactionLedgerOutputs, shardSnapshotMerger, ledgerCheckpointWriter, checkpointSchedulerTask, journalFsyncSchedulerTask, exchangeRateRefresh, paymentTrackerMetricsSampling, queueSchedulerTask, paymentEventBatcherFlushes
+        // to shutdown paymentReaderExecutorService, schedulerExecutorService, batchFlushExecutorService
 
         try {
             commandLinePaymentReader.get();
@@ -129,30 +547,78 @@ public class ExecutorHandler {
             commandLinePaymentReader.cancel(true);
         }
 
-        // to get inputOutputTransactionLedgerService
-        // to cancel consoleTransactionLedgerOutput, queueSchedulerTask
-        // to shutdown paymentReaderExecutorService, schedulerExecutorService
-
-        try {
-            LOGGER.log(Level.INFO, "Sending payment event - SHUTDOWN.");
-            inputPaymentEventsQueue.put(PaymentEvent.builder().withPaymentEventType(PaymentEvent.PaymentEventType.SHUTDOWN).build());
-        } catch (InterruptedException e) {
-            LOGGER.log(Level.SEVERE, "SHUTDOWN payment event failed.");
+        if (followingFilePaymentReader != null) {
+            if (this.filePaymentReader instanceof DirectoryWatchPaymentReader) {
+                ((DirectoryWatchPaymentReader) this.filePaymentReader).stop();
+            } else {
+                ((FollowingFilePaymentReader) this.filePaymentReader).stop();
+            }
+            try {
+                followingFilePaymentReader.get(TRANSACTION_LEDGER_TIMEOUT, TimeUnit.SECONDS);
+            } catch (TimeoutException | InterruptedException | ExecutionException e) {
+                LOGGER.log(Level.SEVERE, "Following file payment reader failed.");
+                followingFilePaymentReader.cancel(true);
+            }
+        }
+        if (socketPaymentReader != null) {
+            this.socketPaymentReader.stop();
+            try {
+                socketPaymentReader.get(TRANSACTION_LEDGER_TIMEOUT, TimeUnit.SECONDS);
+            } catch (TimeoutException | InterruptedException | ExecutionException e) {
+                LOGGER.log(Level.SEVERE, "Socket payment reader failed.");
+                socketPaymentReader.cancel(true);
+            }
         }
 
-        try {
-            LOGGER.log(Level.INFO, "Force SHUTDOWN.");
-            inputOutputTransactionLedgerService.get(TRANSACTION_LEDGER_TIMEOUT, TimeUnit.SECONDS);
-        } catch (TimeoutException | InterruptedException | ExecutionException ex) {
-            inputOutputTransactionLedgerService.cancel(true);
+        // to get inputOutputTransactionLedgerServices
+        // to cancel transactionLedgerOutputFanOut, transactionLedgerOutputs, shardSnapshotMerger, ledgerCheckpointWriter, checkpointSchedulerTask, journalFsyncSchedulerTask, exchangeRateRefresh, paymentTrackerMetricsSampling, queueSchedulerTask, paymentEventBatcherFlushes
+        // to shutdown paymentReaderExecutorService, schedulerExecutorService, batchFlushExecutorService
+
+        LOGGER.log(Level.INFO, "Requesting SHUTDOWN.");
+        paymentEventControlLane.requestShutdown();
+
+        for (Future<?> inputOutputTransactionLedgerService : inputOutputTransactionLedgerServices) {
+            try {
+                LOGGER.log(Level.INFO, "Force SHUTDOWN.");
+                inputOutputTransactionLedgerService.get(TRANSACTION_LEDGER_TIMEOUT, TimeUnit.SECONDS);
+            } catch (ExecutionException ex) {
+                LOGGER.log(Level.SEVERE, "Transaction ledger service failed.");
+            } catch (TimeoutException | InterruptedException ex) {
+                inputOutputTransactionLedgerService.cancel(true);
+            }
         }
 
-        // to cancel consoleTransactionLedgerOutput, queueSchedulerTask
-        // to shutdown paymentReaderExecutorService, schedulerExecutorService
+        // to cancel transactionLedgerOutputFanOut, transactionLedgerOutputs, shardSnapshotMerger, ledgerCheckpointWriter, checkpointSchedulerTask, journalFsyncSchedulerTask, exchangeRateRefresh, paymentTrackerMetricsSampling, queueSchedulerTask, paymentEventBatcherFlushes
+        // to shutdown paymentReaderExecutorService, schedulerExecutorService, batchFlushExecutorService
 
         queueSchedulerTask.cancel(true);
-        consoleTransactionLedgerOutput.cancel(true);
+        paymentEventBatcherFlushes.forEach(paymentEventBatcherFlush -> paymentEventBatcherFlush.cancel(true));
+        if (shardSnapshotMerger != null) {
+            shardSnapshotMerger.cancel(true);
+        }
+        if (checkpointSchedulerTask != null) {
+            checkpointSchedulerTask.cancel(true);
+        }
+        if (journalFsyncSchedulerTask != null) {
+            journalFsyncSchedulerTask.cancel(true);
+        }
+        if (exchangeRateRefresh != null) {
+            exchangeRateRefresh.cancel(true);
+        }
+        if (paymentTrackerMetricsSampling != null) {
+            paymentTrackerMetricsSampling.cancel(true);
+        }
+        if (ledgerCheckpointWriter != null) {
+            // interrupted checkpoint stays in its temporary file, only complete checkpoints get the checkpoint name
+            ledgerCheckpointWriter.cancel(true);
+        }
+        transactionLedgerOutputFanOut.cancel(true);
+        transactionLedgerOutputs.forEach(transactionLedgerOutput -> transactionLedgerOutput.cancel(true));
         schedulerExecutorService.shutdown();
+        batchFlushExecutorService.shutdown();
         paymentReaderExecutorService.shutdown();
+        if (paymentTrackerMetrics != null) {
+            paymentTrackerMetrics.unregister();
+        }
     }
 }
@@ -0,0 +1,238 @@
+package company.bankingsoftware.paymenttracker.journal;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Balances of the transaction ledger covering payment journal up to the journal position, so only the journal tail
+ * after the position is replayed on start.
+ *
+ * Checkpoint is stored next to its journal, file name is the journal file name with the journal position.
+ * File contains header (magic, version, journal position, CRC32 of the journal tail, number of balances) followed
+ * by balances: currency length (byte), currency (UTF-8), amount scale (int), unscaled amount length (short),
+ * unscaled amount (two's complement) and ends with CRC32 of all the previous bytes.
+ * It is written into a temporary file which is moved to its name when complete, and read through memory mapping.
+ *
+ * Journal tail is the journal part right before the journal position (up to 4 KiB), the checkpoint is used only when
+ * the journal still contains the same tail, so a checkpoint never covers other payments than the ones it was made of
+ * (for ex. when the journal lost its end in a crash and got other payments appended after restart).
+ */
+public class LedgerCheckpoint {
+
+    private static final int MAGIC = 0x50544331; // PTC1
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+    private static final int JOURNAL_TAIL_SIZE = 4096;
+    private static final String SUFFIX = ".checkpoint";
+    private static final int KEPT_CHECKPOINT_COUNT = 2;
+
+    private final Path journalPath;
+    private final long journalPosition;
+    private final Map<String, Money> paymentBalances;
+    // CRC32 of the journal tail, known only for a read checkpoint
+    private int journalTailCrc;
+
+    /**
+     * @param paymentBalances balances of the ledger with all the journaled payments before the journal position
+     *                        applied, it must not change (for ex. balances of a transaction ledger snapshot)
+     */
+    public LedgerCheckpoint(Path journalPath, long journalPosition, Map<String, Money> paymentBalances) {
+        this.journalPath = journalPath;
+        this.journalPosition = journalPosition;
+        this.paymentBalances = paymentBalances;
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    public long getJournalPosition() {
+        return journalPosition;
+    }
+
+    public Map<String, Money> getPaymentBalances() {
+        return paymentBalances;
+    }
+
+    /**
+     * @return path of the checkpoint next to its journal
+     */
+    public Path getPath() {
+        return journalPath.resolveSibling(String.format("%s.%019d%s", journalPath.getFileName(), journalPosition, SUFFIX));
+    }
+
+    /**
+     * Writes the checkpoint and deletes the older checkpoints of the journal except the previous one.
+     * Journal must be written (and forced) up to the journal position.
+     */
+    public void write() throws IOException {
+        final int journalTailCrc = journalTailCrc(journalPath, journalPosition);
+        final List<byte[]> currencies = new ArrayList<>(paymentBalances.size());
+        final List<byte[]> unscaledAmounts = new ArrayList<>(paymentBalances.size());
+        int size = HEADER_SIZE + Integer.BYTES;
+        for (Map.Entry<String, Money> paymentBalance : paymentBalances.entrySet()) {
+            final byte[] currency = paymentBalance.getKey().getBytes(StandardCharsets.UTF_8);
+            final byte[] unscaled = paymentBalance.getValue().unscaledValue().toByteArray();
+            if (currency.length > 255 || unscaled.length > Short.MAX_VALUE) {
+                throw new IOException(String.format("Balance %s %s is too big for checkpoint.", paymentBalance.getKey(), paymentBalance.getValue()));
+            }
+            currencies.add(currency);
+            unscaledAmounts.add(unscaled);
+            size += 1 + currency.length + Integer.BYTES + Short.BYTES + unscaled.length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(journalPosition).putInt(journalTailCrc).putInt(paymentBalances.size());
+        int i = 0;
+        for (Money amount : paymentBalances.values()) {
+            buffer.put((byte) currencies.get(i).length).put(currencies.get(i))
+                    .putInt(amount.getScale())
+                    .putShort((short) unscaledAmounts.get(i).length).put(unscaledAmounts.get(i));
+            i++;
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue()).flip();
+
+        final Path path = getPath();
+        final Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        final List<Path> checkpointPaths = checkpointPaths(journalPath);
+        for (Path checkpointPath : checkpointPaths.subList(Math.min(KEPT_CHECKPOINT_COUNT, checkpointPaths.size()), checkpointPaths.size())) {
+            Files.deleteIfExists(checkpointPath);
+        }
+    }
+
+    /**
+     * Reads checkpoint through memory mapping.
+     * @throws IOException when the file is not a complete checkpoint
+     */
+    public static LedgerCheckpoint read(Path journalPath, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE + Integer.BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Checkpoint %s has invalid size %d.", path, size));
+            }
+
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            final CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit((int) size - Integer.BYTES));
+            if (buffer.getInt((int) size - Integer.BYTES) != (int) crc.getValue()
+                    || buffer.getInt() != MAGIC
+                    || buffer.getInt() != VERSION) {
+                throw new IOException(String.format("Checkpoint %s is corrupted.", path));
+            }
+
+            final long journalPosition = buffer.getLong();
+            final int journalTailCrc = buffer.getInt();
+            final int balanceCount = buffer.getInt();
+            final Map<String, Money> paymentBalances = new LinkedHashMap<>();
+            for (int i = 0; i < balanceCount; i++) {
+                final byte[] currency = new byte[Byte.toUnsignedInt(buffer.get())];
+                buffer.get(currency);
+                final int scale = buffer.getInt();
+                final byte[] unscaled = new byte[buffer.getShort()];
+                buffer.get(unscaled);
+                paymentBalances.put(new String(currency, StandardCharsets.UTF_8), Money.valueOf(new BigDecimal(new BigInteger(unscaled), scale)));
+            }
+
+            final LedgerCheckpoint ledgerCheckpoint = new LedgerCheckpoint(journalPath, journalPosition, Collections.unmodifiableMap(paymentBalances));
+            ledgerCheckpoint.journalTailCrc = journalTailCrc;
+            return ledgerCheckpoint;
+        }
+    }
+
+    /**
+     * Reads the newest valid checkpoint of the journal, it must be called before the journal is appended.
+     * Corrupted checkpoints are skipped. Checkpoints after the journal end (journal records lost in a crash before
+     * they were forced to the disk) or with another journal tail are deleted, otherwise they would look valid again
+     * once the journal grows over their position, and as the newest ones they would never be cleaned up.
+     * @return checkpoint or null when there is no valid one
+     * @throws IOException when the journal can not be read or a checkpoint which does not match it can not be deleted
+     */
+    public static LedgerCheckpoint readNewest(Path journalPath, long journalSize) throws IOException {
+        for (Path checkpointPath : checkpointPaths(journalPath)) {
+            final LedgerCheckpoint ledgerCheckpoint;
+            try {
+                ledgerCheckpoint = read(journalPath, checkpointPath);
+            } catch (IOException | RuntimeException e) {
+                // corrupted checkpoint, older one is tried
+                continue;
+            }
+
+            if (ledgerCheckpoint.getJournalPosition() <= journalSize
+                    && ledgerCheckpoint.journalTailCrc == journalTailCrc(journalPath, ledgerCheckpoint.getJournalPosition())) {
+                return ledgerCheckpoint;
+            }
+            Files.delete(checkpointPath);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return CRC32 of the journal part right before the journal position
+     * @throws IOException when the journal ends before the journal position
+     */
+    private static int journalTailCrc(Path journalPath, long journalPosition) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            if (channel.size() < journalPosition) {
+                throw new IOException(String.format("Journal %s ends before checkpoint position %d.", journalPath, journalPosition));
+            }
+
+            final long tailPosition = Math.max(0, journalPosition - JOURNAL_TAIL_SIZE);
+            final ByteBuffer tail = ByteBuffer.allocate((int) (journalPosition - tailPosition));
+            while (tail.hasRemaining() && channel.read(tail, tailPosition + tail.position()) >= 0) {
+                // reads whole tail
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(tail.flip());
+            return (int) crc.getValue();
+        }
+    }
+
+    /**
+     * @return checkpoints of the journal from the newest one
+     */
+    private static List<Path> checkpointPaths(Path journalPath) throws IOException {
+        final List<Path> checkpointPaths = new ArrayList<>();
+        final Path directory = journalPath.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, journalPath.getFileName() + ".*" + SUFFIX)) {
+            paths.forEach(checkpointPaths::add);
+        }
+        // journal position has fixed width, so the names sort by the position
+        checkpointPaths.sort(Collections.reverseOrder());
+        return checkpointPaths;
+    }
+}
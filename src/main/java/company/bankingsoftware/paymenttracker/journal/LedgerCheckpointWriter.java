@@ -0,0 +1,62 @@
+package company.bankingsoftware.paymenttracker.journal;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes ledger checkpoints on its own thread, so transaction ledger services only hand over the checkpoint
+ * of their snapshot and continue applying payments.
+ */
+public class LedgerCheckpointWriter implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(LedgerCheckpointWriter.class.getName());
+
+    private final BlockingQueue<LedgerCheckpoint> ledgerCheckpointQueue;
+    private boolean running = true;
+
+    /**
+     * @param capacity max number of checkpoints waiting to be written
+     */
+    public LedgerCheckpointWriter(int capacity, Level logLevel) {
+        this.ledgerCheckpointQueue = new ArrayBlockingQueue<>(capacity);
+        LOGGER.setLevel(logLevel);
+    }
+
+    /**
+     * Hands over the checkpoint without waiting, it is dropped when too many checkpoints wait
+     * (the next one covers it).
+     * @return true when the checkpoint is going to be written
+     */
+    public boolean offer(LedgerCheckpoint ledgerCheckpoint) {
+        if (!ledgerCheckpointQueue.offer(ledgerCheckpoint)) {
+            LOGGER.log(Level.WARNING, "Checkpoint writer is busy, dropping checkpoint {0}.", ledgerCheckpoint.getPath());
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                write(ledgerCheckpointQueue.take());
+            } catch (InterruptedException e) {
+                running = false;
+                LOGGER.log(Level.INFO, "Interruption - not able to write checkpoints.");
+            }
+        }
+    }
+
+    void write(LedgerCheckpoint ledgerCheckpoint) {
+        try {
+            ledgerCheckpoint.write();
+            LOGGER.log(Level.INFO, "Written checkpoint {0}.", ledgerCheckpoint.getPath());
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to write checkpoint {0}.", ledgerCheckpoint.getPath());
+        }
+    }
+}
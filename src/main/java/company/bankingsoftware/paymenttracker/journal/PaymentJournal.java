@@ -0,0 +1,304 @@
+package company.bankingsoftware.paymenttracker.journal;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append only binary journal of payments applied to the transaction ledger, it is replayed on restart,
+ * so the balances survive a crash.
+ *
+ * File starts with header (magic, version) followed by records:
+ * payload length (int), CRC32 of payload (int), payload - currency length (byte), currency (UTF-8),
+ * amount scale (int), unscaled amount length (short), unscaled amount (two's complement).
+ * Replay stops at the first incomplete or corrupted record (torn write of a crash) and truncates the file there.
+ *
+ * Appended payments are collected in a buffer and written by {@link #commit()} (group commit), fsync policy decides
+ * when the written records are forced to the disk:
+ * - BATCH forces on every commit, payments are durable once their batch is committed
+ * - INTERVAL forces on the first commit after the interval elapsed, the journal owner also has to commit it
+ *   periodically (for ex. every interval), so the tail of an idle journal is forced too and a crash loses
+ *   at most about the last interval
+ * - NONE never forces, the operating system decides when the records get to the disk
+ *
+ * It is not thread safe, it is written by the single transaction ledger service thread.
+ */
+public class PaymentJournal implements Closeable {
+
+    public enum FsyncPolicy { BATCH, INTERVAL, NONE }
+
+    private static final Logger LOGGER = Logger.getLogger(PaymentJournal.class.getName());
+
+    private static final int MAGIC = 0x50544A31; // PTJ1
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_CURRENCY_LENGTH = 255;
+    private static final int MAX_UNSCALED_LENGTH = Short.MAX_VALUE;
+    private static final int MAX_PAYLOAD_SIZE = 1 + MAX_CURRENCY_LENGTH + Integer.BYTES + Short.BYTES + MAX_UNSCALED_LENGTH;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private long position;
+    private long lastForceNanos = System.nanoTime();
+    private boolean forced = true;
+
+    public PaymentJournal(Path path, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, Level logLevel) throws IOException {
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        LOGGER.setLevel(logLevel);
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            readOrWriteHeader();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        position = channel.size();
+        channel.position(position);
+    }
+
+    /**
+     * Replays all the payments of the journal, must be called before any payment is appended.
+     * @return number of replayed payments
+     */
+    public long replay(Consumer<Payment> paymentConsumer) throws IOException {
+        return replay(HEADER_SIZE, paymentConsumer);
+    }
+
+    /**
+     * Replays payments of the journal from the given position (start of a record), the file is truncated after
+     * the last valid record, so next payments are appended right after it.
+     * @return number of replayed payments
+     */
+    public long replay(long fromPosition, Consumer<Payment> paymentConsumer) throws IOException {
+        final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        readBuffer.flip();
+        long recordPosition = Math.max(HEADER_SIZE, fromPosition);
+        long readPosition = recordPosition;
+        long replayedPaymentCount = 0;
+        while (true) {
+            if (readBuffer.remaining() < RECORD_HEADER_SIZE) {
+                readPosition = fill(readBuffer, readPosition);
+                if (readBuffer.remaining() < RECORD_HEADER_SIZE) {
+                    break;
+                }
+            }
+            final int payloadLength = readBuffer.getInt(readBuffer.position());
+            final int payloadCrc = readBuffer.getInt(readBuffer.position() + Integer.BYTES);
+            if (payloadLength <= 0 || payloadLength > MAX_PAYLOAD_SIZE) {
+                break;
+            }
+            if (readBuffer.remaining() < RECORD_HEADER_SIZE + payloadLength) {
+                readPosition = fill(readBuffer, readPosition);
+                if (readBuffer.remaining() < RECORD_HEADER_SIZE + payloadLength) {
+                    break;
+                }
+            }
+
+            final ByteBuffer payload = readBuffer.duplicate();
+            payload.position(readBuffer.position() + RECORD_HEADER_SIZE).limit(payload.position() + payloadLength);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != payloadCrc) {
+                break;
+            }
+
+            paymentConsumer.accept(decode(payload));
+            readBuffer.position(payload.limit());
+            recordPosition += RECORD_HEADER_SIZE + payloadLength;
+            replayedPaymentCount++;
+        }
+
+        if (recordPosition < channel.size()) {
+            LOGGER.log(Level.WARNING, "Truncating incomplete journal {0} at {1}.", new Object[] {path, recordPosition});
+            channel.truncate(recordPosition);
+        }
+        position = recordPosition;
+        channel.position(position);
+        LOGGER.log(Level.INFO, "Replayed {0} payments from journal {1}.", new Object[] {replayedPaymentCount, path});
+        return replayedPaymentCount;
+    }
+
+    /**
+     * @return false when currency or amount of the payment is too long for a journal record,
+     * such payment must not be appended
+     */
+    public boolean isAppendable(Payment payment) {
+        return payment.getCurrency().getBytes(StandardCharsets.UTF_8).length <= MAX_CURRENCY_LENGTH
+                && payment.getAmount().unscaledValue().bitLength() / Byte.SIZE + 1 <= MAX_UNSCALED_LENGTH;
+    }
+
+    /**
+     * Appends the payment into the buffer, it gets to the file on the next {@link #commit()}
+     * (or sooner when the buffer is full).
+     * @throws IOException when the payment is not appendable or the buffer failed to be written
+     */
+    public void append(Payment payment) throws IOException {
+        final byte[] currency = payment.getCurrency().getBytes(StandardCharsets.UTF_8);
+        final Money amount = payment.getAmount();
+        final byte[] unscaled = amount.unscaledValue().toByteArray();
+        if (currency.length > MAX_CURRENCY_LENGTH || unscaled.length > MAX_UNSCALED_LENGTH) {
+            throw new IOException(String.format("Payment %s %s is too big for journal.", payment.getCurrency(), amount));
+        }
+
+        final int payloadLength = 1 + currency.length + Integer.BYTES + Short.BYTES + unscaled.length;
+        if (writeBuffer.remaining() < RECORD_HEADER_SIZE + payloadLength) {
+            write();
+        }
+
+        final int recordStart = writeBuffer.position();
+        writeBuffer.position(recordStart + RECORD_HEADER_SIZE);
+        writeBuffer.put((byte) currency.length).put(currency)
+                .putInt(amount.getScale())
+                .putShort((short) unscaled.length).put(unscaled);
+
+        final ByteBuffer payload = writeBuffer.duplicate();
+        payload.position(recordStart + RECORD_HEADER_SIZE).limit(writeBuffer.position());
+        crc.reset();
+        crc.update(payload);
+        writeBuffer.putInt(recordStart, payloadLength).putInt(recordStart + Integer.BYTES, (int) crc.getValue());
+        position += RECORD_HEADER_SIZE + payloadLength;
+    }
+
+    /**
+     * Writes appended payments into the file and forces them to the disk according to the fsync policy.
+     */
+    public void commit() throws IOException {
+        write();
+        if (forced) {
+            return;
+        }
+
+        switch (fsyncPolicy) {
+            case BATCH:
+                force();
+                break;
+            case INTERVAL:
+                if (System.nanoTime() - lastForceNanos >= fsyncIntervalNanos) {
+                    force();
+                }
+                break;
+            case NONE:
+                break;
+        }
+    }
+
+    /**
+     * Writes appended payments and forces them to the disk (unless fsync policy is NONE) regardless of the fsync
+     * policy interval, for ex. before a checkpoint covering them is written.
+     */
+    public void sync() throws IOException {
+        write();
+        if (!forced && fsyncPolicy != FsyncPolicy.NONE) {
+            force();
+        }
+    }
+
+    /**
+     * @return position right after the last appended payment
+     */
+    public long position() {
+        return position;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Writes appended payments and forces them to the disk (unless fsync policy is NONE).
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void write() throws IOException {
+        writeBuffer.flip();
+        if (writeBuffer.hasRemaining()) {
+            forced = false;
+        }
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private void force() throws IOException {
+        channel.force(false);
+        lastForceNanos = System.nanoTime();
+        forced = true;
+    }
+
+    private void readOrWriteHeader() throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() >= HEADER_SIZE) {
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // reads whole header
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(String.format("File %s is not a payment journal.", path));
+            }
+            return;
+        }
+
+        // new journal, or a crash before its header was written
+        channel.truncate(0);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    private long fill(ByteBuffer readBuffer, long readPosition) throws IOException {
+        readBuffer.compact();
+        int read;
+        while (readBuffer.hasRemaining() && (read = channel.read(readBuffer, readPosition)) > 0) {
+            readPosition += read;
+        }
+        readBuffer.flip();
+        return readPosition;
+    }
+
+    private static Payment decode(ByteBuffer payload) {
+        final byte[] currency = new byte[Byte.toUnsignedInt(payload.get())];
+        payload.get(currency);
+        final int scale = payload.getInt();
+        final byte[] unscaled = new byte[payload.getShort()];
+        payload.get(unscaled);
+
+        return Payment.builder()
+                .withCurrency(new String(currency, StandardCharsets.UTF_8))
+                .withAmount(Money.valueOf(new BigDecimal(new BigInteger(unscaled), scale)))
+                .build();
+    }
+}
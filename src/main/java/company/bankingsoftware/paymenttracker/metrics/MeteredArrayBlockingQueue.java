@@ -0,0 +1,49 @@
+package company.bankingsoftware.paymenttracker.metrics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Array blocking queue counting time producers were blocked by full queue.
+ * Put tries to offer first, so the clock is read only when the queue is full.
+ */
+public class MeteredArrayBlockingQueue<E> extends ArrayBlockingQueue<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LongAdder blockedPutCount = new LongAdder();
+    private final LongAdder blockedPutNanos = new LongAdder();
+
+    public MeteredArrayBlockingQueue(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (offer(e)) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            super.put(e);
+        } finally {
+            blockedPutCount.increment();
+            blockedPutNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return number of puts which waited for full queue
+     */
+    public long getBlockedPutCount() {
+        return blockedPutCount.sum();
+    }
+
+    /**
+     * @return total time producers waited for full queue
+     */
+    public long getBlockedPutNanos() {
+        return blockedPutNanos.sum();
+    }
+}
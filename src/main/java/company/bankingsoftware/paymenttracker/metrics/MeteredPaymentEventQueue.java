@@ -0,0 +1,82 @@
+package company.bankingsoftware.paymenttracker.metrics;
+
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventQueue;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Payment event queue counting published and taken payment events and time publishers were blocked by full queue.
+ * Publishing tries to offer first, so the clock is read only when the queue is full.
+ */
+public class MeteredPaymentEventQueue implements PaymentEventQueue {
+
+    private final PaymentEventQueue paymentEventQueue;
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder takenCount = new LongAdder();
+    private final LongAdder blockedPutCount = new LongAdder();
+    private final LongAdder blockedPutNanos = new LongAdder();
+
+    public MeteredPaymentEventQueue(PaymentEventQueue paymentEventQueue) {
+        this.paymentEventQueue = paymentEventQueue;
+    }
+
+    @Override
+    public void put(PaymentEvent paymentEvent) throws InterruptedException {
+        if (!paymentEventQueue.offer(paymentEvent)) {
+            final long start = System.nanoTime();
+            try {
+                paymentEventQueue.put(paymentEvent);
+            } finally {
+                blockedPutCount.increment();
+                blockedPutNanos.add(System.nanoTime() - start);
+            }
+        }
+        publishedCount.increment();
+    }
+
+    @Override
+    public boolean offer(PaymentEvent paymentEvent) {
+        if (paymentEventQueue.offer(paymentEvent)) {
+            publishedCount.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public PaymentEvent take() throws InterruptedException {
+        final PaymentEvent paymentEvent = paymentEventQueue.take();
+        takenCount.increment();
+        return paymentEvent;
+    }
+
+    @Override
+    public int drainTo(Collection<? super PaymentEvent> paymentEvents, int maxPaymentEvents) {
+        final int drainedCount = paymentEventQueue.drainTo(paymentEvents, maxPaymentEvents);
+        takenCount.add(drainedCount);
+        return drainedCount;
+    }
+
+    /**
+     * @return number of payment events waiting in the queue, approximate while the queue is used
+     */
+    public long getDepth() {
+        return Math.max(0, publishedCount.sum() - takenCount.sum());
+    }
+
+    /**
+     * @return number of publishings which waited for full queue
+     */
+    public long getBlockedPutCount() {
+        return blockedPutCount.sum();
+    }
+
+    /**
+     * @return total time publishers waited for full queue
+     */
+    public long getBlockedPutNanos() {
+        return blockedPutNanos.sum();
+    }
+}
@@ -0,0 +1,58 @@
+package company.bankingsoftware.paymenttracker.metrics;
+
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.reader.PaymentParser;
+
+import java.text.ParseException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Payment parser counting parsed lines and parse failures of one input source.
+ * Counters are striped, so parsers of parallel readers do not contend on them.
+ */
+public class MeteredPaymentParser implements PaymentParser {
+
+    private final PaymentParser paymentParser;
+    private final LongAdder lineCount = new LongAdder();
+    private final LongAdder parseFailureCount = new LongAdder();
+
+    public MeteredPaymentParser(PaymentParser paymentParser) {
+        this.paymentParser = paymentParser;
+    }
+
+    @Override
+    public Payment toPayment(String paymentLine) throws ParseException {
+        lineCount.increment();
+        try {
+            return paymentParser.toPayment(paymentLine);
+        } catch (ParseException | RuntimeException e) {
+            parseFailureCount.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public Payment toPayment(CharSequence paymentLine) throws ParseException {
+        lineCount.increment();
+        try {
+            return paymentParser.toPayment(paymentLine);
+        } catch (ParseException | RuntimeException e) {
+            parseFailureCount.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of lines given to the parser
+     */
+    public long getLineCount() {
+        return lineCount.sum();
+    }
+
+    /**
+     * @return number of lines which are not valid payments
+     */
+    public long getParseFailureCount() {
+        return parseFailureCount.sum();
+    }
+}
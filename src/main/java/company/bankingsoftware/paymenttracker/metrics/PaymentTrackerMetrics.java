@@ -0,0 +1,240 @@
+package company.bankingsoftware.paymenttracker.metrics;
+
+import company.bankingsoftware.paymenttracker.printer.OverflowSnapshotQueue;
+import company.bankingsoftware.paymenttracker.printer.StreamTransactionLedgerOutput;
+import company.bankingsoftware.paymenttracker.service.InputOutputTransactionLedgerService;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registry of payment tracker metrics, reads counters owned by the metered components.
+ * The components count by striped counters only, so hot paths do not contend on shared metrics
+ * and the counters are summed only when a JMX client reads an attribute.
+ *
+ * Payments applied per second are computed by {@link #run()}, which is meant to be scheduled every sample interval,
+ * from the applied payments sampled over the last 10 intervals, so reading the attribute has no side effect
+ * and all JMX clients read the same rate.
+ */
+public class PaymentTrackerMetrics implements PaymentTrackerMetricsMXBean, Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(PaymentTrackerMetrics.class.getName());
+
+    public static final String OBJECT_NAME = "company.bankingsoftware.paymenttracker:type=PaymentTrackerMetrics";
+    public static final long SAMPLE_INTERVAL_MILLIS = 1000;
+    private static final int SAMPLE_WINDOW_INTERVALS = 10;
+
+    private final Map<String, MeteredPaymentParser> paymentParsers;
+    private final List<MeteredPaymentEventQueue> inputQueues;
+    private final MeteredArrayBlockingQueue<?> outputQueue;
+    private final List<InputOutputTransactionLedgerService> transactionLedgerServices;
+    private final List<StreamTransactionLedgerOutput> transactionLedgerOutputs;
+    private final List<OverflowSnapshotQueue> outputSinkQueues;
+
+    // ring of samples, both ends of the window are kept, written only by the sampling thread
+    private final long[] appliedPaymentCountSamples = new long[SAMPLE_WINDOW_INTERVALS + 1];
+    private final long[] sampleNanos = new long[SAMPLE_WINDOW_INTERVALS + 1];
+    private int nextSample;
+    private int sampleCount;
+    private volatile double appliedPaymentsPerSecond;
+
+    private PaymentTrackerMetrics(Builder b) {
+        // keeps order of the sources
+        this.paymentParsers = new LinkedHashMap<>(b.paymentParsers);
+        this.inputQueues = List.copyOf(b.inputQueues);
+        this.outputQueue = b.outputQueue;
+        this.transactionLedgerServices = List.copyOf(b.transactionLedgerServices);
+        this.transactionLedgerOutputs = List.copyOf(b.transactionLedgerOutputs);
+        this.outputSinkQueues = List.copyOf(b.outputSinkQueues);
+        LOGGER.setLevel(b.logLevel);
+    }
+
+    @Override
+    public Map<String, Long> getLinesRead() {
+        Map<String, Long> linesRead = new LinkedHashMap<>();
+        paymentParsers.forEach((source, paymentParser) -> linesRead.put(source, paymentParser.getLineCount()));
+        return linesRead;
+    }
+
+    @Override
+    public Map<String, Long> getParseFailures() {
+        Map<String, Long> parseFailures = new LinkedHashMap<>();
+        paymentParsers.forEach((source, paymentParser) -> parseFailures.put(source, paymentParser.getParseFailureCount()));
+        return parseFailures;
+    }
+
+    @Override
+    public long getInputQueueDepth() {
+        return inputQueues.stream().mapToLong(MeteredPaymentEventQueue::getDepth).sum();
+    }
+
+    @Override
+    public long getInputQueueBlockedPuts() {
+        return inputQueues.stream().mapToLong(MeteredPaymentEventQueue::getBlockedPutCount).sum();
+    }
+
+    @Override
+    public long getInputQueueBlockedPutMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(inputQueues.stream().mapToLong(MeteredPaymentEventQueue::getBlockedPutNanos).sum());
+    }
+
+    @Override
+    public long getOutputQueueDepth() {
+        return outputQueue != null ? outputQueue.size() : 0;
+    }
+
+    @Override
+    public long getOutputQueueBlockedPuts() {
+        return outputQueue != null ? outputQueue.getBlockedPutCount() : 0;
+    }
+
+    @Override
+    public long getOutputQueueBlockedPutMillis() {
+        return outputQueue != null ? TimeUnit.NANOSECONDS.toMillis(outputQueue.getBlockedPutNanos()) : 0;
+    }
+
+    @Override
+    public long getAppliedPayments() {
+        return transactionLedgerServices.stream().mapToLong(InputOutputTransactionLedgerService::getAppliedPaymentCount).sum();
+    }
+
+    @Override
+    public double getAppliedPaymentsPerSecond() {
+        return appliedPaymentsPerSecond;
+    }
+
+    /**
+     * Samples applied payments and computes payments applied per second since the oldest sample of the window,
+     * it must not be run by more threads at the same time.
+     */
+    @Override
+    public void run() {
+        final long appliedPaymentCount = getAppliedPayments();
+        final long now = System.nanoTime();
+        appliedPaymentCountSamples[nextSample] = appliedPaymentCount;
+        sampleNanos[nextSample] = now;
+        nextSample = (nextSample + 1) % sampleNanos.length;
+        sampleCount = Math.min(sampleCount + 1, sampleNanos.length);
+
+        final int oldestSample = sampleCount < sampleNanos.length ? 0 : nextSample;
+        final long elapsedNanos = now - sampleNanos[oldestSample];
+        appliedPaymentsPerSecond = elapsedNanos > 0
+                ? (appliedPaymentCount - appliedPaymentCountSamples[oldestSample]) * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos
+                : 0;
+    }
+
+    @Override
+    public long getReports() {
+        return transactionLedgerOutputs.stream().mapToLong(StreamTransactionLedgerOutput::getReportCount).sum();
+    }
+
+    @Override
+    public double getAverageReportRenderMillis() {
+        final long reportCount = getReports();
+        final long renderNanos = transactionLedgerOutputs.stream().mapToLong(StreamTransactionLedgerOutput::getRenderNanos).sum();
+        return reportCount > 0 ? renderNanos / (double) TimeUnit.MILLISECONDS.toNanos(1) / reportCount : 0;
+    }
+
+    @Override
+    public long getDroppedReports() {
+        return outputSinkQueues.stream().mapToLong(OverflowSnapshotQueue::getDroppedSnapshotCount).sum();
+    }
+
+    /**
+     * Registers the metrics into the platform MBean server, replaces metrics of previous payment tracker in the same JVM.
+     * Failure is only logged, payment tracker runs without metrics then.
+     */
+    public void register() {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            try {
+                mBeanServer.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                mBeanServer.unregisterMBean(objectName);
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.SEVERE, "Failed to register metrics.", e);
+        }
+    }
+
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // already replaced and unregistered by another payment tracker
+        } catch (JMException e) {
+            LOGGER.log(Level.SEVERE, "Failed to unregister metrics.", e);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private final Map<String, MeteredPaymentParser> paymentParsers = new LinkedHashMap<>();
+        private final List<MeteredPaymentEventQueue> inputQueues = new ArrayList<>();
+        private MeteredArrayBlockingQueue<?> outputQueue;
+        private final List<InputOutputTransactionLedgerService> transactionLedgerServices = new ArrayList<>();
+        private final List<StreamTransactionLedgerOutput> transactionLedgerOutputs = new ArrayList<>();
+        private final List<OverflowSnapshotQueue> outputSinkQueues = new ArrayList<>();
+        private Level logLevel = Level.SEVERE;
+
+        private Builder() {}
+
+        /**
+         * @param source name of the input source, for ex. <i>file</i>
+         */
+        public Builder withPaymentParser(String source, MeteredPaymentParser paymentParser) {
+            this.paymentParsers.put(source, paymentParser);
+            return this;
+        }
+
+        public Builder withInputQueue(MeteredPaymentEventQueue inputQueue) {
+            this.inputQueues.add(inputQueue);
+            return this;
+        }
+
+        public Builder withOutputQueue(MeteredArrayBlockingQueue<?> outputQueue) {
+            this.outputQueue = outputQueue;
+            return this;
+        }
+
+        public Builder withTransactionLedgerService(InputOutputTransactionLedgerService transactionLedgerService) {
+            this.transactionLedgerServices.add(transactionLedgerService);
+            return this;
+        }
+
+        public Builder withTransactionLedgerOutput(StreamTransactionLedgerOutput transactionLedgerOutput) {
+            this.transactionLedgerOutputs.add(transactionLedgerOutput);
+            return this;
+        }
+
+        public Builder withOutputSinkQueue(OverflowSnapshotQueue outputSinkQueue) {
+            this.outputSinkQueues.add(outputSinkQueue);
+            return this;
+        }
+
+        public Builder withLogLevel(Level logLevel) {
+            this.logLevel = logLevel;
+            return this;
+        }
+
+        public PaymentTrackerMetrics build() {
+            return new PaymentTrackerMetrics(this);
+        }
+    }
+}
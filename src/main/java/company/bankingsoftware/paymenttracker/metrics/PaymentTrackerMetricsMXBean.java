@@ -0,0 +1,75 @@
+package company.bankingsoftware.paymenttracker.metrics;
+
+import java.util.Map;
+
+/**
+ * Payment tracker metrics exposed by JMX, for ex. in JConsole or VisualVM.
+ * Every attribute is computed when it is read, so reading is the only cost of metrics.
+ */
+public interface PaymentTrackerMetricsMXBean {
+
+    /**
+     * @return number of lines given to the payment parser by input source
+     */
+    Map<String, Long> getLinesRead();
+
+    /**
+     * @return number of lines which are not valid payments by input source
+     */
+    Map<String, Long> getParseFailures();
+
+    /**
+     * @return number of payment events waiting in the input queues of all shards
+     */
+    long getInputQueueDepth();
+
+    /**
+     * @return number of payment event publishings which waited for full input queue
+     */
+    long getInputQueueBlockedPuts();
+
+    /**
+     * @return total time payment event publishers waited for full input queue
+     */
+    long getInputQueueBlockedPutMillis();
+
+    /**
+     * @return number of snapshots waiting in the output queue
+     */
+    long getOutputQueueDepth();
+
+    /**
+     * @return number of snapshot puts which waited for full output queue
+     */
+    long getOutputQueueBlockedPuts();
+
+    /**
+     * @return total time transaction ledger services waited for full output queue
+     */
+    long getOutputQueueBlockedPutMillis();
+
+    /**
+     * @return number of payments applied into the transaction ledgers
+     */
+    long getAppliedPayments();
+
+    /**
+     * @return payments applied per second over the last sampling window (10 one second samples)
+     */
+    double getAppliedPaymentsPerSecond();
+
+    /**
+     * @return number of snapshots rendered by all outputs
+     */
+    long getReports();
+
+    /**
+     * @return average time of rendering one snapshot
+     */
+    double getAverageReportRenderMillis();
+
+    /**
+     * @return number of snapshots dropped by outputs which did not keep up
+     */
+    long getDroppedReports();
+}
@@ -0,0 +1,59 @@
+package company.bankingsoftware.paymenttracker.model;
+
+/**
+ * Packs uppercase 3 letter currency code into an int in range 0 - 17575 and back.
+ * Packed code can be used as a dense array index instead of hashing the currency string.
+ */
+public class CurrencyCode {
+
+    public static final int INVALID = -1;
+
+    private static final int LETTERS = 'Z' - 'A' + 1;
+    private static final int CURRENCY_LENGTH = 3;
+
+    public static final int CURRENCY_CODE_COUNT = LETTERS * LETTERS * LETTERS;
+
+    // lazily filled, racy initialization is fine as strings are immutable
+    private static final String[] CURRENCIES = new String[CURRENCY_CODE_COUNT];
+
+    private CurrencyCode() {}
+
+    public static int pack(char first, char second, char third) {
+        if (!isLetter(first) || !isLetter(second) || !isLetter(third)) {
+            return INVALID;
+        }
+
+        return ((first - 'A') * LETTERS + (second - 'A')) * LETTERS + (third - 'A');
+    }
+
+    public static int pack(CharSequence currency) {
+        if (currency == null || currency.length() != CURRENCY_LENGTH) {
+            return INVALID;
+        }
+
+        return pack(currency.charAt(0), currency.charAt(1), currency.charAt(2));
+    }
+
+    /**
+     * Maps packed currency code back into the currency, the same code returns the same String instance.
+     * @param currencyCode packed currency code
+     * @return the currency
+     */
+    public static String toCurrency(int currencyCode) {
+        String currency = CURRENCIES[currencyCode];
+        if (currency == null) {
+            currency = new String(new char[] {
+                    (char) ('A' + currencyCode / (LETTERS * LETTERS)),
+                    (char) ('A' + currencyCode / LETTERS % LETTERS),
+                    (char) ('A' + currencyCode % LETTERS)
+            });
+            CURRENCIES[currencyCode] = currency;
+        }
+
+        return currency;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+}
@@ -0,0 +1,210 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Dense array implementation of transaction ledger.
+ * Balances are kept in minor units (hundredths) in a flat long array indexed by packed currency code,
+ * so adding a payment is O(1) without hashing and without a new balance object.
+ * Balance which would overflow long spills into BigDecimal and stays there.
+ *
+ * The number of digits to the right of decimal point of every balance is the max one of its payments,
+ * the same as the sum of BigDecimal payments has.
+ */
+public class DenseTransactionLedger implements TransactionLedger {
+
+    private static final int MINOR_UNITS_SCALE = 2;
+    private static final byte NOT_PRESENT = -1;
+
+    private final long[] minorUnitBalances = new long[CurrencyCode.CURRENCY_CODE_COUNT];
+    private final BigDecimal[] overflowBalances = new BigDecimal[CurrencyCode.CURRENCY_CODE_COUNT];
+    private final byte[] scales = new byte[CurrencyCode.CURRENCY_CODE_COUNT];
+    // present currency codes in order of their first payment
+    private final int[] currencyCodes = new int[CurrencyCode.CURRENCY_CODE_COUNT];
+    private int currencyCount;
+
+    private final Map<String, Money> paymentBalances = new PaymentBalancesView();
+
+    public DenseTransactionLedger() {
+        Arrays.fill(scales, NOT_PRESENT);
+    }
+
+    @Override
+    public TransactionLedger addPayment(Payment payment) {
+        addAmount(toCurrencyCode(payment.getCurrency()), payment.getAmount());
+        return this;
+    }
+
+    /**
+     * Adds amount given in minor units, allocation free unless the balance overflows.
+     * @param currencyCode packed currency code
+     * @param minorUnits amount in hundredths
+     * @param scale number of digits to the right of decimal point of the original amount (0 - 2),
+     *              minor units have to be multiple of 100 for scale 0 and of 10 for scale 1
+     * @return this transaction ledger
+     */
+    public DenseTransactionLedger addMinorUnits(int currencyCode, long minorUnits, int scale) {
+        markPresent(currencyCode, scale);
+
+        if (overflowBalances[currencyCode] != null) {
+            overflowBalances[currencyCode] = overflowBalances[currencyCode].add(toAmount(minorUnits, scale));
+            return this;
+        }
+
+        final long balance = minorUnitBalances[currencyCode];
+        final long sum = balance + minorUnits;
+        if (((balance ^ sum) & (minorUnits ^ sum)) < 0) {
+            overflowBalances[currencyCode] = overflowBalanceOf(currencyCode).add(toAmount(minorUnits, scale));
+        } else {
+            minorUnitBalances[currencyCode] = sum;
+        }
+        return this;
+    }
+
+    @Override
+    public TransactionLedger merge(TransactionLedger transactionLedger) {
+        if (transactionLedger instanceof DenseTransactionLedger) {
+            DenseTransactionLedger denseTransactionLedger = (DenseTransactionLedger) transactionLedger;
+            for (int i = 0; i < denseTransactionLedger.currencyCount; i++) {
+                int currencyCode = denseTransactionLedger.currencyCodes[i];
+                if (denseTransactionLedger.overflowBalances[currencyCode] != null) {
+                    addOverflowAmount(currencyCode, denseTransactionLedger.overflowBalances[currencyCode]);
+                } else {
+                    addMinorUnits(currencyCode, denseTransactionLedger.minorUnitBalances[currencyCode], denseTransactionLedger.scales[currencyCode]);
+                }
+            }
+        } else {
+            transactionLedger.getPaymentBalances().forEach((currency, amount) -> addAmount(toCurrencyCode(currency), amount));
+        }
+        return this;
+    }
+
+    /**
+     * @return view of the balances, it reflects later payments
+     */
+    @Override
+    public Map<String, Money> getPaymentBalances() {
+        return paymentBalances;
+    }
+
+    private void addAmount(int currencyCode, Money amount) {
+        if (amount.hasMinorUnits()) {
+            addMinorUnits(currencyCode, amount.getMinorUnits(), amount.getScale());
+        } else {
+            addOverflowAmount(currencyCode, amount.toBigDecimal());
+        }
+    }
+
+    private void addOverflowAmount(int currencyCode, BigDecimal amount) {
+        markPresent(currencyCode, Math.min(Math.max(amount.scale(), 0), MINOR_UNITS_SCALE));
+        overflowBalances[currencyCode] = overflowBalanceOf(currencyCode).add(amount);
+    }
+
+    private void markPresent(int currencyCode, int scale) {
+        if (scales[currencyCode] == NOT_PRESENT) {
+            currencyCodes[currencyCount++] = currencyCode;
+            scales[currencyCode] = (byte) scale;
+        } else if (scales[currencyCode] < scale) {
+            scales[currencyCode] = (byte) scale;
+        }
+    }
+
+    private Money balanceOf(int currencyCode) {
+        if (overflowBalances[currencyCode] != null) {
+            return Money.valueOf(overflowBalances[currencyCode]);
+        }
+
+        return Money.ofMinorUnits(minorUnitBalances[currencyCode], scales[currencyCode]);
+    }
+
+    private BigDecimal overflowBalanceOf(int currencyCode) {
+        if (overflowBalances[currencyCode] != null) {
+            return overflowBalances[currencyCode];
+        }
+
+        return toAmount(minorUnitBalances[currencyCode], scales[currencyCode]);
+    }
+
+    private static BigDecimal toAmount(long minorUnits, int scale) {
+        return BigDecimal.valueOf(minorUnits, MINOR_UNITS_SCALE).setScale(scale, RoundingMode.UNNECESSARY);
+    }
+
+    private static int toCurrencyCode(String currency) {
+        int currencyCode = CurrencyCode.pack(currency);
+        if (currencyCode == CurrencyCode.INVALID) {
+            throw new IllegalArgumentException(String.format("Invalid currency: %s", currency));
+        }
+
+        return currencyCode;
+    }
+
+    /**
+     * Read only map view, balances are created on access.
+     */
+    private class PaymentBalancesView extends AbstractMap<String, Money> {
+
+        @Override
+        public int size() {
+            return currencyCount;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof CharSequence && isPresent(CurrencyCode.pack((CharSequence) key));
+        }
+
+        @Override
+        public Money get(Object key) {
+            if (!(key instanceof CharSequence)) {
+                return null;
+            }
+
+            int currencyCode = CurrencyCode.pack((CharSequence) key);
+            return isPresent(currencyCode) ? balanceOf(currencyCode) : null;
+        }
+
+        @Override
+        public Set<Entry<String, Money>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Money>> iterator() {
+                    return new Iterator<>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < currencyCount;
+                        }
+
+                        @Override
+                        public Entry<String, Money> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            int currencyCode = currencyCodes[index++];
+                            return new SimpleImmutableEntry<>(CurrencyCode.toCurrency(currencyCode), balanceOf(currencyCode));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return currencyCount;
+                }
+            };
+        }
+
+        private boolean isPresent(int currencyCode) {
+            return currencyCode != CurrencyCode.INVALID && scales[currencyCode] != NOT_PRESENT;
+        }
+    }
+}
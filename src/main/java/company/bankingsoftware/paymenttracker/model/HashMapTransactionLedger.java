@@ -0,0 +1,35 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hash map implementation of transaction ledger, balances are money values keyed by currency.
+ */
+public class HashMapTransactionLedger implements TransactionLedger {
+
+    private final Map<String, Money> paymentBalances;
+
+    public HashMapTransactionLedger() {
+        paymentBalances = new HashMap<>();
+    }
+
+    @Override
+    public TransactionLedger addPayment(Payment payment) {
+        paymentBalances.put(
+                payment.getCurrency(),
+                paymentBalances.getOrDefault(payment.getCurrency(), Money.ZERO).add(payment.getAmount()));
+        return this;
+    }
+
+    @Override
+    public TransactionLedger merge(TransactionLedger transactionLedger) {
+        transactionLedger.getPaymentBalances().forEach((currency, amount) -> paymentBalances.merge(currency, amount, Money::add));
+        return this;
+    }
+
+    @Override
+    public Map<String, Money> getPaymentBalances() {
+        return paymentBalances;
+    }
+}
@@ -0,0 +1,271 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Immutable fixed point amount of money, kept as long number of minor units (hundredths) with explicit scale
+ * - number of digits to the right of decimal point (0 - 2), so adding and converting amounts does not need
+ * arbitrary precision arithmetic.
+ *
+ * Arithmetic is the same as the one of BigDecimal: sum has the max scale of its operands, equal amounts with different
+ * scale are not equal and the text form is the one of BigDecimal. Amount which does not fit into long minor units
+ * (overflow or scale out of 0 - 2) is kept as BigDecimal, so the results are exact for any amount.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0, 0, null);
+    public static final Money ONE = new Money(100, 0, null);
+    public static final Money TEN = new Money(1000, 0, null);
+
+    private static final int MINOR_UNITS_SCALE = 2;
+    // minor units of amount with scale 0 are multiple of 100, with scale 1 multiple of 10
+    private static final long[] MINOR_UNITS_FACTORS = {100, 10, 1};
+    // any number with that many digits fits into long
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long minorUnits;
+    private final int scale;
+    // not null only when the amount does not fit into long minor units
+    private final BigDecimal amount;
+
+    private Money(long minorUnits, int scale, BigDecimal amount) {
+        this.minorUnits = minorUnits;
+        this.scale = scale;
+        this.amount = amount;
+    }
+
+    /**
+     * @param minorUnits amount in hundredths
+     * @param scale number of digits to the right of decimal point (0 - 2), minor units have to be multiple of 100
+     *              for scale 0 and of 10 for scale 1
+     */
+    public static Money ofMinorUnits(long minorUnits, int scale) {
+        if (scale < 0 || scale > MINOR_UNITS_SCALE || minorUnits % MINOR_UNITS_FACTORS[scale] != 0) {
+            throw new IllegalArgumentException(String.format("Minor units %d do not have scale %d.", minorUnits, scale));
+        }
+
+        return minorUnits == 0 && scale == 0 ? ZERO : new Money(minorUnits, scale, null);
+    }
+
+    public static Money valueOf(long amount) {
+        return valueOf(amount, 0);
+    }
+
+    /**
+     * @return amount <i>unscaled * 10^-scale</i>, the same as BigDecimal.valueOf(unscaled, scale)
+     */
+    public static Money valueOf(long unscaled, int scale) {
+        if (scale >= 0 && scale <= MINOR_UNITS_SCALE) {
+            final long factor = MINOR_UNITS_FACTORS[scale];
+            if (unscaled >= Long.MIN_VALUE / factor && unscaled <= Long.MAX_VALUE / factor) {
+                return unscaled == 0 && scale == 0 ? ZERO : new Money(unscaled * factor, scale, null);
+            }
+        }
+
+        return new Money(0, scale, BigDecimal.valueOf(unscaled, scale));
+    }
+
+    public static Money valueOf(BigDecimal amount) {
+        final int scale = amount.scale();
+        // the same amount has always the same form, so equals can compare the fields
+        if (scale >= 0 && scale <= MINOR_UNITS_SCALE
+                && (amount.precision() <= MAX_LONG_DIGITS || amount.unscaledValue().bitLength() < Long.SIZE)) {
+            return valueOf(amount.unscaledValue().longValue(), scale);
+        }
+
+        return new Money(0, scale, amount);
+    }
+
+    /**
+     * @param amount amount in the text form of BigDecimal, for ex. <i>-100.50</i>
+     * @throws NumberFormatException when the text is not a number
+     */
+    public static Money parse(String amount) {
+        return valueOf(new BigDecimal(amount));
+    }
+
+    /**
+     * @return true when the amount is kept in long minor units, {@link #getMinorUnits()} can be used
+     */
+    public boolean hasMinorUnits() {
+        return amount == null;
+    }
+
+    /**
+     * @return amount in hundredths, valid only when {@link #hasMinorUnits()}
+     */
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * @return number of digits to the right of decimal point
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    public int signum() {
+        return amount == null ? Long.signum(minorUnits) : amount.signum();
+    }
+
+    /**
+     * @return absolute value with the same scale
+     */
+    public Money abs() {
+        if (signum() >= 0) {
+            return this;
+        }
+
+        return amount == null && minorUnits != Long.MIN_VALUE
+                ? new Money(-minorUnits, scale, null)
+                : valueOf(toBigDecimal().negate());
+    }
+
+    /**
+     * @return sum with the max scale of both amounts, allocation of BigDecimal only when it overflows long minor units
+     */
+    public Money add(Money augend) {
+        if (amount == null && augend.amount == null) {
+            final long sum = minorUnits + augend.minorUnits;
+            if (((minorUnits ^ sum) & (augend.minorUnits ^ sum)) >= 0) {
+                return new Money(sum, Math.max(scale, augend.scale), null);
+            }
+        }
+
+        // the sum can fit into long minor units again
+        return valueOf(toBigDecimal().add(augend.toBigDecimal()));
+    }
+
+    /**
+     * Converts the amount by exchange rate, the result has 2 digits to the right of decimal point rounded half up,
+     * the same as <i>rate.multiply(amount).setScale(2, RoundingMode.HALF_UP)</i>.
+     */
+    public Money convert(BigDecimal rate) {
+        if (amount == null && rate.scale() >= 0 && rate.scale() <= MAX_LONG_DIGITS && rate.precision() <= MAX_LONG_DIGITS) {
+            return convert(rate.unscaledValue().longValue(), rate.scale());
+        }
+
+        return valueOf(rate.multiply(toBigDecimal()).setScale(MINOR_UNITS_SCALE, RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Converts the amount by exchange rate <i>unscaledRate * 10^-rateScale</i> without allocation of BigDecimal
+     * unless the product overflows long, for rates parsed once and used for many amounts.
+     * @param rateScale number of digits to the right of decimal point of the rate (0 - 18)
+     */
+    public Money convert(long unscaledRate, int rateScale) {
+        if (rateScale < 0 || rateScale > MAX_LONG_DIGITS) {
+            throw new IllegalArgumentException(String.format("Unsupported exchange rate scale %d.", rateScale));
+        }
+
+        if (amount == null) {
+            final long high = Math.multiplyHigh(minorUnits, unscaledRate);
+            final long product = minorUnits * unscaledRate;
+            // product fits into long when the high part is only the sign extension
+            if ((high == 0 && product >= 0) || (high == -1 && product < 0)) {
+                final long divisor = POWERS_OF_TEN[rateScale];
+                long converted = product / divisor;
+                final long remainder = Math.abs(product % divisor);
+                if (remainder >= divisor - remainder) {
+                    converted += Long.signum(product);
+                }
+                return new Money(converted, MINOR_UNITS_SCALE, null);
+            }
+        }
+
+        return valueOf(BigDecimal.valueOf(unscaledRate, rateScale).multiply(toBigDecimal()).setScale(MINOR_UNITS_SCALE, RoundingMode.HALF_UP));
+    }
+
+    public BigDecimal toBigDecimal() {
+        return amount != null ? amount : BigDecimal.valueOf(minorUnits / MINOR_UNITS_FACTORS[scale], scale);
+    }
+
+    @Override
+    public int compareTo(Money money) {
+        if (amount == null && money.amount == null) {
+            return Long.compare(minorUnits, money.minorUnits);
+        }
+
+        return toBigDecimal().compareTo(money.toBigDecimal());
+    }
+
+    /**
+     * @return true when both amounts are the same including the scale, as BigDecimal equals
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+
+        Money money = (Money) o;
+        return amount != null ? amount.equals(money.amount) : money.amount == null && minorUnits == money.minorUnits && scale == money.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return amount != null ? amount.hashCode() : 31 * Long.hashCode(minorUnits) + scale;
+    }
+
+    /**
+     * @return the same text as BigDecimal toString, for ex. <i>-100.50</i>
+     */
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24)).toString();
+    }
+
+    /**
+     * Appends the text form of toString without intermediate string (unless the amount does not fit into long minor units).
+     * @return the output buffer
+     */
+    public StringBuilder appendTo(StringBuilder output) {
+        if (amount != null) {
+            return output.append(amount);
+        }
+
+        final long unscaled = minorUnits / MINOR_UNITS_FACTORS[scale];
+        if (scale == 0) {
+            return output.append(unscaled);
+        }
+
+        final long integerPart = unscaled / POWERS_OF_TEN[scale];
+        final long fraction = Math.abs(unscaled % POWERS_OF_TEN[scale]);
+        if (unscaled < 0 && integerPart == 0) {
+            output.append('-');
+        }
+        output.append(integerPart).append('.');
+        if (scale == MINOR_UNITS_SCALE && fraction < 10) {
+            output.append('0');
+        }
+        return output.append(fraction);
+    }
+
+    /**
+     * @return the same as toString, amounts of the grammar never have exponent
+     */
+    public String toPlainString() {
+        return amount != null ? amount.toPlainString() : toString();
+    }
+
+    /**
+     * @return unscaled value of the amount as in BigDecimal, for binary formats
+     */
+    public BigInteger unscaledValue() {
+        return amount != null ? amount.unscaledValue() : BigInteger.valueOf(minorUnits / MINOR_UNITS_FACTORS[scale]);
+    }
+}
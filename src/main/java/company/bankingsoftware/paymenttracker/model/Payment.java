@@ -1,14 +1,12 @@
 package company.bankingsoftware.paymenttracker.model;
 
-import java.math.BigDecimal;
-
 /**
  * Currency and amount couple.
  */
 public class Payment {
 
     private final String currency;
-    private final BigDecimal amount;
+    private final Money amount;
 
     private Payment(Builder b) {
         this.currency = b.currency;
@@ -19,7 +17,7 @@ public class Payment {
         return currency;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
@@ -29,7 +27,7 @@ public class Payment {
 
     public static class Builder {
         private String currency;
-        private BigDecimal amount;
+        private Money amount;
 
         private Builder() {}
 
@@ -38,7 +36,7 @@ public class Payment {
             return this;
         }
 
-        public Builder withAmount(BigDecimal amount) {
+        public Builder withAmount(Money amount) {
             this.amount = amount;
             return this;
         }
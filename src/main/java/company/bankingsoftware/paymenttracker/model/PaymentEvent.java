@@ -1,18 +1,31 @@
 package company.bankingsoftware.paymenttracker.model;
 
+import java.util.List;
+
 /**
  * Represents couple of payment event type and payment for inputs.
+ * ADD_BATCH event carries list of payments in input order instead of a single payment,
+ * MERGE event carries already aggregated transaction ledger.
+ * CONTROL event carries nothing, it only wakes the consumer up to check its control lane.
+ * COMMIT event carries callback which is run once all the payment events put before it are journaled
+ * (for ex. so a reader stores its input offset only after the journal commit).
  */
 public class PaymentEvent {
 
-    public enum PaymentEventType { ADD, OUTPUT, SHUTDOWN }
+    public enum PaymentEventType { ADD, ADD_BATCH, MERGE, OUTPUT, SHUTDOWN, CONTROL, COMMIT }
 
     private final PaymentEventType paymentEventType;
     private final Payment payment;
+    private final List<Payment> payments;
+    private final TransactionLedger transactionLedger;
+    private final Runnable commitCallback;
 
     private PaymentEvent(Builder b) {
         this.paymentEventType = b.paymentEventType;
         this.payment = b.payment;
+        this.payments = b.payments;
+        this.transactionLedger = b.transactionLedger;
+        this.commitCallback = b.commitCallback;
     }
 
     public PaymentEventType getPaymentEventType() {
@@ -23,6 +36,18 @@ public class PaymentEvent {
         return payment;
     }
 
+    public List<Payment> getPayments() {
+        return payments;
+    }
+
+    public TransactionLedger getTransactionLedger() {
+        return transactionLedger;
+    }
+
+    public Runnable getCommitCallback() {
+        return commitCallback;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -30,6 +55,9 @@ public class PaymentEvent {
     public static class Builder {
         private PaymentEventType paymentEventType;
         private Payment payment;
+        private List<Payment> payments;
+        private TransactionLedger transactionLedger;
+        private Runnable commitCallback;
 
         private Builder() {}
 
@@ -43,6 +71,21 @@ public class PaymentEvent {
             return this;
         }
 
+        public Builder withPayments(List<Payment> payments) {
+            this.payments = payments;
+            return this;
+        }
+
+        public Builder withTransactionLedger(TransactionLedger transactionLedger) {
+            this.transactionLedger = transactionLedger;
+            return this;
+        }
+
+        public Builder withCommitCallback(Runnable commitCallback) {
+            this.commitCallback = commitCallback;
+            return this;
+        }
+
         public PaymentEvent build() {
             return new PaymentEvent(this);
         }
@@ -1,28 +1,31 @@
 package company.bankingsoftware.paymenttracker.model;
 
-import java.math.BigDecimal;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
- * Transaction ledger - balance of net payments,
+ * Transaction ledger - balance of net payments.
  */
-public class TransactionLedger {
+public interface TransactionLedger {
 
-    private final Map<String, BigDecimal> paymentBalances;
+    TransactionLedger addPayment(Payment payment);
 
-    public TransactionLedger() {
-        paymentBalances = new HashMap<>();
-    }
-
-    public TransactionLedger addPayment(Payment payment) {
-        paymentBalances.put(
-                payment.getCurrency(),
-                paymentBalances.getOrDefault(payment.getCurrency(), BigDecimal.ZERO).add(payment.getAmount()));
+    default TransactionLedger addPayments(List<Payment> payments) {
+        for (Payment payment : payments) {
+            addPayment(payment);
+        }
         return this;
     }
 
-    public Map<String, BigDecimal> getPaymentBalances() {
-        return paymentBalances;
-    }
+    /**
+     * Adds all balances of other transaction ledger into this one.
+     * @param transactionLedger ledger to merge, is not changed
+     * @return this transaction ledger
+     */
+    TransactionLedger merge(TransactionLedger transactionLedger);
+
+    /**
+     * @return balances by currency, including the ones which are zero
+     */
+    Map<String, Money> getPaymentBalances();
 }
@@ -0,0 +1,261 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable version of transaction ledger balances, safe to be read by other threads while the ledger changes.
+ * Balances are kept in pages indexed by packed currency code. Next snapshot copies only the pages with changed
+ * balances and shares all the others with the previous one, so its cost depends on the changes, not on the number
+ * of currencies.
+ */
+public final class TransactionLedgerSnapshot {
+
+    static final int PAGE_SHIFT = 8;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    static final int PAGE_COUNT = (CurrencyCode.CURRENCY_CODE_COUNT + PAGE_SIZE - 1) >> PAGE_SHIFT;
+
+    private static final TransactionLedgerSnapshot EMPTY = new TransactionLedgerSnapshot(0, 0, new Money[PAGE_COUNT][], 0);
+
+    private final long epoch;
+    private final long appliedPaymentEventCount;
+    private final Money[][] pages;
+    private final int currencyCount;
+    private final Map<String, Money> paymentBalances = new PaymentBalancesView();
+
+    private TransactionLedgerSnapshot(long epoch, long appliedPaymentEventCount, Money[][] pages, int currencyCount) {
+        this.epoch = epoch;
+        this.appliedPaymentEventCount = appliedPaymentEventCount;
+        this.pages = pages;
+        this.currencyCount = currencyCount;
+    }
+
+    /**
+     * @return snapshot of epoch 0 without any balance
+     */
+    public static TransactionLedgerSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates next version of the snapshot, this one is not changed.
+     * @param epoch version of the new snapshot
+     * @param appliedPaymentEventCount number of payment events applied to the ledger so far
+     * @param currencyCodes packed currency codes of changed balances, first <i>changedCount</i> are used
+     * @param balances current balances of the changed currencies in the same order
+     * @param changedCount number of changed balances
+     * @return new snapshot sharing unchanged pages with this one
+     */
+    public TransactionLedgerSnapshot next(
+            long epoch,
+            long appliedPaymentEventCount,
+            int[] currencyCodes,
+            Money[] balances,
+            int changedCount) {
+        final Money[][] nextPages = pages.clone();
+        int nextCurrencyCount = currencyCount;
+        for (int i = 0; i < changedCount; i++) {
+            final int page = currencyCodes[i] >> PAGE_SHIFT;
+            if (nextPages[page] == pages[page]) {
+                nextPages[page] = pages[page] != null ? pages[page].clone() : new Money[PAGE_SIZE];
+            }
+
+            final int offset = currencyCodes[i] & (PAGE_SIZE - 1);
+            if (nextPages[page][offset] == null && balances[i] != null) {
+                nextCurrencyCount++;
+            } else if (nextPages[page][offset] != null && balances[i] == null) {
+                nextCurrencyCount--;
+            }
+            nextPages[page][offset] = balances[i];
+        }
+
+        return new TransactionLedgerSnapshot(epoch, appliedPaymentEventCount, nextPages, nextCurrencyCount);
+    }
+
+    /**
+     * Combines snapshots of shards owning disjoint currencies, page owned by a single shard is shared.
+     * @param epoch version of the combined snapshot
+     * @param shardSnapshots snapshots to combine, they are not changed
+     * @return snapshot with balances of all shard snapshots and sum of their applied payment events
+     */
+    public static TransactionLedgerSnapshot combine(long epoch, List<TransactionLedgerSnapshot> shardSnapshots) {
+        final Money[][] combinedPages = new Money[PAGE_COUNT][];
+        // pages copied by this combine, the others are still shared with a shard snapshot
+        final boolean[] copiedPages = new boolean[PAGE_COUNT];
+        long appliedPaymentEventCount = 0;
+        int currencyCount = 0;
+        for (TransactionLedgerSnapshot shardSnapshot : shardSnapshots) {
+            appliedPaymentEventCount += shardSnapshot.appliedPaymentEventCount;
+            currencyCount += shardSnapshot.currencyCount;
+            for (int page = 0; page < PAGE_COUNT; page++) {
+                final Money[] shardPage = shardSnapshot.pages[page];
+                if (shardPage == null) {
+                    continue;
+                }
+
+                if (combinedPages[page] == null) {
+                    combinedPages[page] = shardPage;
+                    continue;
+                }
+
+                if (!copiedPages[page]) {
+                    combinedPages[page] = combinedPages[page].clone();
+                    copiedPages[page] = true;
+                }
+                for (int offset = 0; offset < PAGE_SIZE; offset++) {
+                    if (shardPage[offset] != null) {
+                        combinedPages[page][offset] = shardPage[offset];
+                    }
+                }
+            }
+        }
+
+        return new TransactionLedgerSnapshot(epoch, appliedPaymentEventCount, combinedPages, currencyCount);
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getAppliedPaymentEventCount() {
+        return appliedPaymentEventCount;
+    }
+
+    /**
+     * @param currencyCode packed currency code
+     * @return balance of the currency or null when there was no payment in it
+     */
+    public Money getBalance(int currencyCode) {
+        final Money[] page = pages[currencyCode >> PAGE_SHIFT];
+        return page != null ? page[currencyCode & (PAGE_SIZE - 1)] : null;
+    }
+
+    /**
+     * Iterates balances in currency order without map entries, empty pages are skipped as a whole:
+     * <i>for (int c = snapshot.nextCurrencyCode(0); c &lt; CurrencyCode.CURRENCY_CODE_COUNT; c = snapshot.nextCurrencyCode(c + 1))</i>
+     * @param currencyCode packed currency code to start from
+     * @return the first packed currency code from the given one with balance or CURRENCY_CODE_COUNT when there is none
+     */
+    public int nextCurrencyCode(int currencyCode) {
+        while (currencyCode < CurrencyCode.CURRENCY_CODE_COUNT) {
+            final Money[] page = pages[currencyCode >> PAGE_SHIFT];
+            if (page == null) {
+                currencyCode = ((currencyCode >> PAGE_SHIFT) + 1) << PAGE_SHIFT;
+            } else if (page[currencyCode & (PAGE_SIZE - 1)] == null) {
+                currencyCode++;
+            } else {
+                return currencyCode;
+            }
+        }
+
+        return CurrencyCode.CURRENCY_CODE_COUNT;
+    }
+
+    /**
+     * Iterates balances changed since an older snapshot of the same ledger in currency order. Pages shared with the older
+     * snapshot are skipped by reference comparison, so the cost depends on the changed pages, not on the number
+     * of currencies.
+     * @param previousSnapshot older snapshot of the same ledger
+     * @param currencyCode packed currency code to start from
+     * @return the first packed currency code from the given one with balance different from the one in the older
+     * snapshot (or not present there) or CURRENCY_CODE_COUNT when there is none
+     */
+    public int nextChangedCurrencyCode(TransactionLedgerSnapshot previousSnapshot, int currencyCode) {
+        while (currencyCode < CurrencyCode.CURRENCY_CODE_COUNT) {
+            final Money[] page = pages[currencyCode >> PAGE_SHIFT];
+            final Money[] previousPage = previousSnapshot.pages[currencyCode >> PAGE_SHIFT];
+            if (page == previousPage || page == null) {
+                currencyCode = ((currencyCode >> PAGE_SHIFT) + 1) << PAGE_SHIFT;
+                continue;
+            }
+
+            final Money balance = page[currencyCode & (PAGE_SIZE - 1)];
+            final Money previousBalance = previousPage != null ? previousPage[currencyCode & (PAGE_SIZE - 1)] : null;
+            // combined snapshots copy pages of several shards, so the same balance can be in a different page
+            if (balance != previousBalance && balance != null && !balance.equals(previousBalance)) {
+                return currencyCode;
+            }
+            currencyCode++;
+        }
+
+        return CurrencyCode.CURRENCY_CODE_COUNT;
+    }
+
+    /**
+     * @return read only balances by currency in currency order, including the ones which are zero
+     */
+    public Map<String, Money> getPaymentBalances() {
+        return paymentBalances;
+    }
+
+    Money[] page(int page) {
+        return pages[page];
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionLedgerSnapshot{epoch=" + epoch + ", appliedPaymentEventCount=" + appliedPaymentEventCount
+                + ", paymentBalances=" + paymentBalances + "}";
+    }
+
+    private class PaymentBalancesView extends AbstractMap<String, Money> {
+
+        @Override
+        public int size() {
+            return currencyCount;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Money get(Object key) {
+            if (!(key instanceof CharSequence)) {
+                return null;
+            }
+
+            final int currencyCode = CurrencyCode.pack((CharSequence) key);
+            return currencyCode != CurrencyCode.INVALID ? getBalance(currencyCode) : null;
+        }
+
+        @Override
+        public Set<Entry<String, Money>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Money>> iterator() {
+                    return new Iterator<>() {
+                        private int presentCurrencyCode = nextCurrencyCode(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return presentCurrencyCode < CurrencyCode.CURRENCY_CODE_COUNT;
+                        }
+
+                        @Override
+                        public Entry<String, Money> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            final int currencyCode = presentCurrencyCode;
+                            presentCurrencyCode = nextCurrencyCode(currencyCode + 1);
+                            return new SimpleImmutableEntry<>(CurrencyCode.toCurrency(currencyCode), getBalance(currencyCode));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return currencyCount;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import java.util.Map;
+
+/**
+ * Transaction ledger which remembers currencies changed since its last snapshot,
+ * so the next snapshot reads and copies only their balances. Payments are added into the wrapped ledger.
+ *
+ * It is not thread safe, it is meant to be changed and snapshot by the single transaction ledger service thread,
+ * only the snapshots are handed over to other threads.
+ */
+public class VersionedTransactionLedger implements TransactionLedger {
+
+    private final TransactionLedger transactionLedger;
+    private final boolean[] changed = new boolean[CurrencyCode.CURRENCY_CODE_COUNT];
+    private final int[] changedCurrencyCodes = new int[CurrencyCode.CURRENCY_CODE_COUNT];
+    private final Money[] changedBalances = new Money[CurrencyCode.CURRENCY_CODE_COUNT];
+    private int changedCount;
+
+    private TransactionLedgerSnapshot snapshot = TransactionLedgerSnapshot.empty();
+
+    /**
+     * @param transactionLedger wrapped ledger, its current balances (for ex. replayed from a journal) get into the first snapshot
+     */
+    public VersionedTransactionLedger(TransactionLedger transactionLedger) {
+        this.transactionLedger = transactionLedger;
+        for (String currency : transactionLedger.getPaymentBalances().keySet()) {
+            markChanged(toCurrencyCode(currency));
+        }
+    }
+
+    @Override
+    public TransactionLedger addPayment(Payment payment) {
+        final int currencyCode = toCurrencyCode(payment.getCurrency());
+        transactionLedger.addPayment(payment);
+        markChanged(currencyCode);
+        return this;
+    }
+
+    @Override
+    public TransactionLedger merge(TransactionLedger transactionLedger) {
+        final Map<String, Money> paymentBalances = transactionLedger.getPaymentBalances();
+        for (String currency : paymentBalances.keySet()) {
+            toCurrencyCode(currency);
+        }
+
+        this.transactionLedger.merge(transactionLedger);
+        for (String currency : paymentBalances.keySet()) {
+            markChanged(CurrencyCode.pack(currency));
+        }
+        return this;
+    }
+
+    @Override
+    public Map<String, Money> getPaymentBalances() {
+        return transactionLedger.getPaymentBalances();
+    }
+
+    /**
+     * Creates next snapshot, its epoch is by one higher than the epoch of the previous one.
+     * @param appliedPaymentEventCount number of payment events applied to this ledger so far
+     * @return immutable snapshot of the current balances
+     */
+    public TransactionLedgerSnapshot snapshot(long appliedPaymentEventCount) {
+        return snapshot(snapshot.getEpoch() + 1, appliedPaymentEventCount);
+    }
+
+    /**
+     * Creates next snapshot with the epoch of the previous one, for ex. for a checkpoint,
+     * so the epochs of the output snapshots do not change.
+     * @param appliedPaymentEventCount number of payment events applied to this ledger so far
+     * @return immutable snapshot of the current balances
+     */
+    public TransactionLedgerSnapshot snapshotWithSameEpoch(long appliedPaymentEventCount) {
+        return snapshot(snapshot.getEpoch(), appliedPaymentEventCount);
+    }
+
+    /**
+     * Creates next snapshot with the given epoch.
+     * @param epoch version of the snapshot, not lower than the epoch of the previous one
+     * @param appliedPaymentEventCount number of payment events applied to this ledger so far
+     * @return immutable snapshot of the current balances
+     */
+    public TransactionLedgerSnapshot snapshot(long epoch, long appliedPaymentEventCount) {
+        final Map<String, Money> paymentBalances = transactionLedger.getPaymentBalances();
+        for (int i = 0; i < changedCount; i++) {
+            final int currencyCode = changedCurrencyCodes[i];
+            changedBalances[i] = paymentBalances.get(CurrencyCode.toCurrency(currencyCode));
+            changed[currencyCode] = false;
+        }
+
+        snapshot = snapshot.next(epoch, appliedPaymentEventCount, changedCurrencyCodes, changedBalances, changedCount);
+        changedCount = 0;
+        return snapshot;
+    }
+
+    private void markChanged(int currencyCode) {
+        if (!changed[currencyCode]) {
+            changed[currencyCode] = true;
+            changedCurrencyCodes[changedCount++] = currencyCode;
+        }
+    }
+
+    private static int toCurrencyCode(String currency) {
+        int currencyCode = CurrencyCode.pack(currency);
+        if (currencyCode == CurrencyCode.INVALID) {
+            throw new IllegalArgumentException(String.format("Invalid currency: %s", currency));
+        }
+
+        return currencyCode;
+    }
+}
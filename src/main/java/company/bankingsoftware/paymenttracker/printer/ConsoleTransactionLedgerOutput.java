@@ -1,63 +1,80 @@
 package company.bankingsoftware.paymenttracker.printer;
 
-import company.bankingsoftware.paymenttracker.model.TransactionLedger;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
 
-import java.io.PrintStream;
-import java.math.BigDecimal;
-import java.util.Map;
+import java.io.OutputStream;
 import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
- * Simple console output implementation.
+ * Simple console output implementation, prints immutable transaction ledger snapshots.
+ * Every report is rendered into reused buffers and goes to the stream in a single write.
+ *
+ * DELTA reports contain only balances changed since the previous report (zero balances included, so they can
+ * disappear), found by comparison of the snapshot pages, so their cost depends on the changes, not on the number
+ * of currencies. Every (resync count + 1)th report is full.
  */
-public class ConsoleTransactionLedgerOutput implements TransactionLedgerOutput {
+public class ConsoleTransactionLedgerOutput extends StreamTransactionLedgerOutput {
+
+    /**
+     * FULL - every report contains all non zero balances,
+     * DELTA - reports between full ones contain only changed balances.
+     */
+    public enum ReportType { FULL, DELTA }
 
     private static final Logger LOGGER = Logger.getLogger(ConsoleTransactionLedgerOutput.class.getName());
 
-    private final PrintStream outputStream;
-    private final BlockingQueue<TransactionLedger> outputTransactionLedgerQueue;
     private final PaymentBalancesOutputDecorator transactionLedgerOutputDecorator;
-    private boolean running = true;
+    private final ReportType reportType;
+    private final int resyncReportCount;
+    // the last printed snapshot and number of delta reports printed after the last full one
+    private TransactionLedgerSnapshot previousSnapshot;
+    private int deltaReportCount;
 
     public ConsoleTransactionLedgerOutput(
-            PrintStream outputStream,
-            BlockingQueue<TransactionLedger> outputTransactionLedgerQueue,
+            OutputStream outputStream,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
             Level logLevel) {
-        this.outputStream = outputStream;
-        this.outputTransactionLedgerQueue = outputTransactionLedgerQueue;
+        this(outputStream, outputTransactionLedgerQueue, ReportType.FULL, 0, new PaymentBalancesConsoleOutputDecorator(), logLevel);
+    }
+
+    /**
+     * @param outputStream console or any other stream of text reports, for ex. {@link RollingFileOutputStream}
+     * @param resyncReportCount number of DELTA reports between full reports, 0 means only the first report is full
+     * @param transactionLedgerOutputDecorator formatting of the balances, used by this output only
+     */
+    public ConsoleTransactionLedgerOutput(
+            OutputStream outputStream,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            ReportType reportType,
+            int resyncReportCount,
+            PaymentBalancesOutputDecorator transactionLedgerOutputDecorator,
+            Level logLevel) {
+        super(outputStream, outputTransactionLedgerQueue, logLevel);
+        this.reportType = reportType;
+        this.resyncReportCount = resyncReportCount;
         LOGGER.setLevel(logLevel);
-        this.transactionLedgerOutputDecorator = new PaymentBalancesConsoleOutputDecorator();
+        this.transactionLedgerOutputDecorator = transactionLedgerOutputDecorator;
     }
 
     @Override
-    public void run() {
-        while (running) {
-            print();
+    protected void render(TransactionLedgerSnapshot transactionLedger, StringBuilder output) {
+        // the snapshot is formatted only when the message is logged
+        LOGGER.log(Level.INFO, "To decorate: {0}", transactionLedger);
+        if (isFullReport()) {
+            transactionLedgerOutputDecorator.decorate(transactionLedger, output);
+            deltaReportCount = 0;
+        } else {
+            transactionLedgerOutputDecorator.decorateChanges(transactionLedger, previousSnapshot, output);
+            deltaReportCount++;
         }
+        previousSnapshot = transactionLedger;
     }
 
-    void print() {
-        try {
-            TransactionLedger transactionLedger = outputTransactionLedgerQueue.take();
-
-            LOGGER.log(Level.INFO, "To decorate: {0}", transactionLedger.getPaymentBalances().toString());
-            if (transactionLedger.getPaymentBalances().size() > 0) {
-                String exchangeRateOutput = transactionLedgerOutputDecorator.decorate(
-                        transactionLedger.getPaymentBalances().entrySet().stream()
-                                // equals does not work here
-                                .filter(item -> item.getValue().compareTo(BigDecimal.ZERO) != 0)
-                                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-                );
-                outputStream.print(exchangeRateOutput);
-                outputStream.flush();
-            }
-        } catch (InterruptedException ie) {
-            running = false;
-            LOGGER.log(Level.INFO, "Interruption - not able to take from transaction ledger output queue.");
-        }
+    private boolean isFullReport() {
+        return reportType == ReportType.FULL
+                || previousSnapshot == null
+                || (resyncReportCount > 0 && deltaReportCount >= resyncReportCount);
     }
-
 }
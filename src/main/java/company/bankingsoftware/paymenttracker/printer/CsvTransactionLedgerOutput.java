@@ -0,0 +1,42 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+
+import java.io.OutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+
+/**
+ * CSV output of transaction ledger snapshots, row per non zero balance in currency order,
+ * for ex. <i>12,USD,900</i>, rows of one snapshot have the same epoch.
+ */
+public class CsvTransactionLedgerOutput extends StreamTransactionLedgerOutput {
+
+    /**
+     * Header of every new CSV file.
+     */
+    public static final String HEADER = "epoch,currency,balance\n";
+
+    public CsvTransactionLedgerOutput(
+            OutputStream outputStream,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            Level logLevel) {
+        super(outputStream, outputTransactionLedgerQueue, logLevel);
+    }
+
+    @Override
+    protected void render(TransactionLedgerSnapshot transactionLedgerSnapshot, StringBuilder output) {
+        for (int currencyCode = transactionLedgerSnapshot.nextCurrencyCode(0);
+             currencyCode < CurrencyCode.CURRENCY_CODE_COUNT;
+             currencyCode = transactionLedgerSnapshot.nextCurrencyCode(currencyCode + 1)) {
+            final Money balance = transactionLedgerSnapshot.getBalance(currencyCode);
+            if (balance.signum() != 0) {
+                output.append(transactionLedgerSnapshot.getEpoch()).append(',')
+                        .append(CurrencyCode.toCurrency(currencyCode)).append(',');
+                balance.appendTo(output).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+
+import java.io.OutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+
+/**
+ * JSON lines output of transaction ledger snapshots, object per snapshot with non zero balances in currency order,
+ * for ex. <i>{"epoch":12,"balances":{"HKD":300.5,"USD":900}}</i>. Balances are JSON numbers with the digits
+ * to the right of decimal point of the balance.
+ */
+public class JsonTransactionLedgerOutput extends StreamTransactionLedgerOutput {
+
+    public JsonTransactionLedgerOutput(
+            OutputStream outputStream,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            Level logLevel) {
+        super(outputStream, outputTransactionLedgerQueue, logLevel);
+    }
+
+    @Override
+    protected void render(TransactionLedgerSnapshot transactionLedgerSnapshot, StringBuilder output) {
+        output.append("{\"epoch\":").append(transactionLedgerSnapshot.getEpoch()).append(",\"balances\":{");
+        char separator = ' ';
+        for (int currencyCode = transactionLedgerSnapshot.nextCurrencyCode(0);
+             currencyCode < CurrencyCode.CURRENCY_CODE_COUNT;
+             currencyCode = transactionLedgerSnapshot.nextCurrencyCode(currencyCode + 1)) {
+            final Money balance = transactionLedgerSnapshot.getBalance(currencyCode);
+            if (balance.signum() != 0) {
+                if (separator != ' ') {
+                    output.append(separator);
+                }
+                output.append('"').append(CurrencyCode.toCurrency(currencyCode)).append("\":");
+                balance.appendTo(output);
+                separator = ',';
+            }
+        }
+        output.append("}}\n");
+    }
+}
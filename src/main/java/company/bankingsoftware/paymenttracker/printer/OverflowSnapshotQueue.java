@@ -0,0 +1,60 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded queue of snapshots for one output, adding into it never blocks and never fails.
+ * When the queue is full, the overflow policy makes room for the new snapshot. Snapshots are complete immutable
+ * balances, so a dropped one is only a skipped report, the next report still has all the balances.
+ */
+public class OverflowSnapshotQueue extends ArrayBlockingQueue<TransactionLedgerSnapshot> {
+
+    /**
+     * DROP_OLDEST - the oldest waiting snapshot is dropped,
+     * COALESCE_LATEST - all waiting snapshots are dropped, only the latest one is output.
+     */
+    public enum OverflowPolicy { DROP_OLDEST, COALESCE_LATEST }
+
+    private static final long serialVersionUID = 1L;
+
+    private final OverflowPolicy overflowPolicy;
+    private final LongAdder droppedSnapshotCount = new LongAdder();
+
+    public OverflowSnapshotQueue(int capacity, OverflowPolicy overflowPolicy) {
+        super(capacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public boolean offer(TransactionLedgerSnapshot transactionLedgerSnapshot) {
+        while (!super.offer(transactionLedgerSnapshot)) {
+            final int droppedCount = overflowPolicy == OverflowPolicy.COALESCE_LATEST
+                    ? drainTo(new ArrayList<>())
+                    : (poll() != null ? 1 : 0);
+            droppedSnapshotCount.add(droppedCount);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean offer(TransactionLedgerSnapshot transactionLedgerSnapshot, long timeout, TimeUnit unit) {
+        return offer(transactionLedgerSnapshot);
+    }
+
+    @Override
+    public void put(TransactionLedgerSnapshot transactionLedgerSnapshot) {
+        offer(transactionLedgerSnapshot);
+    }
+
+    /**
+     * @return number of snapshots dropped because the output did not keep up
+     */
+    public long getDroppedSnapshotCount() {
+        return droppedSnapshotCount.sum();
+    }
+}
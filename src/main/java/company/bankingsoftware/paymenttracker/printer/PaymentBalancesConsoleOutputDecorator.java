@@ -1,42 +1,200 @@
 package company.bankingsoftware.paymenttracker.printer;
 
+import company.bankingsoftware.paymenttracker.exchange.CrossRateMatrix;
+import company.bankingsoftware.paymenttracker.exchange.ExchangeRateProvider;
+import company.bankingsoftware.paymenttracker.exchange.ExchangeRateTable;
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+
 import java.math.BigDecimal;
-import java.math.MathContext;
-import java.math.RoundingMode;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
- * Implementation of decorator, exchanges to USD.
+ * Implementation of decorator, exchanges to base currencies (USD by default), for ex. <i>EUR 100 (USD 111.00, GBP 91.74)</i>.
+ * Exchange rate table is taken from the provider once per decorating, so the whole output uses the same rates
+ * even when the provider publishes new ones meanwhile. Cross rates to the base currencies are computed once
+ * per exchange rate table and reused until the provider publishes another one.
+ *
+ * Full report of a snapshot can be limited to balances with absolute USD value at least the threshold and to top N
+ * balances by absolute USD value (the highest first), balances without exchange rate to USD are left out then.
+ * Top N balances are selected by bounded heap, so the report costs O(n log N) without sorting all balances,
+ * the heap is reused, so the snapshot is decorated by one thread only.
  */
 public class PaymentBalancesConsoleOutputDecorator implements PaymentBalancesOutputDecorator {
 
-    private static final String FROM_EXCHANGE = "USD";
-    private static Map<String, BigDecimal> exchangeRates;
+    /**
+     * Rates used when no exchange rate file is configured.
+     */
+    public static final Map<String, BigDecimal> DEFAULT_EXCHANGE_RATES = Map.of(
+            "CZK", BigDecimal.valueOf(0.04),
+            "GBP", BigDecimal.valueOf(1.21),
+            "EUR", BigDecimal.valueOf(1.11),
+            "RMB", BigDecimal.valueOf(0.14),
+            "HKD", BigDecimal.valueOf(0.13));
+
+    public static final List<String> DEFAULT_BASE_CURRENCIES = List.of(ExchangeRateTable.USD);
+
+    private static final int USD_CODE = CurrencyCode.pack(ExchangeRateTable.USD);
+
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final List<String> baseCurrencies;
+    private final int topCount;
+    private final Money threshold;
+    private final TopBalancesHeap topBalancesHeap;
+    private volatile CrossRateMatrix crossRateMatrix;
 
     public PaymentBalancesConsoleOutputDecorator() {
-        // read that from a real service
-        this.exchangeRates = Collections.unmodifiableMap(new HashMap<>() {{
-            put("CZK", BigDecimal.valueOf(0.04));
-            put("GBP", BigDecimal.valueOf(1.21));
-            put("EUR", BigDecimal.valueOf(1.11));
-            put("RMB", BigDecimal.valueOf(0.14));
-            put("HKD", BigDecimal.valueOf(0.13));
-        }});
+        this(ExchangeRateProvider.of(DEFAULT_EXCHANGE_RATES));
+    }
+
+    public PaymentBalancesConsoleOutputDecorator(ExchangeRateProvider exchangeRateProvider) {
+        this(exchangeRateProvider, DEFAULT_BASE_CURRENCIES);
+    }
+
+    /**
+     * @param baseCurrencies currencies every balance is converted into, in the output order
+     */
+    public PaymentBalancesConsoleOutputDecorator(ExchangeRateProvider exchangeRateProvider, List<String> baseCurrencies) {
+        this(exchangeRateProvider, baseCurrencies, 0, Money.ZERO);
+    }
+
+    /**
+     * @param topCount max number of balances in full report of a snapshot, 0 means all
+     * @param threshold min absolute USD value of balances in full report of a snapshot, 0 means all
+     */
+    public PaymentBalancesConsoleOutputDecorator(
+            ExchangeRateProvider exchangeRateProvider,
+            List<String> baseCurrencies,
+            int topCount,
+            Money threshold) {
+        this.exchangeRateProvider = exchangeRateProvider;
+        this.baseCurrencies = List.copyOf(baseCurrencies);
+        this.topCount = topCount;
+        this.threshold = threshold.abs();
+        this.topBalancesHeap = topCount > 0 ? new TopBalancesHeap(topCount) : null;
     }
 
     @Override
-    public String decorate(Map<String, BigDecimal> paymentBalances) {
+    public String decorate(Map<String, Money> paymentBalances) {
+        final CrossRateMatrix rates = crossRateMatrix();
         StringBuilder sb = new StringBuilder();
-        for (String currency : paymentBalances.keySet()) {
-            sb.append(currency).append(" ").append(paymentBalances.get(currency));
-            if (currency != FROM_EXCHANGE && exchangeRates.get(currency) != null) {
-                BigDecimal multiplyResult = exchangeRates.get(currency).multiply(paymentBalances.get(currency));
-                sb.append(" (USD ").append(multiplyResult.setScale(2, RoundingMode.HALF_UP)).append(")");
-            }
-            sb.append("\n");
+        for (Map.Entry<String, Money> paymentBalance : paymentBalances.entrySet()) {
+            appendBalance(sb, paymentBalance.getKey(), CurrencyCode.pack(paymentBalance.getKey()), paymentBalance.getValue(), rates);
         }
         return sb.toString();
     }
+
+    @Override
+    public StringBuilder decorate(TransactionLedgerSnapshot transactionLedgerSnapshot, StringBuilder output) {
+        final CrossRateMatrix rates = crossRateMatrix();
+        if (topBalancesHeap != null) {
+            return decorateTop(transactionLedgerSnapshot, output, rates);
+        }
+
+        for (int currencyCode = transactionLedgerSnapshot.nextCurrencyCode(0);
+             currencyCode < CurrencyCode.CURRENCY_CODE_COUNT;
+             currencyCode = transactionLedgerSnapshot.nextCurrencyCode(currencyCode + 1)) {
+            final Money balance = transactionLedgerSnapshot.getBalance(currencyCode);
+            // equals does not work here, zero balance can have any scale
+            if (balance.signum() != 0 && isOverThreshold(currencyCode, balance, rates)) {
+                appendBalance(output, CurrencyCode.toCurrency(currencyCode), currencyCode, balance, rates);
+            }
+        }
+        return output;
+    }
+
+    @Override
+    public StringBuilder decorateChanges(
+            TransactionLedgerSnapshot transactionLedgerSnapshot,
+            TransactionLedgerSnapshot previousSnapshot,
+            StringBuilder output) {
+        final CrossRateMatrix rates = crossRateMatrix();
+        for (int currencyCode = transactionLedgerSnapshot.nextChangedCurrencyCode(previousSnapshot, 0);
+             currencyCode < CurrencyCode.CURRENCY_CODE_COUNT;
+             currencyCode = transactionLedgerSnapshot.nextChangedCurrencyCode(previousSnapshot, currencyCode + 1)) {
+            final Money balance = transactionLedgerSnapshot.getBalance(currencyCode);
+            final Money previousBalance = previousSnapshot.getBalance(currencyCode);
+            // zero balance was not in the previous report either
+            if (balance.signum() != 0 || (previousBalance != null && previousBalance.signum() != 0)) {
+                appendBalance(output, CurrencyCode.toCurrency(currencyCode), currencyCode, balance, rates);
+            }
+        }
+        return output;
+    }
+
+    private StringBuilder decorateTop(TransactionLedgerSnapshot transactionLedgerSnapshot, StringBuilder output, CrossRateMatrix rates) {
+        topBalancesHeap.clear();
+        for (int currencyCode = transactionLedgerSnapshot.nextCurrencyCode(0);
+             currencyCode < CurrencyCode.CURRENCY_CODE_COUNT;
+             currencyCode = transactionLedgerSnapshot.nextCurrencyCode(currencyCode + 1)) {
+            final Money balance = transactionLedgerSnapshot.getBalance(currencyCode);
+            final Money usdValue = balance.signum() != 0 ? usdValue(currencyCode, balance, rates) : null;
+            if (usdValue != null && usdValue.abs().compareTo(threshold) >= 0) {
+                topBalancesHeap.offer(currencyCode, usdValue.abs());
+            }
+        }
+
+        final int size = topBalancesHeap.sortDescending();
+        for (int i = 0; i < size; i++) {
+            final int currencyCode = topBalancesHeap.currencyCode(i);
+            appendBalance(output, CurrencyCode.toCurrency(currencyCode), currencyCode, transactionLedgerSnapshot.getBalance(currencyCode), rates);
+        }
+        topBalancesHeap.clear();
+        return output;
+    }
+
+    private boolean isOverThreshold(int currencyCode, Money balance, CrossRateMatrix rates) {
+        if (threshold.signum() == 0) {
+            return true;
+        }
+
+        final Money usdValue = usdValue(currencyCode, balance, rates);
+        return usdValue != null && usdValue.abs().compareTo(threshold) >= 0;
+    }
+
+    /**
+     * @return balance in USD or null when the currency has no exchange rate to USD
+     */
+    private static Money usdValue(int currencyCode, Money balance, CrossRateMatrix rates) {
+        if (currencyCode == USD_CODE) {
+            return balance;
+        }
+
+        final ExchangeRateTable exchangeRateTable = rates.getExchangeRateTable();
+        return exchangeRateTable.hasRate(currencyCode) ? exchangeRateTable.toUsd(currencyCode, balance) : null;
+    }
+
+    /**
+     * @return cross rates of the current exchange rate table, computed again only when the table changed
+     */
+    private CrossRateMatrix crossRateMatrix() {
+        final ExchangeRateTable exchangeRateTable = exchangeRateProvider.getExchangeRateTable();
+        CrossRateMatrix rates = crossRateMatrix;
+        if (rates == null || rates.getExchangeRateTable() != exchangeRateTable) {
+            rates = CrossRateMatrix.of(exchangeRateTable, baseCurrencies);
+            crossRateMatrix = rates;
+        }
+        return rates;
+    }
+
+    private static void appendBalance(StringBuilder output, String currency, int currencyCode, Money balance, CrossRateMatrix rates) {
+        balance.appendTo(output.append(currency).append(' '));
+        final int row = rates.rowOf(currencyCode);
+        if (row != CrossRateMatrix.NO_ROW) {
+            boolean exchanged = false;
+            for (int column = 0; column < rates.getBaseCurrencyCount(); column++) {
+                if (rates.getRate(row, column) != null) {
+                    output.append(exchanged ? ", " : " (").append(rates.getBaseCurrency(column)).append(' ');
+                    rates.convert(row, column, balance).appendTo(output);
+                    exchanged = true;
+                }
+            }
+            if (exchanged) {
+                output.append(')');
+            }
+        }
+        output.append('\n');
+    }
 }
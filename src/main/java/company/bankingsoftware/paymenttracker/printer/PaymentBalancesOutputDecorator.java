@@ -1,11 +1,29 @@
 package company.bankingsoftware.paymenttracker.printer;
 
-import java.math.BigDecimal;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+
 import java.util.Map;
 
 /**
  * Decorator interface.
  */
 public interface PaymentBalancesOutputDecorator {
-    String decorate(Map<String, BigDecimal> paymentBalances);
+    String decorate(Map<String, Money> paymentBalances);
+
+    /**
+     * Appends decorated balances of the snapshot in currency order into the output buffer, zero balances are skipped.
+     * @param output buffer reused by the caller
+     * @return the output buffer
+     */
+    StringBuilder decorate(TransactionLedgerSnapshot transactionLedgerSnapshot, StringBuilder output);
+
+    /**
+     * Appends decorated balances changed since the previous snapshot in currency order into the output buffer,
+     * including the ones changed to zero, so they can disappear from the report.
+     * @param previousSnapshot older snapshot of the same ledger
+     * @param output buffer reused by the caller
+     * @return the output buffer
+     */
+    StringBuilder decorateChanges(TransactionLedgerSnapshot transactionLedgerSnapshot, TransactionLedgerSnapshot previousSnapshot, StringBuilder output);
 }
@@ -0,0 +1,86 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File output stream which rolls the file over when the next write would exceed max file size,
+ * <i>file</i> is moved to <i>file.1</i>, <i>file.1</i> to <i>file.2</i> etc. and the oldest one is removed.
+ * The file is rolled only between writes, so a report written at once is never split into two files.
+ * Every new file starts with the header.
+ */
+public class RollingFileOutputStream extends OutputStream {
+
+    private final Path path;
+    private final long maxFileSize;
+    private final int rolledFileCount;
+    private final byte[] header;
+    private OutputStream outputStream;
+    private long fileSize;
+
+    /**
+     * Appends to the file when it exists.
+     * @param maxFileSize max size of the file in bytes, 0 means the file is never rolled over
+     * @param rolledFileCount number of rolled over files kept next to the file
+     */
+    public RollingFileOutputStream(Path path, long maxFileSize, int rolledFileCount, byte[] header) throws IOException {
+        this.path = path;
+        this.maxFileSize = maxFileSize;
+        this.rolledFileCount = rolledFileCount;
+        this.header = header.clone();
+        open();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (maxFileSize > 0 && fileSize > header.length && fileSize + len > maxFileSize) {
+            roll();
+        }
+        outputStream.write(b, off, len);
+        fileSize += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        outputStream.close();
+    }
+
+    Path rolledPath(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    private void roll() throws IOException {
+        outputStream.close();
+        Files.deleteIfExists(rolledFileCount > 0 ? rolledPath(rolledFileCount) : path);
+        for (int index = rolledFileCount; index > 0; index--) {
+            final Path source = index > 1 ? rolledPath(index - 1) : path;
+            if (Files.exists(source)) {
+                Files.move(source, rolledPath(index), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        open();
+    }
+
+    private void open() throws IOException {
+        outputStream = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileSize = Files.size(path);
+        if (fileSize == 0 && header.length > 0) {
+            outputStream.write(header);
+            fileSize = header.length;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Base of transaction ledger outputs writing snapshots into a stream.
+ * Every snapshot is rendered into reused buffers and goes to the stream in a single write followed by flush,
+ * so the stream always ends with a complete report.
+ */
+public abstract class StreamTransactionLedgerOutput implements TransactionLedgerOutput {
+
+    private static final Logger LOGGER = Logger.getLogger(StreamTransactionLedgerOutput.class.getName());
+
+    private final OutputStream outputStream;
+    private final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue;
+    private final StringBuilder output = new StringBuilder();
+    private byte[] outputBytes = new byte[0];
+    private boolean running = true;
+    // read by metrics from other threads
+    private final LongAdder reportCount = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+
+    protected StreamTransactionLedgerOutput(
+            OutputStream outputStream,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            Level logLevel) {
+        this.outputStream = outputStream;
+        this.outputTransactionLedgerQueue = outputTransactionLedgerQueue;
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            print();
+        }
+    }
+
+    void print() {
+        try {
+            TransactionLedgerSnapshot transactionLedger = outputTransactionLedgerQueue.take();
+
+            output.setLength(0);
+            final long renderStart = System.nanoTime();
+            render(transactionLedger, output);
+            renderNanos.add(System.nanoTime() - renderStart);
+            reportCount.increment();
+            if (output.length() > 0) {
+                outputStream.write(toBytes(output), 0, output.length());
+                outputStream.flush();
+            }
+        } catch (InterruptedException ie) {
+            running = false;
+            LOGGER.log(Level.INFO, "Interruption - not able to take from transaction ledger output queue.");
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to write transaction ledger output, the snapshot is skipped.");
+        }
+    }
+
+    /**
+     * @return number of rendered snapshots
+     */
+    public long getReportCount() {
+        return reportCount.sum();
+    }
+
+    /**
+     * @return total time of rendering the snapshots into the buffer, without writing them
+     */
+    public long getRenderNanos() {
+        return renderNanos.sum();
+    }
+
+    /**
+     * Appends the snapshot to the output, nothing appended means nothing is written.
+     * @param output empty reused buffer
+     */
+    protected abstract void render(TransactionLedgerSnapshot transactionLedgerSnapshot, StringBuilder output);
+
+    /**
+     * Output contains only currency letters, digits and ASCII punctuation, so every char is one byte.
+     */
+    private byte[] toBytes(StringBuilder output) {
+        if (outputBytes.length < output.length()) {
+            outputBytes = new byte[Math.max(output.length(), outputBytes.length * 2)];
+        }
+        for (int i = 0; i < output.length(); i++) {
+            outputBytes[i] = (byte) output.charAt(i);
+        }
+        return outputBytes;
+    }
+}
@@ -0,0 +1,98 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+
+/**
+ * Bounded min heap of currencies by value, keeps the currencies with the highest values offered so far,
+ * higher currency code is the lower one of equal values. Offering n currencies costs O(n log k) for capacity k,
+ * the arrays are reused by every selection.
+ */
+final class TopBalancesHeap {
+
+    private final int[] currencyCodes;
+    private final Money[] values;
+    private int size;
+
+    TopBalancesHeap(int capacity) {
+        currencyCodes = new int[capacity];
+        values = new Money[capacity];
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            values[i] = null;
+        }
+        size = 0;
+    }
+
+    void offer(int currencyCode, Money value) {
+        if (size < values.length) {
+            currencyCodes[size] = currencyCode;
+            values[size] = value;
+            siftUp(size++);
+        } else if (size > 0 && isLower(currencyCodes[0], values[0], currencyCode, value)) {
+            currencyCodes[0] = currencyCode;
+            values[0] = value;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Sorts the kept currencies from the highest value, the heap is not usable for offers afterwards until cleared.
+     * @return number of kept currencies
+     */
+    int sortDescending() {
+        for (int last = size - 1; last > 0; last--) {
+            swap(0, last);
+            siftDown(0, last);
+        }
+        return size;
+    }
+
+    int currencyCode(int index) {
+        return currencyCodes[index];
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!isLower(currencyCodes[index], values[index], currencyCodes[parent], values[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int heapSize) {
+        while (true) {
+            final int left = 2 * index + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            final int right = left + 1;
+            final int lowerChild = right < heapSize && isLower(currencyCodes[right], values[right], currencyCodes[left], values[left])
+                    ? right
+                    : left;
+            if (!isLower(currencyCodes[lowerChild], values[lowerChild], currencyCodes[index], values[index])) {
+                return;
+            }
+            swap(index, lowerChild);
+            index = lowerChild;
+        }
+    }
+
+    private static boolean isLower(int currencyCode, Money value, int otherCurrencyCode, Money otherValue) {
+        final int comparison = value.compareTo(otherValue);
+        return comparison < 0 || (comparison == 0 && currencyCode > otherCurrencyCode);
+    }
+
+    private void swap(int first, int second) {
+        final int currencyCode = currencyCodes[first];
+        currencyCodes[first] = currencyCodes[second];
+        currencyCodes[second] = currencyCode;
+        final Money value = values[first];
+        values[first] = values[second];
+        values[second] = value;
+    }
+}
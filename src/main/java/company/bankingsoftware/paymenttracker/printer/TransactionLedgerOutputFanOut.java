@@ -0,0 +1,50 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers every snapshot of the transaction ledger output queue to the queues of all outputs (console, files),
+ * every output runs on its own. Adding into {@link OverflowSnapshotQueue} never blocks, so a slow output only
+ * skips its reports and never stalls the output queue and the transaction ledger services behind it.
+ */
+public class TransactionLedgerOutputFanOut implements TransactionLedgerOutput {
+
+    private static final Logger LOGGER = Logger.getLogger(TransactionLedgerOutputFanOut.class.getName());
+
+    private final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue;
+    private final List<OverflowSnapshotQueue> outputQueues;
+    private boolean running = true;
+
+    public TransactionLedgerOutputFanOut(
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            List<OverflowSnapshotQueue> outputQueues,
+            Level logLevel) {
+        this.outputTransactionLedgerQueue = outputTransactionLedgerQueue;
+        this.outputQueues = List.copyOf(outputQueues);
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            fanOut();
+        }
+    }
+
+    void fanOut() {
+        try {
+            TransactionLedgerSnapshot transactionLedgerSnapshot = outputTransactionLedgerQueue.take();
+            for (OverflowSnapshotQueue outputQueue : outputQueues) {
+                outputQueue.offer(transactionLedgerSnapshot);
+            }
+        } catch (InterruptedException ie) {
+            running = false;
+            LOGGER.log(Level.INFO, "Interruption - not able to take from transaction ledger output queue.");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package company.bankingsoftware.paymenttracker.queue;
+
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Payment events queue backed by blocking queue.
+ */
+public class BlockingPaymentEventQueue implements PaymentEventQueue {
+
+    private final BlockingQueue<PaymentEvent> paymentEventsQueue;
+
+    public BlockingPaymentEventQueue(BlockingQueue<PaymentEvent> paymentEventsQueue) {
+        this.paymentEventsQueue = paymentEventsQueue;
+    }
+
+    @Override
+    public void put(PaymentEvent paymentEvent) throws InterruptedException {
+        paymentEventsQueue.put(paymentEvent);
+    }
+
+    @Override
+    public boolean offer(PaymentEvent paymentEvent) {
+        return paymentEventsQueue.offer(paymentEvent);
+    }
+
+    @Override
+    public PaymentEvent take() throws InterruptedException {
+        return paymentEventsQueue.take();
+    }
+
+    @Override
+    public int drainTo(Collection<? super PaymentEvent> paymentEvents, int maxPaymentEvents) {
+        return paymentEventsQueue.drainTo(paymentEvents, maxPaymentEvents);
+    }
+}
@@ -0,0 +1,100 @@
+package company.bankingsoftware.paymenttracker.queue;
+
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Control channel of OUTPUT, CHECKPOINT, JOURNAL_FSYNC and SHUTDOWN requests next to the bounded payment events queues, so the requests
+ * never wait behind payment backlog and never block the requesting thread.
+ *
+ * OUTPUT requests are numbered, consumer checks the lane before every payment event and outputs once for all
+ * requests made since its last check (coalesced), the output epoch is the number of the last request.
+ * CHECKPOINT and JOURNAL_FSYNC requests are numbered and coalesced the same way.
+ * Consumers blocked on an empty queue are woken up by CONTROL event, it is only offered, a full queue
+ * means the consumer is busy and checks the lane on its own.
+ */
+public class PaymentEventControlLane {
+
+    private static final PaymentEvent CONTROL_PAYMENT_EVENT = PaymentEvent.builder()
+            .withPaymentEventType(PaymentEvent.PaymentEventType.CONTROL)
+            .build();
+
+    private final List<PaymentEventQueue> paymentEventQueues = new CopyOnWriteArrayList<>();
+    private final AtomicLong outputRequestSequence = new AtomicLong();
+    private final AtomicLong checkpointRequestSequence = new AtomicLong();
+    private final AtomicLong journalFsyncRequestSequence = new AtomicLong();
+    private volatile boolean shutdownRequested;
+
+    /**
+     * Registers queue of the consumer to be woken up by requests.
+     */
+    public void register(PaymentEventQueue paymentEventQueue) {
+        paymentEventQueues.add(paymentEventQueue);
+    }
+
+    /**
+     * @return number of this OUTPUT request
+     */
+    public long requestOutput() {
+        long outputRequest = outputRequestSequence.incrementAndGet();
+        wakeUp();
+        return outputRequest;
+    }
+
+    /**
+     * @return number of this CHECKPOINT request
+     */
+    public long requestCheckpoint() {
+        long checkpointRequest = checkpointRequestSequence.incrementAndGet();
+        wakeUp();
+        return checkpointRequest;
+    }
+
+    /**
+     * @return number of this JOURNAL_FSYNC request
+     */
+    public long requestJournalFsync() {
+        long journalFsyncRequest = journalFsyncRequestSequence.incrementAndGet();
+        wakeUp();
+        return journalFsyncRequest;
+    }
+
+    public void requestShutdown() {
+        shutdownRequested = true;
+        wakeUp();
+    }
+
+    /**
+     * @return number of the last OUTPUT request, 0 when there was none
+     */
+    public long getOutputRequestSequence() {
+        return outputRequestSequence.get();
+    }
+
+    /**
+     * @return number of the last CHECKPOINT request, 0 when there was none
+     */
+    public long getCheckpointRequestSequence() {
+        return checkpointRequestSequence.get();
+    }
+
+    /**
+     * @return number of the last JOURNAL_FSYNC request, 0 when there was none
+     */
+    public long getJournalFsyncRequestSequence() {
+        return journalFsyncRequestSequence.get();
+    }
+
+    public boolean isShutdownRequested() {
+        return shutdownRequested;
+    }
+
+    private void wakeUp() {
+        for (PaymentEventQueue paymentEventQueue : paymentEventQueues) {
+            paymentEventQueue.offer(CONTROL_PAYMENT_EVENT);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package company.bankingsoftware.paymenttracker.queue;
+
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+
+/**
+ * Producer side of payment events queue, used by readers and schedulers.
+ */
+@FunctionalInterface
+public interface PaymentEventPublisher {
+
+    /**
+     * Publishes payment event, waits while there is no space for it.
+     */
+    void put(PaymentEvent paymentEvent) throws InterruptedException;
+}
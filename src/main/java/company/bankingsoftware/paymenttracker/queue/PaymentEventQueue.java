@@ -0,0 +1,28 @@
+package company.bankingsoftware.paymenttracker.queue;
+
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+
+import java.util.Collection;
+
+/**
+ * Payment events queue with a single consumer - transaction ledger service.
+ */
+public interface PaymentEventQueue extends PaymentEventPublisher {
+
+    /**
+     * Publishes payment event only when there is space for it, does not wait.
+     * @return true when the payment event was published
+     */
+    boolean offer(PaymentEvent paymentEvent);
+
+    /**
+     * Waits for the next payment event.
+     */
+    PaymentEvent take() throws InterruptedException;
+
+    /**
+     * Moves payment events already waiting in the queue into the collection, does not wait.
+     * @return number of moved payment events
+     */
+    int drainTo(Collection<? super PaymentEvent> paymentEvents, int maxPaymentEvents);
+}
@@ -0,0 +1,118 @@
+package company.bankingsoftware.paymenttracker.queue;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.model.TransactionLedger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes payment events into shard queues partitioned by currency, every shard queue has its own
+ * transaction ledger service, so shards own disjoint parts of the ledger and aggregate in parallel.
+ *
+ * ADD event goes to the shard of its currency, ADD_BATCH and MERGE events are split into one event per shard
+ * (payments keep their input order within the shard). COMMIT event is broadcast to all shards, its callback is run
+ * once by the last shard which journaled the payment events before it. Other events are broadcast to all shards.
+ */
+public class ShardedPaymentEventPublisher implements PaymentEventPublisher {
+
+    private final List<? extends PaymentEventPublisher> shardPublishers;
+
+    public ShardedPaymentEventPublisher(List<? extends PaymentEventPublisher> shardPublishers) {
+        this.shardPublishers = shardPublishers;
+    }
+
+    @Override
+    public void put(PaymentEvent paymentEvent) throws InterruptedException {
+        switch (paymentEvent.getPaymentEventType()) {
+            case ADD:
+                shardPublishers.get(shardOf(paymentEvent.getPayment().getCurrency())).put(paymentEvent);
+                break;
+            case ADD_BATCH:
+                putPayments(paymentEvent.getPayments());
+                break;
+            case MERGE:
+                putTransactionLedger(paymentEvent.getTransactionLedger());
+                break;
+            case COMMIT:
+                putCommit(paymentEvent.getCommitCallback());
+                break;
+            default:
+                for (PaymentEventPublisher shardPublisher : shardPublishers) {
+                    shardPublisher.put(paymentEvent);
+                }
+        }
+    }
+
+    /**
+     * @return index of the shard owning the currency
+     */
+    public int shardOf(String currency) {
+        final int currencyCode = CurrencyCode.pack(currency);
+        return currencyCode != CurrencyCode.INVALID
+                ? currencyCode % shardPublishers.size()
+                : Math.floorMod(currency.hashCode(), shardPublishers.size());
+    }
+
+    private void putPayments(List<Payment> payments) throws InterruptedException {
+        final List<List<Payment>> shardPayments = new ArrayList<>(shardPublishers.size());
+        for (int i = 0; i < shardPublishers.size(); i++) {
+            shardPayments.add(new ArrayList<>());
+        }
+        for (Payment payment : payments) {
+            shardPayments.get(shardOf(payment.getCurrency())).add(payment);
+        }
+
+        for (int i = 0; i < shardPublishers.size(); i++) {
+            if (!shardPayments.get(i).isEmpty()) {
+                shardPublishers.get(i).put(PaymentEvent.builder()
+                        .withPaymentEventType(PaymentEvent.PaymentEventType.ADD_BATCH)
+                        .withPayments(shardPayments.get(i))
+                        .build());
+            }
+        }
+    }
+
+    private void putCommit(Runnable commitCallback) throws InterruptedException {
+        final AtomicInteger uncommittedShardCount = new AtomicInteger(shardPublishers.size());
+        final PaymentEvent paymentEvent = PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.COMMIT)
+                .withCommitCallback(() -> {
+                    if (uncommittedShardCount.decrementAndGet() == 0) {
+                        commitCallback.run();
+                    }
+                })
+                .build();
+        for (PaymentEventPublisher shardPublisher : shardPublishers) {
+            shardPublisher.put(paymentEvent);
+        }
+    }
+
+    private void putTransactionLedger(TransactionLedger transactionLedger) throws InterruptedException {
+        final List<TransactionLedger> shardTransactionLedgers = new ArrayList<>(shardPublishers.size());
+        for (int i = 0; i < shardPublishers.size(); i++) {
+            shardTransactionLedgers.add(null);
+        }
+        // balances are added as payments, so zero balances are kept as well
+        transactionLedger.getPaymentBalances().forEach((currency, amount) -> {
+            final int shard = shardOf(currency);
+            if (shardTransactionLedgers.get(shard) == null) {
+                shardTransactionLedgers.set(shard, new HashMapTransactionLedger());
+            }
+            shardTransactionLedgers.get(shard).addPayment(Payment.builder().withCurrency(currency).withAmount(amount).build());
+        });
+
+        for (int i = 0; i < shardPublishers.size(); i++) {
+            if (shardTransactionLedgers.get(i) != null) {
+                shardPublishers.get(i).put(PaymentEvent.builder()
+                        .withPaymentEventType(PaymentEvent.PaymentEventType.MERGE)
+                        .withTransactionLedger(shardTransactionLedgers.get(i))
+                        .build());
+            }
+        }
+    }
+}
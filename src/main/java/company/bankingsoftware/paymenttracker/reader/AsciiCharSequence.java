@@ -0,0 +1,58 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable char sequence view over a region of a byte buffer, each byte is one (ISO-8859-1) character.
+ * Lets byte oriented readers pass lines to the payment parser without creating a String per line.
+ * Not thread safe, a view is owned by a single reader and re-wrapped for every line.
+ */
+public class AsciiCharSequence implements CharSequence {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    /**
+     * Points this view to the given region, the buffer position and limit are not touched.
+     * @param buffer the buffer
+     * @param from absolute index of the first byte (inclusive)
+     * @param to absolute index of the last byte (exclusive)
+     * @return this view
+     */
+    public AsciiCharSequence wrap(ByteBuffer buffer, int from, int to) {
+        this.buffer = buffer;
+        this.offset = from;
+        this.length = to - from;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+        }
+
+        return new String(chars);
+    }
+}
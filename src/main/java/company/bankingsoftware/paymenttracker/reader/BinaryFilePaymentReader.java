@@ -0,0 +1,178 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.DenseTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.model.TransactionLedger;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of PaymentReader for binary payment files written by binary payment writer.
+ * Records have fixed width, so the memory mapped file is split into record aligned chunks without scanning,
+ * every chunk is read by fork join worker into its own dense transaction ledger in minor units, without any
+ * object per record. Partial ledgers are merged and queued as one MERGE payment event.
+ * Records with invalid currency code, scale or minor units not matching the scale are skipped.
+ */
+public class BinaryFilePaymentReader implements PaymentReader {
+
+    private static final Logger LOGGER = Logger.getLogger(BinaryFilePaymentReader.class.getName());
+
+    private static final long MIN_CHUNK_RECORDS = 1 << 16;
+    // chunk has to be mapped by one mapping (int size)
+    private static final long MAX_CHUNK_RECORDS = 1 << 24;
+    private static final int CHUNKS_PER_WORKER = 4;
+    // minor units of amount with scale 0 are multiple of 100, with scale 1 multiple of 10
+    private static final long[] MINOR_UNITS_FACTORS = {100, 10, 1};
+
+    private final Path path;
+    private final PaymentEventPublisher inputPaymentEventsQueue;
+    private final ForkJoinPool forkJoinPool;
+
+    public BinaryFilePaymentReader(Path path, PaymentEventPublisher inputPaymentEventsQueue, Level logLevel) {
+        this(path, inputPaymentEventsQueue, ForkJoinPool.commonPool(), logLevel);
+    }
+
+    BinaryFilePaymentReader(Path path, PaymentEventPublisher inputPaymentEventsQueue, ForkJoinPool forkJoinPool, Level logLevel) {
+        this.path = path;
+        this.inputPaymentEventsQueue = inputPaymentEventsQueue;
+        this.forkJoinPool = forkJoinPool;
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        readFileInput();
+    }
+
+    public void readFileInput() {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final int recordSize = readHeader(fileChannel);
+            final long recordCount = (fileChannel.size() - BinaryPaymentWriter.HEADER_SIZE) / recordSize;
+            if ((fileChannel.size() - BinaryPaymentWriter.HEADER_SIZE) % recordSize != 0) {
+                LOGGER.log(Level.WARNING, "Binary input file ends with incomplete record, it is skipped.");
+            }
+            if (recordCount == 0) {
+                return;
+            }
+
+            final long chunkRecords = Math.max(MIN_CHUNK_RECORDS,
+                    Math.min(MAX_CHUNK_RECORDS, recordCount / ((long) forkJoinPool.getParallelism() * CHUNKS_PER_WORKER)));
+            LOGGER.log(Level.INFO, "Reading {0} records of binary input file.", recordCount);
+            TransactionLedger transactionLedger = forkJoinPool.invoke(
+                    new RecordRangeTask(fileChannel, recordSize, chunkRecords, 0, recordCount));
+            inputPaymentEventsQueue.put(PaymentEvent.builder()
+                    .withPaymentEventType(PaymentEvent.PaymentEventType.MERGE)
+                    .withTransactionLedger(transactionLedger)
+                    .build());
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to read binary input file.");
+        } catch (InterruptedException ie) {
+            LOGGER.log(Level.SEVERE, "Putting payment event into queue failed.");
+        }
+    }
+
+    /**
+     * @return record size of the file
+     * @throws IOException when the file is not binary payment file
+     */
+    static int readHeader(FileChannel fileChannel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(BinaryPaymentWriter.HEADER_SIZE);
+        while (header.hasRemaining() && fileChannel.read(header, header.position()) > 0) {
+            // reads the whole header
+        }
+        header.flip();
+        if (header.remaining() < BinaryPaymentWriter.HEADER_SIZE
+                || header.getInt() != BinaryPaymentWriter.MAGIC
+                || header.getShort() != BinaryPaymentWriter.VERSION) {
+            throw new IOException("Input file is not binary payment file.");
+        }
+
+        final boolean timestamps = (header.getShort() & BinaryPaymentWriter.TIMESTAMP_FLAG) != 0;
+        final int recordSize = header.getInt();
+        if (recordSize != (timestamps ? BinaryPaymentWriter.TIMESTAMP_RECORD_SIZE : BinaryPaymentWriter.RECORD_SIZE)) {
+            throw new IOException(String.format("Binary input file has unsupported record size %d.", recordSize));
+        }
+
+        return recordSize;
+    }
+
+    /**
+     * Reads all records of the mapped chunk, timestamps are not needed for balances.
+     */
+    static DenseTransactionLedger readChunk(MappedByteBuffer chunk, int recordSize) {
+        final DenseTransactionLedger transactionLedger = new DenseTransactionLedger();
+        int invalidRecords = 0;
+        for (int record = 0; record + recordSize <= chunk.limit(); record += recordSize) {
+            final int currencyCode = chunk.getShort(record);
+            final int scale = chunk.get(record + Short.BYTES);
+            final long minorUnits = chunk.getLong(record + Short.BYTES + 2);
+            if (currencyCode < 0 || currencyCode >= CurrencyCode.CURRENCY_CODE_COUNT
+                    || scale < 0 || scale >= MINOR_UNITS_FACTORS.length
+                    || minorUnits % MINOR_UNITS_FACTORS[scale] != 0) {
+                invalidRecords++;
+            } else {
+                transactionLedger.addMinorUnits(currencyCode, minorUnits, scale);
+            }
+        }
+        if (invalidRecords > 0) {
+            LOGGER.log(Level.SEVERE, "Skipped {0} invalid records of binary input file.", invalidRecords);
+        }
+
+        return transactionLedger;
+    }
+
+    /**
+     * Reads records in given range, splits the range in halves until single chunk and merges partial ledgers back.
+     */
+    private static class RecordRangeTask extends RecursiveTask<TransactionLedger> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel fileChannel;
+        private final int recordSize;
+        private final long chunkRecords;
+        private final long fromRecord;
+        private final long toRecord;
+
+        RecordRangeTask(FileChannel fileChannel, int recordSize, long chunkRecords, long fromRecord, long toRecord) {
+            this.fileChannel = fileChannel;
+            this.recordSize = recordSize;
+            this.chunkRecords = chunkRecords;
+            this.fromRecord = fromRecord;
+            this.toRecord = toRecord;
+        }
+
+        @Override
+        protected TransactionLedger compute() {
+            if (toRecord - fromRecord <= chunkRecords) {
+                try {
+                    return readChunk(fileChannel.map(FileChannel.MapMode.READ_ONLY,
+                            BinaryPaymentWriter.HEADER_SIZE + fromRecord * recordSize, (toRecord - fromRecord) * recordSize), recordSize);
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            }
+
+            long middleRecord = fromRecord + (toRecord - fromRecord) / chunkRecords / 2 * chunkRecords;
+            if (middleRecord == fromRecord) {
+                middleRecord += chunkRecords;
+            }
+            RecordRangeTask left = new RecordRangeTask(fileChannel, recordSize, chunkRecords, fromRecord, middleRecord);
+            left.fork();
+            TransactionLedger right = new RecordRangeTask(fileChannel, recordSize, chunkRecords, middleRecord, toRecord).compute();
+            return left.join().merge(right);
+        }
+    }
+}
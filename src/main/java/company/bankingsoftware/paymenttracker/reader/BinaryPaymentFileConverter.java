@@ -0,0 +1,65 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+
+/**
+ * Converts payment input file in text format (payment line per line, as <i>sample-input</i>) into binary payment file
+ * read by binary file payment reader. Invalid and empty lines are skipped as by the text readers.
+ *
+ * Arguments: text input file, binary output file, optional <i>--timestamps</i> to write the conversion time
+ * into every record.
+ */
+public class BinaryPaymentFileConverter {
+
+    private static final String TIMESTAMPS_OPTION = "--timestamps";
+
+    private final PaymentParser paymentParser;
+
+    public BinaryPaymentFileConverter(PaymentParser paymentParser) {
+        this.paymentParser = paymentParser;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !TIMESTAMPS_OPTION.equals(args[2]))) {
+            System.err.println("Usage: BinaryPaymentFileConverter <text input> <binary output> [" + TIMESTAMPS_OPTION + "]");
+            System.exit(1);
+        }
+
+        final long[] counts = new BinaryPaymentFileConverter(new SinglePassPaymentParser())
+                .convert(Paths.get(args[0]), Paths.get(args[1]), args.length == 3);
+        System.out.println(String.format("Converted %d payments, skipped %d lines.", counts[0], counts[1]));
+    }
+
+    /**
+     * @param timestamps true when records get the conversion time as timestamp
+     * @return number of converted payments and number of skipped lines
+     */
+    public long[] convert(Path textPath, Path binaryPath, boolean timestamps) throws IOException {
+        final long timestamp = timestamps ? System.currentTimeMillis() : 0;
+        long converted = 0;
+        long skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(textPath, StandardCharsets.ISO_8859_1);
+             BinaryPaymentWriter writer = new BinaryPaymentWriter(binaryPath, timestamps)) {
+            for (String paymentLine; (paymentLine = reader.readLine()) != null; ) {
+                if (paymentLine.isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    writer.write(paymentParser.toPayment(paymentLine), timestamp);
+                    converted++;
+                } catch (ParseException | IllegalArgumentException e) {
+                    skipped++;
+                }
+            }
+        }
+
+        return new long[] {converted, skipped};
+    }
+}
@@ -0,0 +1,102 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes payments into binary payment file of fixed width records, read by binary file payment reader.
+ *
+ * File starts with header: magic (int), version (short), flags (short, {@link #TIMESTAMP_FLAG} when records have
+ * timestamp), record size (int), reserved (int). Every record (big endian) contains packed currency code (short),
+ * number of digits to the right of decimal point of the amount (byte, 0 - 2), reserved (byte), amount in minor units
+ * - hundredths (long) and optionally timestamp in epoch milliseconds (long).
+ */
+public class BinaryPaymentWriter implements Closeable {
+
+    static final int MAGIC = 0x50544231; // PTB1
+    static final short VERSION = 1;
+    static final short TIMESTAMP_FLAG = 1;
+    static final int HEADER_SIZE = 2 * Integer.BYTES + 2 * Short.BYTES + Integer.BYTES;
+    static final int RECORD_SIZE = Short.BYTES + 2 + Long.BYTES;
+    static final int TIMESTAMP_RECORD_SIZE = RECORD_SIZE + Long.BYTES;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel fileChannel;
+    private final boolean timestamps;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Creates (or truncates) the file and writes its header.
+     * @param timestamps true when records have timestamp
+     */
+    public BinaryPaymentWriter(Path path, boolean timestamps) throws IOException {
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.timestamps = timestamps;
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort(timestamps ? TIMESTAMP_FLAG : 0)
+                .putInt(timestamps ? TIMESTAMP_RECORD_SIZE : RECORD_SIZE)
+                .putInt(0);
+    }
+
+    /**
+     * Writes the payment, timestamp is 0 when records have timestamp.
+     * @throws IllegalArgumentException when the currency is not 3 uppercase letters or the amount has more than 2
+     *                                  digits to the right of decimal point or does not fit into long minor units
+     */
+    public void write(Payment payment) throws IOException {
+        write(payment, 0);
+    }
+
+    public void write(Payment payment, long timestamp) throws IOException {
+        final int currencyCode = CurrencyCode.pack(payment.getCurrency());
+        final Money amount = payment.getAmount();
+        if (currencyCode == CurrencyCode.INVALID || !amount.hasMinorUnits()) {
+            throw new IllegalArgumentException(String.format("Payment %s %s can not be written as binary record.", payment.getCurrency(), amount));
+        }
+
+        write(currencyCode, amount.getMinorUnits(), amount.getScale(), timestamp);
+    }
+
+    /**
+     * Writes the record without allocation.
+     * @param minorUnits amount in hundredths
+     * @param scale number of digits to the right of decimal point of the original amount (0 - 2)
+     */
+    public void write(int currencyCode, long minorUnits, int scale, long timestamp) throws IOException {
+        if (buffer.remaining() < TIMESTAMP_RECORD_SIZE) {
+            flush();
+        }
+
+        buffer.putShort((short) currencyCode).put((byte) scale).put((byte) 0).putLong(minorUnits);
+        if (timestamps) {
+            buffer.putLong(timestamp);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            fileChannel.close();
+        }
+    }
+}
@@ -1,35 +1,77 @@
 package company.bankingsoftware.paymenttracker.reader;
 
+import company.bankingsoftware.paymenttracker.model.Payment;
 import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
-import java.util.Scanner;
-import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Implementation of PaymentReader, reads the command line input.
+ * Implementation of PaymentReader, reads the command line input until <i>quit</i> command or end of the input.
+ *
+ * Input is read in blocks into one reused byte buffer and split into lines by bytes (\n, \r\n or \r), without regex
+ * scanning and charset decoding, so millions of lines piped into the standard input are read fast. Lines of one block
+ * are parsed one after another and handed to the batcher (when there is one). Every line is passed to the parser
+ * as one reused ISO-8859-1 char sequence view over the buffer (payment lines are ASCII), so no String is created
+ * per line, interactive input is read line by line as before.
+ * Lines longer than the buffer are skipped.
  */
 public class CommandLinePaymentReader implements PaymentReader {
 
     private static final Logger LOGGER = Logger.getLogger(CommandLinePaymentReader.class.getName());
 
     private static final String QUIT_COMMAND = "quit";
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
 
     private final InputStream inputStream;
-    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue;
+    private final PaymentEventPublisher inputPaymentEventsQueue;
     private final PaymentParser paymentParser;
+    private final PaymentEventBatcher paymentEventBatcher;
+    private final byte[] buffer;
+    private final ByteBuffer wrappedBuffer;
+    private final AsciiCharSequence commandLineInput = new AsciiCharSequence();
+
+    private boolean skippingLongLine;
+    private boolean lineEndedByCarriageReturn;
 
     public CommandLinePaymentReader(
             InputStream inputStream,
-            BlockingQueue<PaymentEvent> inputPaymentEventsQueue,
+            PaymentEventPublisher inputPaymentEventsQueue,
             PaymentParser paymentParser,
             Level logLevel) {
+        this(inputStream, inputPaymentEventsQueue, paymentParser, null, logLevel);
+    }
+
+    /**
+     * @param paymentEventBatcher batcher of parsed payments, payments are queued one by one when it is null
+     */
+    public CommandLinePaymentReader(
+            InputStream inputStream,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            PaymentEventBatcher paymentEventBatcher,
+            Level logLevel) {
+        this(inputStream, inputPaymentEventsQueue, paymentParser, paymentEventBatcher, DEFAULT_BUFFER_SIZE, logLevel);
+    }
+
+    CommandLinePaymentReader(
+            InputStream inputStream,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            PaymentEventBatcher paymentEventBatcher,
+            int bufferSize,
+            Level logLevel) {
+        this.buffer = new byte[bufferSize];
+        this.wrappedBuffer = ByteBuffer.wrap(buffer);
         this.inputStream = inputStream;
         this.inputPaymentEventsQueue = inputPaymentEventsQueue;
         this.paymentParser = paymentParser;
+        this.paymentEventBatcher = paymentEventBatcher;
         LOGGER.setLevel(logLevel);
     }
 
@@ -39,19 +81,93 @@ public class CommandLinePaymentReader implements PaymentReader {
     }
 
     public void readCommandLineInput() {
-        Scanner scanner = new Scanner(inputStream);
+        try {
+            int length = 0;
+            for (int read; (read = inputStream.read(buffer, length, buffer.length - length)) >= 0; ) {
+                final int end = length + read;
+                int lineStart = 0;
+                // bytes before the new ones do not contain line end
+                for (int i = length; i < end; i++) {
+                    final byte b = buffer[i];
+                    if (b == '\n' || b == '\r') {
+                        // \n of \r\n does not end another line
+                        if (!(b == '\n' && lineEndedByCarriageReturn && i == lineStart) && !readLine(lineStart, i)) {
+                            return;
+                        }
+                        lineEndedByCarriageReturn = b == '\r';
+                        lineStart = i + 1;
+                    }
+                }
 
-        for (String commandLineInput; scanner.hasNext() && !QUIT_COMMAND.equals(commandLineInput = scanner.nextLine());) {
-            queue(parsePaymentEvent(commandLineInput));
+                if (lineStart == 0 && end == buffer.length) {
+                    LOGGER.log(Level.SEVERE, "Payment line longer than {0} bytes skipped.", buffer.length);
+                    skippingLongLine = true;
+                    lineStart = end;
+                }
+                length = end - lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, length);
+            }
+
+            if (length > 0) {
+                readLine(0, length);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to read command line input.");
+        } finally {
+            flushPaymentEventBatch();
         }
     }
 
-    PaymentEvent parsePaymentEvent(String paymentLine) {
+    /**
+     * @return false when the line is quit command
+     */
+    private boolean readLine(int from, int to) {
+        if (skippingLongLine) {
+            skippingLongLine = false;
+            return true;
+        }
+
+        commandLineInput.wrap(wrappedBuffer, from, to);
+        if (QUIT_COMMAND.contentEquals(commandLineInput)) {
+            return false;
+        }
+
+        readPaymentLine(commandLineInput);
+        return true;
+    }
+
+    void readPaymentLine(CharSequence paymentLine) {
+        if (paymentEventBatcher != null) {
+            Payment payment = parsePayment(paymentLine);
+            if (payment != null) {
+                paymentEventBatcher.add(payment);
+            }
+        } else {
+            queue(parsePaymentEvent(paymentLine));
+        }
+    }
+
+    void flushPaymentEventBatch() {
+        if (paymentEventBatcher != null) {
+            paymentEventBatcher.flush();
+        }
+    }
+
+    PaymentEvent parsePaymentEvent(CharSequence paymentLine) {
+        Payment payment = parsePayment(paymentLine);
+        if (payment == null) {
+            return null;
+        }
+
+        return PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
+                .withPayment(payment)
+                .build();
+    }
+
+    Payment parsePayment(CharSequence paymentLine) {
         try {
-            return PaymentEvent.builder()
-                    .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
-                    .withPayment(paymentParser.toPayment(paymentLine))
-                    .build();
+            return paymentParser.toPayment(paymentLine);
         } catch (ParseException pe) {
             LOGGER.log(Level.SEVERE, "Payment parsing failed.");
         }
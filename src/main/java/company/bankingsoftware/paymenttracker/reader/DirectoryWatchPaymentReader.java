@@ -0,0 +1,324 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.model.TransactionLedger;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of PaymentReader, ingests payment files dropped into the given directory until it is stopped.
+ * Files already in the directory are ingested first, then new files are picked up by watch service.
+ * Files should be moved into the directory when complete, hidden files and files ending with <i>.tmp</i>
+ * or <i>.part</i> are ignored.
+ *
+ * Files are parsed concurrently by bounded number of workers, every file is parsed into its own partial ledger
+ * queued as single <i>MERGE payment event type</i>, so the file is applied all at once.
+ * With journaled payments, names of ingested files are appended into done file <i>.payment-tracker-done</i> in the
+ * directory (forced to the disk) once the journal committed their MERGE event (COMMIT event is published behind it
+ * and the worker waits for its callback), the done files are never ingested again, also after a restart.
+ * A crash between the journal commit and recording the file ingests it again.
+ * Without journal the balances do not survive a restart, so every file is ingested once per run and no done file
+ * is kept.
+ */
+public class DirectoryWatchPaymentReader implements PaymentReader {
+
+    private static final Logger LOGGER = Logger.getLogger(DirectoryWatchPaymentReader.class.getName());
+
+    static final String DONE_FILE_NAME = ".payment-tracker-done";
+
+    private final Path directory;
+    private final PaymentEventPublisher inputPaymentEventsQueue;
+    private final PaymentParser paymentParser;
+    private final Supplier<TransactionLedger> transactionLedgerFactory;
+    private final boolean journaled;
+    private final int workerCount;
+
+    private final Set<String> doneFileNames = ConcurrentHashMap.newKeySet();
+    private final Set<String> submittedFileNames = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ByteBuffer> workerBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 * 1024));
+    private final ThreadLocal<AsciiCharSequence> workerPaymentLines = ThreadLocal.withInitial(AsciiCharSequence::new);
+
+    private ExecutorService workerExecutorService;
+    private FileChannel doneFileChannel;
+    private volatile WatchService watchService;
+    private volatile boolean running = true;
+
+    /**
+     * @param transactionLedgerFactory creates partial ledger of one file
+     * @param journaled true when the payments are journaled, ingested files are recorded into done file only then
+     * @param workerCount max number of files parsed at the same time
+     */
+    public DirectoryWatchPaymentReader(
+            Path directory,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            Supplier<TransactionLedger> transactionLedgerFactory,
+            boolean journaled,
+            int workerCount,
+            Level logLevel) {
+        this.directory = directory;
+        this.inputPaymentEventsQueue = inputPaymentEventsQueue;
+        this.paymentParser = paymentParser;
+        this.transactionLedgerFactory = transactionLedgerFactory;
+        this.journaled = journaled;
+        this.workerCount = Math.max(1, workerCount);
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        try {
+            open();
+            // registered before the scan, so no file dropped in between is missed
+            watchService = directory.getFileSystem().newWatchService();
+            // file moved into the directory is created there too
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            submitExistingFiles();
+            while (running) {
+                WatchKey watchKey = watchService.take();
+                for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+                    if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        submitExistingFiles();
+                    } else {
+                        submit(directory.resolve((Path) watchEvent.context()));
+                    }
+                }
+                watchKey.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOGGER.log(Level.INFO, "Stopped watching input directory.");
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to watch input directory.");
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Stops watching, files being parsed are completed before the reader ends.
+     */
+    public void stop() {
+        running = false;
+        WatchService watchService = this.watchService;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to close watch service.");
+            }
+        }
+    }
+
+    /**
+     * Ingests files already in the directory and waits until they are queued.
+     * @return number of ingested files
+     */
+    int readDirectoryInput() throws IOException, InterruptedException {
+        open();
+        try {
+            int ingestedFileCount = 0;
+            for (Future<Boolean> ingestion : submitExistingFiles()) {
+                try {
+                    ingestedFileCount += ingestion.get() ? 1 : 0;
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "Failed to ingest input file.");
+                }
+            }
+            return ingestedFileCount;
+        } finally {
+            close();
+        }
+    }
+
+    private void open() throws IOException {
+        if (journaled) {
+            final Path doneFile = directory.resolve(DONE_FILE_NAME);
+            if (Files.exists(doneFile)) {
+                doneFileNames.addAll(Files.readAllLines(doneFile, StandardCharsets.UTF_8));
+            }
+            doneFileChannel = FileChannel.open(doneFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        workerExecutorService = Executors.newFixedThreadPool(workerCount);
+    }
+
+    private void close() {
+        if (workerExecutorService == null) {
+            return;
+        }
+        workerExecutorService.shutdown();
+        try {
+            if (!workerExecutorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.log(Level.SEVERE, "Input files are still being parsed.");
+            }
+        } catch (InterruptedException e) {
+            workerExecutorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            if (doneFileChannel != null) {
+                doneFileChannel.close();
+            }
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close done file.");
+        }
+    }
+
+    private List<Future<Boolean>> submitExistingFiles() throws IOException {
+        final List<Future<Boolean>> ingestions = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+            for (Path path : paths) {
+                Future<Boolean> ingestion = submit(path);
+                if (ingestion != null) {
+                    ingestions.add(ingestion);
+                }
+            }
+        }
+
+        return ingestions;
+    }
+
+    private Future<Boolean> submit(Path path) {
+        final String fileName = path.getFileName().toString();
+        if (!isPaymentFile(fileName) || doneFileNames.contains(fileName) || !submittedFileNames.add(fileName)) {
+            return null;
+        }
+
+        return workerExecutorService.submit(() -> ingest(path));
+    }
+
+    static boolean isPaymentFile(String fileName) {
+        return !fileName.startsWith(".") && !fileName.endsWith(".tmp") && !fileName.endsWith(".part");
+    }
+
+    /**
+     * Parses the file into partial ledger, queues it and (with journal) records the file as done once the journal
+     * committed it.
+     * @return true when the file was ingested
+     */
+    boolean ingest(Path path) throws InterruptedException {
+        final String fileName = path.getFileName().toString();
+        final TransactionLedger transactionLedger;
+        try {
+            if (!Files.isRegularFile(path)) {
+                return false;
+            }
+            transactionLedger = parseFile(path);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to read input file {0}.", fileName);
+            submittedFileNames.remove(fileName);
+            return false;
+        }
+
+        inputPaymentEventsQueue.put(PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.MERGE)
+                .withTransactionLedger(transactionLedger)
+                .build());
+        if (journaled) {
+            awaitCommit();
+            recordDone(fileName);
+        }
+        LOGGER.log(Level.INFO, "Ingested input file {0}.", fileName);
+        return true;
+    }
+
+    /**
+     * Reads the file through the reused buffer of the worker, empty lines are skipped as in file payment reader.
+     */
+    TransactionLedger parseFile(Path path) throws IOException {
+        final TransactionLedger transactionLedger = transactionLedgerFactory.get();
+        final ByteBuffer buffer = workerBuffers.get();
+        final AsciiCharSequence paymentLine = workerPaymentLines.get();
+        buffer.clear();
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                endOfFile = fileChannel.read(buffer) < 0;
+                int lineStart = 0;
+                final int end = buffer.position();
+                for (int i = 0; i < end; i++) {
+                    if (buffer.get(i) == '\n' || buffer.get(i) == '\r') {
+                        addPayment(transactionLedger, paymentLine, buffer, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                if (endOfFile) {
+                    addPayment(transactionLedger, paymentLine, buffer, lineStart, end);
+                } else if (lineStart == 0 && !buffer.hasRemaining()) {
+                    throw new IOException(String.format("Payment line longer than %d bytes.", buffer.capacity()));
+                }
+                buffer.flip().position(lineStart);
+                buffer.compact();
+            }
+        }
+
+        return transactionLedger;
+    }
+
+    private void addPayment(TransactionLedger transactionLedger, AsciiCharSequence paymentLine, ByteBuffer buffer, int from, int to) {
+        if (to > from) {
+            try {
+                transactionLedger.addPayment(paymentParser.toPayment(paymentLine.wrap(buffer, from, to)));
+            } catch (ParseException pe) {
+                LOGGER.log(Level.SEVERE, "Payment parsing failed.");
+            }
+        }
+    }
+
+    /**
+     * Waits until the journal commits the payment events this worker published.
+     */
+    private void awaitCommit() throws InterruptedException {
+        final CountDownLatch committed = new CountDownLatch(1);
+        inputPaymentEventsQueue.put(PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.COMMIT)
+                .withCommitCallback(committed::countDown)
+                .build());
+        committed.await();
+    }
+
+    private void recordDone(String fileName) {
+        doneFileNames.add(fileName);
+        final ByteBuffer record = ByteBuffer.wrap((fileName + "\n").getBytes(StandardCharsets.UTF_8));
+        try {
+            synchronized (doneFileChannel) {
+                while (record.hasRemaining()) {
+                    doneFileChannel.write(record);
+                }
+                doneFileChannel.force(false);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to record ingested input file {0}.", fileName);
+        }
+    }
+}
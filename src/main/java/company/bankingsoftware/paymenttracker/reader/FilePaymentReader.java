@@ -1,12 +1,13 @@
 package company.bankingsoftware.paymenttracker.reader;
 
+import company.bankingsoftware.paymenttracker.model.Payment;
 import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.ParseException;
-import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
@@ -19,17 +20,31 @@ public class FilePaymentReader implements PaymentReader {
     private static final Logger LOGGER = Logger.getLogger(FilePaymentReader.class.getName());
 
     private final Path path;
-    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue;
+    private final PaymentEventPublisher inputPaymentEventsQueue;
     private final PaymentParser paymentParser;
+    private final PaymentEventBatcher paymentEventBatcher;
 
     public FilePaymentReader(
             Path path,
-            BlockingQueue<PaymentEvent> inputPaymentEventsQueue,
+            PaymentEventPublisher inputPaymentEventsQueue,
             PaymentParser paymentParser,
             Level logLevel) {
+        this(path, inputPaymentEventsQueue, paymentParser, null, logLevel);
+    }
+
+    /**
+     * @param paymentEventBatcher batcher of parsed payments, payments are queued one by one when it is null
+     */
+    public FilePaymentReader(
+            Path path,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            PaymentEventBatcher paymentEventBatcher,
+            Level logLevel) {
         this.path = path;
         this.inputPaymentEventsQueue = inputPaymentEventsQueue;
         this.paymentParser = paymentParser;
+        this.paymentEventBatcher = paymentEventBatcher;
         LOGGER.setLevel(logLevel);
     }
 
@@ -43,19 +58,46 @@ public class FilePaymentReader implements PaymentReader {
 
             stream
                     .filter(paymentLine -> !paymentLine.isEmpty())
-                    .forEach(paymentLine -> queue(parsePaymentEvent(paymentLine)));
+                    .forEach(this::readPaymentLine);
+            flushPaymentEventBatch();
 
         } catch (IOException ioe ) {
             LOGGER.log(Level.SEVERE, "Failed to read input file.");
         }
     }
 
+    void readPaymentLine(String paymentLine) {
+        if (paymentEventBatcher != null) {
+            Payment payment = parsePayment(paymentLine);
+            if (payment != null) {
+                paymentEventBatcher.add(payment);
+            }
+        } else {
+            queue(parsePaymentEvent(paymentLine));
+        }
+    }
+
+    void flushPaymentEventBatch() {
+        if (paymentEventBatcher != null) {
+            paymentEventBatcher.flush();
+        }
+    }
+
     PaymentEvent parsePaymentEvent(String paymentLine) {
+        Payment payment = parsePayment(paymentLine);
+        if (payment == null) {
+            return null;
+        }
+
+        return PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
+                .withPayment(payment)
+                .build();
+    }
+
+    Payment parsePayment(String paymentLine) {
         try {
-            return PaymentEvent.builder()
-                    .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
-                    .withPayment(paymentParser.toPayment(paymentLine))
-                    .build();
+            return paymentParser.toPayment(paymentLine);
         } catch (ParseException pe) {
             LOGGER.log(Level.SEVERE, "Payment parsing failed.");
         }
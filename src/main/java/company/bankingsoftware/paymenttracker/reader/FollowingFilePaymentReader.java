@@ -0,0 +1,400 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of PaymentReader, follows the given file and reads payment lines appended to it
+ * until the reader is stopped (or interrupted).
+ *
+ * Only the bytes after the offset (end of the last read line) are read, into one reused buffer, lines are parsed
+ * in place. Lines end with \n, \r\n or \r, empty lines are skipped. Trailing line without line terminator is kept
+ * in the buffer until the rest of it is appended.
+ * The file is followed by name:
+ * - rotation (another file got the name) - rest of the old file is read and the new file is read from its start
+ * - truncation (file got shorter than the offset) - the file is read from its start again
+ *
+ * With journaled payments, the offset is stored into sidecar file <i>&lt;file&gt;.offset</i> (with the file identity)
+ * only after the journal committed the lines before it: COMMIT event is published behind the lines (at most one
+ * is waiting at a time) and the offset is stored once the transaction ledger service ran its callback.
+ * So a restarted reader resumes after the last journaled line instead of reading the whole file again, a crash
+ * between the journal commit and storing the offset only reads the lines after the previous offset again.
+ * Without journal the balances do not survive a restart, so the offset is not stored and the file is read
+ * from the start.
+ * Lines longer than the buffer are skipped.
+ */
+public class FollowingFilePaymentReader implements PaymentReader {
+
+    private static final Logger LOGGER = Logger.getLogger(FollowingFilePaymentReader.class.getName());
+
+    static final String OFFSET_FILE_SUFFIX = ".offset";
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final Path offsetPath;
+    private final PaymentEventPublisher inputPaymentEventsQueue;
+    private final PaymentParser paymentParser;
+    private final PaymentEventBatcher paymentEventBatcher;
+    private final boolean journaled;
+    private final long pollIntervalMillis;
+    private final ByteBuffer buffer;
+    private final AsciiCharSequence paymentLine = new AsciiCharSequence();
+
+    private FileChannel fileChannel;
+    private String fileKey;
+    // file offset of the first byte in buffer, everything before it is published
+    private long offset;
+    // offset of the last line committed by the journal
+    private long committedOffset = -1;
+    private String committedFileKey;
+    private OffsetCommit offsetCommit;
+    private boolean skippingLongLine;
+    private volatile boolean running = true;
+
+    /**
+     * @param paymentEventBatcher batcher of parsed payments, payments are queued one by one when it is null
+     * @param journaled true when the payments are journaled, the offset is stored and restored only then
+     * @param pollIntervalMillis time to wait for appended data when the whole file is read
+     */
+    public FollowingFilePaymentReader(
+            Path path,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            PaymentEventBatcher paymentEventBatcher,
+            boolean journaled,
+            long pollIntervalMillis,
+            Level logLevel) {
+        this(path, inputPaymentEventsQueue, paymentParser, paymentEventBatcher, journaled, pollIntervalMillis, DEFAULT_BUFFER_SIZE, logLevel);
+    }
+
+    FollowingFilePaymentReader(
+            Path path,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            PaymentEventBatcher paymentEventBatcher,
+            boolean journaled,
+            long pollIntervalMillis,
+            int bufferSize,
+            Level logLevel) {
+        this.path = path;
+        this.offsetPath = path.resolveSibling(path.getFileName() + OFFSET_FILE_SUFFIX);
+        this.inputPaymentEventsQueue = inputPaymentEventsQueue;
+        this.paymentParser = paymentParser;
+        this.paymentEventBatcher = paymentEventBatcher;
+        this.journaled = journaled;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        boolean interrupted = false;
+        try {
+            while (running) {
+                final boolean read = readAppendedData();
+                commitOffset();
+                if (!read) {
+                    Thread.sleep(pollIntervalMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+            LOGGER.log(Level.INFO, "Interruption - stopped following input file.");
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to follow input file.");
+        } finally {
+            flushPaymentEventBatch();
+            if (!interrupted) {
+                awaitOffsetCommit();
+            }
+            closeFile();
+        }
+    }
+
+    /**
+     * Stops following after the data being read, the batch is flushed and (with journal) the offset stored
+     * once the journal committed the read lines, before the reader ends.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Reads data appended since the last call and publishes all complete payment lines.
+     * @return true when some data were read, false when there were no new data
+     */
+    boolean readAppendedData() throws IOException, InterruptedException {
+        if (fileChannel == null && !openFile()) {
+            return false;
+        }
+
+        final long readPosition = offset + buffer.position();
+        final long size = fileChannel.size();
+        if (size < readPosition) {
+            LOGGER.log(Level.WARNING, "Input file was truncated, reading it from the start.");
+            reset();
+            return true;
+        }
+
+        if (size == readPosition) {
+            final String currentFileKey = fileKey(path);
+            if (currentFileKey != null && !currentFileKey.equals(fileKey)) {
+                LOGGER.log(Level.INFO, "Input file was rotated, reading the new file from the start.");
+                // the old file is complete, so its trailing line is complete too
+                publishTrailingLine();
+                closeFile();
+                offset = 0;
+                return true;
+            }
+            return false;
+        }
+
+        if (fileChannel.read(buffer, readPosition) <= 0) {
+            return false;
+        }
+        publishCompleteLines();
+        return true;
+    }
+
+    /**
+     * Stores the offset committed by the journal since the last call and publishes COMMIT event for the lines
+     * published after it, when no other COMMIT event is waiting.
+     */
+    void commitOffset() throws InterruptedException {
+        if (!journaled) {
+            return;
+        }
+
+        if (offsetCommit != null) {
+            if (offsetCommit.committed.getCount() > 0) {
+                return;
+            }
+            committedOffset = offsetCommit.offset;
+            committedFileKey = offsetCommit.fileKey;
+            offsetCommit = null;
+            storeOffset();
+        }
+
+        if (fileKey == null || (offset == committedOffset && fileKey.equals(committedFileKey))) {
+            return;
+        }
+
+        // batched lines must get into input queue before the COMMIT event
+        flushPaymentEventBatch();
+        final OffsetCommit nextOffsetCommit = new OffsetCommit(fileKey, offset);
+        inputPaymentEventsQueue.put(PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.COMMIT)
+                .withCommitCallback(nextOffsetCommit)
+                .build());
+        offsetCommit = nextOffsetCommit;
+    }
+
+    /**
+     * Waits until the journal commits all the published lines, their offset is stored.
+     */
+    private void awaitOffsetCommit() {
+        try {
+            commitOffset();
+            while (offsetCommit != null) {
+                offsetCommit.committed.await();
+                commitOffset();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.WARNING, "Interruption - offset of lines not committed by journal is not stored.");
+        }
+    }
+
+    private boolean openFile() throws IOException {
+        final String currentFileKey = fileKey(path);
+        if (currentFileKey == null) {
+            return false;
+        }
+
+        try {
+            fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        fileKey = currentFileKey;
+        buffer.clear();
+        skippingLongLine = false;
+
+        if (committedOffset < 0) {
+            offset = journaled ? restoreOffset() : 0;
+            committedOffset = offset;
+            committedFileKey = fileKey;
+        }
+        LOGGER.log(Level.INFO, "Following input file from offset {0}.", offset);
+        return true;
+    }
+
+    private void reset() {
+        offset = 0;
+        buffer.clear();
+        skippingLongLine = false;
+    }
+
+    private void publishCompleteLines() throws InterruptedException {
+        int lineStart = 0;
+        try {
+            for (int i = 0; i < buffer.position(); i++) {
+                if (buffer.get(i) == '\n' || buffer.get(i) == '\r') {
+                    publishLine(lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart == 0 && !buffer.hasRemaining()) {
+                LOGGER.log(Level.SEVERE, "Payment line longer than {0} bytes skipped.", buffer.capacity());
+                skippingLongLine = true;
+                lineStart = buffer.position();
+            }
+        } finally {
+            // interrupted put keeps the not published lines in buffer
+            buffer.flip().position(lineStart);
+            buffer.compact();
+            offset += lineStart;
+        }
+    }
+
+    private void publishTrailingLine() throws InterruptedException {
+        if (buffer.position() > 0) {
+            publishLine(0, buffer.position());
+            offset += buffer.position();
+            buffer.clear();
+        }
+    }
+
+    private void publishLine(int from, int to) throws InterruptedException {
+        if (skippingLongLine) {
+            skippingLongLine = false;
+            return;
+        }
+
+        // empty line, also the one between \r and \n of \r\n
+        if (to == from) {
+            return;
+        }
+
+        try {
+            Payment payment = paymentParser.toPayment(paymentLine.wrap(buffer, from, to));
+            if (paymentEventBatcher != null) {
+                paymentEventBatcher.add(payment);
+            } else {
+                inputPaymentEventsQueue.put(PaymentEvent.builder()
+                        .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
+                        .withPayment(payment)
+                        .build());
+            }
+        } catch (ParseException pe) {
+            LOGGER.log(Level.SEVERE, "Payment parsing failed.");
+        }
+    }
+
+    private void flushPaymentEventBatch() {
+        if (paymentEventBatcher != null) {
+            paymentEventBatcher.flush();
+        }
+    }
+
+    private void closeFile() {
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to close input file.");
+            }
+            fileChannel = null;
+        }
+        buffer.clear();
+        skippingLongLine = false;
+    }
+
+    /**
+     * @return stored offset when it belongs to the current file, 0 otherwise (file was rotated while not followed)
+     */
+    private long restoreOffset() {
+        try {
+            final List<String> lines = Files.readAllLines(offsetPath, StandardCharsets.US_ASCII);
+            if (lines.size() == 2 && lines.get(0).equals(fileKey)) {
+                final long restoredOffset = Long.parseLong(lines.get(1));
+                return restoredOffset <= fileChannel.size() ? restoredOffset : 0;
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "Failed to read input file offset, reading it from the start.");
+        }
+
+        return 0;
+    }
+
+    private void storeOffset() {
+        try {
+            final Path temporaryPath = offsetPath.resolveSibling(offsetPath.getFileName() + ".tmp");
+            Files.write(temporaryPath, (committedFileKey + "\n" + committedOffset + "\n").getBytes(StandardCharsets.US_ASCII));
+            try {
+                Files.move(temporaryPath, offsetPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, offsetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to store input file offset.");
+        }
+    }
+
+    /**
+     * @return identity of the file (inode where available), null when the file does not exist
+     */
+    private static String fileKey(Path path) throws IOException {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.fileKey() != null
+                    ? attributes.fileKey().toString()
+                    : attributes.creationTime().toString();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Offset of the published lines waiting for the journal commit, callback of their COMMIT event.
+     */
+    private static final class OffsetCommit implements Runnable {
+        private final String fileKey;
+        private final long offset;
+        private final CountDownLatch committed = new CountDownLatch(1);
+
+        private OffsetCommit(String fileKey, long offset) {
+            this.fileKey = fileKey;
+            this.offset = offset;
+        }
+
+        @Override
+        public void run() {
+            committed.countDown();
+        }
+    }
+}
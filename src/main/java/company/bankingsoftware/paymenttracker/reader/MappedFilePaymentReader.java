@@ -0,0 +1,218 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.model.TransactionLedger;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of PaymentReader for big input files.
+ * The file is memory mapped and split into newline aligned chunks, every chunk is parsed by fork join worker
+ * into its own partial transaction ledger. Partial ledgers are merged and queued as one MERGE payment event,
+ * so the final balances are the same as the ones of sequential file payment reader.
+ */
+public class MappedFilePaymentReader implements PaymentReader {
+
+    private static final Logger LOGGER = Logger.getLogger(MappedFilePaymentReader.class.getName());
+
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+    // more chunks than workers to balance chunks with different parsing cost
+    private static final int CHUNKS_PER_WORKER = 4;
+    private static final int BOUNDARY_SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private final Path path;
+    private final PaymentEventPublisher inputPaymentEventsQueue;
+    private final PaymentParser paymentParser;
+    private final Supplier<TransactionLedger> transactionLedgerFactory;
+    private final ForkJoinPool forkJoinPool;
+    private final long chunkSize;
+
+    public MappedFilePaymentReader(
+            Path path,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            Level logLevel) {
+        this(path, inputPaymentEventsQueue, paymentParser, HashMapTransactionLedger::new, logLevel);
+    }
+
+    /**
+     * @param transactionLedgerFactory creates partial transaction ledger for every chunk
+     */
+    public MappedFilePaymentReader(
+            Path path,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            Supplier<TransactionLedger> transactionLedgerFactory,
+            Level logLevel) {
+        this(path, inputPaymentEventsQueue, paymentParser, transactionLedgerFactory, ForkJoinPool.commonPool(), 0, logLevel);
+    }
+
+    MappedFilePaymentReader(
+            Path path,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            Supplier<TransactionLedger> transactionLedgerFactory,
+            ForkJoinPool forkJoinPool,
+            long chunkSize,
+            Level logLevel) {
+        this.path = path;
+        this.inputPaymentEventsQueue = inputPaymentEventsQueue;
+        this.paymentParser = paymentParser;
+        this.transactionLedgerFactory = transactionLedgerFactory;
+        this.forkJoinPool = forkJoinPool;
+        this.chunkSize = chunkSize;
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        readFileInput();
+    }
+
+    public void readFileInput() {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<Long> chunkBoundaries = splitIntoChunks(fileChannel);
+            if (chunkBoundaries.size() < 2) {
+                return;
+            }
+
+            LOGGER.log(Level.INFO, "Parsing {0} chunks of input file.", chunkBoundaries.size() - 1);
+            TransactionLedger transactionLedger = forkJoinPool.invoke(
+                    new ChunkRangeTask(fileChannel, chunkBoundaries, 0, chunkBoundaries.size() - 1));
+            queue(PaymentEvent.builder()
+                    .withPaymentEventType(PaymentEvent.PaymentEventType.MERGE)
+                    .withTransactionLedger(transactionLedger)
+                    .build());
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to read input file.");
+        }
+    }
+
+    /**
+     * Splits file into chunks of roughly chunk size, every chunk (except the last one) ends right after line terminator.
+     * @return chunk boundaries - start of the first chunk, ends of all chunks
+     */
+    List<Long> splitIntoChunks(FileChannel fileChannel) throws IOException {
+        final long size = fileChannel.size();
+        final long targetChunkSize = chunkSize > 0 ? chunkSize : Math.max(
+                MIN_CHUNK_SIZE,
+                Math.min(MAX_CHUNK_SIZE, size / ((long) forkJoinPool.getParallelism() * CHUNKS_PER_WORKER)));
+
+        List<Long> chunkBoundaries = new ArrayList<>();
+        ByteBuffer scanBuffer = ByteBuffer.allocate(BOUNDARY_SCAN_BUFFER_SIZE);
+        for (long boundary = 0; boundary < size; ) {
+            chunkBoundaries.add(boundary);
+            boundary = boundary + targetChunkSize >= size ? size : nextLineStart(fileChannel, boundary + targetChunkSize, scanBuffer);
+        }
+        if (size > 0) {
+            chunkBoundaries.add(size);
+        }
+
+        return chunkBoundaries;
+    }
+
+    private static long nextLineStart(FileChannel fileChannel, long position, ByteBuffer scanBuffer) throws IOException {
+        for (int read; (read = fileChannel.read(scanBuffer.clear(), position)) > 0; position += read) {
+            for (int i = 0; i < read; i++) {
+                if (isLineTerminator(scanBuffer.get(i))) {
+                    return position + i + 1;
+                }
+            }
+        }
+
+        return fileChannel.size();
+    }
+
+    private static boolean isLineTerminator(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * Parses all lines of the mapped chunk, empty lines are skipped as in file payment reader.
+     */
+    TransactionLedger parseChunk(MappedByteBuffer chunk) {
+        TransactionLedger transactionLedger = transactionLedgerFactory.get();
+        AsciiCharSequence paymentLine = new AsciiCharSequence();
+
+        int lineStart = 0;
+        final int limit = chunk.limit();
+        for (int i = 0; i <= limit; i++) {
+            if (i == limit || isLineTerminator(chunk.get(i))) {
+                if (i > lineStart) {
+                    try {
+                        transactionLedger.addPayment(paymentParser.toPayment(paymentLine.wrap(chunk, lineStart, i)));
+                    } catch (ParseException pe) {
+                        LOGGER.log(Level.SEVERE, "Payment parsing failed.");
+                    }
+                }
+                lineStart = i + 1;
+            }
+        }
+
+        return transactionLedger;
+    }
+
+    void queue(PaymentEvent paymentEvent) {
+        try {
+            LOGGER.log(Level.INFO, "Putting payment event into queue - {0}", paymentEvent);
+            inputPaymentEventsQueue.put(paymentEvent);
+        } catch (InterruptedException ie) {
+            LOGGER.log(Level.SEVERE, "Putting payment event into queue failed.");
+        }
+    }
+
+    /**
+     * Parses chunks in given range, splits the range in halves until single chunk and merges partial ledgers back.
+     */
+    private class ChunkRangeTask extends RecursiveTask<TransactionLedger> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel fileChannel;
+        private final List<Long> chunkBoundaries;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkRangeTask(FileChannel fileChannel, List<Long> chunkBoundaries, int fromChunk, int toChunk) {
+            this.fileChannel = fileChannel;
+            this.chunkBoundaries = chunkBoundaries;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected TransactionLedger compute() {
+            if (toChunk - fromChunk == 1) {
+                long start = chunkBoundaries.get(fromChunk);
+                try {
+                    return parseChunk(fileChannel.map(FileChannel.MapMode.READ_ONLY, start, chunkBoundaries.get(toChunk) - start));
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            }
+
+            int middleChunk = (fromChunk + toChunk) >>> 1;
+            ChunkRangeTask left = new ChunkRangeTask(fileChannel, chunkBoundaries, fromChunk, middleChunk);
+            left.fork();
+            TransactionLedger right = new ChunkRangeTask(fileChannel, chunkBoundaries, middleChunk, toChunk).compute();
+            return left.join().merge(right);
+        }
+    }
+}
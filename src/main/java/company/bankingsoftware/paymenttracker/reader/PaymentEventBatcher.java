@@ -0,0 +1,112 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects payments of one reader into ADD_BATCH payment events, so the input queue is touched once per batch.
+ * Batch is queued when it is full, when its oldest payment waits longer than flush timeout
+ * or when the reader flushes it explicitly (end of the input).
+ *
+ * Expired batches are flushed by the next added payment or by {@link #run()}, which is meant to be scheduled
+ * periodically, so payments of an idle reader do not stay in the batch.
+ * The batch is guarded by a lock instead of synchronized, flush blocks in put while holding it
+ * and a virtual thread blocked inside synchronized would pin its carrier thread.
+ */
+public class PaymentEventBatcher implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(PaymentEventBatcher.class.getName());
+
+    private final PaymentEventPublisher inputPaymentEventsQueue;
+    private final int maxBatchSize;
+    private final long flushTimeoutNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private List<Payment> payments;
+    private long firstPaymentNanos;
+
+    public PaymentEventBatcher(
+            PaymentEventPublisher inputPaymentEventsQueue,
+            int maxBatchSize,
+            long flushTimeoutMillis,
+            Level logLevel) {
+        this.inputPaymentEventsQueue = inputPaymentEventsQueue;
+        this.maxBatchSize = maxBatchSize;
+        this.flushTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(flushTimeoutMillis);
+        this.payments = new ArrayList<>(maxBatchSize);
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        flushIfExpired();
+    }
+
+    public void add(Payment payment) {
+        lock.lock();
+        try {
+            if (payments.isEmpty()) {
+                firstPaymentNanos = System.nanoTime();
+            }
+            payments.add(payment);
+
+            if (payments.size() >= maxBatchSize || isExpired()) {
+                flushBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flushIfExpired() {
+        lock.lock();
+        try {
+            if (!payments.isEmpty() && isExpired()) {
+                flushBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() {
+        lock.lock();
+        try {
+            flushBatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushBatch() {
+        if (payments.isEmpty()) {
+            return;
+        }
+
+        PaymentEvent paymentEvent = PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD_BATCH)
+                .withPayments(payments)
+                .build();
+        // the list is handed over with the event, next batch gets a new one
+        payments = new ArrayList<>(maxBatchSize);
+
+        try {
+            LOGGER.log(Level.INFO, "Putting batch of {0} payments into queue.", paymentEvent.getPayments().size());
+            inputPaymentEventsQueue.put(paymentEvent);
+        } catch (InterruptedException ie) {
+            LOGGER.log(Level.SEVERE, "Putting payment event batch into queue failed.");
+        }
+    }
+
+    private boolean isExpired() {
+        return System.nanoTime() - firstPaymentNanos >= flushTimeoutNanos;
+    }
+}
@@ -16,4 +16,15 @@ public interface PaymentParser {
      * @throws ParseException
      */
     Payment toPayment(String paymentLine) throws ParseException;
+
+    /**
+     * Maps payment line into Payment object, the line can be a view over a reused buffer.
+     * Default implementation copies the line into String, implementations can parse it in place.
+     * @param paymentLine
+     * @return the Payment object
+     * @throws ParseException
+     */
+    default Payment toPayment(CharSequence paymentLine) throws ParseException {
+        return toPayment(paymentLine != null ? paymentLine.toString() : null);
+    }
 }
@@ -1,8 +1,8 @@
 package company.bankingsoftware.paymenttracker.reader;
 
+import company.bankingsoftware.paymenttracker.model.Money;
 import company.bankingsoftware.paymenttracker.model.Payment;
 
-import java.math.BigDecimal;
 import java.text.ParseException;
 import java.util.StringTokenizer;
 import java.util.regex.Pattern;
@@ -13,6 +13,8 @@ import java.util.regex.Pattern;
 public class RegexPaymentParser implements PaymentParser {
 
     private final static Pattern PAYMENT_LINE_PATTERN = Pattern.compile("[A-Z]{3}\\s+[-]?\\d+(\\.\\d{1,2})?");
+    // the same characters as regex \s
+    private final static String PAYMENT_LINE_DELIMITERS = " \t\n\u000B\f\r";
 
     @Override
     public Payment toPayment(String paymentLine) throws ParseException {
@@ -20,10 +22,10 @@ public class RegexPaymentParser implements PaymentParser {
             throw new ParseException(String.format("Invalid payment line: %s", paymentLine), 0);
         }
 
-        StringTokenizer stringTokenizer = new StringTokenizer(paymentLine, " ");
+        StringTokenizer stringTokenizer = new StringTokenizer(paymentLine, PAYMENT_LINE_DELIMITERS);
         return Payment.builder()
                 .withCurrency(stringTokenizer.nextToken())
-                .withAmount(new BigDecimal(stringTokenizer.nextToken()))
+                .withAmount(Money.parse(stringTokenizer.nextToken()))
                 .build();
     }
 
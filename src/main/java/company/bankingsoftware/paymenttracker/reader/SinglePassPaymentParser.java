@@ -0,0 +1,101 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+
+import java.text.ParseException;
+
+/**
+ * Single pass implementation of payment parser.
+ * Validates the same grammar as regex parser - <i>[A-Z]{3}\s+-?\d+(\.\d{1,2})?</i> - while reading the characters,
+ * no regex, tokenizer nor intermediate strings are created (currency strings are cached by the packed currency code).
+ */
+public class SinglePassPaymentParser implements PaymentParser {
+
+    private static final int CURRENCY_LENGTH = 3;
+    private static final int MAX_DECIMAL_DIGITS = 2;
+    // more digits than that can overflow long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    @Override
+    public Payment toPayment(String paymentLine) throws ParseException {
+        return toPayment((CharSequence) paymentLine);
+    }
+
+    @Override
+    public Payment toPayment(CharSequence paymentLine) throws ParseException {
+        if (paymentLine == null || paymentLine.length() <= CURRENCY_LENGTH) {
+            throw invalidPaymentLine(paymentLine);
+        }
+
+        final int length = paymentLine.length();
+        final int currencyCode = CurrencyCode.pack(paymentLine.charAt(0), paymentLine.charAt(1), paymentLine.charAt(2));
+        if (currencyCode == CurrencyCode.INVALID) {
+            throw invalidPaymentLine(paymentLine);
+        }
+
+        int position = CURRENCY_LENGTH;
+        while (position < length && isWhitespace(paymentLine.charAt(position))) {
+            position++;
+        }
+        if (position == CURRENCY_LENGTH || position == length) {
+            throw invalidPaymentLine(paymentLine);
+        }
+
+        final int amountStart = position;
+        final boolean negative = paymentLine.charAt(position) == '-';
+        if (negative) {
+            position++;
+        }
+
+        long unscaledAmount = 0;
+        final int integerStart = position;
+        for (char c; position < length && isDigit(c = paymentLine.charAt(position)); position++) {
+            unscaledAmount = unscaledAmount * 10 + (c - '0');
+        }
+        if (position == integerStart) {
+            throw invalidPaymentLine(paymentLine);
+        }
+
+        int scale = 0;
+        if (position < length && paymentLine.charAt(position) == '.') {
+            position++;
+            for (char c; position < length && isDigit(c = paymentLine.charAt(position)); position++, scale++) {
+                unscaledAmount = unscaledAmount * 10 + (c - '0');
+            }
+            if (scale == 0 || scale > MAX_DECIMAL_DIGITS) {
+                throw invalidPaymentLine(paymentLine);
+            }
+        }
+        if (position != length) {
+            throw invalidPaymentLine(paymentLine);
+        }
+
+        final Money amount;
+        if (position - integerStart - (scale > 0 ? 1 : 0) > MAX_LONG_DIGITS) {
+            // accumulated long has overflowed, rare enough to parse it the slow way
+            amount = Money.parse(paymentLine.subSequence(amountStart, length).toString());
+        } else {
+            amount = Money.valueOf(negative ? -unscaledAmount : unscaledAmount, scale);
+        }
+
+        return Payment.builder()
+                .withCurrency(CurrencyCode.toCurrency(currencyCode))
+                .withAmount(amount)
+                .build();
+    }
+
+    private static ParseException invalidPaymentLine(CharSequence paymentLine) {
+        return new ParseException(String.format("Invalid payment line: %s", paymentLine), 0);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // the same characters as regex \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
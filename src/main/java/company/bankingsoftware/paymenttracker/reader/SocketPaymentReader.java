@@ -0,0 +1,290 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of PaymentReader, accepts TCP connections of payment feeds sending payment lines (ended with \n, \r\n
+ * or \r, empty lines are skipped) until it is stopped (or interrupted).
+ *
+ * All connections are served by one selector thread, every connection reads into its own direct buffer and lines are
+ * parsed in place. Payments of one read are queued as one ADD_BATCH payment event by the publishing thread, so the
+ * selector thread never waits for the input queue.
+ * Every connection has at most one batch waiting to be queued, the connection is not read until its batch is queued,
+ * so when the input queue is full, the sending clients are slowed down by TCP flow control (per connection
+ * backpressure) instead of buffering the payments in memory.
+ * Lines longer than the buffer are skipped.
+ */
+public class SocketPaymentReader implements PaymentReader {
+
+    private static final Logger LOGGER = Logger.getLogger(SocketPaymentReader.class.getName());
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final PaymentEventPublisher inputPaymentEventsQueue;
+    private final PaymentParser paymentParser;
+    private final int bufferSize;
+    private final ServerSocketChannel serverSocketChannel;
+    private final Selector selector;
+    private final AsciiCharSequence paymentLine = new AsciiCharSequence();
+    private final BlockingQueue<Connection> publishingConnections = new LinkedBlockingQueue<>();
+    private final Queue<Connection> publishedConnections = new ConcurrentLinkedQueue<>();
+    private final List<Connection> connections = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    /**
+     * Binds the listening socket, so the address is in use when the reader is created.
+     * @param address address to listen on, port 0 means any free port
+     */
+    public SocketPaymentReader(
+            InetSocketAddress address,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            Level logLevel) throws IOException {
+        this(address, inputPaymentEventsQueue, paymentParser, DEFAULT_BUFFER_SIZE, logLevel);
+    }
+
+    SocketPaymentReader(
+            InetSocketAddress address,
+            PaymentEventPublisher inputPaymentEventsQueue,
+            PaymentParser paymentParser,
+            int bufferSize,
+            Level logLevel) throws IOException {
+        this.inputPaymentEventsQueue = inputPaymentEventsQueue;
+        this.paymentParser = paymentParser;
+        this.bufferSize = bufferSize;
+        this.selector = Selector.open();
+        this.serverSocketChannel = ServerSocketChannel.open();
+        try {
+            serverSocketChannel.bind(address);
+            serverSocketChannel.configureBlocking(false);
+            serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverSocketChannel.close();
+            selector.close();
+            throw e;
+        }
+        LOGGER.setLevel(logLevel);
+    }
+
+    /**
+     * @return address the reader listens on (with the bound port)
+     */
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) serverSocketChannel.getLocalAddress();
+    }
+
+    @Override
+    public void run() {
+        final ExecutorService publisherExecutorService = Executors.newSingleThreadExecutor();
+        publisherExecutorService.submit(this::publishBatches);
+        LOGGER.log(Level.INFO, "Listening for payment feeds on {0}.", serverSocketChannel.socket().getLocalSocketAddress());
+        try {
+            while (running && !Thread.currentThread().isInterrupted()) {
+                selector.select();
+                resumePublishedConnections();
+                for (SelectionKey selectionKey : selector.selectedKeys()) {
+                    if (!selectionKey.isValid()) {
+                        continue;
+                    }
+                    if (selectionKey.isAcceptable()) {
+                        accept();
+                    } else if (selectionKey.isReadable()) {
+                        read((Connection) selectionKey.attachment());
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to listen for payment feeds.");
+        } finally {
+            close();
+            // batches already read are queued before the reader ends
+            publishingConnections.add(Connection.END);
+            publisherExecutorService.shutdown();
+            try {
+                if (!publisherExecutorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOGGER.log(Level.SEVERE, "Payments of payment feeds are still being queued.");
+                }
+            } catch (InterruptedException e) {
+                publisherExecutorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting and reading, payments already read are queued before the reader ends.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel socketChannel = serverSocketChannel.accept();
+        if (socketChannel == null) {
+            return;
+        }
+
+        socketChannel.configureBlocking(false);
+        final Connection connection = new Connection(socketChannel, ByteBuffer.allocateDirect(bufferSize));
+        connection.selectionKey = socketChannel.register(selector, SelectionKey.OP_READ, connection);
+        connections.add(connection);
+        LOGGER.log(Level.INFO, "Accepted payment feed {0}.", socketChannel.getRemoteAddress());
+    }
+
+    void read(Connection connection) {
+        final ByteBuffer buffer = connection.buffer;
+        int read;
+        try {
+            read = connection.socketChannel.read(buffer);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read payment feed, closing it.");
+            read = -1;
+        }
+
+        if (read < 0) {
+            parseLines(connection, true);
+            closeConnection(connection);
+        } else if (read > 0) {
+            parseLines(connection, false);
+        }
+        if (!connection.payments.isEmpty()) {
+            // not read until the batch is queued
+            if (connection.selectionKey.isValid()) {
+                connection.selectionKey.interestOps(0);
+            }
+            publishingConnections.add(connection);
+        }
+    }
+
+    private void parseLines(Connection connection, boolean endOfStream) {
+        final ByteBuffer buffer = connection.buffer;
+        int lineStart = 0;
+        for (int i = 0; i < buffer.position(); i++) {
+            if (buffer.get(i) == '\n' || buffer.get(i) == '\r') {
+                parseLine(connection, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (endOfStream) {
+            parseLine(connection, lineStart, buffer.position());
+            lineStart = buffer.position();
+        } else if (lineStart == 0 && !buffer.hasRemaining()) {
+            LOGGER.log(Level.SEVERE, "Payment line longer than {0} bytes skipped.", buffer.capacity());
+            connection.skippingLongLine = true;
+            lineStart = buffer.position();
+        }
+        buffer.flip().position(lineStart);
+        buffer.compact();
+    }
+
+    private void parseLine(Connection connection, int from, int to) {
+        if (connection.skippingLongLine) {
+            connection.skippingLongLine = false;
+            return;
+        }
+
+        // empty line, also the one between \r and \n of \r\n
+        if (to == from) {
+            return;
+        }
+
+        try {
+            connection.payments.add(paymentParser.toPayment(paymentLine.wrap(connection.buffer, from, to)));
+        } catch (ParseException pe) {
+            LOGGER.log(Level.SEVERE, "Payment parsing failed.");
+        }
+    }
+
+    /**
+     * Runs on the publishing thread, queues batches of connections in the order they were read.
+     */
+    private void publishBatches() {
+        try {
+            for (Connection connection; (connection = publishingConnections.take()) != Connection.END; ) {
+                inputPaymentEventsQueue.put(PaymentEvent.builder()
+                        .withPaymentEventType(PaymentEvent.PaymentEventType.ADD_BATCH)
+                        .withPayments(connection.payments)
+                        .build());
+                connection.payments = new ArrayList<>();
+                publishedConnections.add(connection);
+                selector.wakeup();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.SEVERE, "Interruption - payments of payment feeds were not queued.");
+        }
+    }
+
+    private void resumePublishedConnections() {
+        for (Connection connection; (connection = publishedConnections.poll()) != null; ) {
+            if (connection.selectionKey.isValid()) {
+                connection.selectionKey.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void closeConnection(Connection connection) {
+        connections.remove(connection);
+        connection.selectionKey.cancel();
+        try {
+            connection.socketChannel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close payment feed.");
+        }
+    }
+
+    private void close() {
+        for (Connection connection : new ArrayList<>(connections)) {
+            closeConnection(connection);
+        }
+        try {
+            serverSocketChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close payment feeds listener.");
+        }
+    }
+
+    /**
+     * State of one payment feed, owned by the selector thread except the payments handed over to the publishing thread.
+     */
+    static final class Connection {
+
+        static final Connection END = new Connection(null, null);
+
+        private final SocketChannel socketChannel;
+        private final ByteBuffer buffer;
+        private SelectionKey selectionKey;
+        private List<Payment> payments = new ArrayList<>();
+        private boolean skippingLongLine;
+
+        private Connection(SocketChannel socketChannel, ByteBuffer buffer) {
+            this.socketChannel = socketChannel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package company.bankingsoftware.paymenttracker.service;
+
+import company.bankingsoftware.paymenttracker.queue.PaymentEventControlLane;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Checkpoint scheduler, requests CHECKPOINT of transaction ledgers through control lane.
+ */
+public class CheckpointSchedulerTask implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(CheckpointSchedulerTask.class.getName());
+
+    private final PaymentEventControlLane paymentEventControlLane;
+
+    public CheckpointSchedulerTask(PaymentEventControlLane paymentEventControlLane, Level logLevel) {
+        this.paymentEventControlLane = paymentEventControlLane;
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        LOGGER.log(Level.INFO, "Requesting scheduled CHECKPOINT through control lane.");
+        paymentEventControlLane.requestCheckpoint();
+    }
+}
@@ -1,63 +1,286 @@
 package company.bankingsoftware.paymenttracker.service;
 
+import company.bankingsoftware.paymenttracker.journal.LedgerCheckpoint;
+import company.bankingsoftware.paymenttracker.journal.LedgerCheckpointWriter;
+import company.bankingsoftware.paymenttracker.journal.PaymentJournal;
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
 import company.bankingsoftware.paymenttracker.model.Payment;
 import company.bankingsoftware.paymenttracker.model.PaymentEvent;
 import company.bankingsoftware.paymenttracker.model.TransactionLedger;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+import company.bankingsoftware.paymenttracker.model.VersionedTransactionLedger;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventControlLane;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventQueue;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Applies input payment events to the transaction ledger and on OUTPUT event queues immutable snapshot of it,
+ * so the output can read balances while next payments are added.
+ *
+ * With control lane, OUTPUT and SHUTDOWN requests are checked before every payment event, so they do not wait
+ * behind payment backlog. OUTPUT requests made since the last check are coalesced into one snapshot, its epoch
+ * is the number of the last request and it contains exactly the payment events applied before the check.
+ * SHUTDOWN request applies payment events already waiting in input queue and stops.
+ *
+ * With payment journal, every payment is appended into the journal before it is added into the ledger
+ * (balances of MERGE event are appended as payments). The journal is committed once per drained batch of payment
+ * events and before every snapshot, so the output never shows balances which would not survive a crash
+ * (with BATCH fsync policy).
+ * When the journal fails to append or commit, the service stops with the failure: the payment is not applied,
+ * no further payment events are applied and no further snapshot is queued, so balances which are not journaled
+ * never get to the output.
+ * COMMIT event forces the journal (unless fsync policy is NONE) and runs its callback, so the producer learns
+ * that its payment events put before it survive a crash.
+ * JOURNAL_FSYNC request (checked after every drained batch) commits the journal, so with INTERVAL fsync policy
+ * the journal tail is forced also when no more payment events come.
+ * CHECKPOINT request (checked after every drained batch) forces the journal and hands over checkpoint of a ledger
+ * snapshot tagged with the journal position to the checkpoint writer, so the ledger service is not paused by writing
+ * it and the checkpoint never covers journal records which could be lost in a crash.
+ */
 public class InputOutputTransactionLedgerService implements TransactionLedgerService {
 
     private static final Logger LOGGER = Logger.getLogger(InputOutputTransactionLedgerService.class.getName());
 
-    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue;
-    private final BlockingQueue<TransactionLedger> outputTransactionLedgerQueue;
-    private final TransactionLedger transactionLedger;
+    private static final int MAX_DRAINED_PAYMENT_EVENTS = 256;
+
+    private final PaymentEventQueue inputPaymentEventsQueue;
+    private final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue;
+    private final VersionedTransactionLedger transactionLedger;
+    private final PaymentEventControlLane paymentEventControlLane;
+    private final PaymentJournal paymentJournal;
+    private final LedgerCheckpointWriter ledgerCheckpointWriter;
+    private final List<PaymentEvent> drainedPaymentEvents = new ArrayList<>(MAX_DRAINED_PAYMENT_EVENTS);
+    private long appliedPaymentEventCount;
+    // read by metrics from other threads
+    private final LongAdder appliedPaymentCount = new LongAdder();
+    private long lastOutputRequest;
+    private long lastCheckpointRequest;
+    private long lastJournalFsyncRequest;
+    private long lastCheckpointJournalPosition = -1;
     private boolean running = true;
 
     public InputOutputTransactionLedgerService(
-            BlockingQueue<PaymentEvent> inputPaymentEventsQueue,
-            BlockingQueue<TransactionLedger> outputTransactionLedgerQueue,
+            PaymentEventQueue inputPaymentEventsQueue,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            Level logLevel) {
+        this(inputPaymentEventsQueue, outputTransactionLedgerQueue, new HashMapTransactionLedger(), logLevel);
+    }
+
+    public InputOutputTransactionLedgerService(
+            PaymentEventQueue inputPaymentEventsQueue,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            TransactionLedger transactionLedger,
+            Level logLevel) {
+        this(inputPaymentEventsQueue, outputTransactionLedgerQueue, transactionLedger, null, logLevel);
+    }
+
+    /**
+     * @param paymentEventControlLane lane of OUTPUT and SHUTDOWN requests, only OUTPUT and SHUTDOWN events are used when it is null
+     */
+    public InputOutputTransactionLedgerService(
+            PaymentEventQueue inputPaymentEventsQueue,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            TransactionLedger transactionLedger,
+            PaymentEventControlLane paymentEventControlLane,
             Level logLevel) {
-        this.inputPaymentEventsQueue = inputPaymentEventsQueue;
-        this.outputTransactionLedgerQueue = outputTransactionLedgerQueue;
-        transactionLedger = new TransactionLedger();
-        LOGGER.setLevel(logLevel);
+        this(inputPaymentEventsQueue, outputTransactionLedgerQueue, transactionLedger, paymentEventControlLane, null, logLevel);
+    }
+
+    /**
+     * @param transactionLedger ledger with balances already replayed from the payment journal
+     * @param paymentJournal journal of applied payments, payments are not journaled when it is null, it is closed when the service stops
+     */
+    public InputOutputTransactionLedgerService(
+            PaymentEventQueue inputPaymentEventsQueue,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            TransactionLedger transactionLedger,
+            PaymentEventControlLane paymentEventControlLane,
+            PaymentJournal paymentJournal,
+            Level logLevel) {
+        this(builder()
+                .withInputPaymentEventsQueue(inputPaymentEventsQueue)
+                .withOutputTransactionLedgerQueue(outputTransactionLedgerQueue)
+                .withTransactionLedger(transactionLedger)
+                .withPaymentEventControlLane(paymentEventControlLane)
+                .withPaymentJournal(paymentJournal)
+                .withLogLevel(logLevel));
+    }
+
+    private InputOutputTransactionLedgerService(Builder b) {
+        this.inputPaymentEventsQueue = b.inputPaymentEventsQueue;
+        this.outputTransactionLedgerQueue = b.outputTransactionLedgerQueue;
+        this.transactionLedger = new VersionedTransactionLedger(b.transactionLedger);
+        this.paymentEventControlLane = b.paymentEventControlLane;
+        this.paymentJournal = b.paymentJournal;
+        this.ledgerCheckpointWriter = b.ledgerCheckpointWriter;
+        LOGGER.setLevel(b.logLevel);
     }
 
+    /**
+     * Payment too big for the payment journal is skipped with SEVERE log, like a payment line which failed parsing.
+     * @throws UncheckedIOException when writing the payment journal failed, the service is stopped
+     */
     @Override
     public void run() {
-        while (running) {
-                PaymentEvent paymentEvent = takeInputPaymentEvent();
+        try {
+            while (running) {
+                handlePaymentEvents(takeInputPaymentEvents());
+                handleControlRequests();
+            }
+        } catch (UncheckedIOException e) {
+            running = false;
+            LOGGER.log(Level.SEVERE, "Payment journal failed, stopped applying payment events.");
+            throw e;
+        } finally {
+            closePaymentJournal();
+        }
+    }
 
-                if (paymentEvent == null) {
-                    continue;
-                }
-                switch (paymentEvent.getPaymentEventType()) {
-                    case ADD:
-                        addPaymentIntoTransactionLedger(paymentEvent.getPayment());
-                        break;
-                    case OUTPUT:
-                        queueTransactionLedger();
-                        break;
-                    case SHUTDOWN:
-                        running = false;
-                        break;
+    private void handlePaymentEvents(List<PaymentEvent> paymentEvents) {
+        for (PaymentEvent paymentEvent : paymentEvents) {
+            handleOutputRequests();
+            handlePaymentEvent(paymentEvent);
+            if (!running) {
+                break;
+            }
+        }
+        paymentEvents.clear();
+        commitPaymentJournal();
+    }
+
+    void handleControlRequests() {
+        handleOutputRequests();
+        handleCheckpointRequests();
+        handleJournalFsyncRequests();
+        if (paymentEventControlLane != null && paymentEventControlLane.isShutdownRequested()) {
+            LOGGER.log(Level.INFO, "Shutdown requested, applying waiting payment events.");
+            while (running && inputPaymentEventsQueue.drainTo(drainedPaymentEvents, MAX_DRAINED_PAYMENT_EVENTS) > 0) {
+                handlePaymentEvents(drainedPaymentEvents);
+            }
+            handleOutputRequests();
+            running = false;
+        }
+    }
+
+    private void handleOutputRequests() {
+        if (paymentEventControlLane == null) {
+            return;
+        }
+
+        final long outputRequest = paymentEventControlLane.getOutputRequestSequence();
+        if (outputRequest > lastOutputRequest) {
+            lastOutputRequest = outputRequest;
+            queueTransactionLedger(outputRequest);
+        }
+    }
+
+    private void handleCheckpointRequests() {
+        if (paymentEventControlLane == null || paymentJournal == null || ledgerCheckpointWriter == null) {
+            return;
+        }
+
+        final long checkpointRequest = paymentEventControlLane.getCheckpointRequestSequence();
+        if (checkpointRequest > lastCheckpointRequest) {
+            lastCheckpointRequest = checkpointRequest;
+            // checkpoint must not get ahead of the journal records on the disk
+            syncPaymentJournal();
+            final long journalPosition = paymentJournal.position();
+            // nothing was journaled since the last handed over checkpoint, a dropped one is offered again
+            if (journalPosition != lastCheckpointJournalPosition) {
+                LOGGER.log(Level.INFO, "Checkpoint of transaction ledger at journal position {0}.", journalPosition);
+                if (ledgerCheckpointWriter.offer(new LedgerCheckpoint(
+                        paymentJournal.getPath(),
+                        journalPosition,
+                        transactionLedger.snapshotWithSameEpoch(appliedPaymentEventCount).getPaymentBalances()))) {
+                    lastCheckpointJournalPosition = journalPosition;
                 }
+            }
+        }
+    }
+
+    private void handleJournalFsyncRequests() {
+        if (paymentEventControlLane == null || paymentJournal == null) {
+            return;
+        }
+
+        final long journalFsyncRequest = paymentEventControlLane.getJournalFsyncRequestSequence();
+        if (journalFsyncRequest > lastJournalFsyncRequest) {
+            lastJournalFsyncRequest = journalFsyncRequest;
+            commitPaymentJournal();
+        }
+    }
+
+    private void handlePaymentEvent(PaymentEvent paymentEvent) {
+        switch (paymentEvent.getPaymentEventType()) {
+            case ADD:
+                addPaymentIntoTransactionLedger(paymentEvent.getPayment());
+                break;
+            case ADD_BATCH:
+                addPaymentsIntoTransactionLedger(paymentEvent.getPayments());
+                break;
+            case MERGE:
+                mergeIntoTransactionLedger(paymentEvent.getTransactionLedger());
+                break;
+            case OUTPUT:
+                queueTransactionLedger();
+                break;
+            case SHUTDOWN:
+                running = false;
+                break;
+            case CONTROL:
+                // requests are checked before every payment event
+                break;
+            case COMMIT:
+                syncPaymentJournal();
+                paymentEvent.getCommitCallback().run();
+                break;
         }
     }
 
     void queueTransactionLedger() {
+        commitPaymentJournal();
+        queue(transactionLedger.snapshot(appliedPaymentEventCount));
+    }
+
+    void queueTransactionLedger(long epoch) {
+        commitPaymentJournal();
+        queue(transactionLedger.snapshot(epoch, appliedPaymentEventCount));
+    }
+
+    private void queue(TransactionLedgerSnapshot transactionLedgerSnapshot) {
         try {
-            LOGGER.log(Level.INFO, "Output transaction ledger.");
-            outputTransactionLedgerQueue.put(transactionLedger);
+            LOGGER.log(Level.INFO, "Output transaction ledger snapshot {0}.", transactionLedgerSnapshot.getEpoch());
+            outputTransactionLedgerQueue.put(transactionLedgerSnapshot);
         } catch (InterruptedException e) {
             LOGGER.log(Level.SEVERE, "Failed to put into output queue.");
         }
     }
 
+    /**
+     * Waits for the first payment event and drains all the others already waiting in input queue,
+     * so the queue lock is taken once for many events.
+     * @return payment events in queue order, the list is reused by the next call
+     */
+    List<PaymentEvent> takeInputPaymentEvents() {
+        PaymentEvent paymentEvent = takeInputPaymentEvent();
+        if (paymentEvent != null) {
+            drainedPaymentEvents.add(paymentEvent);
+            inputPaymentEventsQueue.drainTo(drainedPaymentEvents, MAX_DRAINED_PAYMENT_EVENTS - 1);
+        }
+
+        return drainedPaymentEvents;
+    }
+
     PaymentEvent takeInputPaymentEvent() {
         try {
             LOGGER.log(Level.INFO, "Waiting for input in payment event queue");
@@ -72,6 +295,201 @@ public class InputOutputTransactionLedgerService implements TransactionLedgerSer
 
     private void addPaymentIntoTransactionLedger(Payment payment) {
         LOGGER.log(Level.INFO, "Adding payment into transaction ledger.");
+        if (!isJournalable(payment)) {
+            return;
+        }
+        appendIntoPaymentJournal(payment);
         transactionLedger.addPayment(payment);
+        appliedPaymentEventCount++;
+        appliedPaymentCount.increment();
+    }
+
+    private void addPaymentsIntoTransactionLedger(List<Payment> payments) {
+        LOGGER.log(Level.INFO, "Adding batch of {0} payments into transaction ledger.", payments.size());
+        final List<Payment> journalablePayments = journalablePayments(payments);
+        if (paymentJournal != null) {
+            journalablePayments.forEach(this::appendIntoPaymentJournal);
+        }
+        transactionLedger.addPayments(journalablePayments);
+        appliedPaymentEventCount++;
+        appliedPaymentCount.add(journalablePayments.size());
+    }
+
+    private void mergeIntoTransactionLedger(TransactionLedger partialTransactionLedger) {
+        LOGGER.log(Level.INFO, "Merging partial transaction ledger into transaction ledger.");
+        if (paymentJournal != null) {
+            final List<Payment> balancePayments = new ArrayList<>();
+            for (Map.Entry<String, Money> paymentBalance : partialTransactionLedger.getPaymentBalances().entrySet()) {
+                balancePayments.add(Payment.builder()
+                        .withCurrency(paymentBalance.getKey())
+                        .withAmount(paymentBalance.getValue())
+                        .build());
+            }
+            final List<Payment> journalableBalancePayments = journalablePayments(balancePayments);
+            if (journalableBalancePayments != balancePayments) {
+                // skipped balances must not be merged either, the others are added as payments
+                journalableBalancePayments.forEach(this::appendIntoPaymentJournal);
+                transactionLedger.addPayments(journalableBalancePayments);
+                appliedPaymentEventCount++;
+                return;
+            }
+            balancePayments.forEach(this::appendIntoPaymentJournal);
+        }
+        transactionLedger.merge(partialTransactionLedger);
+        appliedPaymentEventCount++;
+    }
+
+    /**
+     * Payment too big for the payment journal is skipped like a payment line which failed parsing,
+     * it would stop the service when appended.
+     * @return false when the payment is too big for the payment journal
+     */
+    private boolean isJournalable(Payment payment) {
+        if (paymentJournal == null || paymentJournal.isAppendable(payment)) {
+            return true;
+        }
+
+        LOGGER.log(Level.SEVERE, "Payment in {0} too big for payment journal skipped.", payment.getCurrency());
+        return false;
+    }
+
+    /**
+     * @return the same list when all the payments are journalable, otherwise new list without the skipped ones
+     */
+    private List<Payment> journalablePayments(List<Payment> payments) {
+        if (paymentJournal == null || payments.stream().allMatch(paymentJournal::isAppendable)) {
+            return payments;
+        }
+
+        final List<Payment> journalablePayments = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            if (isJournalable(payment)) {
+                journalablePayments.add(payment);
+            }
+        }
+        return journalablePayments;
+    }
+
+    /**
+     * @return number of payments added into the transaction ledger one by one or in batches,
+     * payments of merged partial transaction ledgers are not counted
+     */
+    public long getAppliedPaymentCount() {
+        return appliedPaymentCount.sum();
+    }
+
+    private void appendIntoPaymentJournal(Payment payment) {
+        if (paymentJournal == null) {
+            return;
+        }
+
+        try {
+            paymentJournal.append(payment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append payment into journal.", e);
+        }
+    }
+
+    private void commitPaymentJournal() {
+        if (paymentJournal == null) {
+            return;
+        }
+
+        try {
+            paymentJournal.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to commit payment journal.", e);
+        }
+    }
+
+    private void syncPaymentJournal() {
+        if (paymentJournal == null) {
+            return;
+        }
+
+        try {
+            paymentJournal.sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync payment journal.", e);
+        }
+    }
+
+    private void closePaymentJournal() {
+        if (paymentJournal == null) {
+            return;
+        }
+
+        try {
+            paymentJournal.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to close payment journal.");
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private PaymentEventQueue inputPaymentEventsQueue;
+        private BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue;
+        private TransactionLedger transactionLedger = new HashMapTransactionLedger();
+        private PaymentEventControlLane paymentEventControlLane;
+        private PaymentJournal paymentJournal;
+        private LedgerCheckpointWriter ledgerCheckpointWriter;
+        private Level logLevel = Level.OFF;
+
+        private Builder() {}
+
+        public Builder withInputPaymentEventsQueue(PaymentEventQueue inputPaymentEventsQueue) {
+            this.inputPaymentEventsQueue = inputPaymentEventsQueue;
+            return this;
+        }
+
+        public Builder withOutputTransactionLedgerQueue(BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue) {
+            this.outputTransactionLedgerQueue = outputTransactionLedgerQueue;
+            return this;
+        }
+
+        /**
+         * @param transactionLedger ledger with balances already restored from the checkpoint and payment journal
+         */
+        public Builder withTransactionLedger(TransactionLedger transactionLedger) {
+            this.transactionLedger = transactionLedger;
+            return this;
+        }
+
+        /**
+         * @param paymentEventControlLane lane of OUTPUT, CHECKPOINT, JOURNAL_FSYNC and SHUTDOWN requests, only OUTPUT and SHUTDOWN events are used when it is null
+         */
+        public Builder withPaymentEventControlLane(PaymentEventControlLane paymentEventControlLane) {
+            this.paymentEventControlLane = paymentEventControlLane;
+            return this;
+        }
+
+        /**
+         * @param paymentJournal journal of applied payments, payments are not journaled when it is null, it is closed when the service stops
+         */
+        public Builder withPaymentJournal(PaymentJournal paymentJournal) {
+            this.paymentJournal = paymentJournal;
+            return this;
+        }
+
+        /**
+         * @param ledgerCheckpointWriter writer of checkpoints of the journaled ledger, checkpoints are not made when it is null
+         */
+        public Builder withLedgerCheckpointWriter(LedgerCheckpointWriter ledgerCheckpointWriter) {
+            this.ledgerCheckpointWriter = ledgerCheckpointWriter;
+            return this;
+        }
+
+        public Builder withLogLevel(Level logLevel) {
+            this.logLevel = logLevel;
+            return this;
+        }
+
+        public InputOutputTransactionLedgerService build() {
+            return new InputOutputTransactionLedgerService(this);
+        }
     }
 }
@@ -0,0 +1,28 @@
+package company.bankingsoftware.paymenttracker.service;
+
+import company.bankingsoftware.paymenttracker.queue.PaymentEventControlLane;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Journal fsync scheduler, requests JOURNAL_FSYNC of payment journals through control lane,
+ * so journals with INTERVAL fsync policy are forced also while no payments come.
+ */
+public class JournalFsyncSchedulerTask implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(JournalFsyncSchedulerTask.class.getName());
+
+    private final PaymentEventControlLane paymentEventControlLane;
+
+    public JournalFsyncSchedulerTask(PaymentEventControlLane paymentEventControlLane, Level logLevel) {
+        this.paymentEventControlLane = paymentEventControlLane;
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        LOGGER.log(Level.INFO, "Requesting scheduled JOURNAL_FSYNC through control lane.");
+        paymentEventControlLane.requestJournalFsync();
+    }
+}
@@ -1,27 +1,42 @@
 package company.bankingsoftware.paymenttracker.service;
 
 import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventControlLane;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
 
-import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Queue scheduler, puts OUTPUT event type into input queue.
+ * Queue scheduler, puts OUTPUT event type into input queue or requests OUTPUT through control lane.
  */
 public class QueueSchedulerTask implements Runnable {
 
     private static final Logger LOGGER = Logger.getLogger(QueueSchedulerTask.class.getName());
 
-    private final BlockingQueue<PaymentEvent> paymentEventsQueue;
+    private final PaymentEventPublisher paymentEventsQueue;
+    private final PaymentEventControlLane paymentEventControlLane;
 
-    public QueueSchedulerTask(BlockingQueue<PaymentEvent> paymentEventsQueue, Level logLevel) {
+    public QueueSchedulerTask(PaymentEventPublisher paymentEventsQueue, Level logLevel) {
         this.paymentEventsQueue = paymentEventsQueue;
+        this.paymentEventControlLane = null;
+        LOGGER.setLevel(logLevel);
+    }
+
+    public QueueSchedulerTask(PaymentEventControlLane paymentEventControlLane, Level logLevel) {
+        this.paymentEventsQueue = null;
+        this.paymentEventControlLane = paymentEventControlLane;
         LOGGER.setLevel(logLevel);
     }
 
     @Override
     public void run() {
+        if (paymentEventControlLane != null) {
+            LOGGER.log(Level.INFO, "Requesting scheduled OUTPUT through control lane.");
+            paymentEventControlLane.requestOutput();
+            return;
+        }
+
         try {
             LOGGER.log(Level.INFO, "Putting scheduled OUTPUT into input payment event queue.");
             paymentEventsQueue.put(
@@ -0,0 +1,71 @@
+package company.bankingsoftware.paymenttracker.service;
+
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Merges partial snapshots of sharded transaction ledger services. Every shard gets every OUTPUT event,
+ * so its n-th snapshot has epoch n. Once all shards queued snapshot of an epoch, they are combined
+ * into one snapshot which is queued for the transaction ledger output.
+ * Shards coalescing OUTPUT requests skip some epochs, so older incomplete epochs are dropped
+ * once a newer epoch is complete.
+ */
+public class ShardSnapshotMerger implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(ShardSnapshotMerger.class.getName());
+
+    private final BlockingQueue<TransactionLedgerSnapshot> shardSnapshotQueue;
+    private final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue;
+    private final int shardCount;
+    private final Map<Long, List<TransactionLedgerSnapshot>> pendingShardSnapshots = new HashMap<>();
+    private boolean running = true;
+
+    public ShardSnapshotMerger(
+            BlockingQueue<TransactionLedgerSnapshot> shardSnapshotQueue,
+            BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue,
+            int shardCount,
+            Level logLevel) {
+        this.shardSnapshotQueue = shardSnapshotQueue;
+        this.outputTransactionLedgerQueue = outputTransactionLedgerQueue;
+        this.shardCount = shardCount;
+        LOGGER.setLevel(logLevel);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                TransactionLedgerSnapshot combinedSnapshot = addShardSnapshot(shardSnapshotQueue.take());
+                if (combinedSnapshot != null) {
+                    LOGGER.log(Level.INFO, "Output combined transaction ledger snapshot {0}.", combinedSnapshot.getEpoch());
+                    outputTransactionLedgerQueue.put(combinedSnapshot);
+                }
+            } catch (InterruptedException ie) {
+                running = false;
+                LOGGER.log(Level.INFO, "Interruption - not able to merge shard snapshots.");
+            }
+        }
+    }
+
+    /**
+     * @return combined snapshot when the given one was the last missing shard snapshot of its epoch, null otherwise
+     */
+    TransactionLedgerSnapshot addShardSnapshot(TransactionLedgerSnapshot shardSnapshot) {
+        List<TransactionLedgerSnapshot> shardSnapshots =
+                pendingShardSnapshots.computeIfAbsent(shardSnapshot.getEpoch(), epoch -> new ArrayList<>(shardCount));
+        shardSnapshots.add(shardSnapshot);
+        if (shardSnapshots.size() < shardCount) {
+            return null;
+        }
+
+        pendingShardSnapshots.keySet().removeIf(epoch -> epoch <= shardSnapshot.getEpoch());
+        return TransactionLedgerSnapshot.combine(shardSnapshot.getEpoch(), shardSnapshots);
+    }
+}
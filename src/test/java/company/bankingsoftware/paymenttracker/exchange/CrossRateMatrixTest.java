@@ -0,0 +1,52 @@
+package company.bankingsoftware.paymenttracker.exchange;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class CrossRateMatrixTest {
+
+    private static final ExchangeRateTable EXCHANGE_RATE_TABLE = ExchangeRateTable.of(Map.of(
+            "CZK", new BigDecimal("0.04"),
+            "EUR", new BigDecimal("1.11"),
+            "GBP", new BigDecimal("1.21")));
+
+    private final CrossRateMatrix crossRateMatrix = CrossRateMatrix.of(EXCHANGE_RATE_TABLE, List.of("USD", "EUR", "JPY"));
+
+    @Test
+    public void getRate_withUsdBase_shouldBeExactRateToUsd() {
+        assertThat(crossRateMatrix.getRate(row("CZK"), 0), is(new BigDecimal("0.04")));
+        assertThat(crossRateMatrix.getRate(row("GBP"), 0), is(new BigDecimal("1.21")));
+        assertThat(crossRateMatrix.getRate(row("USD"), 0), is(nullValue()));
+    }
+
+    @Test
+    public void getRate_withOtherBase_shouldDivideRatesToUsd() {
+        assertThat(crossRateMatrix.getRate(row("GBP"), 1), is(new BigDecimal("1.21").divide(new BigDecimal("1.11"), MathContext.DECIMAL64)));
+        assertThat(crossRateMatrix.getRate(row("USD"), 1), is(BigDecimal.ONE.divide(new BigDecimal("1.11"), MathContext.DECIMAL64)));
+        assertThat(crossRateMatrix.getRate(row("EUR"), 1), is(nullValue()));
+        assertThat(crossRateMatrix.convert(row("CZK"), 1, Money.parse("1000")), is(Money.parse("36.04")));
+    }
+
+    @Test
+    public void getRate_withBaseWithoutRate_shouldHaveNoRates() {
+        for (String currency : new String[] {"USD", "CZK", "EUR", "GBP"}) {
+            assertThat(currency, crossRateMatrix.getRate(row(currency), 2), is(nullValue()));
+        }
+        assertThat(crossRateMatrix.rowOf(CurrencyCode.pack("JPY")), is(CrossRateMatrix.NO_ROW));
+        assertThat(crossRateMatrix.rowOf(CurrencyCode.INVALID), is(CrossRateMatrix.NO_ROW));
+    }
+
+    private int row(String currency) {
+        return crossRateMatrix.rowOf(CurrencyCode.pack(currency));
+    }
+}
@@ -0,0 +1,91 @@
+package company.bankingsoftware.paymenttracker.exchange;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class FileExchangeRateProviderTest {
+
+    private static final int CZK = CurrencyCode.pack("CZK");
+    private static final int EUR = CurrencyCode.pack("EUR");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void getExchangeRateTable_withRateFile_shouldConvertByLoadedRates() throws IOException {
+        final Path path = writeRates("# rates to USD\nCZK 0.04\n\nEUR\t1.11\nUSD 2\n", 1000);
+
+        final ExchangeRateTable exchangeRateTable = new FileExchangeRateProvider(path, Level.OFF).getExchangeRateTable();
+
+        assertThat(exchangeRateTable.size(), is(2));
+        assertThat(exchangeRateTable.getRate(EUR), is(new BigDecimal("1.11")));
+        assertThat(exchangeRateTable.toUsd(CZK, Money.parse("1000")), is(Money.parse("40.00")));
+        assertThat(exchangeRateTable.hasRate(CurrencyCode.pack("USD")), is(false));
+    }
+
+    @Test
+    public void refresh_withChangedFile_shouldPublishNewTable() throws IOException {
+        final Path path = writeRates("CZK 0.04\n", 1000);
+        final FileExchangeRateProvider provider = new FileExchangeRateProvider(path, Level.OFF);
+        final ExchangeRateTable previousTable = provider.getExchangeRateTable();
+
+        assertThat(provider.refresh(), is(false));
+        writeRates("CZK 0.05\nEUR 1.2\n", 2000);
+
+        assertThat(provider.refresh(), is(true));
+        assertThat(provider.getExchangeRateTable(), is(not(sameInstance(previousTable))));
+        assertThat(provider.getExchangeRateTable().getRate(CZK), is(new BigDecimal("0.05")));
+        assertThat(provider.getExchangeRateTable().getRate(EUR), is(new BigDecimal("1.2")));
+        assertThat(previousTable.getRate(CZK), is(new BigDecimal("0.04")));
+    }
+
+    @Test
+    public void refresh_withInvalidFile_shouldKeepPreviousTable() throws IOException {
+        final Path path = writeRates("CZK 0.04\n", 1000);
+        final FileExchangeRateProvider provider = new FileExchangeRateProvider(path, Level.OFF);
+        final ExchangeRateTable previousTable = provider.getExchangeRateTable();
+
+        for (String invalidRates : new String[] {"CZK 0.05\nEUR -1\n", "czk 0.05\n", "CZK\n", "CZK 0,05\n", "CZK 0.05 USD\n"}) {
+            writeRates(invalidRates, 2000 + invalidRates.length());
+
+            assertThat(invalidRates, provider.refresh(), is(false));
+            assertThat(invalidRates, provider.getExchangeRateTable(), is(sameInstance(previousTable)));
+        }
+    }
+
+    @Test
+    public void getExchangeRateTable_withMissingFile_shouldBeEmptyUntilFileExists() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("exchange-rates");
+        final FileExchangeRateProvider provider = new FileExchangeRateProvider(path, Level.OFF);
+
+        assertThat(provider.getExchangeRateTable().size(), is(0));
+        writeRates("CZK 0.04\n", 1000);
+
+        assertThat(provider.refresh(), is(true));
+        assertThat(provider.getExchangeRateTable().hasRate(CZK), is(true));
+    }
+
+    /**
+     * Writes the file with explicit modification time, so the change does not depend on file system time resolution.
+     */
+    private Path writeRates(String rates, long lastModifiedMillis) throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("exchange-rates");
+        Files.writeString(path, rates);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(lastModifiedMillis));
+        return path;
+    }
+}
@@ -0,0 +1,162 @@
+package company.bankingsoftware.paymenttracker.journal;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class LedgerCheckpointTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void read_withWrittenCheckpoint_shouldReadSameBalances() throws IOException {
+        final Path journalPath = temporaryFolder.getRoot().toPath().resolve("payments-0-of-1.journal");
+        writeJournal(journalPath, 1234, (byte) 1);
+        final Map<String, Money> paymentBalances = new LinkedHashMap<>();
+        paymentBalances.put("CZK", Money.parse("-12345678901234567890.12"));
+        paymentBalances.put("USD", Money.parse("100.5"));
+        paymentBalances.put("EUR", Money.ZERO);
+        final LedgerCheckpoint ledgerCheckpoint = new LedgerCheckpoint(journalPath, 1234, paymentBalances);
+        ledgerCheckpoint.write();
+
+        final LedgerCheckpoint readLedgerCheckpoint = LedgerCheckpoint.read(journalPath, ledgerCheckpoint.getPath());
+
+        assertThat(readLedgerCheckpoint.getJournalPosition(), is(1234L));
+        assertThat(readLedgerCheckpoint.getPaymentBalances(), is(paymentBalances));
+    }
+
+    @Test
+    public void readNewest_withMoreCheckpoints_shouldReadTheNewestAndKeepOnlyTwo() throws IOException {
+        final Path journalPath = temporaryFolder.getRoot().toPath().resolve("payments-0-of-1.journal");
+        writeJournal(journalPath, 1000, (byte) 1);
+        for (long journalPosition : new long[] {8, 100, 1000}) {
+            new LedgerCheckpoint(journalPath, journalPosition, balances(Money.valueOf(journalPosition))).write();
+        }
+
+        final LedgerCheckpoint ledgerCheckpoint = LedgerCheckpoint.readNewest(journalPath, 1000);
+
+        assertThat(ledgerCheckpoint.getJournalPosition(), is(1000L));
+        assertThat(ledgerCheckpoint.getPaymentBalances().get("USD"), is(Money.parse("1000")));
+        assertThat(Files.exists(new LedgerCheckpoint(journalPath, 8, balances(Money.ONE)).getPath()), is(false));
+    }
+
+    @Test
+    public void readNewest_withCorruptedNewestCheckpoint_shouldReadThePreviousOne() throws IOException {
+        final Path journalPath = temporaryFolder.getRoot().toPath().resolve("payments-0-of-1.journal");
+        writeJournal(journalPath, 200, (byte) 1);
+        new LedgerCheckpoint(journalPath, 100, balances(Money.ONE)).write();
+        final LedgerCheckpoint newestLedgerCheckpoint = new LedgerCheckpoint(journalPath, 200, balances(Money.TEN));
+        newestLedgerCheckpoint.write();
+        final byte[] bytes = Files.readAllBytes(newestLedgerCheckpoint.getPath());
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(newestLedgerCheckpoint.getPath(), bytes);
+
+        assertThat(LedgerCheckpoint.readNewest(journalPath, 200).getJournalPosition(), is(100L));
+    }
+
+    @Test
+    public void readNewest_withCheckpointAfterJournalEnd_shouldReadThePreviousOneAndDeleteIt() throws IOException {
+        final Path journalPath = temporaryFolder.getRoot().toPath().resolve("payments-0-of-1.journal");
+        writeJournal(journalPath, 200, (byte) 1);
+        new LedgerCheckpoint(journalPath, 100, balances(Money.ONE)).write();
+        final LedgerCheckpoint lostLedgerCheckpoint = new LedgerCheckpoint(journalPath, 200, balances(Money.TEN));
+        lostLedgerCheckpoint.write();
+        writeJournal(journalPath, 150, (byte) 1);
+
+        assertThat(LedgerCheckpoint.readNewest(journalPath, 150).getJournalPosition(), is(100L));
+        assertThat(Files.exists(lostLedgerCheckpoint.getPath()), is(false));
+    }
+
+    @Test
+    public void readNewest_withAnotherJournalTail_shouldReturnNullAndDeleteIt() throws IOException {
+        final Path journalPath = temporaryFolder.getRoot().toPath().resolve("payments-0-of-1.journal");
+        writeJournal(journalPath, 300, (byte) 1);
+        final LedgerCheckpoint ledgerCheckpoint = new LedgerCheckpoint(journalPath, 200, balances(Money.ONE));
+        ledgerCheckpoint.write();
+        writeJournal(journalPath, 300, (byte) 2);
+
+        assertThat(LedgerCheckpoint.readNewest(journalPath, 300), is(nullValue()));
+        assertThat(Files.exists(ledgerCheckpoint.getPath()), is(false));
+    }
+
+    @Test
+    public void readNewest_withJournalAppendedAfterCrashLostItsEnd_shouldNotReadCheckpointOfTheLostEnd() throws IOException {
+        final Path journalPath = temporaryFolder.getRoot().toPath().resolve("payments-0-of-1.journal");
+        final long lostPosition;
+        try (PaymentJournal paymentJournal = new PaymentJournal(journalPath, PaymentJournal.FsyncPolicy.NONE, 0, Level.OFF)) {
+            paymentJournal.append(payment(Money.ONE));
+            paymentJournal.commit();
+            new LedgerCheckpoint(journalPath, paymentJournal.position(), balances(Money.ONE)).write();
+            lostPosition = paymentJournal.position();
+            paymentJournal.append(payment(Money.TEN));
+            paymentJournal.commit();
+            new LedgerCheckpoint(journalPath, paymentJournal.position(), balances(Money.valueOf(11))).write();
+        }
+        // crash, the last record did not get to the disk
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(lostPosition);
+        }
+
+        // restart appending other payments over the position of the lost checkpoint
+        assertThat(restore(journalPath, Money.valueOf(2), Money.valueOf(3), Money.valueOf(4)), is(Money.ONE));
+        // restart
+        assertThat(restore(journalPath), is(Money.valueOf(10)));
+    }
+
+    @Test
+    public void readNewest_withoutCheckpoint_shouldReturnNull() throws IOException {
+        final Path journalPath = temporaryFolder.getRoot().toPath().resolve("payments-0-of-1.journal");
+
+        assertThat(LedgerCheckpoint.readNewest(journalPath, 0), is(nullValue()));
+    }
+
+    /**
+     * Restores USD balance from the newest checkpoint and the journal, then appends the payments.
+     * @return restored USD balance
+     */
+    private static Money restore(Path journalPath, Money... amounts) throws IOException {
+        try (PaymentJournal paymentJournal = new PaymentJournal(journalPath, PaymentJournal.FsyncPolicy.NONE, 0, Level.OFF)) {
+            final LedgerCheckpoint ledgerCheckpoint = LedgerCheckpoint.readNewest(journalPath, paymentJournal.position());
+            final Money[] balance = {ledgerCheckpoint == null ? Money.ZERO : ledgerCheckpoint.getPaymentBalances().get("USD")};
+            paymentJournal.replay(ledgerCheckpoint == null ? 0 : ledgerCheckpoint.getJournalPosition(),
+                    payment -> balance[0] = balance[0].add(payment.getAmount()));
+            for (Money amount : amounts) {
+                paymentJournal.append(payment(amount));
+            }
+            return balance[0];
+        }
+    }
+
+    private static void writeJournal(Path journalPath, int size, byte content) throws IOException {
+        final byte[] bytes = new byte[size];
+        Arrays.fill(bytes, content);
+        Files.write(journalPath, bytes);
+    }
+
+    private static Payment payment(Money amount) {
+        return Payment.builder().withCurrency("USD").withAmount(amount).build();
+    }
+
+    private static Map<String, Money> balances(Money amount) {
+        final Map<String, Money> paymentBalances = new LinkedHashMap<>();
+        paymentBalances.put("USD", amount);
+        return paymentBalances;
+    }
+}
@@ -0,0 +1,134 @@
+package company.bankingsoftware.paymenttracker.journal;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class PaymentJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void replay_withNewJournal_shouldReplayNothing() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+
+        assertThat(replay(path).isEmpty(), is(true));
+        assertThat(Files.size(path), is((long) PaymentJournal.HEADER_SIZE));
+    }
+
+    @Test
+    public void replay_withCommittedPayments_shouldReplayThemInOrder() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF)) {
+            paymentJournal.append(payment("USD", Money.parse("100.50")));
+            paymentJournal.append(payment("CZK", Money.parse("-12345678901234567890.12")));
+            paymentJournal.commit();
+            paymentJournal.append(payment("EUR", Money.ZERO));
+        }
+
+        final List<Payment> payments = replay(path);
+
+        assertThat(payments.size(), is(3));
+        assertThat(payments.get(0).getCurrency(), is("USD"));
+        assertThat(payments.get(0).getAmount(), is(Money.parse("100.50")));
+        assertThat(payments.get(1).getCurrency(), is("CZK"));
+        assertThat(payments.get(1).getAmount(), is(Money.parse("-12345678901234567890.12")));
+        assertThat(payments.get(2).getCurrency(), is("EUR"));
+        assertThat(payments.get(2).getAmount(), is(Money.ZERO));
+    }
+
+    @Test
+    public void replay_withIncompleteLastRecord_shouldTruncateItAndAppendAfterLastValidRecord() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        final long validSize;
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.NONE, 0, Level.OFF)) {
+            paymentJournal.append(payment("USD", Money.TEN));
+            validSize = paymentJournal.position();
+            paymentJournal.append(payment("GBP", Money.ONE));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 1);
+        }
+
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.NONE, 0, Level.OFF)) {
+            assertThat(paymentJournal.replay(payment -> {}), is(1L));
+            assertThat(Files.size(path), is(validSize));
+            paymentJournal.append(payment("HKD", Money.ONE));
+        }
+
+        final List<Payment> payments = replay(path);
+        assertThat(payments.size(), is(2));
+        assertThat(payments.get(1).getCurrency(), is("HKD"));
+    }
+
+    @Test
+    public void replay_withCorruptedRecord_shouldStopBeforeIt() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.NONE, 0, Level.OFF)) {
+            paymentJournal.append(payment("USD", Money.TEN));
+            paymentJournal.append(payment("GBP", Money.ONE));
+        }
+        final byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        final List<Payment> payments = replay(path);
+
+        assertThat(payments.size(), is(1));
+        assertThat(payments.get(0).getCurrency(), is("USD"));
+    }
+
+    @Test
+    public void replay_fromPosition_shouldReplayOnlyPaymentsAfterIt() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        final long position;
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.NONE, 0, Level.OFF)) {
+            paymentJournal.append(payment("USD", Money.TEN));
+            position = paymentJournal.position();
+            paymentJournal.append(payment("GBP", Money.ONE));
+        }
+
+        final List<Payment> payments = new ArrayList<>();
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.NONE, 0, Level.OFF)) {
+            paymentJournal.replay(position, payments::add);
+        }
+
+        assertThat(payments.size(), is(1));
+        assertThat(payments.get(0).getCurrency(), is("GBP"));
+    }
+
+    @Test(expected = IOException.class)
+    public void paymentJournal_withOtherFile_shouldThrowException() throws IOException {
+        final Path path = temporaryFolder.newFile("sample-input").toPath();
+        Files.write(path, "USD 1000\nHKD 100\n".getBytes());
+
+        new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF);
+    }
+
+    private static List<Payment> replay(Path path) throws IOException {
+        final List<Payment> payments = new ArrayList<>();
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF)) {
+            paymentJournal.replay(payments::add);
+        }
+        return payments;
+    }
+
+    private static Payment payment(String currency, Money amount) {
+        return Payment.builder().withCurrency(currency).withAmount(amount).build();
+    }
+}
@@ -0,0 +1,76 @@
+package company.bankingsoftware.paymenttracker.metrics;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.BlockingPaymentEventQueue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class MeteredPaymentEventQueueTest {
+
+    private final MeteredPaymentEventQueue meteredPaymentEventQueue =
+            new MeteredPaymentEventQueue(new BlockingPaymentEventQueue(new ArrayBlockingQueue<>(2)));
+
+    @Test
+    public void put_withFreeQueue_shouldCountDepthWithoutBlockedPuts() throws InterruptedException {
+        meteredPaymentEventQueue.put(paymentEvent());
+        meteredPaymentEventQueue.put(paymentEvent());
+        assertThat(meteredPaymentEventQueue.offer(paymentEvent()), is(false));
+
+        assertThat(meteredPaymentEventQueue.getDepth(), is(2L));
+        assertThat(meteredPaymentEventQueue.getBlockedPutCount(), is(0L));
+
+        meteredPaymentEventQueue.take();
+        meteredPaymentEventQueue.drainTo(new ArrayList<>(), 10);
+
+        assertThat(meteredPaymentEventQueue.getDepth(), is(0L));
+    }
+
+    @Test
+    public void put_withFullQueue_shouldCountBlockedPutAndTime() throws InterruptedException {
+        meteredPaymentEventQueue.put(paymentEvent());
+        meteredPaymentEventQueue.put(paymentEvent());
+        final Thread consumer = new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+                meteredPaymentEventQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        meteredPaymentEventQueue.put(paymentEvent());
+        consumer.join();
+
+        assertThat(meteredPaymentEventQueue.getDepth(), is(2L));
+        assertThat(meteredPaymentEventQueue.getBlockedPutCount(), is(1L));
+        assertThat(meteredPaymentEventQueue.getBlockedPutNanos() > 0, is(true));
+    }
+
+    @Test
+    public void drainTo_withPaymentEvents_shouldMoveAllPaymentEvents() throws InterruptedException {
+        meteredPaymentEventQueue.put(paymentEvent());
+        meteredPaymentEventQueue.put(paymentEvent());
+        final List<PaymentEvent> paymentEvents = new ArrayList<>();
+
+        assertThat(meteredPaymentEventQueue.drainTo(paymentEvents, 1), is(1));
+        assertThat(meteredPaymentEventQueue.getDepth(), is(1L));
+        assertThat(paymentEvents.size(), is(1));
+    }
+
+    private static PaymentEvent paymentEvent() {
+        return PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
+                .withPayment(Payment.builder().withCurrency("USD").withAmount(Money.parse("100")).build())
+                .build();
+    }
+}
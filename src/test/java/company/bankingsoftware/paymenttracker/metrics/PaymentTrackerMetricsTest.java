@@ -0,0 +1,109 @@
+package company.bankingsoftware.paymenttracker.metrics;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.BlockingPaymentEventQueue;
+import company.bankingsoftware.paymenttracker.reader.SinglePassPaymentParser;
+import company.bankingsoftware.paymenttracker.service.InputOutputTransactionLedgerService;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class PaymentTrackerMetricsTest {
+
+    @Test
+    public void getLinesRead_withMeteredPaymentParsers_shouldCountLinesAndFailuresBySource() throws ParseException {
+        final MeteredPaymentParser filePaymentParser = new MeteredPaymentParser(new SinglePassPaymentParser());
+        final MeteredPaymentParser commandLinePaymentParser = new MeteredPaymentParser(new SinglePassPaymentParser());
+        final PaymentTrackerMetrics paymentTrackerMetrics = PaymentTrackerMetrics.builder()
+                .withPaymentParser("file", filePaymentParser)
+                .withPaymentParser("commandLine", commandLinePaymentParser)
+                .build();
+
+        filePaymentParser.toPayment("USD 100");
+        filePaymentParser.toPayment(new StringBuilder("EUR -2.5"));
+        try {
+            commandLinePaymentParser.toPayment("usd 100");
+            fail("Invalid payment line was parsed.");
+        } catch (ParseException e) {
+            // expected
+        }
+
+        assertThat(paymentTrackerMetrics.getLinesRead(), is(Map.of("file", 2L, "commandLine", 1L)));
+        assertThat(paymentTrackerMetrics.getParseFailures(), is(Map.of("file", 0L, "commandLine", 1L)));
+    }
+
+    @Test
+    public void register_withMetrics_shouldExposeAttributesByJmx() throws Exception {
+        final MeteredPaymentParser paymentParser = new MeteredPaymentParser(new SinglePassPaymentParser());
+        final MeteredArrayBlockingQueue<String> outputQueue = new MeteredArrayBlockingQueue<>(2);
+        final PaymentTrackerMetrics paymentTrackerMetrics = PaymentTrackerMetrics.builder()
+                .withPaymentParser("socket", paymentParser)
+                .withOutputQueue(outputQueue)
+                .build();
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName(PaymentTrackerMetrics.OBJECT_NAME);
+
+        paymentParser.toPayment("GBP 7");
+        outputQueue.put("snapshot");
+        paymentTrackerMetrics.register();
+        // the second registration replaces the first one
+        paymentTrackerMetrics.register();
+        try {
+            assertThat(mBeanServer.getAttribute(objectName, "OutputQueueDepth"), is(1L));
+            assertThat(mBeanServer.getAttribute(objectName, "AppliedPayments"), is(0L));
+            final TabularData linesRead = (TabularData) mBeanServer.getAttribute(objectName, "LinesRead");
+            final CompositeData socketLinesRead = linesRead.get(new Object[] {"socket"});
+            assertThat(socketLinesRead.get("value"), is(1L));
+        } finally {
+            paymentTrackerMetrics.unregister();
+        }
+
+        assertThat(mBeanServer.isRegistered(objectName), is(false));
+    }
+
+    @Test
+    public void getAppliedPaymentsPerSecond_withSampledAppliedPayments_shouldNotChangeOnRead() throws InterruptedException {
+        final BlockingPaymentEventQueue inputPaymentEventsQueue = new BlockingPaymentEventQueue(new LinkedBlockingQueue<>());
+        final InputOutputTransactionLedgerService transactionLedgerService = InputOutputTransactionLedgerService.builder()
+                .withInputPaymentEventsQueue(inputPaymentEventsQueue)
+                .withOutputTransactionLedgerQueue(new LinkedBlockingQueue<>())
+                .withLogLevel(Level.OFF)
+                .build();
+        final PaymentTrackerMetrics paymentTrackerMetrics = PaymentTrackerMetrics.builder()
+                .withTransactionLedgerService(transactionLedgerService)
+                .build();
+
+        paymentTrackerMetrics.run();
+        assertThat(paymentTrackerMetrics.getAppliedPaymentsPerSecond(), is(0.0));
+
+        final Payment payment = Payment.builder().withCurrency("USD").withAmount(Money.TEN).build();
+        inputPaymentEventsQueue.put(PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD_BATCH)
+                .withPayments(List.of(payment, payment, payment))
+                .build());
+        inputPaymentEventsQueue.put(PaymentEvent.builder().withPaymentEventType(PaymentEvent.PaymentEventType.SHUTDOWN).build());
+        transactionLedgerService.run();
+        paymentTrackerMetrics.run();
+
+        final double appliedPaymentsPerSecond = paymentTrackerMetrics.getAppliedPaymentsPerSecond();
+        assertTrue(appliedPaymentsPerSecond > 0);
+        assertThat(paymentTrackerMetrics.getAppliedPaymentsPerSecond(), is(appliedPaymentsPerSecond));
+        // the first sample stays in the window, so a sample without new payments keeps the rate above zero
+        paymentTrackerMetrics.run();
+        assertTrue(paymentTrackerMetrics.getAppliedPaymentsPerSecond() > 0);
+    }
+}
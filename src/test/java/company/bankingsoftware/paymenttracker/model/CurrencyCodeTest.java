@@ -0,0 +1,30 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class CurrencyCodeTest {
+
+    @Test
+    public void pack_withBoundaryCurrencies_shouldReturnFirstAndLastCode() {
+        assertThat(CurrencyCode.pack("AAA"), is(0));
+        assertThat(CurrencyCode.pack("ZZZ"), is(CurrencyCode.CURRENCY_CODE_COUNT - 1));
+    }
+
+    @Test
+    public void pack_withInvalidCurrencies_shouldReturnInvalid() {
+        assertThat(CurrencyCode.pack("US"), is(CurrencyCode.INVALID));
+        assertThat(CurrencyCode.pack("usd"), is(CurrencyCode.INVALID));
+        assertThat(CurrencyCode.pack("USDX"), is(CurrencyCode.INVALID));
+        assertThat(CurrencyCode.pack((CharSequence) null), is(CurrencyCode.INVALID));
+    }
+
+    @Test
+    public void toCurrency_withPackedCurrency_shouldReturnSameCurrency() {
+        for (String currency : new String[] {"USD", "CZK", "HKD", "AAA", "ZZZ"}) {
+            assertThat(CurrencyCode.toCurrency(CurrencyCode.pack(currency)), is(currency));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class DenseTransactionLedgerTest extends TransactionLedgerTest {
+
+    private static final int USD_CODE = CurrencyCode.pack("USD");
+
+    @Override
+    protected TransactionLedger createTransactionLedger() {
+        return new DenseTransactionLedger();
+    }
+
+    @Test
+    public void addMinorUnits_withDifferentScales_shouldReturnBalanceWithMaxScale() {
+        final DenseTransactionLedger transactionLedger = new DenseTransactionLedger()
+                .addMinorUnits(USD_CODE, 1000, 0)
+                .addMinorUnits(USD_CODE, -5, 2);
+
+        assertThat(transactionLedger.getPaymentBalances().get("USD"), is(Money.parse("9.95")));
+    }
+
+    @Test
+    public void addMinorUnits_withLongOverflow_shouldSpillIntoBigDecimal() {
+        final DenseTransactionLedger transactionLedger = new DenseTransactionLedger()
+                .addMinorUnits(USD_CODE, Long.MAX_VALUE - 99, 2)
+                .addMinorUnits(USD_CODE, 200, 0)
+                .addMinorUnits(USD_CODE, -100, 0);
+
+        assertThat(transactionLedger.getPaymentBalances().get("USD"),
+                is(Money.valueOf(Long.MAX_VALUE - 99, 2).add(Money.ONE)));
+    }
+
+    @Test
+    public void addPayment_withAmountOutOfLongRange_shouldReturnExactSum() {
+        final TransactionLedger transactionLedger = new DenseTransactionLedger();
+        transactionLedger.addPayment(Payment.builder().withCurrency("USD").withAmount(Money.parse("123456789012345678901.5")).build());
+        transactionLedger.addPayment(Payment.builder().withCurrency("USD").withAmount(Money.parse("0.25")).build());
+
+        assertThat(transactionLedger.getPaymentBalances().get("USD"), is(Money.parse("123456789012345678901.75")));
+    }
+
+    @Test
+    public void getPaymentBalances_withLaterPayment_shouldReflectIt() {
+        final TransactionLedger transactionLedger = new DenseTransactionLedger();
+        final Map<String, Money> paymentBalances = transactionLedger.getPaymentBalances();
+        transactionLedger.addPayment(Payment.builder().withCurrency("USD").withAmount(Money.TEN).build());
+
+        assertThat(paymentBalances.size(), is(1));
+        assertThat(paymentBalances.containsKey("USD"), is(true));
+        assertThat(paymentBalances.containsKey("CZK"), is(false));
+        assertThat(paymentBalances.get("usd"), is(nullValue()));
+        assertThat(paymentBalances.entrySet().iterator().next().getValue(), is(Money.TEN));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addPayment_withInvalidCurrency_shouldThrowException() {
+        new DenseTransactionLedger().addPayment(Payment.builder().withCurrency("usd").withAmount(Money.TEN).build());
+    }
+}
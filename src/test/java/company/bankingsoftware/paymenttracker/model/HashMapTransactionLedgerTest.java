@@ -0,0 +1,9 @@
+package company.bankingsoftware.paymenttracker.model;
+
+public class HashMapTransactionLedgerTest extends TransactionLedgerTest {
+
+    @Override
+    protected TransactionLedger createTransactionLedger() {
+        return new HashMapTransactionLedger();
+    }
+}
@@ -0,0 +1,127 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Properties of money checked against BigDecimal over random amounts, including the ones near long overflow.
+ */
+public class MoneyTest {
+
+    private static final int SAMPLES = 100_000;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void parse_withRandomAmounts_shouldBeSameAsBigDecimal() {
+        for (int i = 0; i < SAMPLES; i++) {
+            final BigDecimal expected = randomAmount();
+            final Money money = Money.parse(expected.toString());
+
+            assertThat(money.toString(), is(expected.toString()));
+            assertThat(money.toPlainString(), is(expected.toPlainString()));
+            assertThat(money.toBigDecimal(), is(expected));
+            assertThat(money.getScale(), is(expected.scale()));
+            assertThat(money.signum(), is(expected.signum()));
+            assertThat(money.unscaledValue(), is(expected.unscaledValue()));
+        }
+    }
+
+    @Test
+    public void add_withRandomAmounts_shouldBeSameAsBigDecimal() {
+        for (int i = 0; i < SAMPLES / 10; i++) {
+            BigDecimal expected = BigDecimal.ZERO;
+            Money money = Money.ZERO;
+            for (int j = 0; j < 10; j++) {
+                final BigDecimal amount = randomAmount();
+                expected = expected.add(amount);
+                money = money.add(Money.valueOf(amount));
+
+                assertThat(money.toString(), is(expected.toString()));
+                assertThat(money, is(Money.valueOf(expected)));
+                assertThat(money.hashCode(), is(Money.valueOf(expected).hashCode()));
+            }
+        }
+    }
+
+    @Test
+    public void convert_withRandomAmountsAndRates_shouldBeSameAsBigDecimalRoundedHalfUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            final BigDecimal amount = randomAmount();
+            final BigDecimal rate = BigDecimal.valueOf(random.nextInt(1_000_000), random.nextInt(7));
+
+            final BigDecimal expected = rate.multiply(amount).setScale(2, RoundingMode.HALF_UP);
+            assertThat(Money.valueOf(amount).convert(rate).toString(), is(expected.toString()));
+            assertThat(Money.valueOf(amount).convert(rate.unscaledValue().longValue(), rate.scale()), is(Money.valueOf(expected)));
+        }
+    }
+
+    @Test
+    public void convert_withHalfCent_shouldRoundAwayFromZero() {
+        assertThat(Money.parse("0.25").convert(new BigDecimal("0.1")), is(Money.parse("0.03")));
+        assertThat(Money.parse("-0.25").convert(new BigDecimal("0.1")), is(Money.parse("-0.03")));
+        assertThat(Money.parse("0.24").convert(new BigDecimal("0.1")), is(Money.parse("0.02")));
+        assertThat(Money.parse("1000").convert(new BigDecimal("0.04")), is(Money.parse("40.00")));
+    }
+
+    @Test
+    public void compareTo_withRandomAmounts_shouldBeSameAsBigDecimal() {
+        for (int i = 0; i < SAMPLES; i++) {
+            final BigDecimal first = randomAmount();
+            final BigDecimal second = random.nextBoolean() ? randomAmount() : first.setScale(2);
+
+            assertThat(Money.valueOf(first).compareTo(Money.valueOf(second)), is(first.compareTo(second)));
+            assertThat(Money.valueOf(first).equals(Money.valueOf(second)), is(first.equals(second)));
+        }
+    }
+
+    @Test
+    public void abs_withRandomAmounts_shouldBeSameAsBigDecimal() {
+        for (int i = 0; i < SAMPLES; i++) {
+            final BigDecimal amount = randomAmount();
+
+            assertThat(Money.valueOf(amount).abs(), is(Money.valueOf(amount.abs())));
+        }
+        assertThat(Money.ofMinorUnits(Long.MIN_VALUE, 2).abs().toString(), is("92233720368547758.08"));
+    }
+
+    @Test
+    public void add_withLongOverflow_shouldReturnExactSum() {
+        final Money maximum = Money.valueOf(Long.MAX_VALUE, 2);
+
+        assertThat(maximum.hasMinorUnits(), is(true));
+        assertThat(maximum.add(Money.parse("0.01")).hasMinorUnits(), is(false));
+        assertThat(maximum.add(Money.parse("0.01")).toString(), is("92233720368547758.08"));
+        assertThat(maximum.add(Money.parse("0.01")).add(Money.parse("-0.01")), is(maximum));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ofMinorUnits_withMinorUnitsNotMatchingScale_shouldFail() {
+        Money.ofMinorUnits(150, 0);
+    }
+
+    /**
+     * @return amount with 0 - 2 digits to the right of decimal point, mostly fitting long minor units,
+     * sometimes near or over the long range
+     */
+    private BigDecimal randomAmount() {
+        final int scale = random.nextInt(3);
+        switch (random.nextInt(4)) {
+            case 0:
+                return BigDecimal.valueOf(random.nextInt(2_000_001) - 1_000_000, scale);
+            case 1:
+                return BigDecimal.valueOf(random.nextLong() / 100, scale);
+            case 2:
+                return BigDecimal.valueOf(random.nextLong(), scale);
+            default:
+                return new BigDecimal(new BigInteger(80, random).subtract(BigInteger.ONE.shiftLeft(79)), scale);
+        }
+    }
+}
@@ -2,12 +2,10 @@ package company.bankingsoftware.paymenttracker.model;
 
 import org.junit.Test;
 
-import java.math.BigDecimal;
-
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
 
-public class TransactionLedgerTest {
+public abstract class TransactionLedgerTest {
 
     private final static String USD = "USD";
     private final static String GBP = "GBP";
@@ -15,98 +13,150 @@ public class TransactionLedgerTest {
 
     private TransactionLedger transactionLedger;
 
+    protected abstract TransactionLedger createTransactionLedger();
+
     @Test
     public void addPayment_withInitializationOnly_shouldReturnPaymentBalances() {
-        assertThat(new TransactionLedger().getPaymentBalances(), is(notNullValue()));
+        assertThat(createTransactionLedger().getPaymentBalances(), is(notNullValue()));
     }
 
     @Test
     public void addPayment_withSameCurrencyAdd_shouldReturnSum() {
-        transactionLedger = new TransactionLedger();
+        transactionLedger = createTransactionLedger();
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(USD)
-                        .withAmount(BigDecimal.TEN)
+                        .withAmount(Money.TEN)
                         .build()
         );
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(USD)
-                        .withAmount(BigDecimal.ONE)
+                        .withAmount(Money.ONE)
                         .build()
         );
 
-        assertThat(transactionLedger.getPaymentBalances().get(USD), is(BigDecimal.valueOf(11)));
+        assertThat(transactionLedger.getPaymentBalances().get(USD), is(Money.valueOf(11)));
     }
 
     @Test
     public void addPayment_withSameCurrencyAddPositiveAndNegative_shouldReturnZero() {
-        transactionLedger = new TransactionLedger();
+        transactionLedger = createTransactionLedger();
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(USD)
-                        .withAmount(BigDecimal.TEN)
+                        .withAmount(Money.TEN)
                         .build()
         );
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(USD)
-                        .withAmount(BigDecimal.valueOf(-10))
+                        .withAmount(Money.valueOf(-10))
                         .build()
         );
 
-        assertThat(transactionLedger.getPaymentBalances().get(USD), is(BigDecimal.ZERO));
+        assertThat(transactionLedger.getPaymentBalances().get(USD), is(Money.ZERO));
     }
 
     @Test
     public void addPayment_withDifferentCurrencyAdd_shouldReturnSum() {
-        transactionLedger = new TransactionLedger();
+        transactionLedger = createTransactionLedger();
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(USD)
-                        .withAmount(BigDecimal.TEN)
+                        .withAmount(Money.TEN)
                         .build()
         );
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(CZK)
-                        .withAmount(BigDecimal.ONE)
+                        .withAmount(Money.ONE)
                         .build()
         );
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(GBP)
-                        .withAmount(BigDecimal.ZERO)
+                        .withAmount(Money.ZERO)
                         .build()
         );
 
-        assertThat(transactionLedger.getPaymentBalances().get(USD), is(BigDecimal.TEN));
-        assertThat(transactionLedger.getPaymentBalances().get(CZK), is(BigDecimal.ONE));
-        assertThat(transactionLedger.getPaymentBalances().get(GBP), is(BigDecimal.ZERO));
+        assertThat(transactionLedger.getPaymentBalances().get(USD), is(Money.TEN));
+        assertThat(transactionLedger.getPaymentBalances().get(CZK), is(Money.ONE));
+        assertThat(transactionLedger.getPaymentBalances().get(GBP), is(Money.ZERO));
     }
 
     @Test
     public void addPayment_withSameCurrencyDifferentPointNumberPosition_shouldReturnZero() {
-        transactionLedger = new TransactionLedger();
+        transactionLedger = createTransactionLedger();
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(CZK)
-                        .withAmount(BigDecimal.TEN)
+                        .withAmount(Money.TEN)
                         .build()
         );
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(CZK)
-                        .withAmount(BigDecimal.valueOf(0.1))
+                        .withAmount(Money.parse("0.1"))
                         .build()
         );
         transactionLedger.addPayment(
                 Payment.builder()
                         .withCurrency(CZK)
-                        .withAmount(BigDecimal.valueOf(0.10))
+                        .withAmount(Money.parse("0.1"))
                         .build()
         );
 
-        assertThat(transactionLedger.getPaymentBalances().get(CZK), is(BigDecimal.valueOf(10.20)));
+        assertThat(transactionLedger.getPaymentBalances().get(CZK), is(Money.parse("10.2")));
+    }
+
+    @Test
+    public void merge_withOtherTransactionLedger_shouldReturnSum() {
+        transactionLedger = createTransactionLedger();
+        transactionLedger.addPayment(
+                Payment.builder()
+                        .withCurrency(USD)
+                        .withAmount(Money.TEN)
+                        .build()
+        );
+        final TransactionLedger otherTransactionLedger = createTransactionLedger();
+        otherTransactionLedger.addPayment(
+                Payment.builder()
+                        .withCurrency(USD)
+                        .withAmount(Money.parse("-0.50"))
+                        .build()
+        );
+        otherTransactionLedger.addPayment(
+                Payment.builder()
+                        .withCurrency(CZK)
+                        .withAmount(Money.ONE)
+                        .build()
+        );
+
+        transactionLedger.merge(otherTransactionLedger);
+
+        assertThat(transactionLedger.getPaymentBalances().get(USD), is(Money.parse("9.50")));
+        assertThat(transactionLedger.getPaymentBalances().get(CZK), is(Money.ONE));
+        assertThat(transactionLedger.getPaymentBalances().size(), is(2));
+    }
+
+    @Test
+    public void merge_withHashMapTransactionLedger_shouldReturnSum() {
+        transactionLedger = createTransactionLedger();
+        transactionLedger.addPayment(
+                Payment.builder()
+                        .withCurrency(GBP)
+                        .withAmount(Money.ONE)
+                        .build()
+        );
+
+        transactionLedger.merge(new HashMapTransactionLedger().addPayment(
+                Payment.builder()
+                        .withCurrency(GBP)
+                        .withAmount(Money.parse("0.1"))
+                        .build()
+        ));
+
+        assertThat(transactionLedger.getPaymentBalances().get(GBP), is(Money.parse("1.1")));
     }
 }
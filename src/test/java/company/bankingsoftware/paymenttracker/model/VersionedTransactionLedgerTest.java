@@ -0,0 +1,112 @@
+package company.bankingsoftware.paymenttracker.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class VersionedTransactionLedgerTest {
+
+    private final static String USD = "USD";
+    private final static String CZK = "CZK";
+
+    @Test
+    public void snapshot_withLaterPayment_shouldNotChange() {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+        transactionLedger.addPayment(payment(USD, Money.TEN));
+
+        final TransactionLedgerSnapshot snapshot = transactionLedger.snapshot(1);
+        transactionLedger.addPayment(payment(USD, Money.ONE));
+        transactionLedger.addPayment(payment(CZK, Money.ONE));
+
+        assertThat(snapshot.getPaymentBalances().get(USD), is(Money.TEN));
+        assertThat(snapshot.getPaymentBalances().containsKey(CZK), is(false));
+        assertThat(snapshot.getPaymentBalances().size(), is(1));
+        assertThat(transactionLedger.snapshot(3).getPaymentBalances().get(USD), is(Money.valueOf(11)));
+    }
+
+    @Test
+    public void snapshot_withMoreSnapshots_shouldIncreaseEpoch() {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new DenseTransactionLedger());
+
+        final TransactionLedgerSnapshot firstSnapshot = transactionLedger.snapshot(0);
+        final TransactionLedgerSnapshot secondSnapshot = transactionLedger.snapshot(5);
+
+        assertThat(firstSnapshot.getEpoch(), is(1L));
+        assertThat(secondSnapshot.getEpoch(), is(2L));
+        assertThat(secondSnapshot.getAppliedPaymentEventCount(), is(5L));
+        assertThat(secondSnapshot.getPaymentBalances().isEmpty(), is(true));
+    }
+
+    @Test
+    public void snapshot_withUnchangedCurrency_shouldSharePage() {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new DenseTransactionLedger());
+        transactionLedger.addPayment(payment(USD, Money.TEN));
+        transactionLedger.addPayment(payment(CZK, Money.ONE));
+        final TransactionLedgerSnapshot firstSnapshot = transactionLedger.snapshot(2);
+
+        transactionLedger.addPayment(payment(USD, Money.ONE));
+        final TransactionLedgerSnapshot secondSnapshot = transactionLedger.snapshot(3);
+
+        final int usdPage = CurrencyCode.pack(USD) >> TransactionLedgerSnapshot.PAGE_SHIFT;
+        final int czkPage = CurrencyCode.pack(CZK) >> TransactionLedgerSnapshot.PAGE_SHIFT;
+        assertThat(secondSnapshot.page(czkPage), is(sameInstance(firstSnapshot.page(czkPage))));
+        assertThat(secondSnapshot.page(usdPage), is(not(sameInstance(firstSnapshot.page(usdPage)))));
+        assertThat(secondSnapshot.getPaymentBalances().get(CZK), is(Money.ONE));
+    }
+
+    @Test
+    public void nextChangedCurrencyCode_withOlderSnapshot_shouldReturnOnlyChangedBalances() {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+        transactionLedger.addPayment(payment(USD, Money.TEN));
+        transactionLedger.addPayment(payment("USE", Money.ONE));
+        transactionLedger.addPayment(payment(CZK, Money.ONE));
+        final TransactionLedgerSnapshot firstSnapshot = transactionLedger.snapshot(3);
+
+        transactionLedger.addPayment(payment(USD, Money.ONE));
+        // the same balance in the changed page
+        transactionLedger.addPayment(payment("USE", Money.ZERO));
+        transactionLedger.addPayment(payment("GBP", Money.ZERO));
+        final TransactionLedgerSnapshot secondSnapshot = transactionLedger.snapshot(6);
+
+        final int firstChanged = secondSnapshot.nextChangedCurrencyCode(firstSnapshot, 0);
+        final int secondChanged = secondSnapshot.nextChangedCurrencyCode(firstSnapshot, firstChanged + 1);
+        assertThat(CurrencyCode.toCurrency(firstChanged), is("GBP"));
+        assertThat(CurrencyCode.toCurrency(secondChanged), is(USD));
+        assertThat(secondSnapshot.nextChangedCurrencyCode(firstSnapshot, secondChanged + 1), is(CurrencyCode.CURRENCY_CODE_COUNT));
+        assertThat(secondSnapshot.nextChangedCurrencyCode(secondSnapshot, 0), is(CurrencyCode.CURRENCY_CODE_COUNT));
+    }
+
+    @Test
+    public void merge_withPartialTransactionLedger_shouldBeInNextSnapshot() {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+        transactionLedger.snapshot(0);
+
+        transactionLedger.merge(new HashMapTransactionLedger().addPayments(Arrays.asList(payment(CZK, Money.TEN), payment(USD, Money.ZERO))));
+
+        assertThat(transactionLedger.snapshot(1).getPaymentBalances().toString(), is("{CZK=10, USD=0}"));
+    }
+
+    @Test
+    public void snapshot_withBalancesInWrappedLedger_shouldContainThem() {
+        final TransactionLedger replayedTransactionLedger = new DenseTransactionLedger().addPayment(payment(USD, Money.TEN));
+
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(replayedTransactionLedger);
+
+        assertThat(transactionLedger.snapshot(0).getPaymentBalances().toString(), is("{USD=10}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addPayment_withInvalidCurrency_shouldThrowException() {
+        new VersionedTransactionLedger(new HashMapTransactionLedger()).addPayment(payment("usd", Money.TEN));
+    }
+
+    private static Payment payment(String currency, Money amount) {
+        return Payment.builder()
+                .withCurrency(currency)
+                .withAmount(amount)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+import company.bankingsoftware.paymenttracker.model.VersionedTransactionLedger;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class ConsoleTransactionLedgerOutputTest {
+
+    private final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue = new LinkedBlockingQueue<>();
+    private final CountingOutputStream outputStream = new CountingOutputStream();
+    private final ConsoleTransactionLedgerOutput consoleTransactionLedgerOutput =
+            new ConsoleTransactionLedgerOutput(new PrintStream(outputStream), outputTransactionLedgerQueue, Level.OFF);
+
+    @Test
+    public void print_withSnapshot_shouldWriteNonZeroBalancesInCurrencyOrderAtOnce() throws InterruptedException {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+        transactionLedger.addPayment(payment("USD", "900"));
+        transactionLedger.addPayment(payment("HKD", "300.5"));
+        transactionLedger.addPayment(payment("GBP", "10.00"));
+        transactionLedger.addPayment(payment("GBP", "-10"));
+        outputTransactionLedgerQueue.put(transactionLedger.snapshot(1));
+
+        consoleTransactionLedgerOutput.print();
+
+        assertThat(outputStream.toString(StandardCharsets.US_ASCII), is("HKD 300.5 (USD 39.07)\nUSD 900\n"));
+        assertThat(outputStream.writes, is(1));
+    }
+
+    @Test
+    public void print_withZeroBalancesOnly_shouldWriteNothing() throws InterruptedException {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+        transactionLedger.addPayment(payment("USD", "-0.00"));
+        outputTransactionLedgerQueue.put(transactionLedger.snapshot(1));
+
+        consoleTransactionLedgerOutput.print();
+
+        assertThat(outputStream.size(), is(0));
+        assertThat(outputStream.writes, is(0));
+    }
+
+    @Test
+    public void print_withDeltaReports_shouldWriteOnlyChangedBalancesAndResync() throws InterruptedException {
+        final ConsoleTransactionLedgerOutput deltaOutput = new ConsoleTransactionLedgerOutput(new PrintStream(outputStream),
+                outputTransactionLedgerQueue, ConsoleTransactionLedgerOutput.ReportType.DELTA, 2,
+                new PaymentBalancesConsoleOutputDecorator(), Level.OFF);
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+        transactionLedger.addPayment(payment("USD", "900"));
+        transactionLedger.addPayment(payment("JPY", "5"));
+        transactionLedger.addPayment(payment("GBP", "0"));
+        outputTransactionLedgerQueue.put(transactionLedger.snapshot(1));
+        deltaOutput.print();
+        transactionLedger.addPayment(payment("JPY", "-5"));
+        transactionLedger.addPayment(payment("GBP", "0.0"));
+        transactionLedger.addPayment(payment("EUR", "1"));
+        outputTransactionLedgerQueue.put(transactionLedger.snapshot(2));
+        deltaOutput.print();
+        outputTransactionLedgerQueue.put(transactionLedger.snapshot(3));
+        deltaOutput.print();
+        outputTransactionLedgerQueue.put(transactionLedger.snapshot(4));
+        deltaOutput.print();
+
+        assertThat(outputStream.toString(StandardCharsets.US_ASCII), is(
+                "JPY 5\nUSD 900\n" + "EUR 1 (USD 1.11)\nJPY 0\n" + "EUR 1 (USD 1.11)\nUSD 900\n"));
+        assertThat(outputStream.writes, is(3));
+    }
+
+    private static Payment payment(String currency, String amount) {
+        return Payment.builder().withCurrency(currency).withAmount(Money.parse(amount)).build();
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+
+        private int writes;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+import company.bankingsoftware.paymenttracker.model.VersionedTransactionLedger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class OverflowSnapshotQueueTest {
+
+    private final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+
+    @Test
+    public void put_withDropOldestAndFullQueue_shouldDropOldestSnapshots() {
+        final OverflowSnapshotQueue overflowSnapshotQueue = new OverflowSnapshotQueue(2, OverflowSnapshotQueue.OverflowPolicy.DROP_OLDEST);
+
+        for (long epoch = 1; epoch <= 5; epoch++) {
+            overflowSnapshotQueue.put(transactionLedger.snapshot(epoch, epoch));
+        }
+
+        assertThat(epochs(overflowSnapshotQueue), is(List.of(4L, 5L)));
+        assertThat(overflowSnapshotQueue.getDroppedSnapshotCount(), is(3L));
+    }
+
+    @Test
+    public void offer_withCoalesceLatestAndFullQueue_shouldKeepOnlyLatestSnapshot() {
+        final OverflowSnapshotQueue overflowSnapshotQueue = new OverflowSnapshotQueue(3, OverflowSnapshotQueue.OverflowPolicy.COALESCE_LATEST);
+
+        for (long epoch = 1; epoch <= 5; epoch++) {
+            assertThat(overflowSnapshotQueue.offer(transactionLedger.snapshot(epoch, epoch)), is(true));
+        }
+
+        assertThat(epochs(overflowSnapshotQueue), is(List.of(4L, 5L)));
+        assertThat(overflowSnapshotQueue.getDroppedSnapshotCount(), is(3L));
+    }
+
+    private static List<Long> epochs(OverflowSnapshotQueue overflowSnapshotQueue) {
+        final List<Long> epochs = new ArrayList<>();
+        for (TransactionLedgerSnapshot transactionLedgerSnapshot : overflowSnapshotQueue) {
+            epochs.add(transactionLedgerSnapshot.getEpoch());
+        }
+        return epochs;
+    }
+}
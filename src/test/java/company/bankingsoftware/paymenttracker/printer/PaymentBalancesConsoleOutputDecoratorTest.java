@@ -0,0 +1,159 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.exchange.ExchangeRateProvider;
+import company.bankingsoftware.paymenttracker.exchange.ExchangeRateTable;
+import company.bankingsoftware.paymenttracker.model.DenseTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.VersionedTransactionLedger;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class PaymentBalancesConsoleOutputDecoratorTest {
+
+    private static final String[] CURRENCIES = {"USD", "CZK", "GBP", "EUR", "RMB", "HKD", "JPY"};
+    private static final Map<String, BigDecimal> EXCHANGE_RATES = PaymentBalancesConsoleOutputDecorator.DEFAULT_EXCHANGE_RATES;
+
+    private final PaymentBalancesConsoleOutputDecorator decorator = new PaymentBalancesConsoleOutputDecorator();
+
+    @Test
+    public void decorate_withBalances_shouldAppendUsdExchange() {
+        final Map<String, Money> paymentBalances = new LinkedHashMap<>();
+        paymentBalances.put("USD", Money.parse("900"));
+        paymentBalances.put("HKD", Money.parse("300.5"));
+        paymentBalances.put("JPY", Money.parse("-12"));
+
+        assertThat(decorator.decorate(paymentBalances), is("USD 900\nHKD 300.5 (USD 39.07)\nJPY -12\n"));
+    }
+
+    @Test
+    public void decorate_withBaseCurrencies_shouldAppendExchangeToEveryBaseCurrencyWithRate() {
+        final PaymentBalancesConsoleOutputDecorator baseCurrenciesDecorator = new PaymentBalancesConsoleOutputDecorator(
+                ExchangeRateProvider.of(EXCHANGE_RATES), List.of("USD", "EUR", "JPY", "GBP"));
+        final Map<String, Money> paymentBalances = new LinkedHashMap<>();
+        paymentBalances.put("USD", Money.parse("900"));
+        paymentBalances.put("EUR", Money.parse("100"));
+        paymentBalances.put("HKD", Money.parse("300.5"));
+        paymentBalances.put("JPY", Money.parse("-12"));
+
+        assertThat(baseCurrenciesDecorator.decorate(paymentBalances), is("USD 900 (EUR 810.81, GBP 743.80)\n"
+                + "EUR 100 (USD 111.00, GBP 91.74)\n"
+                + "HKD 300.5 (USD 39.07, EUR 35.19, GBP 32.29)\n"
+                + "JPY -12\n"));
+    }
+
+    @Test
+    public void decorate_withRandomBalances_shouldBeSameAsBigDecimalOutput() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            final Map<String, BigDecimal> expectedBalances = new LinkedHashMap<>();
+            final Map<String, Money> paymentBalances = new LinkedHashMap<>();
+            for (String currency : CURRENCIES) {
+                if (random.nextBoolean()) {
+                    final BigDecimal balance = random.nextInt(10) == 0
+                            ? new BigDecimal(new BigInteger(80, random).subtract(BigInteger.ONE.shiftLeft(79)), random.nextInt(3))
+                            : BigDecimal.valueOf(random.nextLong() / 1000, random.nextInt(3));
+                    expectedBalances.put(currency, balance);
+                    paymentBalances.put(currency, Money.valueOf(balance));
+                }
+            }
+
+            assertThat(decorator.decorate(paymentBalances), is(decorateBigDecimal(expectedBalances)));
+        }
+    }
+
+    @Test
+    public void decorate_withSnapshot_shouldSkipZeroBalancesAndUseUpdatedRates() {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new DenseTransactionLedger());
+        transactionLedger.addPayment(Payment.builder().withCurrency("USD").withAmount(Money.parse("900")).build());
+        transactionLedger.addPayment(Payment.builder().withCurrency("CZK").withAmount(Money.parse("0.00")).build());
+        transactionLedger.addPayment(Payment.builder().withCurrency("EUR").withAmount(Money.parse("-100.50")).build());
+        final AtomicReference<ExchangeRateTable> exchangeRateTable =
+                new AtomicReference<>(ExchangeRateTable.of(PaymentBalancesConsoleOutputDecorator.DEFAULT_EXCHANGE_RATES));
+        final PaymentBalancesConsoleOutputDecorator updatedDecorator = new PaymentBalancesConsoleOutputDecorator(exchangeRateTable::get);
+        final StringBuilder output = new StringBuilder("report\n");
+
+        updatedDecorator.decorate(transactionLedger.snapshot(1), output);
+        exchangeRateTable.set(ExchangeRateTable.of(Map.of("EUR", new BigDecimal("1.005"), "USD", BigDecimal.TEN, "usd", BigDecimal.ONE)));
+        updatedDecorator.decorate(transactionLedger.snapshot(2), output);
+
+        assertThat(output.toString(), is("report\nEUR -100.50 (USD -111.56)\nUSD 900\nEUR -100.50 (USD -101.00)\nUSD 900\n"));
+    }
+
+    @Test
+    public void decorate_withThreshold_shouldSkipSmallAndNotExchangedBalances() {
+        final PaymentBalancesConsoleOutputDecorator thresholdDecorator = new PaymentBalancesConsoleOutputDecorator(
+                ExchangeRateProvider.of(EXCHANGE_RATES), List.of("USD"), 0, Money.parse("-40"));
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new DenseTransactionLedger());
+        transactionLedger.addPayment(Payment.builder().withCurrency("USD").withAmount(Money.parse("39.99")).build());
+        transactionLedger.addPayment(Payment.builder().withCurrency("CZK").withAmount(Money.parse("-1000")).build());
+        transactionLedger.addPayment(Payment.builder().withCurrency("EUR").withAmount(Money.parse("36")).build());
+        transactionLedger.addPayment(Payment.builder().withCurrency("JPY").withAmount(Money.parse("100000")).build());
+
+        assertThat(thresholdDecorator.decorate(transactionLedger.snapshot(1), new StringBuilder()).toString(),
+                is("CZK -1000 (USD -40.00)\n"));
+    }
+
+    @Test
+    public void decorate_withRandomSnapshotsAndTopCount_shouldBeSameAsFullSort() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            final int topCount = 1 + random.nextInt(8);
+            final PaymentBalancesConsoleOutputDecorator topDecorator = new PaymentBalancesConsoleOutputDecorator(
+                    ExchangeRateProvider.of(EXCHANGE_RATES), List.of("USD"), topCount, Money.ZERO);
+            final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new DenseTransactionLedger());
+            final Map<String, Money> paymentBalances = new LinkedHashMap<>();
+            for (String currency : CURRENCIES) {
+                if (random.nextBoolean()) {
+                    // few distinct amounts, so equal USD values are ordered by currency
+                    final Money amount = Money.valueOf(random.nextInt(5) * 100 - 200);
+                    transactionLedger.addPayment(Payment.builder().withCurrency(currency).withAmount(amount).build());
+                    paymentBalances.put(currency, amount);
+                }
+            }
+
+            final StringBuilder expected = new StringBuilder();
+            paymentBalances.entrySet().stream()
+                    .filter(paymentBalance -> paymentBalance.getValue().signum() != 0)
+                    .filter(paymentBalance -> paymentBalance.getKey().equals("USD") || EXCHANGE_RATES.containsKey(paymentBalance.getKey()))
+                    .sorted(Comparator.comparing((Map.Entry<String, Money> paymentBalance) -> usdValue(paymentBalance).abs()).reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(topCount)
+                    .forEach(paymentBalance -> expected.append(decorator.decorate(Map.of(paymentBalance.getKey(), paymentBalance.getValue()))));
+            assertThat(topDecorator.decorate(transactionLedger.snapshot(1), new StringBuilder()).toString(), is(expected.toString()));
+        }
+    }
+
+    private static BigDecimal usdValue(Map.Entry<String, Money> paymentBalance) {
+        final BigDecimal exchangeRate = EXCHANGE_RATES.getOrDefault(paymentBalance.getKey(), BigDecimal.ONE);
+        return exchangeRate.multiply(paymentBalance.getValue().toBigDecimal()).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Reference output with BigDecimal balances.
+     */
+    private static String decorateBigDecimal(Map<String, BigDecimal> paymentBalances) {
+        final StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, BigDecimal> paymentBalance : paymentBalances.entrySet()) {
+            sb.append(paymentBalance.getKey()).append(" ").append(paymentBalance.getValue());
+            final BigDecimal exchangeRate = EXCHANGE_RATES.get(paymentBalance.getKey());
+            if (exchangeRate != null) {
+                sb.append(" (USD ").append(exchangeRate.multiply(paymentBalance.getValue()).setScale(2, RoundingMode.HALF_UP)).append(")");
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+import company.bankingsoftware.paymenttracker.model.VersionedTransactionLedger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * CSV and JSON outputs and the rolling file they are written into.
+ */
+public class StreamTransactionLedgerOutputTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue = new LinkedBlockingQueue<>();
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+
+    @Test
+    public void print_withCsvOutput_shouldWriteRowPerNonZeroBalance() throws InterruptedException {
+        addPayments();
+        outputTransactionLedgerQueue.put(transactionLedger.snapshot(7, 3));
+
+        new CsvTransactionLedgerOutput(outputStream, outputTransactionLedgerQueue, Level.OFF).print();
+
+        assertThat(outputStream.toString(StandardCharsets.US_ASCII), is("7,HKD,300.5\n7,USD,-900\n"));
+    }
+
+    @Test
+    public void print_withJsonOutput_shouldWriteObjectPerSnapshot() throws InterruptedException {
+        final JsonTransactionLedgerOutput jsonOutput = new JsonTransactionLedgerOutput(outputStream, outputTransactionLedgerQueue, Level.OFF);
+        outputTransactionLedgerQueue.put(transactionLedger.snapshot(1, 0));
+        jsonOutput.print();
+        addPayments();
+        outputTransactionLedgerQueue.put(transactionLedger.snapshot(2, 3));
+        jsonOutput.print();
+
+        assertThat(outputStream.toString(StandardCharsets.US_ASCII), is(
+                "{\"epoch\":1,\"balances\":{}}\n{\"epoch\":2,\"balances\":{\"HKD\":300.5,\"USD\":-900}}\n"));
+    }
+
+    @Test
+    public void print_withRollingFile_shouldRollOverWholeReportsAndStartWithHeader() throws InterruptedException, IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("balances.csv");
+        final RollingFileOutputStream rollingFileOutputStream = new RollingFileOutputStream(
+                path, 40, 1, CsvTransactionLedgerOutput.HEADER.getBytes(StandardCharsets.US_ASCII));
+        final CsvTransactionLedgerOutput csvOutput = new CsvTransactionLedgerOutput(rollingFileOutputStream, outputTransactionLedgerQueue, Level.OFF);
+        addPayments();
+        for (long epoch = 1; epoch <= 3; epoch++) {
+            outputTransactionLedgerQueue.put(transactionLedger.snapshot(epoch, epoch));
+            csvOutput.print();
+        }
+        rollingFileOutputStream.close();
+
+        assertThat(Files.readString(path), is(CsvTransactionLedgerOutput.HEADER + "3,HKD,300.5\n3,USD,-900\n"));
+        assertThat(Files.readString(rollingFileOutputStream.rolledPath(1)), is(CsvTransactionLedgerOutput.HEADER + "2,HKD,300.5\n2,USD,-900\n"));
+        assertThat(Files.exists(rollingFileOutputStream.rolledPath(2)), is(false));
+    }
+
+    private void addPayments() {
+        transactionLedger.addPayment(Payment.builder().withCurrency("USD").withAmount(Money.parse("-900")).build());
+        transactionLedger.addPayment(Payment.builder().withCurrency("HKD").withAmount(Money.parse("300.5")).build());
+        transactionLedger.addPayment(Payment.builder().withCurrency("EUR").withAmount(Money.parse("0")).build());
+    }
+}
@@ -0,0 +1,47 @@
+package company.bankingsoftware.paymenttracker.printer;
+
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+import company.bankingsoftware.paymenttracker.model.VersionedTransactionLedger;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TransactionLedgerOutputFanOutTest {
+
+    private final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue = new LinkedBlockingQueue<>();
+    private final OverflowSnapshotQueue fastOutputQueue = new OverflowSnapshotQueue(10, OverflowSnapshotQueue.OverflowPolicy.DROP_OLDEST);
+    private final OverflowSnapshotQueue slowOutputQueue = new OverflowSnapshotQueue(1, OverflowSnapshotQueue.OverflowPolicy.COALESCE_LATEST);
+    private final TransactionLedgerOutputFanOut transactionLedgerOutputFanOut = new TransactionLedgerOutputFanOut(
+            outputTransactionLedgerQueue, List.of(fastOutputQueue, slowOutputQueue), Level.OFF);
+
+    @Test
+    public void fanOut_withOutputNotTakingSnapshots_shouldDeliverToOthersWithoutBlocking() throws InterruptedException {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+        for (long epoch = 1; epoch <= 3; epoch++) {
+            outputTransactionLedgerQueue.put(transactionLedger.snapshot(epoch, epoch));
+            transactionLedgerOutputFanOut.fanOut();
+        }
+
+        assertThat(outputTransactionLedgerQueue.isEmpty(), is(true));
+        assertThat(fastOutputQueue.size(), is(3));
+        assertThat(fastOutputQueue.getDroppedSnapshotCount(), is(0L));
+        assertThat(slowOutputQueue.take().getEpoch(), is(3L));
+        assertThat(slowOutputQueue.getDroppedSnapshotCount(), is(2L));
+    }
+
+    @Test
+    public void run_withInterruption_shouldStop() {
+        Thread.currentThread().interrupt();
+
+        transactionLedgerOutputFanOut.run();
+
+        assertThat(Thread.interrupted(), is(false));
+    }
+}
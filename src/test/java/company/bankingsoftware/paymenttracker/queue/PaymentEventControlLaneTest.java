@@ -0,0 +1,59 @@
+package company.bankingsoftware.paymenttracker.queue;
+
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class PaymentEventControlLaneTest {
+
+    private final PaymentEventControlLane paymentEventControlLane = new PaymentEventControlLane();
+
+    @Test
+    public void requestOutput_withMoreRequests_shouldNumberThem() {
+        assertThat(paymentEventControlLane.requestOutput(), is(1L));
+        assertThat(paymentEventControlLane.requestOutput(), is(2L));
+        assertThat(paymentEventControlLane.getOutputRequestSequence(), is(2L));
+        assertThat(paymentEventControlLane.isShutdownRequested(), is(false));
+    }
+
+    @Test
+    public void requestShutdown_withRegisteredQueue_shouldWakeUpItsConsumer() {
+        final BlockingQueue<PaymentEvent> paymentEventsQueue = new ArrayBlockingQueue<>(1);
+        paymentEventControlLane.register(new BlockingPaymentEventQueue(paymentEventsQueue));
+
+        paymentEventControlLane.requestShutdown();
+
+        assertThat(paymentEventControlLane.isShutdownRequested(), is(true));
+        assertThat(paymentEventsQueue.poll().getPaymentEventType(), is(PaymentEvent.PaymentEventType.CONTROL));
+    }
+
+    @Test
+    public void requestJournalFsync_withRegisteredQueue_shouldNumberItAndWakeUpItsConsumer() {
+        final BlockingQueue<PaymentEvent> paymentEventsQueue = new ArrayBlockingQueue<>(1);
+        paymentEventControlLane.register(new BlockingPaymentEventQueue(paymentEventsQueue));
+
+        assertThat(paymentEventControlLane.requestJournalFsync(), is(1L));
+
+        assertThat(paymentEventControlLane.getJournalFsyncRequestSequence(), is(1L));
+        assertThat(paymentEventControlLane.getOutputRequestSequence(), is(0L));
+        assertThat(paymentEventsQueue.poll().getPaymentEventType(), is(PaymentEvent.PaymentEventType.CONTROL));
+    }
+
+    @Test
+    public void requestOutput_withFullRegisteredQueue_shouldNotWait() {
+        final BlockingQueue<PaymentEvent> paymentEventsQueue = new ArrayBlockingQueue<>(1);
+        final PaymentEvent paymentEvent = PaymentEvent.builder().withPaymentEventType(PaymentEvent.PaymentEventType.ADD).build();
+        paymentEventsQueue.add(paymentEvent);
+        paymentEventControlLane.register(new BlockingPaymentEventQueue(paymentEventsQueue));
+
+        paymentEventControlLane.requestOutput();
+
+        assertThat(paymentEventsQueue.poll(), is(paymentEvent));
+        assertThat(paymentEventsQueue.isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,127 @@
+package company.bankingsoftware.paymenttracker.queue;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class RingBufferPaymentEventQueueTest {
+
+    private static final int PRODUCERS = 3;
+    private static final int PAYMENT_EVENTS_PER_PRODUCER = 20_000;
+    // spinning producers and consumer share few cores on CI runners, they only get a smoke run
+    private static final int BUSY_SPIN_PAYMENT_EVENTS_PER_PRODUCER = 200;
+
+    @Test
+    public void constructor_withCapacityNotPowerOfTwo_shouldRoundItUp() {
+        assertThat(new RingBufferPaymentEventQueue(50, RingBufferPaymentEventQueue.WaitStrategy.BLOCKING).capacity(), is(64));
+        assertThat(new RingBufferPaymentEventQueue(64, RingBufferPaymentEventQueue.WaitStrategy.BLOCKING).capacity(), is(64));
+    }
+
+    @Test
+    public void take_withPublishedPaymentEvents_shouldReturnThemInPutOrder() throws InterruptedException {
+        final RingBufferPaymentEventQueue paymentEventQueue = new RingBufferPaymentEventQueue(2, RingBufferPaymentEventQueue.WaitStrategy.BLOCKING);
+        final PaymentEvent firstPaymentEvent = paymentEvent(1);
+        final PaymentEvent secondPaymentEvent = paymentEvent(2);
+
+        paymentEventQueue.put(firstPaymentEvent);
+        paymentEventQueue.put(secondPaymentEvent);
+
+        assertThat(paymentEventQueue.take(), is(firstPaymentEvent));
+        assertThat(paymentEventQueue.take(), is(secondPaymentEvent));
+    }
+
+    @Test
+    public void drainTo_withMorePublishedPaymentEvents_shouldDrainAtMostMax() throws InterruptedException {
+        final RingBufferPaymentEventQueue paymentEventQueue = new RingBufferPaymentEventQueue(4, RingBufferPaymentEventQueue.WaitStrategy.YIELDING);
+        for (int i = 0; i < 3; i++) {
+            paymentEventQueue.put(paymentEvent(i));
+        }
+        final List<PaymentEvent> paymentEvents = new ArrayList<>();
+
+        assertThat(paymentEventQueue.drainTo(paymentEvents, 2), is(2));
+        assertThat(paymentEventQueue.drainTo(paymentEvents, 2), is(1));
+        assertThat(paymentEventQueue.drainTo(paymentEvents, 2), is(0));
+        assertThat(paymentEvents.get(2).getPayment().getAmount(), is(Money.valueOf(2)));
+    }
+
+    @Test
+    public void offer_withFullQueue_shouldReturnFalse() throws InterruptedException {
+        final RingBufferPaymentEventQueue paymentEventQueue = new RingBufferPaymentEventQueue(2, RingBufferPaymentEventQueue.WaitStrategy.BUSY_SPIN);
+
+        assertThat(paymentEventQueue.offer(paymentEvent(1)), is(true));
+        assertThat(paymentEventQueue.offer(paymentEvent(2)), is(true));
+        assertThat(paymentEventQueue.offer(paymentEvent(3)), is(false));
+        paymentEventQueue.take();
+        assertThat(paymentEventQueue.offer(paymentEvent(3)), is(true));
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void take_withInterruptedConsumer_shouldThrowException() throws InterruptedException {
+        Thread.currentThread().interrupt();
+        new RingBufferPaymentEventQueue(4, RingBufferPaymentEventQueue.WaitStrategy.BUSY_SPIN).take();
+    }
+
+    @Test(timeout = 30_000)
+    public void take_withConcurrentProducers_shouldReturnAllPaymentEventsInProducerOrder() throws Exception {
+        assertAllPaymentEventsInProducerOrder(
+                new RingBufferPaymentEventQueue(8, RingBufferPaymentEventQueue.WaitStrategy.BLOCKING), PAYMENT_EVENTS_PER_PRODUCER);
+        assertAllPaymentEventsInProducerOrder(
+                new RingBufferPaymentEventQueue(8, RingBufferPaymentEventQueue.WaitStrategy.YIELDING), PAYMENT_EVENTS_PER_PRODUCER);
+    }
+
+    @Test(timeout = 30_000)
+    public void take_withConcurrentBusySpinningProducers_shouldReturnAllPaymentEventsInProducerOrder() throws Exception {
+        assertAllPaymentEventsInProducerOrder(
+                new RingBufferPaymentEventQueue(8, RingBufferPaymentEventQueue.WaitStrategy.BUSY_SPIN), BUSY_SPIN_PAYMENT_EVENTS_PER_PRODUCER);
+    }
+
+    // every producer puts increasing amounts in its own currency
+    private static void assertAllPaymentEventsInProducerOrder(
+            RingBufferPaymentEventQueue paymentEventQueue, int paymentEventsPerProducer) throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(PRODUCERS);
+        final List<Future<?>> producers = new ArrayList<>();
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            final String currency = "AA" + (char) ('A' + producer);
+            producers.add(executorService.submit(() -> {
+                for (int i = 0; i < paymentEventsPerProducer; i++) {
+                    paymentEventQueue.put(paymentEvent(currency, i));
+                }
+                return null;
+            }));
+        }
+
+        final int[] nextAmounts = new int[PRODUCERS];
+        for (int i = 0; i < PRODUCERS * paymentEventsPerProducer; i++) {
+            final Payment payment = paymentEventQueue.take().getPayment();
+            final int producer = payment.getCurrency().charAt(2) - 'A';
+            assertThat(payment.getAmount(), is(Money.valueOf(nextAmounts[producer]++)));
+        }
+        for (Future<?> producer : producers) {
+            producer.get();
+        }
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(1, TimeUnit.SECONDS), is(true));
+    }
+
+    private static PaymentEvent paymentEvent(int amount) {
+        return paymentEvent("USD", amount);
+    }
+
+    private static PaymentEvent paymentEvent(String currency, int amount) {
+        return PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
+                .withPayment(Payment.builder().withCurrency(currency).withAmount(Money.valueOf(amount)).build())
+                .build();
+    }
+}
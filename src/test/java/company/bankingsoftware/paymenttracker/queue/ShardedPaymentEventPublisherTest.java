@@ -0,0 +1,128 @@
+package company.bankingsoftware.paymenttracker.queue;
+
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class ShardedPaymentEventPublisherTest {
+
+    private static final int SHARD_COUNT = 3;
+
+    private final List<BlockingQueue<PaymentEvent>> shardQueues = new ArrayList<>();
+    private ShardedPaymentEventPublisher shardedPaymentEventPublisher;
+
+    @Before
+    public void setUp() {
+        final List<PaymentEventPublisher> shardPublishers = new ArrayList<>();
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            final BlockingQueue<PaymentEvent> shardQueue = new LinkedBlockingQueue<>();
+            shardQueues.add(shardQueue);
+            shardPublishers.add(shardQueue::put);
+        }
+        shardedPaymentEventPublisher = new ShardedPaymentEventPublisher(shardPublishers);
+    }
+
+    @Test
+    public void put_withAddPaymentEvent_shouldPutItIntoShardOfItsCurrency() throws InterruptedException {
+        final PaymentEvent paymentEvent = addPaymentEvent(payment("USD", Money.TEN));
+
+        shardedPaymentEventPublisher.put(paymentEvent);
+
+        final BlockingQueue<PaymentEvent> usdShardQueue = shardQueues.get(shardedPaymentEventPublisher.shardOf("USD"));
+        assertThat(usdShardQueue.poll(), is(paymentEvent));
+        assertThat(shardQueues.stream().allMatch(BlockingQueue::isEmpty), is(true));
+    }
+
+    @Test
+    public void put_withAddBatchPaymentEvent_shouldSplitItByShardInInputOrder() throws InterruptedException {
+        final Payment firstUsdPayment = payment("USD", Money.TEN);
+        final Payment eurPayment = payment("EUR", Money.ONE);
+        final Payment secondUsdPayment = payment("USD", Money.ONE);
+
+        shardedPaymentEventPublisher.put(PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD_BATCH)
+                .withPayments(Arrays.asList(firstUsdPayment, eurPayment, secondUsdPayment))
+                .build());
+
+        final PaymentEvent usdPaymentEvent = shardQueues.get(shardedPaymentEventPublisher.shardOf("USD")).poll();
+        assertThat(usdPaymentEvent.getPaymentEventType(), is(PaymentEvent.PaymentEventType.ADD_BATCH));
+        assertThat(usdPaymentEvent.getPayments(), is(Arrays.asList(firstUsdPayment, secondUsdPayment)));
+        assertThat(shardQueues.get(shardedPaymentEventPublisher.shardOf("EUR")).poll().getPayments(), is(Arrays.asList(eurPayment)));
+        assertThat(shardQueues.stream().mapToInt(BlockingQueue::size).sum(), is(0));
+    }
+
+    @Test
+    public void put_withMergePaymentEvent_shouldSplitTransactionLedgerByShard() throws InterruptedException {
+        shardedPaymentEventPublisher.put(PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.MERGE)
+                .withTransactionLedger(new HashMapTransactionLedger().addPayments(Arrays.asList(
+                        payment("USD", Money.TEN), payment("EUR", Money.ZERO))))
+                .build());
+
+        assertThat(shardQueues.get(shardedPaymentEventPublisher.shardOf("USD")).poll().getTransactionLedger().getPaymentBalances().get("USD"),
+                is(Money.TEN));
+        assertThat(shardQueues.get(shardedPaymentEventPublisher.shardOf("EUR")).poll().getTransactionLedger().getPaymentBalances().get("EUR"),
+                is(Money.ZERO));
+    }
+
+    @Test
+    public void put_withOutputPaymentEvent_shouldPutItIntoAllShards() throws InterruptedException {
+        final PaymentEvent paymentEvent = PaymentEvent.builder().withPaymentEventType(PaymentEvent.PaymentEventType.OUTPUT).build();
+
+        shardedPaymentEventPublisher.put(paymentEvent);
+
+        for (BlockingQueue<PaymentEvent> shardQueue : shardQueues) {
+            assertThat(shardQueue.poll(), is(paymentEvent));
+        }
+    }
+
+    @Test
+    public void put_withCommitPaymentEvent_shouldRunItsCallbackOnceAllShardsCommitted() throws InterruptedException {
+        final AtomicInteger commitCount = new AtomicInteger();
+
+        shardedPaymentEventPublisher.put(PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.COMMIT)
+                .withCommitCallback(commitCount::incrementAndGet)
+                .build());
+
+        for (BlockingQueue<PaymentEvent> shardQueue : shardQueues) {
+            assertThat(commitCount.get(), is(0));
+            shardQueue.poll().getCommitCallback().run();
+        }
+        assertThat(commitCount.get(), is(1));
+    }
+
+    @Test
+    public void shardOf_withDifferentCurrencies_shouldUseAllShards() {
+        assertThat(shardedPaymentEventPublisher.shardOf("AAA"), is(0));
+        assertThat(shardedPaymentEventPublisher.shardOf("AAB"), is(1));
+        assertThat(shardedPaymentEventPublisher.shardOf("AAC"), is(2));
+    }
+
+    private static PaymentEvent addPaymentEvent(Payment payment) {
+        return PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
+                .withPayment(payment)
+                .build();
+    }
+
+    private static Payment payment(String currency, Money amount) {
+        return Payment.builder()
+                .withCurrency(currency)
+                .withAmount(amount)
+                .build();
+    }
+}
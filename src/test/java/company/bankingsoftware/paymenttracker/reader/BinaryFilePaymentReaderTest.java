@@ -0,0 +1,97 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.CurrencyCode;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class BinaryFilePaymentReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+
+    @Test
+    public void readFileInput_withConvertedTextFile_shouldQueueSameBalancesAsTextReader() throws IOException {
+        final Path textPath = temporaryFolder.getRoot().toPath().resolve("payments");
+        final Path binaryPath = temporaryFolder.getRoot().toPath().resolve("payments.bin");
+        Files.write(textPath, "USD 1000\nHKD 100\n\nUSD -100.5\nUS 1\nRMB 2000\nHKD 200.00\n".getBytes(StandardCharsets.US_ASCII));
+
+        final long[] counts = new BinaryPaymentFileConverter(new SinglePassPaymentParser()).convert(textPath, binaryPath, true);
+        new BinaryFilePaymentReader(binaryPath, inputPaymentEventsQueue::put, Level.OFF).readFileInput();
+
+        assertThat(counts[0], is(5L));
+        assertThat(counts[1], is(1L));
+        assertThat(Files.size(binaryPath), is((long) BinaryPaymentWriter.HEADER_SIZE + 5 * BinaryPaymentWriter.TIMESTAMP_RECORD_SIZE));
+        final PaymentEvent paymentEvent = inputPaymentEventsQueue.poll();
+        assertThat(paymentEvent.getPaymentEventType(), is(PaymentEvent.PaymentEventType.MERGE));
+        assertThat(paymentEvent.getTransactionLedger().getPaymentBalances(), is(Map.of(
+                "USD", Money.parse("899.5"), "HKD", Money.parse("300.00"), "RMB", Money.parse("2000"))));
+    }
+
+    @Test
+    public void readFileInput_withManyChunks_shouldMergeAllRecords() throws IOException {
+        final Path binaryPath = temporaryFolder.getRoot().toPath().resolve("payments.bin");
+        final int currencyCode = CurrencyCode.pack("EUR");
+        try (BinaryPaymentWriter writer = new BinaryPaymentWriter(binaryPath, false)) {
+            for (int i = 0; i < 300_000; i++) {
+                writer.write(currencyCode, 150, 2, 0);
+            }
+            // invalid record - minor units do not match scale 0
+            writer.write(currencyCode, 150, 0, 0);
+        }
+
+        new BinaryFilePaymentReader(binaryPath, inputPaymentEventsQueue::put, new ForkJoinPool(2), Level.OFF).readFileInput();
+
+        assertThat(inputPaymentEventsQueue.poll().getTransactionLedger().getPaymentBalances(),
+                is(Map.of("EUR", Money.parse("450000.00"))));
+    }
+
+    @Test
+    public void readFileInput_withTextFile_shouldQueueNothing() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments");
+        Files.write(path, "USD 1000\nHKD 100\nUSD -100\nRMB 2000\n".getBytes(StandardCharsets.US_ASCII));
+
+        new BinaryFilePaymentReader(path, inputPaymentEventsQueue::put, Level.OFF).readFileInput();
+
+        assertThat(inputPaymentEventsQueue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void readFileInput_withIncompleteLastRecord_shouldSkipIt() throws IOException {
+        final Path binaryPath = temporaryFolder.getRoot().toPath().resolve("payments.bin");
+        try (BinaryPaymentWriter writer = new BinaryPaymentWriter(binaryPath, false)) {
+            writer.write(Payment.builder().withCurrency("GBP").withAmount(Money.parse("12.3")).build());
+        }
+        Files.write(binaryPath, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+        new BinaryFilePaymentReader(binaryPath, inputPaymentEventsQueue::put, Level.OFF).readFileInput();
+
+        assertThat(inputPaymentEventsQueue.poll().getTransactionLedger().getPaymentBalances(), is(Map.of("GBP", Money.parse("12.3"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_withAmountOutOfMinorUnitsRange_shouldFail() throws IOException {
+        try (BinaryPaymentWriter writer = new BinaryPaymentWriter(temporaryFolder.getRoot().toPath().resolve("payments.bin"), false)) {
+            writer.write(Payment.builder().withCurrency("GBP").withAmount(Money.parse("1000000000000000000000")).build());
+        }
+    }
+}
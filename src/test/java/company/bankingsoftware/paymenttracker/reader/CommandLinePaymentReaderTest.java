@@ -2,6 +2,7 @@ package company.bankingsoftware.paymenttracker.reader;
 
 import company.bankingsoftware.paymenttracker.model.Payment;
 import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -10,8 +11,12 @@ import org.mockito.MockitoAnnotations;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.logging.Level;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -26,7 +31,7 @@ public class CommandLinePaymentReaderTest {
     private CommandLinePaymentReader commandLinePaymentReader;
 
     @Mock
-    private BlockingQueue<PaymentEvent> inputPaymentEventsQueueMock;
+    private PaymentEventPublisher inputPaymentEventsQueueMock;
     @Mock
     private PaymentParser paymentParserMock;
     @Mock
@@ -44,12 +49,12 @@ public class CommandLinePaymentReaderTest {
         commandLinePaymentReader = new CommandLinePaymentReader(inputStream, inputPaymentEventsQueueMock, paymentParserMock, Level.OFF);
         commandLinePaymentReader.readCommandLineInput();
 
-        Mockito.verify(paymentParserMock, Mockito.never()).toPayment(QUIT_COMMAND);
+        Mockito.verify(paymentParserMock, Mockito.never()).toPayment(Mockito.any(CharSequence.class));
     }
 
     @Test
     public void readCommandLineInput_withValidPaymentAndQuitCommand_shouldParsePaymentAndShouldQuit() throws ParseException {
-        Mockito.when(paymentParserMock.toPayment(USD_1000)).thenReturn(Payment.builder().build());
+        final List<String> paymentLines = stubParsedPaymentLines();
         final InputStream inputStream = new ByteArrayInputStream(
                 String.join(System.lineSeparator(), USD_1000, QUIT_COMMAND).getBytes()
         );
@@ -57,12 +62,13 @@ public class CommandLinePaymentReaderTest {
         commandLinePaymentReader = new CommandLinePaymentReader(inputStream, inputPaymentEventsQueueMock, paymentParserMock, Level.OFF);
         commandLinePaymentReader.readCommandLineInput();
 
-        Mockito.verify(paymentParserMock, Mockito.times(1)).toPayment(USD_1000);
+        assertThat(paymentLines, is(List.of(USD_1000)));
     }
 
     @Test
     public void readCommandLineInput_withInvalidPaymentAndQuitCommand_shouldParsePaymentAndShouldQuit() throws ParseException {
         // This behavior is based on assumption
+        final List<String> paymentLines = stubParsedPaymentLines();
         final InputStream inputStream = new ByteArrayInputStream(
                 String.join(System.lineSeparator(), US_1000, QUIT_COMMAND).getBytes()
         );
@@ -70,12 +76,62 @@ public class CommandLinePaymentReaderTest {
         commandLinePaymentReader = new CommandLinePaymentReader(inputStream, inputPaymentEventsQueueMock, paymentParserMock, Level.OFF);
         commandLinePaymentReader.readCommandLineInput();
 
-        Mockito.verify(paymentParserMock, Mockito.times(1)).toPayment(US_1000);
+        assertThat(paymentLines, is(List.of(US_1000)));
+    }
+
+    @Test
+    public void readCommandLineInput_withPipedLines_shouldQueuePaymentsUntilQuitCommand() {
+        final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+        final InputStream inputStream = new ByteArrayInputStream(
+                "USD 100\r\nHKD 200\nUSD 1000000000000000000000\nCZK -5.50\nquit\nGBP 1\n".getBytes(StandardCharsets.US_ASCII));
+
+        commandLinePaymentReader = new CommandLinePaymentReader(
+                inputStream, inputPaymentEventsQueue::put, new SinglePassPaymentParser(), null, 16, Level.OFF);
+        commandLinePaymentReader.readCommandLineInput();
+
+        final List<String> payments = new ArrayList<>();
+        for (PaymentEvent paymentEvent : inputPaymentEventsQueue) {
+            payments.add(paymentEvent.getPayment().getCurrency() + " " + paymentEvent.getPayment().getAmount().toPlainString());
+        }
+        assertThat(payments, is(List.of("USD 100", "HKD 200", "CZK -5.50")));
+    }
+
+    @Test
+    public void readCommandLineInput_withCarriageReturnLineEnds_shouldQueuePaymentOfEveryLine() {
+        final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+        // \r\n of the first line is split between two blocks
+        final InputStream inputStream = new ByteArrayInputStream(
+                "USD 100\r\nHKD 200\rCZK -5\r\rGBP 1\r".getBytes(StandardCharsets.US_ASCII));
+        final List<String> paymentLines = new ArrayList<>();
+
+        commandLinePaymentReader = new CommandLinePaymentReader(
+                inputStream, inputPaymentEventsQueue::put, new SinglePassPaymentParser() {
+                    @Override
+                    public Payment toPayment(CharSequence paymentLine) throws ParseException {
+                        paymentLines.add(paymentLine.toString());
+                        return super.toPayment(paymentLine);
+                    }
+                }, null, 8, Level.OFF);
+        commandLinePaymentReader.readCommandLineInput();
+
+        assertThat(paymentLines, is(List.of("USD 100", "HKD 200", "CZK -5", "", "GBP 1")));
+        assertThat(inputPaymentEventsQueue.size(), is(4));
+    }
+
+    @Test
+    public void readCommandLineInput_withLastLineWithoutLineEnd_shouldQueueIt() {
+        final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+        final InputStream inputStream = new ByteArrayInputStream("USD 100\nHKD 200".getBytes(StandardCharsets.US_ASCII));
+
+        commandLinePaymentReader = new CommandLinePaymentReader(inputStream, inputPaymentEventsQueue::put, new SinglePassPaymentParser(), Level.OFF);
+        commandLinePaymentReader.readCommandLineInput();
+
+        assertThat(inputPaymentEventsQueue.size(), is(2));
     }
 
     @Test
     public void parsePaymentEvent_withValidPaymentEvent_shouldAddPaymentEvent() throws ParseException {
-        Mockito.when(paymentParserMock.toPayment(USD_1000)).thenReturn(Payment.builder().build());
+        Mockito.when(paymentParserMock.toPayment(Mockito.<CharSequence>eq(USD_1000))).thenReturn(Payment.builder().build());
 
         commandLinePaymentReader = new CommandLinePaymentReader(inputStreamMock, inputPaymentEventsQueueMock, paymentParserMock, Level.OFF);
         PaymentEvent paymentEvent = commandLinePaymentReader.parsePaymentEvent(USD_1000);
@@ -86,7 +142,7 @@ public class CommandLinePaymentReaderTest {
 
     @Test
     public void parsePaymentEvent_withInvalidPaymentEvent_shouldReturnNull() throws ParseException {
-        Mockito.when(paymentParserMock.toPayment(US_1000)).thenThrow(ParseException.class);
+        Mockito.when(paymentParserMock.toPayment(Mockito.<CharSequence>eq(US_1000))).thenThrow(ParseException.class);
 
         commandLinePaymentReader = new CommandLinePaymentReader(inputStreamMock, inputPaymentEventsQueueMock, paymentParserMock, Level.OFF);
 
@@ -108,4 +164,18 @@ public class CommandLinePaymentReaderTest {
 
         Mockito.verify(inputPaymentEventsQueueMock, Mockito.never()).put(Mockito.any());
     }
+
+    /**
+     * Stubs the parser to record the parsed lines, the reader passes every line as the same reused char sequence,
+     * so the line is copied when it is parsed.
+     * @return parsed payment lines
+     */
+    private List<String> stubParsedPaymentLines() throws ParseException {
+        final List<String> paymentLines = new ArrayList<>();
+        Mockito.when(paymentParserMock.toPayment(Mockito.any(CharSequence.class))).thenAnswer(invocation -> {
+            paymentLines.add(invocation.getArgument(0).toString());
+            return Payment.builder().build();
+        });
+        return paymentLines;
+    }
 }
@@ -0,0 +1,168 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class DirectoryWatchPaymentReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+
+    @Test
+    public void readDirectoryInput_withFiles_shouldQueueEveryFileAsOneMerge() throws IOException, InterruptedException {
+        final Path directory = temporaryFolder.getRoot().toPath();
+        write(directory.resolve("payments-1"), "USD 100\r\n\nHKD 200\n");
+        write(directory.resolve("payments-2"), "USD -50\nCZK 1.50");
+        write(directory.resolve("payments-3.part"), "GBP 1\n");
+        write(directory.resolve(".hidden"), "GBP 2\n");
+
+        assertThat(directoryWatchPaymentReader(directory).readDirectoryInput(), is(2));
+
+        assertThat(inputPaymentEventsQueue.size(), is(2));
+        assertThat(drainPaymentBalances(), is(Map.of(
+                "USD", Money.parse("50"), "HKD", Money.parse("200"), "CZK", Money.parse("1.50"))));
+        assertThat(new HashSet<>(Files.readAllLines(directory.resolve(DirectoryWatchPaymentReader.DONE_FILE_NAME))),
+                is(Set.of("payments-1", "payments-2")));
+    }
+
+    @Test
+    public void readDirectoryInput_withDoneFiles_shouldSkipThem() throws IOException, InterruptedException {
+        final Path directory = temporaryFolder.getRoot().toPath();
+        write(directory.resolve("payments-1"), "USD 100\n");
+        directoryWatchPaymentReader(directory).readDirectoryInput();
+        inputPaymentEventsQueue.clear();
+
+        write(directory.resolve("payments-2"), "HKD 200\n");
+        assertThat(directoryWatchPaymentReader(directory).readDirectoryInput(), is(1));
+
+        assertThat(drainPaymentBalances(), is(Map.of("HKD", Money.parse("200"))));
+    }
+
+    @Test
+    public void readDirectoryInput_withNotCommittedMerge_shouldRecordFileDoneOnceCommitted() throws Exception {
+        final Path directory = temporaryFolder.getRoot().toPath();
+        write(directory.resolve("payments-1"), "USD 100\n");
+        final DirectoryWatchPaymentReader directoryWatchPaymentReader = new DirectoryWatchPaymentReader(
+                directory, inputPaymentEventsQueue::put, new SinglePassPaymentParser(), HashMapTransactionLedger::new, true, 2, Level.OFF);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Integer> reader = executorService.submit(directoryWatchPaymentReader::readDirectoryInput);
+            assertThat(inputPaymentEventsQueue.poll(10, TimeUnit.SECONDS).getPaymentEventType(), is(PaymentEvent.PaymentEventType.MERGE));
+            final PaymentEvent commitPaymentEvent = inputPaymentEventsQueue.poll(10, TimeUnit.SECONDS);
+            assertThat(Files.readAllLines(directory.resolve(DirectoryWatchPaymentReader.DONE_FILE_NAME)).isEmpty(), is(true));
+
+            commitPaymentEvent.getCommitCallback().run();
+
+            assertThat(reader.get(10, TimeUnit.SECONDS), is(1));
+            assertThat(Files.readAllLines(directory.resolve(DirectoryWatchPaymentReader.DONE_FILE_NAME)), is(List.of("payments-1")));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void readDirectoryInput_withoutJournal_shouldNotRecordDoneFiles() throws IOException, InterruptedException {
+        final Path directory = temporaryFolder.getRoot().toPath();
+        write(directory.resolve("payments-1"), "USD 100\n");
+        final DirectoryWatchPaymentReader directoryWatchPaymentReader = new DirectoryWatchPaymentReader(
+                directory, this::publish, new SinglePassPaymentParser(), HashMapTransactionLedger::new, false, 2, Level.OFF);
+
+        assertThat(directoryWatchPaymentReader.readDirectoryInput(), is(1));
+
+        assertThat(drainPaymentBalances(), is(Map.of("USD", Money.parse("100"))));
+        assertThat(Files.exists(directory.resolve(DirectoryWatchPaymentReader.DONE_FILE_NAME)), is(false));
+    }
+
+    @Test
+    public void run_withFileMovedIntoDirectory_shouldQueueIt() throws Exception {
+        final Path directory = temporaryFolder.newFolder("input").toPath();
+        write(directory.resolve("payments-1"), "USD 100\n");
+        final DirectoryWatchPaymentReader directoryWatchPaymentReader = directoryWatchPaymentReader(directory);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> reader = executorService.submit(directoryWatchPaymentReader);
+            assertThat(inputPaymentEventsQueue.poll(10, TimeUnit.SECONDS), is(notNullValue()));
+
+            final Path droppedFile = temporaryFolder.getRoot().toPath().resolve("payments-2");
+            write(droppedFile, "HKD 200\n");
+            Files.move(droppedFile, directory.resolve("payments-2"));
+            final PaymentEvent paymentEvent = inputPaymentEventsQueue.poll(10, TimeUnit.SECONDS);
+
+            directoryWatchPaymentReader.stop();
+            reader.get(10, TimeUnit.SECONDS);
+            assertThat(paymentEvent.getTransactionLedger().getPaymentBalances(), is(Map.of("HKD", Money.parse("200"))));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void parseFile_withLineLongerThanBuffer_shouldFail() throws IOException {
+        final Path directory = temporaryFolder.getRoot().toPath();
+        final Path path = directory.resolve("payments-1");
+        write(path, "USD " + "1".repeat(128 * 1024) + "\n");
+
+        try {
+            directoryWatchPaymentReader(directory).parseFile(path);
+            fail("Line longer than buffer should fail.");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString("longer than"));
+        }
+    }
+
+    private DirectoryWatchPaymentReader directoryWatchPaymentReader(Path directory) {
+        return new DirectoryWatchPaymentReader(
+                directory, this::publish, new SinglePassPaymentParser(), HashMapTransactionLedger::new, true, 2, Level.OFF);
+    }
+
+    /**
+     * Queues payment events, COMMIT events are committed right away like by the transaction ledger service.
+     */
+    private void publish(PaymentEvent paymentEvent) throws InterruptedException {
+        if (paymentEvent.getPaymentEventType() == PaymentEvent.PaymentEventType.COMMIT) {
+            paymentEvent.getCommitCallback().run();
+        } else {
+            inputPaymentEventsQueue.put(paymentEvent);
+        }
+    }
+
+    private static void write(Path path, String paymentLines) throws IOException {
+        Files.write(path, paymentLines.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Map<String, Money> drainPaymentBalances() {
+        final Map<String, Money> paymentBalances = new HashMap<>();
+        for (PaymentEvent paymentEvent; (paymentEvent = inputPaymentEventsQueue.poll()) != null; ) {
+            assertThat(paymentEvent.getPaymentEventType(), is(PaymentEvent.PaymentEventType.MERGE));
+            paymentEvent.getTransactionLedger().getPaymentBalances().forEach((currency, amount) ->
+                    paymentBalances.merge(currency, amount, Money::add));
+        }
+        return paymentBalances;
+    }
+}
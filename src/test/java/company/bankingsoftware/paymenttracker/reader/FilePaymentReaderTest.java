@@ -2,6 +2,7 @@ package company.bankingsoftware.paymenttracker.reader;
 
 import company.bankingsoftware.paymenttracker.model.Payment;
 import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventPublisher;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -12,7 +13,6 @@ import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.ParseException;
-import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -35,7 +35,7 @@ public class FilePaymentReaderTest {
     @Mock
     private Path pathMock;
     @Mock
-    private BlockingQueue<PaymentEvent> inputPaymentEventsQueueMock;
+    private PaymentEventPublisher inputPaymentEventsQueueMock;
     @Mock
     private PaymentParser paymentParserMock;
 
@@ -0,0 +1,187 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class FollowingFilePaymentReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+
+    @Test
+    public void readAppendedData_withAppendedLines_shouldReadOnlyNewCompleteLines() throws IOException, InterruptedException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments");
+        final FollowingFilePaymentReader followingFilePaymentReader = followingFilePaymentReader(path, 1024);
+
+        assertThat(followingFilePaymentReader.readAppendedData(), is(false));
+
+        append(path, "USD 100\nHKD 2");
+        followingFilePaymentReader.readAppendedData();
+        assertThat(drainPayments(), is(List.of("USD 100")));
+
+        append(path, "00\r\n\nCZK -5.50\n");
+        followingFilePaymentReader.readAppendedData();
+        assertThat(drainPayments(), is(List.of("HKD 200", "CZK -5.50")));
+        assertThat(followingFilePaymentReader.readAppendedData(), is(false));
+    }
+
+    @Test
+    public void readAppendedData_withCarriageReturnLineEnds_shouldReadEveryLine() throws IOException, InterruptedException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments");
+        final FollowingFilePaymentReader followingFilePaymentReader = followingFilePaymentReader(path, 1024);
+
+        append(path, "USD 100\rHKD 200\r");
+        followingFilePaymentReader.readAppendedData();
+        assertThat(drainPayments(), is(List.of("USD 100", "HKD 200")));
+
+        // \n of \r\n appended later
+        append(path, "\nCZK -5.50\r");
+        followingFilePaymentReader.readAppendedData();
+        assertThat(drainPayments(), is(List.of("CZK -5.50")));
+        assertThat(followingFilePaymentReader.getOffset(), is(Files.size(path)));
+    }
+
+    @Test
+    public void readAppendedData_withCommittedOffset_shouldResumeAfterLastCommittedLine() throws IOException, InterruptedException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments");
+        append(path, "USD 100\nHKD 2");
+        final FollowingFilePaymentReader followingFilePaymentReader = followingFilePaymentReader(path, 1024, true);
+        followingFilePaymentReader.readAppendedData();
+        followingFilePaymentReader.commitOffset();
+        // runs the callback of the COMMIT event like the transaction ledger service after the journal commit
+        drainPayments();
+        followingFilePaymentReader.commitOffset();
+
+        append(path, "00\nGBP 1\n");
+        final FollowingFilePaymentReader restartedFollowingFilePaymentReader = followingFilePaymentReader(path, 1024, true);
+        restartedFollowingFilePaymentReader.readAppendedData();
+
+        assertThat(drainPayments(), is(List.of("HKD 200", "GBP 1")));
+        assertThat(restartedFollowingFilePaymentReader.getOffset(), is(Files.size(path)));
+    }
+
+    @Test
+    public void readAppendedData_withNotCommittedOffset_shouldResumeAfterLastCommittedLine() throws IOException, InterruptedException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments");
+        append(path, "USD 100\n");
+        final FollowingFilePaymentReader followingFilePaymentReader = followingFilePaymentReader(path, 1024, true);
+        followingFilePaymentReader.readAppendedData();
+        followingFilePaymentReader.commitOffset();
+        drainPayments();
+        followingFilePaymentReader.commitOffset();
+
+        append(path, "HKD 200\n");
+        followingFilePaymentReader.readAppendedData();
+        followingFilePaymentReader.commitOffset();
+        // crash before the journal committed HKD 200
+        inputPaymentEventsQueue.clear();
+        followingFilePaymentReader.commitOffset();
+
+        followingFilePaymentReader(path, 1024, true).readAppendedData();
+
+        assertThat(drainPayments(), is(List.of("HKD 200")));
+    }
+
+    @Test
+    public void readAppendedData_withoutJournal_shouldNotStoreOffset() throws IOException, InterruptedException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments");
+        append(path, "USD 100\n");
+        final FollowingFilePaymentReader followingFilePaymentReader = followingFilePaymentReader(path, 1024);
+        followingFilePaymentReader.readAppendedData();
+        followingFilePaymentReader.commitOffset();
+
+        assertThat(drainPayments(), is(List.of("USD 100")));
+        assertThat(Files.exists(path.resolveSibling("payments" + FollowingFilePaymentReader.OFFSET_FILE_SUFFIX)), is(false));
+    }
+
+    @Test
+    public void readAppendedData_withTruncatedFile_shouldReadItFromStart() throws IOException, InterruptedException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments");
+        final FollowingFilePaymentReader followingFilePaymentReader = followingFilePaymentReader(path, 1024);
+        append(path, "USD 100\nHKD 200\n");
+        followingFilePaymentReader.readAppendedData();
+        drainPayments();
+
+        Files.write(path, "EUR 1\n".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.TRUNCATE_EXISTING);
+        while (followingFilePaymentReader.readAppendedData()) {
+            // reads until there are no new data
+        }
+
+        assertThat(drainPayments(), is(List.of("EUR 1")));
+    }
+
+    @Test
+    public void readAppendedData_withRotatedFile_shouldReadRestOfOldFileAndNewFileFromStart() throws IOException, InterruptedException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments");
+        final FollowingFilePaymentReader followingFilePaymentReader = followingFilePaymentReader(path, 1024);
+        append(path, "USD 100\n");
+        followingFilePaymentReader.readAppendedData();
+        drainPayments();
+
+        append(path, "HKD 200\nRMB 3");
+        Files.move(path, path.resolveSibling("payments.1"));
+        append(path, "GBP 4\n");
+        while (followingFilePaymentReader.readAppendedData()) {
+            // reads until there are no new data
+        }
+
+        assertThat(drainPayments(), is(List.of("HKD 200", "RMB 3", "GBP 4")));
+    }
+
+    @Test
+    public void readAppendedData_withLineLongerThanBuffer_shouldSkipIt() throws IOException, InterruptedException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments");
+        final FollowingFilePaymentReader followingFilePaymentReader = followingFilePaymentReader(path, 16);
+        append(path, "USD 100\nUSD 1000000000000000000000\nGBP 1\n");
+        while (followingFilePaymentReader.readAppendedData()) {
+            // reads until there are no new data
+        }
+
+        assertThat(drainPayments(), is(List.of("USD 100", "GBP 1")));
+    }
+
+    private FollowingFilePaymentReader followingFilePaymentReader(Path path, int bufferSize) {
+        return followingFilePaymentReader(path, bufferSize, false);
+    }
+
+    private FollowingFilePaymentReader followingFilePaymentReader(Path path, int bufferSize, boolean journaled) {
+        return new FollowingFilePaymentReader(
+                path, inputPaymentEventsQueue::put, new SinglePassPaymentParser(), null, journaled, 10, bufferSize, Level.OFF);
+    }
+
+    private static void append(Path path, String paymentLines) throws IOException {
+        Files.write(path, paymentLines.getBytes(StandardCharsets.US_ASCII), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private List<String> drainPayments() {
+        final List<String> payments = new ArrayList<>();
+        for (PaymentEvent paymentEvent; (paymentEvent = inputPaymentEventsQueue.poll()) != null; ) {
+            if (paymentEvent.getPaymentEventType() == PaymentEvent.PaymentEventType.COMMIT) {
+                paymentEvent.getCommitCallback().run();
+                continue;
+            }
+            final Money amount = paymentEvent.getPayment().getAmount();
+            payments.add(paymentEvent.getPayment().getCurrency() + " " + amount.toPlainString());
+        }
+        return payments;
+    }
+}
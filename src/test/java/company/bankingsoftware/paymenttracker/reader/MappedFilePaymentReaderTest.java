@@ -0,0 +1,112 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.DenseTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import company.bankingsoftware.paymenttracker.model.TransactionLedger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class MappedFilePaymentReaderTest {
+
+    private static final String NOT_EXISTING_FILE = "not-existing-file";
+    private static final String EMPTY_FILE = "empty-file";
+    private static final String EMPTY_LINES_FILE = "empty-lines-file";
+    private static final String[] CURRENCIES = {"USD", "HKD", "RMB", "CZK", "GBP", "EUR"};
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+
+    @Test
+    public void readFileInput_withNonExistingFile_shouldNotQueueAnything() {
+        new MappedFilePaymentReader(Paths.get(NOT_EXISTING_FILE), inputPaymentEventsQueue::put, new SinglePassPaymentParser(), Level.OFF)
+                .readFileInput();
+
+        assertThat(inputPaymentEventsQueue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void readFileInput_withEmptyFile_shouldNotQueueAnything() throws URISyntaxException {
+        new MappedFilePaymentReader(resource(EMPTY_FILE), inputPaymentEventsQueue::put, new SinglePassPaymentParser(), Level.OFF)
+                .readFileInput();
+
+        assertThat(inputPaymentEventsQueue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void readFileInput_withEmptyLines_shouldQueueSingleMergeEvent() throws URISyntaxException {
+        new MappedFilePaymentReader(resource(EMPTY_LINES_FILE), inputPaymentEventsQueue::put, new SinglePassPaymentParser(), Level.OFF)
+                .readFileInput();
+
+        final PaymentEvent paymentEvent = inputPaymentEventsQueue.poll();
+        assertThat(paymentEvent.getPaymentEventType(), is(PaymentEvent.PaymentEventType.MERGE));
+        assertThat(paymentEvent.getTransactionLedger().getPaymentBalances().get("USD"), is(Money.valueOf(3000)));
+        assertThat(inputPaymentEventsQueue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void readFileInput_withManySmallChunks_shouldReturnSameBalancesAsSequentialReader() throws IOException {
+        final Path path = writeRandomPaymentFile(20_000);
+
+        new MappedFilePaymentReader(path, inputPaymentEventsQueue::put, new RegexPaymentParser(), DenseTransactionLedger::new, new ForkJoinPool(4), 512, Level.OFF)
+                .readFileInput();
+        final Map<String, Money> mappedBalances = inputPaymentEventsQueue.poll().getTransactionLedger().getPaymentBalances();
+
+        new FilePaymentReader(path, inputPaymentEventsQueue::put, new RegexPaymentParser(), Level.OFF).readFileInput();
+        final TransactionLedger sequentialTransactionLedger = new HashMapTransactionLedger();
+        inputPaymentEventsQueue.forEach(paymentEvent -> sequentialTransactionLedger.addPayment(paymentEvent.getPayment()));
+
+        assertThat(mappedBalances, is(sequentialTransactionLedger.getPaymentBalances()));
+    }
+
+    private Path resource(String name) throws URISyntaxException {
+        return Paths.get(this.getClass().getClassLoader().getResource(name).toURI());
+    }
+
+    // mix of valid, invalid and empty lines with different line terminators
+    private Path writeRandomPaymentFile(int lines) throws IOException {
+        final Random random = new Random(42);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            switch (random.nextInt(10)) {
+                case 0:
+                    sb.append("US 100");
+                    break;
+                case 1:
+                    break;
+                default:
+                    sb.append(CURRENCIES[random.nextInt(CURRENCIES.length)])
+                            .append(' ')
+                            .append(random.nextInt(2_000_000) - 1_000_000);
+                    if (random.nextBoolean()) {
+                        sb.append('.').append(random.nextInt(100));
+                    }
+            }
+            sb.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+        }
+
+        final Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, sb.toString().getBytes(StandardCharsets.US_ASCII));
+        return path;
+    }
+}
@@ -0,0 +1,72 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class PaymentEventBatcherTest {
+
+    private static final long LONG_FLUSH_TIMEOUT = 60_000;
+
+    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+
+    @Test
+    public void add_withLessPaymentsThanBatchSize_shouldNotQueueAnything() {
+        final PaymentEventBatcher paymentEventBatcher = new PaymentEventBatcher(inputPaymentEventsQueue::put, 3, LONG_FLUSH_TIMEOUT, Level.OFF);
+        paymentEventBatcher.add(payment(1));
+        paymentEventBatcher.add(payment(2));
+        paymentEventBatcher.flushIfExpired();
+
+        assertThat(inputPaymentEventsQueue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void add_withFullBatch_shouldQueueBatchInInputOrder() {
+        final PaymentEventBatcher paymentEventBatcher = new PaymentEventBatcher(inputPaymentEventsQueue::put, 2, LONG_FLUSH_TIMEOUT, Level.OFF);
+        final Payment first = payment(1);
+        final Payment second = payment(2);
+        paymentEventBatcher.add(first);
+        paymentEventBatcher.add(second);
+        paymentEventBatcher.add(payment(3));
+
+        final PaymentEvent paymentEvent = inputPaymentEventsQueue.poll();
+        assertThat(paymentEvent.getPaymentEventType(), is(PaymentEvent.PaymentEventType.ADD_BATCH));
+        assertThat(paymentEvent.getPayments().size(), is(2));
+        assertThat(paymentEvent.getPayments().get(0), is(first));
+        assertThat(paymentEvent.getPayments().get(1), is(second));
+        assertThat(inputPaymentEventsQueue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void flush_withPendingPayments_shouldQueueThemAndStartNewBatch() {
+        final PaymentEventBatcher paymentEventBatcher = new PaymentEventBatcher(inputPaymentEventsQueue::put, 10, LONG_FLUSH_TIMEOUT, Level.OFF);
+        paymentEventBatcher.add(payment(1));
+        paymentEventBatcher.flush();
+        paymentEventBatcher.flush();
+
+        assertThat(inputPaymentEventsQueue.size(), is(1));
+        assertThat(inputPaymentEventsQueue.poll().getPayments().size(), is(1));
+    }
+
+    @Test
+    public void run_withExpiredBatch_shouldQueueBatch() throws InterruptedException {
+        final PaymentEventBatcher paymentEventBatcher = new PaymentEventBatcher(inputPaymentEventsQueue::put, 10, 1, Level.OFF);
+        paymentEventBatcher.add(payment(1));
+        Thread.sleep(5);
+        paymentEventBatcher.run();
+
+        assertThat(inputPaymentEventsQueue.size(), is(1));
+    }
+
+    private static Payment payment(long amount) {
+        return Payment.builder().withCurrency("USD").withAmount(Money.valueOf(amount)).build();
+    }
+}
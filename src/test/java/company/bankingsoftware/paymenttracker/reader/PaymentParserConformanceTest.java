@@ -0,0 +1,170 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockitoAnnotations;
+
+import java.text.ParseException;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Conformance tests every payment parser implementation has to pass.
+ */
+public abstract class PaymentParserConformanceTest {
+
+    private PaymentParser paymentParser;
+
+    protected abstract PaymentParser createPaymentParser();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        paymentParser = createPaymentParser();
+    }
+
+    @Test
+    public void toPayment_withValidPaymentLine_shouldReturnPayment() throws ParseException {
+        final Payment payment = paymentParser.toPayment("USD 1000");
+        assertThat(payment.getCurrency(), is("USD"));
+        assertThat(payment.getAmount(), is(Money.valueOf(1000)));
+    }
+
+    @Test
+    public void toPayment_withNegativeValidPaymentLine_shouldReturnPayment() throws ParseException {
+        final Payment payment = paymentParser.toPayment("USD -1000");
+        assertThat(payment.getCurrency(), is("USD"));
+        assertThat(payment.getAmount(), is(Money.valueOf(-1000)));
+    }
+
+    @Test
+    public void toPayment_withNegativeAndDecimalPointValidPaymentLine_shouldReturnPayment() throws ParseException {
+        final Payment payment = paymentParser.toPayment("USD -1000.0");
+        assertThat(payment.getCurrency(), is("USD"));
+        assertThat(payment.getAmount(), is(Money.parse("-1000.0")));
+    }
+
+    @Test
+    public void toPayment_withSmallAmountPaymentLine_shouldReturnPayment() throws ParseException {
+        final Payment payment = paymentParser.toPayment("USD 1");
+        assertThat(payment.getCurrency(), is("USD"));
+        assertThat(payment.getAmount(), is(Money.valueOf(1)));
+    }
+
+    @Test
+    public void toPayment_withTwoDecimalDigitsPaymentLine_shouldReturnPaymentWithScale() throws ParseException {
+        final Payment payment = paymentParser.toPayment("CZK 10.05");
+        assertThat(payment.getCurrency(), is("CZK"));
+        assertThat(payment.getAmount(), is(Money.parse("10.05")));
+    }
+
+    @Test
+    public void toPayment_withOneDecimalDigitPaymentLine_shouldKeepScale() throws ParseException {
+        assertThat(paymentParser.toPayment("CZK 10.0").getAmount(), is(Money.parse("10.0")));
+    }
+
+    @Test
+    public void toPayment_withLeadingZerosPaymentLine_shouldReturnPayment() throws ParseException {
+        assertThat(paymentParser.toPayment("CZK -007.50").getAmount(), is(Money.parse("-7.50")));
+    }
+
+    @Test
+    public void toPayment_withNegativeZeroPaymentLine_shouldReturnZero() throws ParseException {
+        assertThat(paymentParser.toPayment("CZK -0.00").getAmount(), is(Money.parse("0.00")));
+    }
+
+    @Test
+    public void toPayment_withMultipleAndTabWhitespacesPaymentLine_shouldReturnPayment() throws ParseException {
+        final Payment payment = paymentParser.toPayment("GBP \t  12.3");
+        assertThat(payment.getCurrency(), is("GBP"));
+        assertThat(payment.getAmount(), is(Money.parse("12.3")));
+    }
+
+    @Test
+    public void toPayment_withAmountOverflowingLongPaymentLine_shouldReturnPayment() throws ParseException {
+        assertThat(
+                paymentParser.toPayment("USD -123456789012345678901234.56").getAmount(),
+                is(Money.parse("-123456789012345678901234.56")));
+    }
+
+    @Test
+    public void toPayment_withCharSequencePaymentLine_shouldReturnSamePaymentAsString() throws ParseException {
+        final Payment payment = paymentParser.toPayment(new StringBuilder("HKD 300.25"));
+        assertThat(payment.getCurrency(), is("HKD"));
+        assertThat(payment.getAmount(), is(Money.parse("300.25")));
+    }
+
+    // negative cases
+    @Test(expected = ParseException.class)
+    public void toPayment_withValidPaymentWithSuffix_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("USD 1000 ABCD1234 aa -100. .");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withValidPaymentWithPrefix_shouldThrowException() throws ParseException {
+        paymentParser.toPayment(" USD 1000");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withInvalidCurrency_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("US 1000");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withAmountAndDecimalPointOnlyInvalidPaymentLine_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("USD 1000.");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withDecimalPointOnlyInvalidPaymentLine_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("USD .");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withNullPaymentLine_shouldThrowException() throws ParseException {
+        paymentParser.toPayment((String) null);
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withEmptyPaymentLine_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withCurrencyOnlyPaymentLine_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("USD ");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withLowerCaseCurrency_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("usd 1000");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withoutWhitespace_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("USD1000");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withThreeDecimalDigits_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("USD 10.001");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withDoubleMinus_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("USD --100");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withMinusOnly_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("USD -");
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withTrailingWhitespace_shouldThrowException() throws ParseException {
+        paymentParser.toPayment("USD 100 ");
+    }
+}
@@ -0,0 +1,51 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class SinglePassPaymentParserTest extends PaymentParserConformanceTest {
+
+    private static final byte[] PAYMENT_LINES = "USD 1000\nRMB -2000.5\nUS 100\n".getBytes(StandardCharsets.US_ASCII);
+
+    @Override
+    protected PaymentParser createPaymentParser() {
+        return new SinglePassPaymentParser();
+    }
+
+    @Test
+    public void toPayment_withByteRangeView_shouldParseOnlyTheRange() throws ParseException {
+        final SinglePassPaymentParser singlePassPaymentParser = new SinglePassPaymentParser();
+        final AsciiCharSequence paymentLine = new AsciiCharSequence();
+        final ByteBuffer buffer = ByteBuffer.wrap(PAYMENT_LINES);
+
+        final Payment usdPayment = singlePassPaymentParser.toPayment(paymentLine.wrap(buffer, 0, 8));
+        final Payment rmbPayment = singlePassPaymentParser.toPayment(paymentLine.wrap(buffer, 9, 20));
+
+        assertThat(usdPayment.getCurrency(), is("USD"));
+        assertThat(usdPayment.getAmount(), is(Money.valueOf(1000)));
+        assertThat(rmbPayment.getCurrency(), is("RMB"));
+        assertThat(rmbPayment.getAmount(), is(Money.parse("-2000.5")));
+    }
+
+    @Test(expected = ParseException.class)
+    public void toPayment_withInvalidByteRangeView_shouldThrowException() throws ParseException {
+        new SinglePassPaymentParser().toPayment(new AsciiCharSequence().wrap(ByteBuffer.wrap(PAYMENT_LINES), 21, 27));
+    }
+
+    @Test
+    public void toPayment_withSameCurrencyTwice_shouldReuseCurrencyInstance() throws ParseException {
+        final SinglePassPaymentParser singlePassPaymentParser = new SinglePassPaymentParser();
+
+        assertThat(
+                singlePassPaymentParser.toPayment("EUR 1").getCurrency(),
+                is(sameInstance(singlePassPaymentParser.toPayment("EUR 2").getCurrency())));
+    }
+}
@@ -0,0 +1,143 @@
+package company.bankingsoftware.paymenttracker.reader;
+
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.PaymentEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class SocketPaymentReaderTest {
+
+    private final BlockingQueue<PaymentEvent> inputPaymentEventsQueue = new LinkedBlockingQueue<>();
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    @Before
+    public void setUp() {
+        inputPaymentEventsQueue.clear();
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void run_withConnections_shouldQueuePaymentsOfEveryConnectionInOrder() throws Exception {
+        final SocketPaymentReader socketPaymentReader = new SocketPaymentReader(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), inputPaymentEventsQueue::put, new SinglePassPaymentParser(), 16, Level.OFF);
+        final Future<?> reader = executorService.submit(socketPaymentReader);
+
+        try (SocketChannel first = SocketChannel.open(socketPaymentReader.getLocalAddress());
+             SocketChannel second = SocketChannel.open(socketPaymentReader.getLocalAddress())) {
+            write(first, "USD 100\r\nHKD 2");
+            write(second, "GBP 1\rUSD 1000000000000000000000\r\nGBP 2\r");
+            write(first, "00\n\nCZK -5.50");
+        }
+        final List<String> payments = takePayments(5);
+
+        socketPaymentReader.stop();
+        reader.get(10, TimeUnit.SECONDS);
+        assertThat(payments.indexOf("USD 100") < payments.indexOf("HKD 200"), is(true));
+        assertThat(payments.indexOf("HKD 200") < payments.indexOf("CZK -5.50"), is(true));
+        assertThat(payments.indexOf("GBP 1") < payments.indexOf("GBP 2"), is(true));
+        assertThat(payments.size(), is(5));
+    }
+
+    @Test
+    public void run_withFullInputQueue_shouldStopReadingTheConnection() throws Exception {
+        final CountDownLatch queueFull = new CountDownLatch(1);
+        final BlockingQueue<PaymentEvent> paymentEvents = new LinkedBlockingQueue<>();
+        final SocketPaymentReader socketPaymentReader = new SocketPaymentReader(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                paymentEvent -> {
+                    queueFull.await();
+                    paymentEvents.put(paymentEvent);
+                },
+                new SinglePassPaymentParser(), 1024, Level.OFF);
+        final Future<?> reader = executorService.submit(socketPaymentReader);
+
+        long sentPayments = 0;
+        try (SocketChannel socketChannel = SocketChannel.open(socketPaymentReader.getLocalAddress())) {
+            socketChannel.configureBlocking(false);
+            final ByteBuffer paymentLines = ByteBuffer.wrap("USD 1\n".repeat(1024).getBytes(StandardCharsets.US_ASCII));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            int notWrittenAttempts = 0;
+            // socket buffers fill up, because the reader does not read while its batch waits
+            while (notWrittenAttempts < 100 && System.nanoTime() < deadline) {
+                if (socketChannel.write(paymentLines) == 0) {
+                    notWrittenAttempts++;
+                    Thread.sleep(1);
+                } else {
+                    notWrittenAttempts = 0;
+                }
+                if (!paymentLines.hasRemaining()) {
+                    sentPayments += 1024;
+                    paymentLines.clear();
+                }
+            }
+            assertThat(notWrittenAttempts, is(100));
+
+            queueFull.countDown();
+            socketChannel.configureBlocking(true);
+            while (paymentLines.hasRemaining()) {
+                socketChannel.write(paymentLines);
+            }
+            sentPayments += 1024;
+        }
+
+        Money total = Money.ZERO;
+        while (total.toBigDecimal().longValue() < sentPayments) {
+            final PaymentEvent paymentEvent = paymentEvents.poll(10, TimeUnit.SECONDS);
+            assertThat(paymentEvent, is(notNullValue()));
+            for (Payment payment : paymentEvent.getPayments()) {
+                total = total.add(payment.getAmount());
+            }
+        }
+        socketPaymentReader.stop();
+        reader.get(10, TimeUnit.SECONDS);
+        assertThat(total.toBigDecimal().longValue(), is(sentPayments));
+    }
+
+    private static void write(SocketChannel socketChannel, String paymentLines) throws IOException, InterruptedException {
+        final ByteBuffer buffer = ByteBuffer.wrap(paymentLines.getBytes(StandardCharsets.US_ASCII));
+        while (buffer.hasRemaining()) {
+            socketChannel.write(buffer);
+        }
+        // lets the reader read the parts separately
+        Thread.sleep(50);
+    }
+
+    private List<String> takePayments(int count) throws InterruptedException {
+        final List<String> payments = new ArrayList<>();
+        while (payments.size() < count) {
+            final PaymentEvent paymentEvent = inputPaymentEventsQueue.poll(10, TimeUnit.SECONDS);
+            assertThat(paymentEvent, is(notNullValue()));
+            assertThat(paymentEvent.getPaymentEventType(), is(PaymentEvent.PaymentEventType.ADD_BATCH));
+            for (Payment payment : paymentEvent.getPayments()) {
+                payments.add(payment.getCurrency() + " " + payment.getAmount().toPlainString());
+            }
+        }
+        return payments;
+    }
+}
@@ -1,15 +1,36 @@
 package company.bankingsoftware.paymenttracker.service;
 
+import company.bankingsoftware.paymenttracker.model.Money;
 import company.bankingsoftware.paymenttracker.model.Payment;
 import company.bankingsoftware.paymenttracker.model.PaymentEvent;
-import company.bankingsoftware.paymenttracker.model.TransactionLedger;
+import company.bankingsoftware.paymenttracker.journal.LedgerCheckpoint;
+import company.bankingsoftware.paymenttracker.journal.LedgerCheckpointWriter;
+import company.bankingsoftware.paymenttracker.journal.PaymentJournal;
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+import company.bankingsoftware.paymenttracker.queue.BlockingPaymentEventQueue;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventControlLane;
+import company.bankingsoftware.paymenttracker.queue.PaymentEventQueue;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.logging.Level;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -17,12 +38,15 @@ import static org.junit.Assert.*;
 
 public class InputOutputTransactionLedgerServiceTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private InputOutputTransactionLedgerService transactionLedgerService;
 
     @Mock
-    BlockingQueue<PaymentEvent> inputPaymentEventsQueueMock;
+    PaymentEventQueue inputPaymentEventsQueueMock;
     @Mock
-    BlockingQueue<TransactionLedger> outputTransactionLedgerQueueMock;
+    BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueueMock;
 
     @Before
     public void setUp() {
@@ -37,6 +61,19 @@ public class InputOutputTransactionLedgerServiceTest {
         Mockito.verify(outputTransactionLedgerQueueMock, Mockito.times(1)).put(Mockito.any());
     }
 
+    @Test
+    public void queueTransactionLedger_withMoreOutputs_shouldPutSnapshotsWithIncreasingEpoch() throws InterruptedException {
+        final ArgumentCaptor<TransactionLedgerSnapshot> snapshotCaptor = ArgumentCaptor.forClass(TransactionLedgerSnapshot.class);
+
+        transactionLedgerService = new InputOutputTransactionLedgerService(inputPaymentEventsQueueMock, outputTransactionLedgerQueueMock, Level.OFF);
+        transactionLedgerService.queueTransactionLedger();
+        transactionLedgerService.queueTransactionLedger();
+
+        Mockito.verify(outputTransactionLedgerQueueMock, Mockito.times(2)).put(snapshotCaptor.capture());
+        assertThat(snapshotCaptor.getAllValues().get(0).getEpoch(), is(1L));
+        assertThat(snapshotCaptor.getAllValues().get(1).getEpoch(), is(2L));
+    }
+
     @Test
     public void takeInputPaymentEvent_withInputPaymentEventInQueue_shouldReturnPaymentEvent() throws InterruptedException {
         final PaymentEvent paymentEvent = PaymentEvent.builder().build();
@@ -53,4 +90,249 @@ public class InputOutputTransactionLedgerServiceTest {
         transactionLedgerService = new InputOutputTransactionLedgerService(inputPaymentEventsQueueMock, outputTransactionLedgerQueueMock, Level.OFF);
         assertThat(transactionLedgerService.takeInputPaymentEvent(), is(nullValue()));
     }
+
+    @Test
+    public void takeInputPaymentEvents_withMoreInputPaymentEventsInQueue_shouldDrainThemAfterTheFirstOne() throws InterruptedException {
+        final PaymentEvent paymentEvent = PaymentEvent.builder().build();
+        Mockito.when(inputPaymentEventsQueueMock.take()).thenReturn(paymentEvent);
+
+        transactionLedgerService = new InputOutputTransactionLedgerService(inputPaymentEventsQueueMock, outputTransactionLedgerQueueMock, Level.OFF);
+
+        assertThat(transactionLedgerService.takeInputPaymentEvents(), is(Collections.singletonList(paymentEvent)));
+        Mockito.verify(inputPaymentEventsQueueMock, Mockito.times(1)).drainTo(Mockito.anyCollection(), Mockito.anyInt());
+    }
+
+    @Test
+    public void takeInputPaymentEvents_withNotAbleToTake_shouldNotDrain() throws InterruptedException {
+        Mockito.when(inputPaymentEventsQueueMock.take()).thenThrow(InterruptedException.class);
+
+        transactionLedgerService = new InputOutputTransactionLedgerService(inputPaymentEventsQueueMock, outputTransactionLedgerQueueMock, Level.OFF);
+
+        assertThat(transactionLedgerService.takeInputPaymentEvents().isEmpty(), is(true));
+        Mockito.verify(inputPaymentEventsQueueMock, Mockito.never()).drainTo(Mockito.anyCollection(), Mockito.anyInt());
+    }
+
+    @Test
+    public void handleControlRequests_withMoreOutputRequests_shouldQueueOneSnapshotWithEpochOfTheLastRequest() {
+        final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue = new LinkedBlockingQueue<>();
+        final PaymentEventControlLane paymentEventControlLane = new PaymentEventControlLane();
+        transactionLedgerService = new InputOutputTransactionLedgerService(
+                inputPaymentEventsQueueMock, outputTransactionLedgerQueue, new HashMapTransactionLedger(), paymentEventControlLane, Level.OFF);
+
+        paymentEventControlLane.requestOutput();
+        paymentEventControlLane.requestOutput();
+        transactionLedgerService.handleControlRequests();
+        transactionLedgerService.handleControlRequests();
+
+        assertThat(outputTransactionLedgerQueue.size(), is(1));
+        assertThat(outputTransactionLedgerQueue.poll().getEpoch(), is(2L));
+    }
+
+    @Test
+    public void handleControlRequests_withShutdownRequest_shouldApplyWaitingPaymentEvents() {
+        final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue = new LinkedBlockingQueue<>();
+        final PaymentEventQueue inputPaymentEventsQueue = new BlockingPaymentEventQueue(new LinkedBlockingQueue<>());
+        final PaymentEventControlLane paymentEventControlLane = new PaymentEventControlLane();
+        paymentEventControlLane.register(inputPaymentEventsQueue);
+        transactionLedgerService = new InputOutputTransactionLedgerService(
+                inputPaymentEventsQueue, outputTransactionLedgerQueue, new HashMapTransactionLedger(), paymentEventControlLane, Level.OFF);
+
+        inputPaymentEventsQueue.offer(addPaymentEvent("USD", Money.TEN));
+        inputPaymentEventsQueue.offer(addPaymentEvent("USD", Money.ONE));
+        paymentEventControlLane.requestShutdown();
+        transactionLedgerService.handleControlRequests();
+        transactionLedgerService.queueTransactionLedger();
+
+        final TransactionLedgerSnapshot transactionLedgerSnapshot = outputTransactionLedgerQueue.poll();
+        assertThat(transactionLedgerSnapshot.getPaymentBalances().get("USD"), is(Money.parse("11")));
+        assertThat(transactionLedgerSnapshot.getAppliedPaymentEventCount(), is(2L));
+    }
+
+    @Test
+    public void queueTransactionLedger_withPaymentJournal_shouldCommitAppliedPaymentsBeforeSnapshot() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        final BlockingQueue<TransactionLedgerSnapshot> outputTransactionLedgerQueue = new LinkedBlockingQueue<>();
+        final PaymentEventQueue inputPaymentEventsQueue = new BlockingPaymentEventQueue(new LinkedBlockingQueue<>());
+        final PaymentEventControlLane paymentEventControlLane = new PaymentEventControlLane();
+        final PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF);
+        transactionLedgerService = new InputOutputTransactionLedgerService(
+                inputPaymentEventsQueue, outputTransactionLedgerQueue, new HashMapTransactionLedger(), paymentEventControlLane, paymentJournal, Level.OFF);
+
+        inputPaymentEventsQueue.offer(addPaymentEvent("USD", Money.TEN));
+        inputPaymentEventsQueue.offer(PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.MERGE)
+                .withTransactionLedger(new HashMapTransactionLedger()
+                        .addPayment(Payment.builder().withCurrency("CZK").withAmount(Money.ONE).build()))
+                .build());
+        paymentEventControlLane.requestShutdown();
+        transactionLedgerService.handleControlRequests();
+        transactionLedgerService.queueTransactionLedger();
+
+        final List<Payment> journaledPayments = new ArrayList<>();
+        try (PaymentJournal replayedPaymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF)) {
+            replayedPaymentJournal.replay(journaledPayments::add);
+        }
+        paymentJournal.close();
+        assertThat(journaledPayments.size(), is(2));
+        assertThat(journaledPayments.get(0).getCurrency(), is("USD"));
+        assertThat(journaledPayments.get(1).getCurrency(), is("CZK"));
+    }
+
+    @Test
+    public void run_withFailingPaymentJournal_shouldStop() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        final PaymentEventQueue inputPaymentEventsQueue = new BlockingPaymentEventQueue(new LinkedBlockingQueue<>());
+        final PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF);
+        transactionLedgerService = new InputOutputTransactionLedgerService(
+                inputPaymentEventsQueue, new LinkedBlockingQueue<>(), new HashMapTransactionLedger(), new PaymentEventControlLane(),
+                paymentJournal, Level.OFF);
+
+        // closed channel fails the commit
+        paymentJournal.close();
+        inputPaymentEventsQueue.offer(addPaymentEvent("USD", Money.TEN));
+        try {
+            transactionLedgerService.run();
+            fail("Failed payment journal should stop the service.");
+        } catch (UncheckedIOException e) {
+            assertThat(e.getMessage(), containsString("journal"));
+        }
+    }
+
+    @Test
+    public void run_withPaymentsTooBigForPaymentJournal_shouldSkipThemAndApplyTheOthers() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        final PaymentEventQueue inputPaymentEventsQueue = new BlockingPaymentEventQueue(new LinkedBlockingQueue<>());
+        final HashMapTransactionLedger transactionLedger = new HashMapTransactionLedger();
+        transactionLedgerService = new InputOutputTransactionLedgerService(
+                inputPaymentEventsQueue, new LinkedBlockingQueue<>(), transactionLedger, new PaymentEventControlLane(),
+                new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF), Level.OFF);
+
+        // unscaled amount is longer than 32767 bytes of the journal record
+        final Money tooBigAmount = Money.valueOf(new BigDecimal(new BigInteger("9".repeat(80_000))));
+        inputPaymentEventsQueue.offer(addPaymentEvent("USD", tooBigAmount));
+        inputPaymentEventsQueue.offer(addPaymentEvent("USD", Money.TEN));
+        inputPaymentEventsQueue.offer(PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD_BATCH)
+                .withPayments(List.of(
+                        Payment.builder().withCurrency("USD").withAmount(Money.ONE).build(),
+                        // currency is too long for the journal record
+                        Payment.builder().withCurrency("USD".repeat(100)).withAmount(Money.ONE).build()))
+                .build());
+        inputPaymentEventsQueue.offer(PaymentEvent.builder().withPaymentEventType(PaymentEvent.PaymentEventType.SHUTDOWN).build());
+        transactionLedgerService.run();
+
+        final List<Payment> journaledPayments = new ArrayList<>();
+        try (PaymentJournal replayedPaymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF)) {
+            replayedPaymentJournal.replay(journaledPayments::add);
+        }
+        assertThat(transactionLedger.getPaymentBalances(), is(Map.of("USD", Money.parse("11"))));
+        assertThat(journaledPayments.size(), is(2));
+        assertThat(transactionLedgerService.getAppliedPaymentCount(), is(2L));
+    }
+
+    @Test
+    public void handleControlRequests_withCheckpointRequest_shouldHandOverCheckpointAtJournalPosition() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        final PaymentEventQueue inputPaymentEventsQueue = new BlockingPaymentEventQueue(new LinkedBlockingQueue<>());
+        final PaymentEventControlLane paymentEventControlLane = new PaymentEventControlLane();
+        final List<LedgerCheckpoint> ledgerCheckpoints = new ArrayList<>();
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF)) {
+            transactionLedgerService = InputOutputTransactionLedgerService.builder()
+                    .withInputPaymentEventsQueue(inputPaymentEventsQueue)
+                    .withOutputTransactionLedgerQueue(new LinkedBlockingQueue<>())
+                    .withPaymentEventControlLane(paymentEventControlLane)
+                    .withPaymentJournal(paymentJournal)
+                    .withLedgerCheckpointWriter(new LedgerCheckpointWriter(1, Level.OFF) {
+                        @Override
+                        public boolean offer(LedgerCheckpoint ledgerCheckpoint) {
+                            return ledgerCheckpoints.add(ledgerCheckpoint);
+                        }
+                    })
+                    .build();
+
+            inputPaymentEventsQueue.offer(addPaymentEvent("USD", Money.TEN));
+            paymentEventControlLane.requestShutdown();
+            transactionLedgerService.handleControlRequests();
+            paymentEventControlLane.requestCheckpoint();
+            transactionLedgerService.handleControlRequests();
+            // nothing journaled since the last checkpoint
+            paymentEventControlLane.requestCheckpoint();
+            transactionLedgerService.handleControlRequests();
+
+            assertThat(ledgerCheckpoints.size(), is(1));
+            assertThat(ledgerCheckpoints.get(0).getJournalPosition(), is(paymentJournal.position()));
+            assertThat(ledgerCheckpoints.get(0).getPaymentBalances().get("USD"), is(Money.TEN));
+        }
+    }
+
+    @Test
+    public void handleControlRequests_withBusyCheckpointWriter_shouldOfferCheckpointAtTheSameJournalPositionAgain() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        final PaymentEventQueue inputPaymentEventsQueue = new BlockingPaymentEventQueue(new LinkedBlockingQueue<>());
+        final PaymentEventControlLane paymentEventControlLane = new PaymentEventControlLane();
+        final List<Long> offeredJournalPositions = new ArrayList<>();
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF)) {
+            final LedgerCheckpointWriter ledgerCheckpointWriter = new LedgerCheckpointWriter(1, Level.OFF) {
+                @Override
+                public boolean offer(LedgerCheckpoint ledgerCheckpoint) {
+                    offeredJournalPositions.add(ledgerCheckpoint.getJournalPosition());
+                    return super.offer(ledgerCheckpoint);
+                }
+            };
+            // fills the writer queue, the writer thread is not running
+            ledgerCheckpointWriter.offer(new LedgerCheckpoint(path, 0, Collections.emptyMap()));
+            offeredJournalPositions.clear();
+            transactionLedgerService = InputOutputTransactionLedgerService.builder()
+                    .withInputPaymentEventsQueue(inputPaymentEventsQueue)
+                    .withOutputTransactionLedgerQueue(new LinkedBlockingQueue<>())
+                    .withPaymentEventControlLane(paymentEventControlLane)
+                    .withPaymentJournal(paymentJournal)
+                    .withLedgerCheckpointWriter(ledgerCheckpointWriter)
+                    .build();
+
+            inputPaymentEventsQueue.offer(addPaymentEvent("USD", Money.TEN));
+            paymentEventControlLane.requestShutdown();
+            transactionLedgerService.handleControlRequests();
+            paymentEventControlLane.requestCheckpoint();
+            transactionLedgerService.handleControlRequests();
+            // nothing journaled since the dropped checkpoint
+            paymentEventControlLane.requestCheckpoint();
+            transactionLedgerService.handleControlRequests();
+
+            assertThat(offeredJournalPositions, is(List.of(paymentJournal.position(), paymentJournal.position())));
+        }
+    }
+
+    @Test
+    public void handleControlRequests_withCommitPaymentEvent_shouldRunItsCallbackOnceJournaled() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("payments.journal");
+        final PaymentEventQueue inputPaymentEventsQueue = new BlockingPaymentEventQueue(new LinkedBlockingQueue<>());
+        final PaymentEventControlLane paymentEventControlLane = new PaymentEventControlLane();
+        final long[] committedJournalSize = {-1};
+        try (PaymentJournal paymentJournal = new PaymentJournal(path, PaymentJournal.FsyncPolicy.BATCH, 0, Level.OFF)) {
+            transactionLedgerService = InputOutputTransactionLedgerService.builder()
+                    .withInputPaymentEventsQueue(inputPaymentEventsQueue)
+                    .withOutputTransactionLedgerQueue(new LinkedBlockingQueue<>())
+                    .withPaymentEventControlLane(paymentEventControlLane)
+                    .withPaymentJournal(paymentJournal)
+                    .build();
+
+            inputPaymentEventsQueue.offer(addPaymentEvent("USD", Money.TEN));
+            inputPaymentEventsQueue.offer(PaymentEvent.builder()
+                    .withPaymentEventType(PaymentEvent.PaymentEventType.COMMIT)
+                    .withCommitCallback(() -> committedJournalSize[0] = path.toFile().length())
+                    .build());
+            paymentEventControlLane.requestShutdown();
+            transactionLedgerService.handleControlRequests();
+
+            assertThat(committedJournalSize[0], is(paymentJournal.position()));
+        }
+    }
+
+    private static PaymentEvent addPaymentEvent(String currency, Money amount) {
+        return PaymentEvent.builder()
+                .withPaymentEventType(PaymentEvent.PaymentEventType.ADD)
+                .withPayment(Payment.builder().withCurrency(currency).withAmount(amount).build())
+                .build();
+    }
 }
@@ -0,0 +1,57 @@
+package company.bankingsoftware.paymenttracker.service;
+
+import company.bankingsoftware.paymenttracker.model.HashMapTransactionLedger;
+import company.bankingsoftware.paymenttracker.model.Money;
+import company.bankingsoftware.paymenttracker.model.Payment;
+import company.bankingsoftware.paymenttracker.model.TransactionLedgerSnapshot;
+import company.bankingsoftware.paymenttracker.model.VersionedTransactionLedger;
+import org.junit.Test;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class ShardSnapshotMergerTest {
+
+    private final ShardSnapshotMerger shardSnapshotMerger =
+            new ShardSnapshotMerger(new LinkedBlockingQueue<>(), new LinkedBlockingQueue<>(), 2, Level.OFF);
+
+    @Test
+    public void addShardSnapshot_withMissingShardSnapshot_shouldReturnNull() {
+        assertThat(shardSnapshotMerger.addShardSnapshot(shardSnapshot("USD", Money.TEN, 1)), is(nullValue()));
+    }
+
+    @Test
+    public void addShardSnapshot_withAllShardSnapshotsOfEpoch_shouldCombineThem() {
+        shardSnapshotMerger.addShardSnapshot(shardSnapshot("USD", Money.TEN, 1));
+        final TransactionLedgerSnapshot combinedSnapshot = shardSnapshotMerger.addShardSnapshot(shardSnapshot("CZK", Money.ONE, 2));
+
+        assertThat(combinedSnapshot.getEpoch(), is(1L));
+        assertThat(combinedSnapshot.getAppliedPaymentEventCount(), is(3L));
+        assertThat(combinedSnapshot.getPaymentBalances().get("USD"), is(Money.TEN));
+        assertThat(combinedSnapshot.getPaymentBalances().get("CZK"), is(Money.ONE));
+        assertThat(combinedSnapshot.getPaymentBalances().size(), is(2));
+    }
+
+    @Test
+    public void addShardSnapshot_withNewerEpochComplete_shouldDropOlderIncompleteEpoch() {
+        shardSnapshotMerger.addShardSnapshot(shardSnapshot("USD", Money.TEN, 1, 1));
+        shardSnapshotMerger.addShardSnapshot(shardSnapshot("USD", Money.TEN, 2, 1));
+        // the other shard coalesced OUTPUT requests 1 and 2
+        assertThat(shardSnapshotMerger.addShardSnapshot(shardSnapshot("CZK", Money.ONE, 2, 1)).getEpoch(), is(2L));
+
+        assertThat(shardSnapshotMerger.addShardSnapshot(shardSnapshot("CZK", Money.ONE, 1, 1)), is(nullValue()));
+    }
+
+    private static TransactionLedgerSnapshot shardSnapshot(String currency, Money amount, long appliedPaymentEventCount) {
+        return shardSnapshot(currency, amount, 1, appliedPaymentEventCount);
+    }
+
+    private static TransactionLedgerSnapshot shardSnapshot(String currency, Money amount, long epoch, long appliedPaymentEventCount) {
+        final VersionedTransactionLedger transactionLedger = new VersionedTransactionLedger(new HashMapTransactionLedger());
+        transactionLedger.addPayment(Payment.builder().withCurrency(currency).withAmount(amount).build());
+        return transactionLedger.snapshot(epoch, appliedPaymentEventCount);
+    }
+}